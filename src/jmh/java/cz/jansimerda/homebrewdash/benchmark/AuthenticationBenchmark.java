@@ -0,0 +1,78 @@
+package cz.jansimerda.homebrewdash.benchmark;
+
+import cz.jansimerda.homebrewdash.authentication.AuthenticationFilter;
+import cz.jansimerda.homebrewdash.authentication.AuthenticationProvider;
+import cz.jansimerda.homebrewdash.business.UserSessionCache;
+import cz.jansimerda.homebrewdash.model.UserSession;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Throughput of the bearer token authentication by the AuthenticationFilter. The session is either found
+ * in the session cache, loaded from the database on every request, or the token is invalid and found
+ * in the cache of the rejected tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuthenticationBenchmark {
+
+    @Param({"cached", "uncached", "invalid"})
+    public String token;
+
+    private ConfigurableApplicationContext context;
+
+    private AuthenticationFilter filter;
+
+    private UserSessionCache sessionCache;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        UserSession session = BenchmarkApplication.createSession(
+                context,
+                BenchmarkApplication.createUser(context, "authentication")
+        );
+
+        filter = new AuthenticationFilter(new ProviderManager(context.getBean(AuthenticationProvider.class)));
+        sessionCache = context.getBean(UserSessionCache.class);
+        authorization = "Bearer " + (token.equals("invalid") ? "invalid-token" : session.getToken());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        if (token.equals("uncached")) {
+            sessionCache.invalidateAll();
+        }
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/beers");
+        request.addHeader(AUTHORIZATION, authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+        });
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        // a rejected valid token would be measured as a fast one
+        if ((authentication == null) != token.equals("invalid")) {
+            throw new IllegalStateException("Unexpected authentication of the %s token".formatted(token));
+        }
+
+        return authentication;
+    }
+}
@@ -0,0 +1,101 @@
+package cz.jansimerda.homebrewdash.benchmark;
+
+import cz.jansimerda.homebrewdash.HomebrewDashApplication;
+import cz.jansimerda.homebrewdash.business.meross.MerossWorker;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.UserSession;
+import cz.jansimerda.homebrewdash.repository.UserRepository;
+import cz.jansimerda.homebrewdash.repository.UserSessionRepository;
+import jakarta.servlet.Filter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Application context of the benchmarks backed by an in-memory H2 database, every started context gets its own.
+ * Meross commands succeed right away, so the benchmarks measure the application alone.
+ * Public for the benchmarks of package-private business logic, placed in its package.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    @Configuration
+    static class StubMerossConfiguration {
+
+        @Bean
+        @Primary
+        MerossWorker stubMerossWorker() {
+            return (email, password, deviceName, command) -> new MerossWorker.Result(0, "OK");
+        }
+    }
+
+    /**
+     * Starts the application, the arguments take precedence over the application properties
+     *
+     * @return started application context
+     */
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(HomebrewDashApplication.class, StubMerossConfiguration.class)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-%s;DB_CLOSE_DELAY=-1".formatted(UUID.randomUUID()),
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=sa",
+                        "--server.port=0",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.springframework.web=warn"
+                );
+    }
+
+    /**
+     * @param context started application context
+     * @return MockMvc dispatching the requests through the security filters as the server does
+     */
+    static MockMvc mockMvc(ConfigurableApplicationContext context) {
+        return MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+    }
+
+    /**
+     * @param context  started application context
+     * @param username username of the user
+     * @return stored user
+     */
+    public static User createUser(ConfigurableApplicationContext context, String username) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(username + "@mail.com");
+        user.setPassword("{noop}benchmark");
+        user.setUsername(username);
+        user.setIsAdmin(false);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+
+        return context.getBean(UserRepository.class).save(user);
+    }
+
+    /**
+     * @param context started application context
+     * @param user    user to be authenticated by the session
+     * @return stored session valid for a day
+     */
+    static UserSession createSession(ConfigurableApplicationContext context, User user) {
+        UserSession session = new UserSession();
+        session.setUser(user);
+        session.setToken(user.getUsername() + "-token");
+        session.setExpiresAt(LocalDateTime.now().plusDays(1));
+
+        return context.getBean(UserSessionRepository.class).save(session);
+    }
+}
@@ -0,0 +1,84 @@
+package cz.jansimerda.homebrewdash.benchmark;
+
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.rest.dto.converter.BeerToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.converter.GravityToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.response.BeerGravityDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.BeerResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the gravity and beer DTO converters. The converted gravities cycle through the whole range
+ * of a fermentation with the hydrometer precision, so the rare values needing the exact conversion
+ * are included in their usual proportion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConverterBenchmark {
+
+    private static final int GRAVITY_COUNT = 1001;
+
+    private GravityToDtoConverter gravityConverter;
+
+    private BeerToDtoConverter beerConverter;
+
+    private double[] gravities;
+
+    private int next;
+
+    private Beer beer;
+
+    @Setup
+    public void setUp() {
+        gravityConverter = new GravityToDtoConverter();
+        beerConverter = new BeerToDtoConverter(gravityConverter);
+
+        // from 1.0000 to 1.1000
+        gravities = new double[GRAVITY_COUNT];
+        for (int i = 0; i < GRAVITY_COUNT; i++) {
+            gravities[i] = BigDecimal.valueOf(10_000 + i * 10L, 4).doubleValue();
+        }
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        beer = new Beer();
+        beer.setId(UUID.randomUUID());
+        beer.setName("Benchmark beer");
+        beer.setDescription("Czech pale lager");
+        beer.setOriginalGravity(new BigDecimal("1.048"));
+        beer.setAlcoholByVolume(new BigDecimal("4.4"));
+        beer.setBitternessIbu(40);
+        beer.setColorEbc(8);
+        beer.setVolumeBrewed(new BigDecimal("20.0"));
+        beer.setVolumeRemaining(new BigDecimal("18.5"));
+        beer.setFinalGravityThreshold(new BigDecimal("1.014"));
+        beer.setFinalGravity(new BigDecimal("1.013"));
+        beer.setFermentationTemperatureThreshold(new BigDecimal("10.00"));
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setBrewedAt(LocalDate.now());
+        beer.setCreatedBy(user);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public BeerGravityDto gravity() {
+        next = next + 1 == GRAVITY_COUNT ? 0 : next + 1;
+
+        return gravityConverter.convert(gravities[next]);
+    }
+
+    @Benchmark
+    public BeerResponseDto beer() {
+        return beerConverter.apply(beer);
+    }
+}
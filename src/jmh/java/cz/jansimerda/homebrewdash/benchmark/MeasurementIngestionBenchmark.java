@@ -0,0 +1,112 @@
+package cz.jansimerda.homebrewdash.benchmark;
+
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the hydrometer readings stored through the MeasurementController, from the security filters
+ * to the serialized response, including the hydrometer token lookup, the database writes and the events
+ * of the stored measurements. Readings are posted one by one as sent by a hydrometer and in batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MeasurementIngestionBenchmark {
+
+    private static final int BATCH_SIZE = 20;
+
+    private static final String READING = """
+            {"name":"iSpindel000","ID":1234567,"token":"hydro-token","angle":58.92345678,"temperature":20.125,
+            "temp_units":"C","battery":3.912345678,"gravity":1.04512345,"interval":900,"RSSI":-70}""";
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    private byte[] reading;
+
+    private byte[] batch;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        mockMvc = BenchmarkApplication.mockMvc(context);
+        User user = BenchmarkApplication.createUser(context, "ingestion");
+
+        Beer beer = new Beer();
+        beer.setName("Benchmark beer");
+        beer.setCreatedBy(user);
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel000");
+        hydrometer.setToken("hydro-token");
+        hydrometer.setIsActive(true);
+        hydrometer.setAssignedBeer(context.getBean(BeerRepository.class).save(beer));
+        hydrometer.setCreatedBy(user);
+        hydrometer.setCreatedAt(LocalDateTime.now());
+        hydrometer.setUpdatedAt(LocalDateTime.now());
+        context.getBean(HydrometerRepository.class).save(hydrometer);
+
+        reading = READING.getBytes(StandardCharsets.UTF_8);
+        batch = ("[" + String.join(",", Collections.nCopies(BATCH_SIZE, READING)) + "]").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] single() throws Exception {
+        return post("/api/v1/measurements", reading, HttpStatus.CREATED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[] batch() throws Exception {
+        return post("/api/v1/measurements/batch", batch, HttpStatus.OK);
+    }
+
+    /**
+     * @param uri      URI of the endpoint
+     * @param body     request body
+     * @param expected expected status of the response
+     * @return response body
+     */
+    private byte[] post(String uri, byte[] body, HttpStatus expected) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(uri)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(body)
+                )
+                .andReturn()
+                .getResponse();
+        // a failing request would be measured as a fast one
+        if (response.getStatus() != expected.value()) {
+            throw new IllegalStateException("Posting to %s responded with %d".formatted(uri, response.getStatus()));
+        }
+
+        return response.getContentAsByteArray();
+    }
+}
@@ -0,0 +1,153 @@
+package cz.jansimerda.homebrewdash.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.rest.dto.converter.DtoToMeasurementConverter;
+import cz.jansimerda.homebrewdash.rest.dto.converter.GravityToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.converter.MeasurementToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.request.MeasurementCreateRequestDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a single hydrometer reading from the request body to the serialized response, without the database.
+ * The bigDecimal benchmark reproduces the former pipeline converting and serializing the sensor values
+ * as BigDecimal, the primitive one runs the current converters. Run with the gc profiler (./gradlew jmh)
+ * to compare the allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MeasurementPipelineBenchmark {
+
+    /**
+     * temperature unit sent by the hydrometer, Fahrenheit readings have to be converted
+     */
+    @Param({"C", "F"})
+    public String unit;
+
+    private byte[] body;
+
+    private ObjectMapper objectMapper;
+
+    private DtoToMeasurementConverter toEntityConverter;
+
+    private MeasurementToDtoConverter toDtoConverter;
+
+    private Beer beer;
+
+    @Setup
+    public void setUp() {
+        body = ("""
+                {"name":"iSpindel000","ID":1234567,"token":"hydro-token","angle":58.92345678,"temperature":20.125,
+                "temp_units":"%s","battery":3.912345678,"gravity":1.04512345,"interval":900,"RSSI":-70}
+                """).formatted(unit).getBytes(StandardCharsets.UTF_8);
+        // configured as the ObjectMapper of the application
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        toEntityConverter = new DtoToMeasurementConverter();
+        toDtoConverter = new MeasurementToDtoConverter(new GravityToDtoConverter());
+        beer = new Beer();
+        beer.setId(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public byte[] primitive() throws IOException {
+        MeasurementCreateRequestDto request = objectMapper.readValue(body, MeasurementCreateRequestDto.class);
+        Measurement measurement = toEntityConverter.apply(request);
+        measurement.setId(UUID.randomUUID());
+        measurement.setBeer(beer);
+        measurement.setCreatedAt(LocalDateTime.now());
+        measurement.setUpdatedAt(measurement.getCreatedAt());
+
+        return objectMapper.writeValueAsBytes(toDtoConverter.apply(measurement));
+    }
+
+    @Benchmark
+    public byte[] bigDecimal() throws IOException {
+        BigDecimalRequest request = objectMapper.readValue(body, BigDecimalRequest.class);
+        BigDecimal temperature = request.temperature;
+        if ("F".equals(request.tempUnits)) {
+            temperature = temperature.subtract(new BigDecimal(32))
+                    .multiply(new BigDecimal(5))
+                    .divide(new BigDecimal(9), RoundingMode.HALF_UP);
+        }
+
+        BigDecimalResponse response = new BigDecimalResponse();
+        response.id = UUID.randomUUID();
+        response.angle = request.angle;
+        response.temperature = temperature;
+        response.battery = request.battery;
+        response.gravity = new BigDecimalGravity();
+        response.gravity.specificGravity = request.gravity;
+        BigDecimal plato = new BigDecimal("-460.234")
+                .add(new BigDecimal("662.649").multiply(request.gravity))
+                .subtract(new BigDecimal("202.41").multiply(request.gravity.pow(2)));
+        response.gravity.plato = new DecimalFormat("0.00").format(plato);
+        response.interval = request.interval;
+        response.rssi = request.rssi;
+        response.beerId = beer.getId();
+        response.createdAt = LocalDateTime.now();
+        response.updatedAt = response.createdAt;
+
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * Request body of the former pipeline
+     */
+    public static class BigDecimalRequest {
+        public String token;
+        public BigDecimal angle;
+        public BigDecimal temperature;
+        @JsonProperty("temp_units")
+        public String tempUnits;
+        public BigDecimal battery;
+        public BigDecimal gravity;
+        public int interval;
+        @JsonProperty("RSSI")
+        public int rssi;
+    }
+
+    /**
+     * Response body of the former pipeline
+     */
+    public static class BigDecimalResponse {
+        public UUID id;
+        public BigDecimal angle;
+        public BigDecimal temperature;
+        public BigDecimal battery;
+        public BigDecimalGravity gravity;
+        public int interval;
+        public int rssi;
+        public UUID hydrometerId;
+        public UUID beerId;
+        public boolean hidden;
+        public LocalDateTime updatedAt;
+        public LocalDateTime createdAt;
+    }
+
+    /**
+     * Gravity of the response body of the former pipeline
+     */
+    public static class BigDecimalGravity {
+        public BigDecimal specificGravity;
+        public String plato;
+    }
+}
@@ -0,0 +1,129 @@
+package cz.jansimerda.homebrewdash.benchmark;
+
+import cz.jansimerda.homebrewdash.business.ThermostatService;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.Thermostat;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import cz.jansimerda.homebrewdash.repository.ThermostatRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the decisions of ThermostatService.switchThermostat for every control mode, including
+ * the database writes and the stubbed Meross commands. The temperature either stays close to the target,
+ * so the thermostat holds its state, or alternates around it, so the thermostat keeps being switched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThermostatSwitchingBenchmark {
+
+    private static final double TARGET = 20;
+
+    @Param({"HYSTERESIS", "PID", "DUTY_CYCLE"})
+    public ThermostatControlModeEnum mode;
+
+    @Param({"hold", "switch"})
+    public String decision;
+
+    private ConfigurableApplicationContext context;
+
+    private ThermostatService service;
+
+    private Thermostat thermostat;
+
+    private Measurement measurement;
+
+    private boolean warm;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        User user = BenchmarkApplication.createUser(context, "switching");
+
+        Beer beer = new Beer();
+        beer.setName("Benchmark beer");
+        beer.setCreatedBy(user);
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setFermentationTemperatureThreshold(BigDecimal.valueOf(TARGET));
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel000");
+        hydrometer.setToken("hydro-token");
+        hydrometer.setIsActive(true);
+        hydrometer.setAssignedBeer(context.getBean(BeerRepository.class).save(beer));
+        hydrometer.setCreatedBy(user);
+        hydrometer.setCreatedAt(LocalDateTime.now());
+        hydrometer.setUpdatedAt(LocalDateTime.now());
+        hydrometer = context.getBean(HydrometerRepository.class).save(hydrometer);
+
+        // the latest measurement of the hydrometer is maintained by the ingestion
+        BenchmarkApplication.mockMvc(context).perform(
+                MockMvcRequestBuilders
+                        .post("/api/v1/measurements")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"token":"hydro-token","angle":58.9,"temperature":20.1,"temp_units":"C",
+                                "battery":3.9,"gravity":1.045,"interval":900,"RSSI":-70}""")
+        );
+
+        Thermostat entity = new Thermostat();
+        entity.setName("Benchmark thermostat");
+        entity.setDeviceName("Smart Plug");
+        entity.setEmail("switching@mail.com");
+        entity.setPassword("mypass");
+        entity.setIsHeating(true);
+        entity.setIsActive(true);
+        entity.setIsPoweredOn(false);
+        entity.setState(ThermostatStateEnum.READY);
+        entity.setControlMode(mode);
+        entity.setHydrometer(hydrometer);
+        entity.setCreatedBy(user);
+        entity.setCreatedAt(LocalDateTime.now());
+        entity.setUpdatedAt(LocalDateTime.now());
+        ThermostatRepository repository = context.getBean(ThermostatRepository.class);
+        thermostat = repository.findById(repository.save(entity).getId()).orElseThrow();
+        measurement = thermostat.getLastMeasurement().orElseThrow();
+
+        service = context.getBean(ThermostatService.class);
+    }
+
+    /**
+     * Keeps the measurement recent, older measurements turn the thermostat off
+     */
+    @Setup(Level.Iteration)
+    public void refreshMeasurement() {
+        measurement.setCreatedAt(LocalDateTime.now());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean switchThermostat() {
+        if (decision.equals("switch")) {
+            warm = !warm;
+            measurement.setTemperature(warm ? TARGET + 2 : TARGET - 2);
+        }
+        service.switchThermostat(thermostat);
+
+        return thermostat.isPoweredOn();
+    }
+}
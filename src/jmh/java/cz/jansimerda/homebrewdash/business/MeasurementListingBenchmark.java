@@ -0,0 +1,105 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.benchmark.BenchmarkApplication;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.MeasurementView;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of listing all measurements of a beer page by page, as entities and as projections constructed
+ * by the query. Every page is read by its own persistence context, as every request starts with an empty one.
+ * Placed in the business package to reach the package-private KeysetPagination.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MeasurementListingBenchmark {
+
+    private static final int MEASUREMENT_COUNT = 10_000;
+
+    @Param({"entities", "views"})
+    public String listing;
+
+    private ConfigurableApplicationContext context;
+
+    private MeasurementRepository measurementRepository;
+
+    private EntityManager entityManager;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        measurementRepository = context.getBean(MeasurementRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        User user = BenchmarkApplication.createUser(context, "listing");
+
+        Beer beer = new Beer();
+        beer.setName("Benchmark beer");
+        beer.setCreatedBy(user);
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+        beer = context.getBean(BeerRepository.class).save(beer);
+
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < MEASUREMENT_COUNT; i++) {
+            Measurement measurement = new Measurement();
+            measurement.setAngle(58.9);
+            measurement.setTemperature(20.12);
+            measurement.setBattery(3.9);
+            measurement.setSpecificGravity(1.045);
+            measurement.setInterval(300);
+            measurement.setRssi(-70);
+            measurement.setBeer(beer);
+            measurement.setIsHidden(false);
+            measurements.add(measurement);
+        }
+        measurementRepository.saveAll(measurements);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listAll() {
+        int count = 0;
+        String after = null;
+        do {
+            PageQuery query = new PageQuery(PageQuery.MAX_LIMIT, after, null, null, Map.of());
+            KeysetPage<?> page = listing.equals("entities")
+                    ? KeysetPagination.readPage(measurementRepository, Measurement.class, null, query)
+                    : KeysetPagination.readViewPage(
+                            entityManager,
+                            Measurement.class,
+                            MeasurementView.class,
+                            MeasurementView.ATTRIBUTES,
+                            null,
+                            query
+                    );
+            count += page.getItems().size();
+            after = page.getNextCursor().orElse(null);
+        } while (after != null);
+
+        // listing fewer measurements would be measured as a faster listing
+        if (count != MEASUREMENT_COUNT) {
+            throw new IllegalStateException("Listed %d of %d measurements".formatted(count, MEASUREMENT_COUNT));
+        }
+
+        return count;
+    }
+}
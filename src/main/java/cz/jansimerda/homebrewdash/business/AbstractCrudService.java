@@ -1,11 +1,17 @@
 package cz.jansimerda.homebrewdash.business;
 
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.model.CreationAware;
 import cz.jansimerda.homebrewdash.model.DomainEntity;
-import org.springframework.data.jpa.repository.JpaRepository;
+import cz.jansimerda.homebrewdash.repository.DomainRepository;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -18,10 +24,19 @@ public abstract class AbstractCrudService<E extends DomainEntity<K>, K> {
     /**
      * Reference to data (persistence) layer.
      */
-    private final JpaRepository<E, K> repository;
+    private final DomainRepository<E, K> repository;
 
-    protected AbstractCrudService(JpaRepository<E, K> repository) {
+    /**
+     * Class of the entities, needed to tell how they can be ordered
+     */
+    private final Class<E> entityClass;
+
+    @SuppressWarnings("unchecked")
+    protected AbstractCrudService(DomainRepository<E, K> repository) {
         this.repository = repository;
+        this.entityClass = (Class<E>) Objects.requireNonNull(
+                GenericTypeResolver.resolveTypeArguments(getClass(), AbstractCrudService.class)
+        )[0];
     }
 
     /**
@@ -53,6 +68,24 @@ public abstract class AbstractCrudService<E extends DomainEntity<K>, K> {
         return repository.findAll();
     }
 
+    /**
+     * Fetches a single page of entities accessible to current user, matching the filters of the query
+     *
+     * @param query requested page and filters
+     * @return page of entities
+     * @throws ConditionsNotMetException if the query contains an invalid cursor or filter
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<E> readAll(PageQuery query) throws ConditionsNotMetException {
+        Specification<E> specification = Specification.where(ListSpecifications.<E>fetching(fetchedAssociations()))
+                .and(accessibleSpecification());
+        for (Map.Entry<String, String> filter : query.getFilters().entrySet()) {
+            specification = specification.and(filterSpecification(filter.getKey(), filter.getValue()));
+        }
+
+        return KeysetPagination.readPage(repository, entityClass, specification, query);
+    }
+
     /**
      * Attempts to replace an already stored entity.
      *
@@ -83,4 +116,35 @@ public abstract class AbstractCrudService<E extends DomainEntity<K>, K> {
         }
         repository.deleteById(id);
     }
+
+    /**
+     * Returns the condition of entities accessible to current user when listing them
+     *
+     * @return condition, null if all entities are accessible
+     */
+    protected Specification<E> accessibleSpecification() {
+        return null;
+    }
+
+    /**
+     * Returns the associations fetched together with the entities when listing them,
+     * these should cover all the associations read by the converter of the entity
+     *
+     * @return dot separated paths of the associations
+     */
+    protected List<String> fetchedAssociations() {
+        return List.of();
+    }
+
+    /**
+     * Returns the condition of entities matching the filter when listing them
+     *
+     * @param name  name of the filter
+     * @param value value of the filter
+     * @return condition
+     * @throws ConditionsNotMetException if the filter is unsupported or its value is invalid
+     */
+    protected Specification<E> filterSpecification(String name, String value) throws ConditionsNotMetException {
+        throw new ConditionsNotMetException("Unsupported filter %s".formatted(name));
+    }
 }
@@ -0,0 +1,60 @@
+package cz.jansimerda.homebrewdash.business;
+
+import java.util.Optional;
+
+/**
+ * Outcome of a single item of a batch operation, holding either the resulting value or the error
+ * which prevented the item from being processed.
+ *
+ * @param <T> type of the resulting value
+ */
+public final class BatchItemResult<T> {
+
+    private final T value;
+
+    private final RuntimeException error;
+
+    private BatchItemResult(T value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * @param value resulting value
+     * @param <T>   type of the resulting value
+     * @return successful result
+     */
+    public static <T> BatchItemResult<T> success(T value) {
+        return new BatchItemResult<>(value, null);
+    }
+
+    /**
+     * @param error error preventing the item from being processed
+     * @param <T>   type of the resulting value
+     * @return failed result
+     */
+    public static <T> BatchItemResult<T> failure(RuntimeException error) {
+        return new BatchItemResult<>(null, error);
+    }
+
+    /**
+     * @return true if the item has been processed
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return resulting value if the item has been processed
+     */
+    public Optional<T> getValue() {
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * @return error if the item could not be processed
+     */
+    public Optional<RuntimeException> getError() {
+        return Optional.ofNullable(error);
+    }
+}
@@ -7,6 +7,7 @@ import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
 import cz.jansimerda.homebrewdash.model.Beer;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
 import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
@@ -22,9 +23,12 @@ public class BeerService extends AbstractCrudService<Beer, UUID> {
 
     private final BeerRepository repository;
 
-    protected BeerService(BeerRepository repository) {
+    private final HydrometerTokenCache tokenCache;
+
+    protected BeerService(BeerRepository repository, HydrometerTokenCache tokenCache) {
         super(repository);
         this.repository = repository;
+        this.tokenCache = tokenCache;
     }
 
     /**
@@ -63,6 +67,41 @@ public class BeerService extends AbstractCrudService<Beer, UUID> {
         return repository.findByCreatedById(details.getId());
     }
 
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("createdBy");
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected Specification<Beer> accessibleSpecification() {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (details.isAdmin()) {
+            return null;
+        }
+
+        return ListSpecifications.referencing("createdBy", details.getId());
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected Specification<Beer> filterSpecification(String name, String value) throws ConditionsNotMetException {
+        return switch (name) {
+            case "state" -> ListSpecifications.equal(
+                    "state",
+                    PageQuery.parseFilter(name, value, BrewStateEnum::valueOf)
+            );
+            default -> super.filterSpecification(name, value);
+        };
+    }
+
     /**
      * @inheritDoc
      */
@@ -95,6 +134,8 @@ public class BeerService extends AbstractCrudService<Beer, UUID> {
         Beer beer = repository.findById(id).orElseThrow(() -> new EntityNotFoundException(Beer.class, id));
         ensureIsAccessible(beer);
         repository.deleteById(id);
+        // hydrometers the beer was assigned to are left without a beer
+        tokenCache.invalidateBeer(id);
     }
 
     /**
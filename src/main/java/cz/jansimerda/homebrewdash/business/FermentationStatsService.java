@@ -0,0 +1,335 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
+import cz.jansimerda.homebrewdash.exception.exposed.ConflictException;
+import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
+import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
+import cz.jansimerda.homebrewdash.model.*;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.FermentationAggregateRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the running fermentation aggregates of beers and derives their fermentation statistics.
+ * Aggregates are updated incrementally as the measurements are stored, they are only rebuilt from the measurements
+ * when a stored measurement changes or is deleted, or when a beer has none yet.
+ */
+@Service
+public class FermentationStatsService {
+
+    /**
+     * number of seconds in a day, times of the regression are measured in days
+     */
+    private static final double SECONDS_PER_DAY = 86_400;
+
+    /**
+     * minimal weighted standard deviation of the measurement times in days, measurements taken within a shorter time
+     * don't provide a meaningful trend of the gravity
+     */
+    private static final double MIN_TREND_SPREAD_DAYS = 1.0 / 24;
+
+    /**
+     * finish estimated further than this number of days after the last measurement is considered unknown
+     */
+    private static final long MAX_ESTIMATE_DAYS = 365;
+
+    /**
+     * ABV in percent per a point of specific gravity fermented
+     */
+    private static final double ABV_PER_GRAVITY = 131.25;
+
+    private final FermentationAggregateRepository aggregateRepository;
+
+    private final MeasurementRepository measurementRepository;
+
+    private final BeerRepository beerRepository;
+
+    /**
+     * half-life of the weights of the measurements in the gravity regression, in days
+     */
+    private final double halfLifeDays;
+
+    public FermentationStatsService(
+            FermentationAggregateRepository aggregateRepository,
+            MeasurementRepository measurementRepository,
+            BeerRepository beerRepository,
+            @Value("${fermentation.regression.half-life-hours:24}") double halfLifeHours
+    ) {
+        this.aggregateRepository = aggregateRepository;
+        this.measurementRepository = measurementRepository;
+        this.beerRepository = beerRepository;
+        this.halfLifeDays = halfLifeHours / 24;
+    }
+
+    /**
+     * Adds newly stored measurements to the aggregates of their beers, hidden measurements are skipped.
+     * Aggregates are locked in the order of the beer IDs, so concurrent recording cannot deadlock.
+     *
+     * @param measurements newly stored measurements
+     * @throws ConflictException if the aggregate of a beer has been created concurrently
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Measurement> measurements) throws ConflictException {
+        Map<UUID, List<GravityReading>> readings = new TreeMap<>();
+        for (Measurement measurement : measurements) {
+            if (!measurement.isHidden()) {
+                readings.computeIfAbsent(measurement.getBeer().getId(), id -> new ArrayList<>())
+                        .add(GravityReading.of(measurement));
+            }
+        }
+
+        readings.forEach((beerId, beerReadings) -> {
+            Optional<FermentationAggregate> aggregate = aggregateRepository.findForUpdate(beerId);
+            if (aggregate.isEmpty()) {
+                // the new measurements are already flushed, so the rebuilt aggregate includes them
+                createAggregate(beerId);
+                return;
+            }
+
+            beerReadings.stream()
+                    .sorted(Comparator.comparing(GravityReading::measuredAt))
+                    .forEach(r -> add(aggregate.get(), r));
+        });
+    }
+
+    /**
+     * Rebuilds the aggregate of a beer from its measurements, e.g. after a measurement has been changed or deleted
+     *
+     * @param beerId ID of the beer
+     * @throws ConflictException if the aggregate has been created concurrently
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rebuild(UUID beerId) throws ConflictException {
+        measurementRepository.flush();
+        Optional<FermentationAggregate> existing = aggregateRepository.findForUpdate(beerId);
+        if (existing.isEmpty()) {
+            createAggregate(beerId);
+            return;
+        }
+
+        FermentationAggregate aggregate = existing.get();
+        aggregate.setMeasurementCount(0);
+        try (Stream<GravityReading> readings = measurementRepository.streamReadingsByBeerId(beerId)) {
+            readings.forEach(r -> add(aggregate, r));
+        }
+        if (aggregate.getMeasurementCount() == 0) {
+            aggregateRepository.delete(aggregate);
+        }
+    }
+
+    /**
+     * Fetches fermentation statistics of a beer
+     *
+     * @param beerId ID of the beer
+     * @return fermentation statistics
+     * @throws EntityNotFoundException if the beer cannot be found
+     * @throws AccessDeniedException   if User doesn't have access to the beer
+     */
+    @Transactional(readOnly = true)
+    public FermentationStats readByBeerId(UUID beerId) throws EntityNotFoundException, AccessDeniedException {
+        Beer beer = beerRepository.findById(beerId).orElseThrow(() -> new EntityNotFoundException(Beer.class, beerId));
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (!details.isAdmin() && !beer.getCreatedBy().getId().equals(details.getId())) {
+            throw new AccessDeniedException("You don't have access to this beer");
+        }
+
+        Optional<FermentationAggregate> aggregate = aggregateRepository.findById(beerId);
+        if (aggregate.isEmpty()) {
+            // beers measured before the aggregates were introduced
+            aggregate = Optional.of(buildAggregate(beerId)).filter(a -> a.getMeasurementCount() > 0);
+        }
+
+        return aggregate.map(a -> createStats(beer, a)).orElseGet(() -> FermentationStats.empty(beerId));
+    }
+
+    /**
+     * Builds and stores the aggregate of a beer from its measurements
+     *
+     * @param beerId ID of the beer
+     * @throws ConflictException if the aggregate has been created concurrently
+     */
+    private void createAggregate(UUID beerId) throws ConflictException {
+        FermentationAggregate aggregate = buildAggregate(beerId);
+        if (aggregate.getMeasurementCount() == 0) {
+            return;
+        }
+
+        try {
+            aggregateRepository.saveAndFlush(aggregate);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Measurements of the beer have been stored concurrently, please try again");
+        }
+    }
+
+    /**
+     * Builds the aggregate of a beer from its measurements, without storing it
+     *
+     * @param beerId ID of the beer
+     * @return aggregate, with zero count if the beer doesn't have any visible measurement
+     */
+    private FermentationAggregate buildAggregate(UUID beerId) {
+        FermentationAggregate aggregate = new FermentationAggregate();
+        aggregate.setId(beerId);
+        try (Stream<GravityReading> readings = measurementRepository.streamReadingsByBeerId(beerId)) {
+            readings.forEach(r -> add(aggregate, r));
+        }
+
+        return aggregate;
+    }
+
+    /**
+     * Adds a measurement to the aggregate. The weights of the regression are relative to the last measurement,
+     * so a newer measurement decays the sums accumulated so far, while an older one is added with a lower weight.
+     *
+     * @param aggregate aggregate of the beer, reset when its count is zero
+     * @param reading   values of the measurement
+     */
+    private void add(FermentationAggregate aggregate, GravityReading reading) {
+        LocalDateTime measuredAt = reading.measuredAt();
+        double gravity = reading.specificGravity();
+        double temperature = reading.temperature();
+
+        if (aggregate.getMeasurementCount() == 0) {
+            aggregate.setRegressionOrigin(measuredAt);
+            aggregate.setFirstMeasuredAt(measuredAt);
+            aggregate.setLastMeasuredAt(measuredAt);
+            aggregate.setTemperatureMean(0);
+            aggregate.setTemperatureM2(0);
+            aggregate.setTemperatureMin(temperature);
+            aggregate.setTemperatureMax(temperature);
+            aggregate.setWeightSum(0);
+            aggregate.setWeightedTimeSum(0);
+            aggregate.setWeightedGravitySum(0);
+            aggregate.setWeightedTimeSquaredSum(0);
+            aggregate.setWeightedTimeGravitySum(0);
+        }
+
+        double time = days(aggregate.getRegressionOrigin(), measuredAt);
+        double lastTime = days(aggregate.getRegressionOrigin(), aggregate.getLastMeasuredAt());
+        double weight = 1;
+        if (time >= lastTime) {
+            double decay = Math.pow(0.5, (time - lastTime) / halfLifeDays);
+            aggregate.setWeightSum(aggregate.getWeightSum() * decay);
+            aggregate.setWeightedTimeSum(aggregate.getWeightedTimeSum() * decay);
+            aggregate.setWeightedGravitySum(aggregate.getWeightedGravitySum() * decay);
+            aggregate.setWeightedTimeSquaredSum(aggregate.getWeightedTimeSquaredSum() * decay);
+            aggregate.setWeightedTimeGravitySum(aggregate.getWeightedTimeGravitySum() * decay);
+            aggregate.setLastMeasuredAt(measuredAt);
+            aggregate.setLastGravity(gravity);
+            aggregate.setLastTemperature(temperature);
+        } else {
+            weight = Math.pow(0.5, (lastTime - time) / halfLifeDays);
+        }
+        aggregate.setWeightSum(aggregate.getWeightSum() + weight);
+        aggregate.setWeightedTimeSum(aggregate.getWeightedTimeSum() + weight * time);
+        aggregate.setWeightedGravitySum(aggregate.getWeightedGravitySum() + weight * gravity);
+        aggregate.setWeightedTimeSquaredSum(aggregate.getWeightedTimeSquaredSum() + weight * time * time);
+        aggregate.setWeightedTimeGravitySum(aggregate.getWeightedTimeGravitySum() + weight * time * gravity);
+
+        // Welford's online algorithm of the mean and the variance
+        int count = aggregate.getMeasurementCount() + 1;
+        double delta = temperature - aggregate.getTemperatureMean();
+        aggregate.setMeasurementCount(count);
+        aggregate.setTemperatureMean(aggregate.getTemperatureMean() + delta / count);
+        aggregate.setTemperatureM2(aggregate.getTemperatureM2() + delta * (temperature - aggregate.getTemperatureMean()));
+        aggregate.setTemperatureMin(Math.min(aggregate.getTemperatureMin(), temperature));
+        aggregate.setTemperatureMax(Math.max(aggregate.getTemperatureMax(), temperature));
+        if (measuredAt.isBefore(aggregate.getFirstMeasuredAt())) {
+            aggregate.setFirstMeasuredAt(measuredAt);
+        }
+    }
+
+    /**
+     * Derives the fermentation statistics of a beer from its aggregate
+     *
+     * @param beer      beer entity
+     * @param aggregate aggregate of the beer with at least one measurement
+     * @return fermentation statistics
+     */
+    private FermentationStats createStats(Beer beer, FermentationAggregate aggregate) {
+        double gravity = aggregate.getLastGravity();
+        Double attenuation = null;
+        Double alcoholByVolume = null;
+        Optional<Double> originalGravity = beer.getOriginalGravity().map(BigDecimal::doubleValue);
+        if (originalGravity.isPresent() && originalGravity.get() > 1) {
+            attenuation = (originalGravity.get() - gravity) / (originalGravity.get() - 1) * 100;
+            alcoholByVolume = (originalGravity.get() - gravity) * ABV_PER_GRAVITY;
+        }
+
+        // weighted least squares of the gravity over the time
+        double weights = aggregate.getWeightSum();
+        double times = aggregate.getWeightedTimeSum();
+        double denominator = weights * aggregate.getWeightedTimeSquaredSum() - times * times;
+        Double slope = null;
+        LocalDateTime estimatedFinishedAt = null;
+        double timeVariance = denominator / (weights * weights);
+        if (aggregate.getMeasurementCount() > 1 && timeVariance >= MIN_TREND_SPREAD_DAYS * MIN_TREND_SPREAD_DAYS) {
+            slope = (weights * aggregate.getWeightedTimeGravitySum() - times * aggregate.getWeightedGravitySum())
+                    / denominator;
+            double intercept = (aggregate.getWeightedGravitySum() - slope * times) / weights;
+            estimatedFinishedAt = estimateFinish(beer, aggregate, slope, intercept);
+        }
+
+        int count = aggregate.getMeasurementCount();
+        return new FermentationStats(
+                beer.getId(),
+                count,
+                aggregate.getFirstMeasuredAt(),
+                aggregate.getLastMeasuredAt(),
+                gravity,
+                aggregate.getLastTemperature(),
+                attenuation,
+                alcoholByVolume,
+                slope,
+                aggregate.getTemperatureMean(),
+                count > 1 ? Math.sqrt(aggregate.getTemperatureM2() / (count - 1)) : null,
+                aggregate.getTemperatureMin(),
+                aggregate.getTemperatureMax(),
+                estimatedFinishedAt
+        );
+    }
+
+    /**
+     * Estimates when the regression line of the gravity reaches the final gravity threshold of the beer
+     *
+     * @param beer      beer entity
+     * @param aggregate aggregate of the beer
+     * @param slope     change of the gravity per day
+     * @param intercept gravity at the regression origin
+     * @return estimated date and time, null if the gravity isn't falling towards a known threshold
+     */
+    private LocalDateTime estimateFinish(Beer beer, FermentationAggregate aggregate, double slope, double intercept) {
+        Optional<BigDecimal> threshold = beer.getFinalGravityThreshold();
+        if (threshold.isEmpty() || slope >= 0) {
+            return null;
+        }
+
+        double days = (threshold.get().doubleValue() - intercept) / slope;
+        if (days - days(aggregate.getRegressionOrigin(), aggregate.getLastMeasuredAt()) > MAX_ESTIMATE_DAYS) {
+            return null;
+        }
+
+        return aggregate.getRegressionOrigin().plusSeconds(Math.round(days * SECONDS_PER_DAY));
+    }
+
+    /**
+     * @param from beginning of the interval
+     * @param to   end of the interval
+     * @return length of the interval in days
+     */
+    private double days(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / (SECONDS_PER_DAY * 1000);
+    }
+}
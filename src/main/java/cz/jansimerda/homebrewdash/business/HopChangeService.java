@@ -1,16 +1,20 @@
 package cz.jansimerda.homebrewdash.business;
 
+import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
 import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
 import cz.jansimerda.homebrewdash.model.Hop;
 import cz.jansimerda.homebrewdash.model.HopChange;
+import cz.jansimerda.homebrewdash.model.StockLot;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.repository.HopChangeRepository;
 import cz.jansimerda.homebrewdash.repository.HopRepository;
 import cz.jansimerda.homebrewdash.repository.UserRepository;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,26 +30,25 @@ public class HopChangeService extends AbstractCrudService<HopChange, UUID> {
 
     private final UserRepository userRepository;
 
+    private final StockLedgerService stockLedgerService;
+
     protected HopChangeService(
             HopChangeRepository hopChangeRepository,
             HopRepository hopRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            StockLedgerService stockLedgerService
     ) {
         super(hopChangeRepository);
         this.hopChangeRepository = hopChangeRepository;
         this.hopRepository = hopRepository;
         this.userRepository = userRepository;
+        this.stockLedgerService = stockLedgerService;
     }
 
     @Override
+    @Transactional
     public HopChange create(HopChange entity) {
-        modifyingPreChecks(entity, c -> c.getChangeGrams() >= 0 || hopChangeRepository.sumChangeByHopAndUser(
-                c.getHop().getId(),
-                c.getAlphaAcidPercentage(),
-                c.getBetaAcidPercentage(),
-                c.getHarvestedAt(),
-                c.getUser().getId()
-        ) + c.getChangeGrams() >= 0);
+        modifyingPreChecks(entity, c -> stockLedgerService.adjust(StockLot.of(c), c.getChangeGrams()));
 
         return super.create(entity);
     }
@@ -68,33 +71,51 @@ public class HopChangeService extends AbstractCrudService<HopChange, UUID> {
     }
 
     @Override
+    protected Specification<HopChange> accessibleSpecification() {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (details.isAdmin()) {
+            return null;
+        }
+
+        return ListSpecifications.referencing("user", details.getId());
+    }
+
+    @Override
+    protected Specification<HopChange> filterSpecification(String name, String value) throws ConditionsNotMetException {
+        return switch (name) {
+            case "hopId" -> ListSpecifications.referencing(
+                    "hop",
+                    PageQuery.parseFilter(name, value, UUID::fromString)
+            );
+            default -> super.filterSpecification(name, value);
+        };
+    }
+
+    @Override
+    @Transactional
     public HopChange update(HopChange entity) throws EntityNotFoundException {
-        modifyingPreChecks(entity, c -> hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                c.getHop().getId(),
-                c.getAlphaAcidPercentage(),
-                c.getBetaAcidPercentage(),
-                c.getHarvestedAt(),
-                c.getUser().getId(),
-                c.getId()
-        ) + c.getChangeGrams() >= 0);
+        modifyingPreChecks(entity, c -> {
+            HopChange existing = hopChangeRepository.findById(c.getId())
+                    .orElseThrow(() -> new EntityNotFoundException(HopChange.class, c.getId()));
+            return stockLedgerService.replace(
+                    StockLot.of(existing),
+                    existing.getChangeGrams(),
+                    StockLot.of(c),
+                    c.getChangeGrams()
+            );
+        });
 
         return super.update(entity);
     }
 
     @Override
+    @Transactional
     public void deleteById(UUID id) throws EntityNotFoundException {
         HopChange change = hopChangeRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(HopChange.class, id));
 
         ensureUserIsAccessible(change.getUser().getId());
-        if (change.getChangeGrams() > 0 && hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                change.getHop().getId(),
-                change.getAlphaAcidPercentage(),
-                change.getBetaAcidPercentage(),
-                change.getHarvestedAt(),
-                change.getUser().getId(),
-                change.getId()
-        ) < 0) {
+        if (!stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())) {
             throw new ConditionsNotMetException(
                     "Cannot remove this Hop change as it would cause the Hop stock to go negative"
             );
@@ -146,4 +167,12 @@ public class HopChangeService extends AbstractCrudService<HopChange, UUID> {
             throw new AccessDeniedException("Cannot access hop changes of user with ID %s".formatted(userId));
         }
     }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("user", "hop", "hop.createdBy");
+    }
 }
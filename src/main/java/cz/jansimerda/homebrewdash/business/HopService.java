@@ -9,6 +9,7 @@ import cz.jansimerda.homebrewdash.repository.HopRepository;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -16,9 +17,12 @@ public class HopService extends AbstractCrudService<Hop, UUID> {
 
     private final HopRepository repository;
 
-    protected HopService(HopRepository repository) {
+    private final InventoryCache inventoryCache;
+
+    protected HopService(HopRepository repository, InventoryCache inventoryCache) {
         super(repository);
         this.repository = repository;
+        this.inventoryCache = inventoryCache;
     }
 
     @Override
@@ -44,7 +48,11 @@ public class HopService extends AbstractCrudService<Hop, UUID> {
         ensureCanModifyEntity(existing);
 
         entity.setCreatedBy(existing.getCreatedBy());
-        return repository.save(entity);
+        Hop updated = repository.save(entity);
+        // inventories list the hop by its name, whoever has it in stock
+        inventoryCache.invalidateAllAfterCommit();
+
+        return updated;
     }
 
     @Override
@@ -59,6 +67,7 @@ public class HopService extends AbstractCrudService<Hop, UUID> {
         }
 
         repository.deleteById(id);
+        inventoryCache.invalidateAllAfterCommit();
     }
 
     /**
@@ -83,4 +92,12 @@ public class HopService extends AbstractCrudService<Hop, UUID> {
             throw new AccessDeniedException("Missing authorization to modify this hop");
         }
     }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("createdBy");
+    }
 }
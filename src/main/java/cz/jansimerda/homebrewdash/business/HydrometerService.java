@@ -1,6 +1,7 @@
 package cz.jansimerda.homebrewdash.business;
 
 import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
 import cz.jansimerda.homebrewdash.helpers.TokenHelper;
@@ -8,6 +9,7 @@ import cz.jansimerda.homebrewdash.model.Beer;
 import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.repository.BeerRepository;
 import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
@@ -22,10 +24,17 @@ public class HydrometerService extends AbstractCrudService<Hydrometer, UUID> {
 
     private final BeerRepository beerRepository;
 
-    protected HydrometerService(HydrometerRepository hydrometerRepository, BeerRepository beerRepository) {
+    private final HydrometerTokenCache tokenCache;
+
+    protected HydrometerService(
+            HydrometerRepository hydrometerRepository,
+            BeerRepository beerRepository,
+            HydrometerTokenCache tokenCache
+    ) {
         super(hydrometerRepository);
         this.hydrometerRepository = hydrometerRepository;
         this.beerRepository = beerRepository;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -54,6 +63,31 @@ public class HydrometerService extends AbstractCrudService<Hydrometer, UUID> {
         return hydrometerRepository.findByCreatedById(details.getId());
     }
 
+    @Override
+    protected Specification<Hydrometer> accessibleSpecification() {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (details.isAdmin()) {
+            return null;
+        }
+
+        return ListSpecifications.referencing("createdBy", details.getId());
+    }
+
+    @Override
+    protected Specification<Hydrometer> filterSpecification(String name, String value) throws ConditionsNotMetException {
+        return switch (name) {
+            case "active" -> ListSpecifications.equal(
+                    "active",
+                    PageQuery.parseFilter(name, value, PageQuery::parseBoolean)
+            );
+            case "beerId" -> ListSpecifications.referencing(
+                    "assignedBeer",
+                    PageQuery.parseFilter(name, value, UUID::fromString)
+            );
+            default -> super.filterSpecification(name, value);
+        };
+    }
+
     @Override
     public Hydrometer update(Hydrometer entity) throws EntityNotFoundException {
         Hydrometer existing = hydrometerRepository.findById(entity.getId())
@@ -66,7 +100,10 @@ public class HydrometerService extends AbstractCrudService<Hydrometer, UUID> {
         entity.setToken(existing.getToken());
         fillAssignedBeer(entity);
 
-        return hydrometerRepository.save(entity);
+        Hydrometer updated = hydrometerRepository.save(entity);
+        tokenCache.invalidate(existing.getToken());
+
+        return updated;
     }
 
     @Override
@@ -75,6 +112,7 @@ public class HydrometerService extends AbstractCrudService<Hydrometer, UUID> {
                 .orElseThrow(() -> new EntityNotFoundException(Hydrometer.class, id));
         ensureIsAccessible(hydrometer);
         hydrometerRepository.deleteById(id);
+        tokenCache.invalidate(hydrometer.getToken());
     }
 
     /**
@@ -110,4 +148,12 @@ public class HydrometerService extends AbstractCrudService<Hydrometer, UUID> {
 
         hydrometer.setAssignedBeer(beer);
     }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("createdBy", "assignedBeer", "assignedBeer.createdBy");
+    }
 }
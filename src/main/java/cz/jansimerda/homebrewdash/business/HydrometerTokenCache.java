@@ -0,0 +1,129 @@
+package cz.jansimerda.homebrewdash.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-process cache of hydrometer tokens used by the measurement ingestion, so a steady stream of measurements
+ * doesn't need to look up the hydrometer and its assigned beer for every reading.
+ * Entries are bounded by size and time to live and are invalidated whenever the hydrometer or its beer changes.
+ */
+@Component
+public class HydrometerTokenCache {
+
+    /**
+     * Cached state of a hydrometer relevant to storing its measurements
+     *
+     * @param hydrometerId   ID of the hydrometer
+     * @param ownerId        ID of the user owning the hydrometer
+     * @param active         whether the hydrometer is active
+     * @param assignedBeerId ID of the beer assigned to the hydrometer, null if there is none
+     */
+    public record Entry(UUID hydrometerId, UUID ownerId, boolean active, UUID assignedBeerId) {
+
+        /**
+         * @return ID of the beer assigned to the hydrometer
+         */
+        public Optional<UUID> getAssignedBeerId() {
+            return Optional.ofNullable(assignedBeerId);
+        }
+    }
+
+    /**
+     * name under which the cache statistics are published
+     */
+    private final String METRICS_NAME = "hydrometerTokens";
+
+    private final Cache<String, Entry> cache;
+
+    public HydrometerTokenCache(
+            MeterRegistry meterRegistry,
+            @Value("${hydrometer.token-cache.maximum-size:10000}") long maximumSize,
+            @Value("${hydrometer.token-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRICS_NAME);
+    }
+
+    /**
+     * Fetches the cached entry of the hydrometer with given token
+     *
+     * @param token hydrometer token
+     * @return cached entry if present
+     */
+    public Optional<Entry> get(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(cache.getIfPresent(token));
+    }
+
+    /**
+     * Caches the current state of given hydrometer
+     *
+     * @param hydrometer hydrometer to be cached
+     */
+    public void put(Hydrometer hydrometer) {
+        if (hydrometer.getToken() == null) {
+            return;
+        }
+
+        cache.put(hydrometer.getToken(), new Entry(
+                hydrometer.getId(),
+                hydrometer.getCreatedBy().getId(),
+                hydrometer.isActive(),
+                hydrometer.getAssignedBeer().map(Beer::getId).orElse(null)
+        ));
+    }
+
+    /**
+     * Invalidates the entry of the hydrometer with given token
+     *
+     * @param token hydrometer token
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            cache.invalidate(token);
+        }
+    }
+
+    /**
+     * Invalidates entries of all hydrometers the beer with given ID is assigned to
+     *
+     * @param beerId ID of the beer
+     */
+    public void invalidateBeer(UUID beerId) {
+        cache.asMap().values().removeIf(entry -> beerId.equals(entry.assignedBeerId()));
+    }
+
+    /**
+     * Invalidates entries of all hydrometers owned by the user with given ID
+     *
+     * @param ownerId ID of the user
+     */
+    public void invalidateOwner(UUID ownerId) {
+        cache.asMap().values().removeIf(entry -> ownerId.equals(entry.ownerId()));
+    }
+
+    /**
+     * Invalidates all entries
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,80 @@
+package cz.jansimerda.homebrewdash.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import cz.jansimerda.homebrewdash.helpers.TransactionHelper;
+import cz.jansimerda.homebrewdash.model.Inventory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * In-process cache of the inventories of users, so the stock doesn't need to be summed on every request.
+ * Entries are invalidated whenever the stock of the user changes, the TTL only bounds the staleness
+ * of changes made outside the application.
+ */
+@Component
+public class InventoryCache {
+
+    /**
+     * name under which the cache statistics are published
+     */
+    private final String METRICS_NAME = "inventories";
+
+    private final Cache<UUID, Inventory> cache;
+
+    public InventoryCache(
+            MeterRegistry meterRegistry,
+            @Value("${inventory.cache.maximum-size:1000}") long maximumSize,
+            @Value("${inventory.cache.ttl-seconds:3600}") long ttlSeconds
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRICS_NAME);
+    }
+
+    /**
+     * Fetches the inventory of the user, loading it when not cached
+     *
+     * @param userId ID of the user
+     * @param loader loads the inventory of the user from the database
+     * @return Inventory of the user
+     */
+    public Inventory get(UUID userId, Function<UUID, Inventory> loader) {
+        return cache.get(userId, loader);
+    }
+
+    /**
+     * Invalidates the inventory of the user once the current transaction commits,
+     * so the inventory cannot be loaded again before the change is visible.
+     * Invalidates it immediately when there is no transaction.
+     *
+     * @param userId ID of the user
+     */
+    public void invalidateAfterCommit(UUID userId) {
+        TransactionHelper.runAfterCommit(() -> cache.invalidate(userId));
+    }
+
+    /**
+     * Invalidates all entries once the current transaction commits, immediately when there is no transaction.
+     * Used when an ingredient listed in the inventories of possibly many users changes.
+     */
+    public void invalidateAllAfterCommit() {
+        TransactionHelper.runAfterCommit(cache::invalidateAll);
+    }
+
+    /**
+     * Invalidates all entries
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,60 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
+import cz.jansimerda.homebrewdash.model.Inventory;
+import cz.jansimerda.homebrewdash.repository.HopChangeRepository;
+import cz.jansimerda.homebrewdash.repository.MaltChangeRepository;
+import cz.jansimerda.homebrewdash.repository.YeastChangeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Service
+public class InventoryService {
+
+    private final HopChangeRepository hopChangeRepository;
+
+    private final MaltChangeRepository maltChangeRepository;
+
+    private final YeastChangeRepository yeastChangeRepository;
+
+    private final InventoryCache inventoryCache;
+
+    public InventoryService(
+            HopChangeRepository hopChangeRepository,
+            MaltChangeRepository maltChangeRepository,
+            YeastChangeRepository yeastChangeRepository,
+            InventoryCache inventoryCache
+    ) {
+        this.hopChangeRepository = hopChangeRepository;
+        this.maltChangeRepository = maltChangeRepository;
+        this.yeastChangeRepository = yeastChangeRepository;
+        this.inventoryCache = inventoryCache;
+    }
+
+    /**
+     * Reads ingredients the logged-in user has in stock.
+     * Every kind of ingredient is summed by a single grouped query, the result is cached until the stock changes.
+     *
+     * @return Inventory of the logged-in user
+     */
+    @Transactional(readOnly = true)
+    public Inventory readInventory() {
+        return inventoryCache.get(AuthenticationHelper.getUserDetails().getId(), this::loadInventory);
+    }
+
+    /**
+     * Sums the changes of the user
+     *
+     * @param userId ID of the user
+     * @return Inventory of the user
+     */
+    private Inventory loadInventory(UUID userId) {
+        return new Inventory(
+                hopChangeRepository.findStockByUserId(userId),
+                maltChangeRepository.findStockByUserId(userId),
+                yeastChangeRepository.findStockByUserId(userId)
+        );
+    }
+}
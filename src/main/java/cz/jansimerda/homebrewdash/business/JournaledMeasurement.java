@@ -0,0 +1,70 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.model.Measurement;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Measurement accepted by the write-behind ingestion, kept in the journal until it is stored
+ *
+ * @param id              ID of the measurement to be stored, null for measurements journaled without it
+ * @param token           token of the hydrometer
+ * @param angle           hydrometer angle in degrees
+ * @param temperature     temperature in degrees Celsius
+ * @param battery         battery level in volts
+ * @param specificGravity SG - Specific Gravity
+ * @param interval        measurement interval in seconds
+ * @param rssi            RSSI of Wi-Fi
+ * @param receivedAt      date and time the measurement has been received at
+ */
+public record JournaledMeasurement(
+        UUID id,
+        String token,
+        double angle,
+        double temperature,
+        double battery,
+        double specificGravity,
+        int interval,
+        int rssi,
+        LocalDateTime receivedAt
+) {
+
+    /**
+     * @param id          ID the measurement is stored with
+     * @param measurement received measurement
+     * @param token       token of the hydrometer
+     * @param receivedAt  date and time the measurement has been received at
+     * @return journaled measurement
+     */
+    public static JournaledMeasurement of(UUID id, Measurement measurement, String token, LocalDateTime receivedAt) {
+        return new JournaledMeasurement(
+                id,
+                token,
+                measurement.getAngle(),
+                measurement.getTemperature(),
+                measurement.getBattery(),
+                measurement.getSpecificGravity(),
+                measurement.getInterval(),
+                measurement.getRssi(),
+                receivedAt
+        );
+    }
+
+    /**
+     * @return measurement entity to be stored, created at the date and time of reception
+     */
+    public Measurement toMeasurement() {
+        Measurement measurement = new Measurement();
+        measurement.setAssignedId(id);
+        measurement.setAngle(angle);
+        measurement.setTemperature(temperature);
+        measurement.setBattery(battery);
+        measurement.setSpecificGravity(specificGravity);
+        measurement.setInterval(interval);
+        measurement.setRssi(rssi);
+        measurement.setReceivedAt(receivedAt);
+
+        return measurement;
+    }
+}
@@ -0,0 +1,39 @@
+package cz.jansimerda.homebrewdash.business;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single page of a list together with the cursor the next page continues after
+ *
+ * @param <E> type of the entities
+ */
+public final class KeysetPage<E> {
+
+    private final List<E> items;
+
+    private final String nextCursor;
+
+    /**
+     * @param items      entities of the page
+     * @param nextCursor cursor of the next page, null if this is the last page
+     */
+    public KeysetPage(List<E> items, String nextCursor) {
+        this.items = List.copyOf(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return entities of the page
+     */
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * @return cursor of the next page, empty if this is the last page
+     */
+    public Optional<String> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
@@ -0,0 +1,245 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
+import cz.jansimerda.homebrewdash.model.CreationAware;
+import cz.jansimerda.homebrewdash.model.CreationAwareView;
+import cz.jansimerda.homebrewdash.model.DomainEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads pages of entities by the keyset (seek) method. Instead of skipping an offset, every page continues
+ * after the date of creation and the ID of the last entity of the previous page, so reading any page costs
+ * the same regardless of its position and the size of the table.
+ * Entities which aren't creation aware are ordered by their ID only.
+ */
+final class KeysetPagination {
+
+    private static final String CREATED_AT = "createdAt";
+
+    private static final String ID = "id";
+
+    /**
+     * separator of the values within a cursor
+     */
+    private static final String SEPARATOR = "|";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Reads a single page of entities matching the specification
+     *
+     * @param repository    repository of the entities
+     * @param entityClass   class of the entities
+     * @param specification conditions the entities must meet, all entities if null
+     * @param query         requested page
+     * @param <E>           type of the entities
+     * @return page of entities
+     * @throws ConditionsNotMetException if the cursor is invalid or the entities cannot be filtered by the date range
+     */
+    static <E extends DomainEntity<?>> KeysetPage<E> readPage(
+            JpaSpecificationExecutor<E> repository,
+            Class<E> entityClass,
+            Specification<E> specification,
+            PageQuery query
+    ) throws ConditionsNotMetException {
+        boolean creationAware = CreationAware.class.isAssignableFrom(entityClass);
+        Specification<E> pageSpecification = pageSpecification(specification, query, creationAware);
+        Sort sort = creationAware ? Sort.by(CREATED_AT, ID) : Sort.by(ID);
+
+        // one more entity is fetched to find out whether there is a next page
+        List<E> items = repository.findBy(pageSpecification, q -> q.sortBy(sort).limit(query.getLimit() + 1).all());
+        if (items.size() <= query.getLimit()) {
+            return new KeysetPage<>(items, null);
+        }
+
+        items = items.subList(0, query.getLimit());
+        E last = items.get(items.size() - 1);
+        return new KeysetPage<>(
+                items,
+                encodeCursor(last instanceof CreationAware c ? c.getCreatedAt() : null, last.getId())
+        );
+    }
+
+    /**
+     * Reads a single page of projections of the entities matching the specification. The projections are
+     * constructed by the query, so the entities are neither loaded into the persistence context nor dirty checked.
+     *
+     * @param entityManager entity manager
+     * @param entityClass   class of the entities
+     * @param viewClass     class of the projections, constructed from the attributes in their order
+     * @param attributes    dot separated paths of the attributes of the entities
+     * @param specification conditions the entities must meet, all entities if null; it must not fetch associations
+     * @param query         requested page
+     * @param <E>           type of the entities
+     * @param <V>           type of the projections
+     * @return page of projections
+     * @throws ConditionsNotMetException if the cursor is invalid
+     */
+    static <E extends CreationAware, V extends CreationAwareView<?>> KeysetPage<V> readViewPage(
+            EntityManager entityManager,
+            Class<E> entityClass,
+            Class<V> viewClass,
+            List<String> attributes,
+            Specification<E> specification,
+            PageQuery query
+    ) throws ConditionsNotMetException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<V> criteria = cb.createQuery(viewClass);
+        Root<E> root = criteria.from(entityClass);
+
+        Predicate predicate = pageSpecification(specification, query, true).toPredicate(root, criteria, cb);
+        if (predicate != null) {
+            criteria.where(predicate);
+        }
+        criteria.select(cb.construct(viewClass, attributes.stream().map(a -> path(root, a)).toArray(Selection[]::new)))
+                .orderBy(cb.asc(root.get(CREATED_AT)), cb.asc(root.get(ID)));
+
+        // one more projection is fetched to find out whether there is a next page
+        List<V> items = entityManager.createQuery(criteria).setMaxResults(query.getLimit() + 1).getResultList();
+        if (items.size() <= query.getLimit()) {
+            return new KeysetPage<>(items, null);
+        }
+
+        items = items.subList(0, query.getLimit());
+        V last = items.get(items.size() - 1);
+        return new KeysetPage<>(items, encodeCursor(last.createdAt(), last.id()));
+    }
+
+    /**
+     * Creates the conditions of the entities of the requested page
+     *
+     * @param specification conditions the entities must meet, all entities if null
+     * @param query         requested page
+     * @param creationAware whether the entities are ordered by the date of creation
+     * @param <E>           type of the entities
+     * @return conditions of the page
+     * @throws ConditionsNotMetException if the cursor is invalid or the entities cannot be filtered by the date range
+     */
+    private static <E> Specification<E> pageSpecification(
+            Specification<E> specification,
+            PageQuery query,
+            boolean creationAware
+    ) throws ConditionsNotMetException {
+        if (!creationAware && (query.getFrom().isPresent() || query.getTo().isPresent())) {
+            throw new ConditionsNotMetException("These entities cannot be filtered by the date of creation");
+        }
+
+        return Specification.where(specification)
+                .and(createdBetween(query.getFrom().orElse(null), query.getTo().orElse(null)))
+                .and(query.getAfter().map(c -> KeysetPagination.<E>after(c, creationAware)).orElse(null));
+    }
+
+    /**
+     * Resolves the dot separated path of an attribute
+     *
+     * @param root root of the query
+     * @param path path of the attribute
+     * @return path expression
+     */
+    private static Path<?> path(Root<?> root, String path) {
+        Path<?> expression = root;
+        for (String attribute : path.split("\\.")) {
+            expression = expression.get(attribute);
+        }
+
+        return expression;
+    }
+
+    /**
+     * Creates the condition of entities created within the date range
+     *
+     * @param from beginning of the range (inclusive), unlimited if null
+     * @param to   end of the range (exclusive), unlimited if null
+     * @param <E>  type of the entities
+     * @return condition, null if the range is unlimited
+     */
+    private static <E> Specification<E> createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return null;
+        }
+
+        return (root, q, cb) -> {
+            Path<LocalDateTime> createdAt = root.get(CREATED_AT);
+            if (from == null) {
+                return cb.lessThan(createdAt, to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(createdAt, from);
+            }
+
+            return cb.and(cb.greaterThanOrEqualTo(createdAt, from), cb.lessThan(createdAt, to));
+        };
+    }
+
+    /**
+     * Creates the condition of entities following the entity the cursor points to
+     *
+     * @param cursor        cursor of the previous page
+     * @param creationAware whether the entities are ordered by the date of creation
+     * @param <E>           type of the entities
+     * @return condition
+     * @throws ConditionsNotMetException if the cursor is invalid
+     */
+    private static <E> Specification<E> after(String cursor, boolean creationAware) throws ConditionsNotMetException {
+        String[] values = decodeCursor(cursor);
+        if (values.length != (creationAware ? 2 : 1)) {
+            throw new ConditionsNotMetException("Invalid cursor %s".formatted(cursor));
+        }
+
+        try {
+            UUID id = UUID.fromString(values[values.length - 1]);
+            if (!creationAware) {
+                return (root, q, cb) -> cb.greaterThan(root.<UUID>get(ID), id);
+            }
+
+            LocalDateTime createdAt = LocalDateTime.parse(values[0]);
+            return (root, q, cb) -> cb.or(
+                    cb.greaterThan(root.<LocalDateTime>get(CREATED_AT), createdAt),
+                    cb.and(cb.equal(root.<LocalDateTime>get(CREATED_AT), createdAt), cb.greaterThan(root.<UUID>get(ID), id))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ConditionsNotMetException("Invalid cursor %s".formatted(cursor));
+        }
+    }
+
+    /**
+     * Encodes the position of the entity into an opaque cursor
+     *
+     * @param createdAt date and time of creation of the last entity of a page, null if not creation aware
+     * @param id        ID of the last entity of a page
+     * @return cursor
+     */
+    private static String encodeCursor(LocalDateTime createdAt, Object id) {
+        String position = createdAt != null ? createdAt + SEPARATOR + id : String.valueOf(id);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the cursor into the values of the position
+     *
+     * @param cursor cursor of the previous page
+     * @return values of the position
+     * @throws ConditionsNotMetException if the cursor isn't properly encoded
+     */
+    private static String[] decodeCursor(String cursor) throws ConditionsNotMetException {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return position.split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new ConditionsNotMetException("Invalid cursor %s".formatted(cursor));
+        }
+    }
+}
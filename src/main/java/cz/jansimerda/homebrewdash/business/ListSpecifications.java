@@ -0,0 +1,77 @@
+package cz.jansimerda.homebrewdash.business;
+
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Conditions shared by the services when listing their entities
+ */
+final class ListSpecifications {
+
+    private ListSpecifications() {
+    }
+
+    /**
+     * Creates the condition of entities whose attribute equals the value
+     *
+     * @param attribute name of the attribute
+     * @param value     expected value
+     * @param <E>       type of the entities
+     * @return condition
+     */
+    static <E> Specification<E> equal(String attribute, Object value) {
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    /**
+     * Creates the condition of entities whose attribute references the entity with given ID
+     *
+     * @param attribute name of the attribute
+     * @param id        ID of the referenced entity
+     * @param <E>       type of the entities
+     * @return condition
+     */
+    static <E> Specification<E> referencing(String attribute, UUID id) {
+        return (root, query, cb) -> cb.equal(root.get(attribute).get("id"), id);
+    }
+
+    /**
+     * Creates the condition fetching the associations of the entities by the same query (left fetch join),
+     * so their converters don't load them one by one. Nested associations are given by dot separated paths.
+     *
+     * @param paths paths of the fetched associations
+     * @param <E>   type of the entities
+     * @return condition matching all entities, null if nothing is fetched
+     */
+    static <E> Specification<E> fetching(List<String> paths) {
+        if (paths.isEmpty()) {
+            return null;
+        }
+
+        return (root, query, cb) -> {
+            // count queries select no entities to be fetched
+            if (Long.class.equals(query.getResultType())) {
+                return null;
+            }
+
+            Map<String, FetchParent<?, ?>> fetches = new HashMap<>();
+            for (String path : paths) {
+                FetchParent<?, ?> parent = root;
+                StringBuilder prefix = new StringBuilder();
+                for (String attribute : path.split("\\.")) {
+                    prefix.append('.').append(attribute);
+                    FetchParent<?, ?> owner = parent;
+                    parent = fetches.computeIfAbsent(prefix.toString(), p -> owner.fetch(attribute, JoinType.LEFT));
+                }
+            }
+
+            return null;
+        };
+    }
+}
@@ -0,0 +1,331 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
+import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
+import cz.jansimerda.homebrewdash.helpers.TransactionHelper;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.Thermostat;
+import cz.jansimerda.homebrewdash.model.ThermostatTransition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of live events, i.e. newly stored measurements and thermostat transitions, to the subscribers
+ * of the user owning them, admins receive the events of all users. Events are published once the transaction
+ * producing them commits. Publishing never blocks, every subscriber has a bounded queue drained
+ * by a small pool of delivery threads, and the oldest events of a subscriber are dropped when its queue is full.
+ * Idle subscribers receive periodic heartbeats, so the connections are kept open and the dead ones are noticed.
+ */
+@Service
+public class LiveEventService {
+
+    /**
+     * Receiver of the events of a single subscriber, e.g. an open event stream.
+     * Events of a subscriber are delivered one at a time, in the order of publishing.
+     */
+    public interface Sink {
+
+        /**
+         * @param measurement newly stored measurement
+         * @throws IOException if the subscriber cannot receive the event anymore
+         */
+        void sendMeasurement(Measurement measurement) throws IOException;
+
+        /**
+         * @param transition new state of a thermostat
+         * @throws IOException if the subscriber cannot receive the event anymore
+         */
+        void sendThermostat(ThermostatTransition transition) throws IOException;
+
+        /**
+         * Keeps the idle subscriber alive, does nothing unless the subscriber needs it
+         *
+         * @throws IOException if the subscriber cannot receive the event anymore
+         */
+        default void sendHeartbeat() throws IOException {
+        }
+    }
+
+    /**
+     * Subscription of a single subscriber, events are queued in it until they are delivered to its sink
+     */
+    public static class Subscription {
+
+        private final UUID userId;
+
+        private final boolean admin;
+
+        private final Sink sink;
+
+        /**
+         * events waiting for delivery, guarded by the subscription
+         */
+        private final ArrayDeque<Event> queue = new ArrayDeque<>();
+
+        /**
+         * whether the queue is being drained or the drain has been scheduled, guarded by the subscription
+         */
+        private boolean draining;
+
+        private volatile boolean closed;
+
+        private Subscription(UUID userId, boolean admin, Sink sink) {
+            this.userId = userId;
+            this.admin = admin;
+            this.sink = sink;
+        }
+
+        /**
+         * @return whether the subscription has been cancelled
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    /**
+     * Event waiting for delivery to a sink
+     */
+    private interface Event {
+        void deliverTo(Sink sink) throws IOException;
+    }
+
+    /**
+     * maximum number of events delivered to a subscriber before the delivery thread moves on to other subscribers
+     */
+    private final int DELIVERY_BATCH = 64;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * executor delivering the events, its size limits the number of subscribers being written to at once
+     */
+    private final ExecutorService deliveryExecutor;
+
+    /**
+     * executor queueing the heartbeats of the idle subscribers
+     */
+    private final ScheduledExecutorService heartbeatExecutor;
+
+    /**
+     * maximum number of events waiting for delivery to a single subscriber
+     */
+    private final int subscriberCapacity;
+
+    private final Counter droppedCounter;
+
+    public LiveEventService(
+            MeterRegistry meterRegistry,
+            @Value("${live-events.delivery-threads:2}") int deliveryThreads,
+            @Value("${live-events.subscriber-capacity:256}") int subscriberCapacity,
+            @Value("${live-events.heartbeat-seconds:15}") long heartbeatSeconds
+    ) {
+        this.subscriberCapacity = subscriberCapacity;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-events-delivery-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        this.droppedCounter = Counter.builder("live.events.dropped")
+                .description("Live events dropped because the queue of a slow subscriber was full")
+                .register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("live.events.subscribers", Tags.empty(), subscriptions);
+    }
+
+    /**
+     * Subscribes the logged-in user to the live events, the events are delivered to the sink until unsubscribed
+     *
+     * @param sink receiver of the events
+     * @return subscription to be cancelled once the subscriber goes away
+     */
+    public Subscription subscribe(Sink sink) {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        Subscription subscription = new Subscription(details.getId(), details.isAdmin(), sink);
+        subscriptions.add(subscription);
+
+        return subscription;
+    }
+
+    /**
+     * Cancels the subscription, events still waiting for delivery are discarded
+     *
+     * @param subscription subscription to be cancelled
+     */
+    public void unsubscribe(Subscription subscription) {
+        subscription.closed = true;
+        subscriptions.remove(subscription);
+        synchronized (subscription) {
+            subscription.queue.clear();
+        }
+    }
+
+    /**
+     * Publishes the newly stored measurement once the current transaction commits
+     *
+     * @param measurement measurement entity
+     * @param ownerId     ID of the user owning the measurement
+     */
+    public void publishMeasurementAfterCommit(Measurement measurement, UUID ownerId) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        publishAfterCommit(ownerId, sink -> sink.sendMeasurement(measurement));
+    }
+
+    /**
+     * Publishes the current state of the thermostat once the current transaction commits
+     *
+     * @param thermostat thermostat entity
+     */
+    public void publishThermostatAfterCommit(Thermostat thermostat) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        // the state is captured now, the entity may change before the transaction commits
+        ThermostatTransition transition = ThermostatTransition.of(thermostat);
+        publishAfterCommit(thermostat.getCreatedBy().getId(), sink -> sink.sendThermostat(transition));
+    }
+
+    /**
+     * Shuts down the delivery and heartbeat executors, events waiting for delivery are discarded
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        deliveryExecutor.shutdownNow();
+    }
+
+    /**
+     * Queues a heartbeat for every subscriber with no events waiting for delivery,
+     * the others are about to receive an event anyway
+     */
+    private void sendHeartbeats() {
+        for (Subscription subscription : subscriptions) {
+            synchronized (subscription) {
+                if (!subscription.queue.isEmpty()) {
+                    continue;
+                }
+            }
+            enqueue(subscription, Sink::sendHeartbeat);
+        }
+    }
+
+    /**
+     * Publishes the event once the current transaction commits, so the subscribers never receive
+     * changes which have been rolled back. Publishes it immediately when there is no transaction.
+     *
+     * @param ownerId ID of the user owning the event
+     * @param event   event to be published
+     */
+    private void publishAfterCommit(UUID ownerId, Event event) {
+        TransactionHelper.runAfterCommit(() -> publish(ownerId, event));
+    }
+
+    /**
+     * Queues the event for delivery to the subscribers allowed to receive it
+     *
+     * @param ownerId ID of the user owning the event
+     * @param event   event to be published
+     */
+    private void publish(UUID ownerId, Event event) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.admin || subscription.userId.equals(ownerId)) {
+                enqueue(subscription, event);
+            }
+        }
+    }
+
+    /**
+     * Queues the event, dropping the oldest one when the queue is full, and schedules draining of the queue
+     * unless it is already being drained
+     *
+     * @param subscription subscription of the subscriber
+     * @param event        event to be delivered
+     */
+    private void enqueue(Subscription subscription, Event event) {
+        synchronized (subscription) {
+            if (subscription.closed) {
+                return;
+            }
+            if (subscription.queue.size() >= subscriberCapacity) {
+                subscription.queue.pollFirst();
+                droppedCounter.increment();
+            }
+            subscription.queue.addLast(event);
+            if (subscription.draining) {
+                return;
+            }
+            subscription.draining = true;
+        }
+
+        scheduleDrain(subscription);
+    }
+
+    /**
+     * @param subscription subscription to be drained by a delivery thread
+     */
+    private void scheduleDrain(Subscription subscription) {
+        try {
+            deliveryExecutor.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException e) {
+            // the application is shutting down
+            unsubscribe(subscription);
+        }
+    }
+
+    /**
+     * Delivers queued events to the sink of the subscriber, the subscription is cancelled
+     * as soon as the sink fails
+     *
+     * @param subscription subscription to be drained
+     */
+    private void drain(Subscription subscription) {
+        for (int i = 0; i < DELIVERY_BATCH; i++) {
+            Event event;
+            synchronized (subscription) {
+                event = subscription.closed ? null : subscription.queue.pollFirst();
+                if (event == null) {
+                    subscription.draining = false;
+                    return;
+                }
+            }
+
+            try {
+                event.deliverTo(subscription.sink);
+            } catch (Exception e) {
+                unsubscribe(subscription);
+                return;
+            }
+        }
+
+        // let the other subscribers be served before continuing
+        scheduleDrain(subscription);
+    }
+}
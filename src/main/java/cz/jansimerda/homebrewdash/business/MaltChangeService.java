@@ -1,16 +1,20 @@
 package cz.jansimerda.homebrewdash.business;
 
+import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
 import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
 import cz.jansimerda.homebrewdash.model.Malt;
 import cz.jansimerda.homebrewdash.model.MaltChange;
+import cz.jansimerda.homebrewdash.model.StockLot;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.repository.MaltChangeRepository;
 import cz.jansimerda.homebrewdash.repository.MaltRepository;
 import cz.jansimerda.homebrewdash.repository.UserRepository;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,21 +30,25 @@ public class MaltChangeService extends AbstractCrudService<MaltChange, UUID> {
 
     private final UserRepository userRepository;
 
+    private final StockLedgerService stockLedgerService;
+
     protected MaltChangeService(
             MaltChangeRepository maltChangeRepository,
             MaltRepository maltRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            StockLedgerService stockLedgerService
     ) {
         super(maltChangeRepository);
         this.maltChangeRepository = maltChangeRepository;
         this.maltRepository = maltRepository;
         this.userRepository = userRepository;
+        this.stockLedgerService = stockLedgerService;
     }
 
     @Override
+    @Transactional
     public MaltChange create(MaltChange entity) {
-        modifyingPreChecks(entity, c -> c.getChangeGrams() >= 0 || maltChangeRepository.sumChangeByMaltAndUser(
-                c.getMalt().getId(), c.getUser().getId()) + c.getChangeGrams() >= 0);
+        modifyingPreChecks(entity, c -> stockLedgerService.adjust(StockLot.of(c), c.getChangeGrams()));
 
         return super.create(entity);
     }
@@ -63,25 +71,51 @@ public class MaltChangeService extends AbstractCrudService<MaltChange, UUID> {
     }
 
     @Override
+    protected Specification<MaltChange> accessibleSpecification() {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (details.isAdmin()) {
+            return null;
+        }
+
+        return ListSpecifications.referencing("user", details.getId());
+    }
+
+    @Override
+    protected Specification<MaltChange> filterSpecification(String name, String value) throws ConditionsNotMetException {
+        return switch (name) {
+            case "maltId" -> ListSpecifications.referencing(
+                    "malt",
+                    PageQuery.parseFilter(name, value, UUID::fromString)
+            );
+            default -> super.filterSpecification(name, value);
+        };
+    }
+
+    @Override
+    @Transactional
     public MaltChange update(MaltChange entity) throws EntityNotFoundException {
-        modifyingPreChecks(entity, c -> maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(
-                c.getMalt().getId(), c.getUser().getId(), c.getId()
-        ) + c.getChangeGrams() >= 0);
+        modifyingPreChecks(entity, c -> {
+            MaltChange existing = maltChangeRepository.findById(c.getId())
+                    .orElseThrow(() -> new EntityNotFoundException(MaltChange.class, c.getId()));
+            return stockLedgerService.replace(
+                    StockLot.of(existing),
+                    existing.getChangeGrams(),
+                    StockLot.of(c),
+                    c.getChangeGrams()
+            );
+        });
 
         return super.update(entity);
     }
 
     @Override
+    @Transactional
     public void deleteById(UUID id) throws EntityNotFoundException {
         MaltChange change = maltChangeRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MaltChange.class, id));
 
         ensureUserIsAccessible(change.getUser().getId());
-        if (change.getChangeGrams() > 0 && maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(
-                change.getMalt().getId(),
-                change.getUser().getId(),
-                id
-        ) < 0) {
+        if (!stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())) {
             throw new ConditionsNotMetException(
                     "Cannot remove this Malt change as it would cause the Malt stock to go negative"
             );
@@ -133,4 +167,12 @@ public class MaltChangeService extends AbstractCrudService<MaltChange, UUID> {
             throw new AccessDeniedException("Cannot access malt changes of user with ID %s".formatted(userId));
         }
     }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("user", "malt", "malt.createdBy");
+    }
 }
@@ -9,6 +9,7 @@ import cz.jansimerda.homebrewdash.repository.MaltRepository;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,9 +18,12 @@ public class MaltService extends AbstractCrudService<Malt, UUID> {
 
     private final MaltRepository repository;
 
-    protected MaltService(MaltRepository repository) {
+    private final InventoryCache inventoryCache;
+
+    protected MaltService(MaltRepository repository, InventoryCache inventoryCache) {
         super(repository);
         this.repository = repository;
+        this.inventoryCache = inventoryCache;
     }
 
     @Override
@@ -53,7 +57,11 @@ public class MaltService extends AbstractCrudService<Malt, UUID> {
         ensureCanModifyEntity(existing);
 
         entity.setCreatedBy(existing.getCreatedBy());
-        return repository.save(entity);
+        Malt updated = repository.save(entity);
+        // inventories list the malt by its name, whoever has it in stock
+        inventoryCache.invalidateAllAfterCommit();
+
+        return updated;
     }
 
     @Override
@@ -68,6 +76,7 @@ public class MaltService extends AbstractCrudService<Malt, UUID> {
         }
 
         repository.deleteById(id);
+        inventoryCache.invalidateAllAfterCommit();
     }
 
     /**
@@ -97,4 +106,12 @@ public class MaltService extends AbstractCrudService<Malt, UUID> {
             throw new AccessDeniedException("Missing authorization to modify this malt");
         }
     }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("createdBy");
+    }
 }
@@ -0,0 +1,12 @@
+package cz.jansimerda.homebrewdash.business;
+
+import java.util.UUID;
+
+/**
+ * Event published when new measurements of a hydrometer have been stored,
+ * listeners are notified once the storing transaction commits
+ *
+ * @param hydrometerId ID of the hydrometer the measurements have been taken by
+ */
+public record MeasurementCreatedEvent(UUID hydrometerId) {
+}
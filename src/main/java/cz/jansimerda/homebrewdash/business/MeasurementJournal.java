@@ -0,0 +1,453 @@
+package cz.jansimerda.homebrewdash.business;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.exception.exposed.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Durable journal of the measurements accepted by the write-behind ingestion and not yet stored in the database.
+ * Measurements are appended to segment files as JSON lines and forced to the disk before they are acknowledged,
+ * appends waiting at the same time are forced together by a single force (group commit).
+ * A segment is deleted once all of its measurements are stored. Segments left by a previous run are replayed
+ * on startup, so no acknowledged measurement is lost; measurements are stored by their IDs, so the ones stored
+ * right before a crash are not stored twice. The number of measurements waiting to be stored is bounded.
+ */
+@Component
+public class MeasurementJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MeasurementJournal.class);
+
+    private final String SEGMENT_SUFFIX = ".journal";
+
+    /**
+     * file of the measurements which cannot be stored, kept for a manual inspection
+     */
+    private final String QUARANTINE_FILE = "quarantine.jsonl";
+
+    /**
+     * Measurement waiting to be stored
+     *
+     * @param segment     number of the segment containing the measurement
+     * @param sequence    sequence number of the append, zero for the replayed measurements
+     * @param measurement journaled measurement
+     */
+    private record Entry(long segment, long sequence, JournaledMeasurement measurement) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final int capacity;
+
+    /**
+     * measurements waiting to be stored, in the order of their reception
+     */
+    private final Deque<Entry> pending = new ArrayDeque<>();
+
+    /**
+     * segments no longer appended to, in ascending order
+     */
+    private final Deque<Long> sealedSegments = new ArrayDeque<>();
+
+    private long currentSegment;
+
+    private int currentSegmentSize;
+
+    /**
+     * length of the complete lines of the current segment, a partially written line is truncated back to it
+     */
+    private long currentSegmentLength;
+
+    private FileChannel channel;
+
+    /**
+     * number of the appended measurements and the number of them forced to the disk
+     */
+    private long appendedCount;
+
+    private long forcedCount;
+
+    /**
+     * number of the appended measurements whose appends have failed or been discarded,
+     * those above forcedCount are not acknowledged
+     */
+    private long failedCount;
+
+    /**
+     * length of the current segment forced to the disk, the unacknowledged tail is truncated back to it
+     */
+    private long forcedSegmentLength;
+
+    /**
+     * whether an appending thread is forcing the current segment on behalf of all the waiting ones
+     */
+    private boolean forcing;
+
+    public MeasurementJournal(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${measurement.write-behind.enabled:false}") boolean enabled,
+            @Value("${measurement.write-behind.directory:journal}") Path directory,
+            @Value("${measurement.write-behind.capacity:100000}") int capacity
+    ) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.capacity = capacity;
+        if (!enabled) {
+            return;
+        }
+
+        meterRegistry.gaugeCollectionSize("measurements.journal.pending", Tags.empty(), pending);
+        try {
+            Files.createDirectories(directory);
+            replay();
+            openSegment(currentSegment + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the measurement journal in %s".formatted(directory), e);
+        }
+    }
+
+    /**
+     * @return whether measurements are journaled and stored later
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends the measurement to the journal, it is durable once this method returns.
+     * The line is written under the lock of the journal, forcing it to the disk is shared
+     * with the other appends waiting at the same time.
+     *
+     * @param measurement measurement to be stored later
+     * @throws ServiceUnavailableException if the journal is full or cannot be written
+     */
+    public void append(JournaledMeasurement measurement) throws ServiceUnavailableException {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(measurement) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize the journaled measurement", e);
+        }
+
+        long sequence;
+        synchronized (this) {
+            if (pending.size() >= capacity) {
+                throw new ServiceUnavailableException("Too many measurements are waiting to be stored, try again later");
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                logger.error("Cannot append to the measurement journal", e);
+                discardIncompleteLine();
+                throw new ServiceUnavailableException("The measurement cannot be accepted at the moment", e);
+            }
+
+            currentSegmentSize++;
+            currentSegmentLength += line.length;
+            sequence = ++appendedCount;
+            pending.addLast(new Entry(currentSegment, sequence, measurement));
+        }
+
+        awaitForced(sequence);
+    }
+
+    /**
+     * Keeps the measurement which cannot be stored in the quarantine file, so it can be inspected
+     * and stored manually once the cause is resolved. It is removed from the journal by remove as usual.
+     *
+     * @param measurement measurement which cannot be stored
+     */
+    public synchronized void quarantine(JournaledMeasurement measurement) {
+        try (FileChannel quarantine = FileChannel.open(
+                directory.resolve(QUARANTINE_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        )) {
+            ByteBuffer buffer = ByteBuffer.wrap(
+                    (objectMapper.writeValueAsString(measurement) + "\n").getBytes(StandardCharsets.UTF_8)
+            );
+            while (buffer.hasRemaining()) {
+                quarantine.write(buffer);
+            }
+            quarantine.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot quarantine the journaled measurement", e);
+        }
+    }
+
+    /**
+     * Fetches the oldest measurements waiting to be stored without removing them.
+     * The current segment is sealed, so it can be deleted once its measurements are stored.
+     *
+     * @param limit maximum number of measurements
+     * @return measurements in the order of their reception
+     */
+    public synchronized List<JournaledMeasurement> peek(int limit) {
+        if (currentSegmentSize > 0) {
+            try {
+                rollSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot roll the measurement journal", e);
+            }
+        }
+        deleteStoredSegments();
+
+        return pending.stream().limit(limit).map(Entry::measurement).toList();
+    }
+
+    /**
+     * Removes the oldest measurements once they are stored, deleting the segments with no measurements left
+     *
+     * @param count number of the stored measurements
+     */
+    public synchronized void remove(int count) {
+        for (int i = 0; i < count && !pending.isEmpty(); i++) {
+            pending.removeFirst();
+        }
+        deleteStoredSegments();
+    }
+
+    /**
+     * Closes the current segment, measurements not yet stored are replayed on the next startup
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            awaitForcing();
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the measurements of the segments left by the previous run
+     */
+    private void replay() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        for (Path segment : segments) {
+            long number = parseSegmentNumber(segment);
+            for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    pending.addLast(new Entry(number, 0, objectMapper.readValue(line, JournaledMeasurement.class)));
+                } catch (JsonProcessingException e) {
+                    // the last line is incomplete if the application stopped while appending it, it wasn't acknowledged
+                    logger.warn("Skipping an unreadable entry of the measurement journal segment {}", segment, e);
+                }
+            }
+            sealedSegments.addLast(number);
+            currentSegment = number;
+        }
+
+        if (!pending.isEmpty()) {
+            logger.info("Replaying {} measurements of the measurement journal", pending.size());
+        }
+    }
+
+    /**
+     * Waits until the appended measurement is forced to the disk. The first waiting thread forces the segment
+     * on behalf of all measurements appended so far, the others wait for it and force the rest if needed.
+     * If the force fails, none of the measurements not yet forced is acknowledged, so they are discarded
+     * rather than stored along with the retries of their clients.
+     *
+     * @param sequence sequence number of the appended measurement
+     * @throws ServiceUnavailableException if the segment cannot be forced
+     */
+    private void awaitForced(long sequence) throws ServiceUnavailableException {
+        while (true) {
+            long target;
+            long targetLength;
+            FileChannel forced;
+            synchronized (this) {
+                awaitForcing();
+                if (forcedCount >= sequence) {
+                    return;
+                }
+                if (failedCount >= sequence) {
+                    throw new ServiceUnavailableException("The measurement cannot be accepted at the moment");
+                }
+                forcing = true;
+                target = appendedCount;
+                targetLength = currentSegmentLength;
+                forced = channel;
+            }
+
+            IOException failure = null;
+            try {
+                force(forced);
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            synchronized (this) {
+                forcing = false;
+                if (failure == null) {
+                    forcedCount = Math.max(forcedCount, target);
+                    forcedSegmentLength = targetLength;
+                } else {
+                    logger.error("Cannot force the measurement journal to the disk", failure);
+                    discardUnforced();
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Discards the measurements appended since the last successful force, both from the pending measurements
+     * and from the segment, as their appends fail. Must be called while holding the lock of the journal.
+     */
+    private void discardUnforced() {
+        while (!pending.isEmpty() && pending.getLast().sequence() > forcedCount) {
+            pending.removeLast();
+            currentSegmentSize--;
+        }
+        failedCount = appendedCount;
+        currentSegmentLength = forcedSegmentLength;
+        discardIncompleteLine();
+    }
+
+    /**
+     * Forces the segment to the disk
+     *
+     * @param segment channel of the segment
+     */
+    void force(FileChannel segment) throws IOException {
+        segment.force(false);
+    }
+
+    /**
+     * Waits until the segment being forced by an appending thread is forced, so it can be closed.
+     * Must be called while holding the lock of the journal.
+     */
+    private void awaitForcing() {
+        boolean interrupted = false;
+        while (forcing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                // the append is already written, it must not be acknowledged before it is durable
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Truncates the line partially written by a failed append, or the lines of discarded appends,
+     * so they aren't followed by the next ones. Continues with a new segment if the current one
+     * cannot be truncated, an incomplete line is then the last line of its segment and is skipped by the replay.
+     */
+    private void discardIncompleteLine() {
+        try {
+            channel.truncate(currentSegmentLength);
+        } catch (IOException e) {
+            logger.warn("Cannot truncate the measurement journal segment {}, rolling it", currentSegment, e);
+            try {
+                rollSegment();
+            } catch (IOException rollException) {
+                logger.error("Cannot roll the measurement journal", rollException);
+            }
+        }
+    }
+
+    /**
+     * Seals the current segment, forcing the measurements appended to it, and continues with a new one
+     */
+    private void rollSegment() throws IOException {
+        awaitForcing();
+        // appends waiting to be forced would be acknowledged by forcing the new segment otherwise
+        force(channel);
+        forcedCount = appendedCount;
+        notifyAll();
+
+        sealedSegments.addLast(currentSegment);
+        channel.close();
+        openSegment(currentSegment + 1);
+    }
+
+    /**
+     * @param number number of the segment to be appended to
+     */
+    private void openSegment(long number) throws IOException {
+        channel = FileChannel.open(
+                getSegmentPath(number),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        );
+        currentSegment = number;
+        currentSegmentSize = 0;
+        currentSegmentLength = channel.size();
+        forcedSegmentLength = currentSegmentLength;
+    }
+
+    /**
+     * Deletes the sealed segments older than the oldest measurement waiting to be stored
+     */
+    private void deleteStoredSegments() {
+        long oldestPending = pending.isEmpty() ? currentSegment : pending.getFirst().segment();
+        while (!sealedSegments.isEmpty() && sealedSegments.getFirst() < oldestPending) {
+            long segment = sealedSegments.removeFirst();
+            try {
+                Files.deleteIfExists(getSegmentPath(segment));
+            } catch (IOException e) {
+                // the measurements would be stored again on the next startup
+                logger.error("Cannot delete the stored measurement journal segment {}", segment, e);
+            }
+        }
+    }
+
+    /**
+     * @param number number of the segment
+     * @return path of the segment file, numbers are padded so the files are sorted by their names
+     */
+    private Path getSegmentPath(long number) {
+        return directory.resolve("%020d%s".formatted(number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * @param segment path of the segment file
+     * @return number of the segment
+     */
+    private long parseSegmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
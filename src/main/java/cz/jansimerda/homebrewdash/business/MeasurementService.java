@@ -1,66 +1,305 @@
 package cz.jansimerda.homebrewdash.business;
 
 import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.ConflictException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
+import cz.jansimerda.homebrewdash.exception.exposed.ServiceUnavailableException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
+import cz.jansimerda.homebrewdash.helpers.DownsamplingHelper;
+import cz.jansimerda.homebrewdash.helpers.TransactionHelper;
 import cz.jansimerda.homebrewdash.model.Beer;
 import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.HydrometerLatestMeasurement;
 import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.MeasurementBucket;
+import cz.jansimerda.homebrewdash.model.MeasurementView;
 import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerLatestMeasurementRepository;
 import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
 import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class MeasurementService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MeasurementService.class);
+
+    private final String MODE_SINGLE = "single";
+    private final String MODE_BATCH = "batch";
+    private final String MODE_WRITE_BEHIND = "write_behind";
+
+    /**
+     * Measurements of an ingestion still in progress
+     */
+    private static final class Ingestion {
+
+        private final int count;
+
+        private int rejected;
+
+        private Ingestion(int count) {
+            this.count = count;
+        }
+    }
+
     private final MeasurementRepository measurementRepository;
 
     private final HydrometerRepository hydrometerRepository;
 
     private final BeerRepository beerRepository;
 
+    private final HydrometerLatestMeasurementRepository latestMeasurementRepository;
+
+    private final HydrometerTokenCache tokenCache;
+
+    private final FermentationStatsService fermentationStatsService;
+
+    private final LiveEventService liveEventService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final EntityManager entityManager;
+
+    private final MeterRegistry meterRegistry;
+
+    private final MeasurementJournal journal;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * maximum number of journaled measurements stored in a single transaction
+     */
+    private final int flushBatchSize;
+
+    /**
+     * flushes the journal on its own thread, so the flush doesn't delay nor get delayed by other scheduled tasks;
+     * null if the write-behind ingestion is disabled
+     */
+    private final ScheduledExecutorService flushExecutor;
+
     public MeasurementService(
             MeasurementRepository measurementRepository,
             HydrometerRepository hydrometerRepository,
-            BeerRepository beerRepository
+            BeerRepository beerRepository,
+            HydrometerLatestMeasurementRepository latestMeasurementRepository,
+            HydrometerTokenCache tokenCache,
+            FermentationStatsService fermentationStatsService,
+            LiveEventService liveEventService,
+            ApplicationEventPublisher eventPublisher,
+            EntityManager entityManager,
+            MeterRegistry meterRegistry,
+            MeasurementJournal journal,
+            PlatformTransactionManager transactionManager,
+            @Value("${measurement.write-behind.batch-size:500}") int flushBatchSize,
+            @Value("${measurement.write-behind.flush-interval-millis:1000}") long flushIntervalMillis
     ) {
         this.measurementRepository = measurementRepository;
         this.hydrometerRepository = hydrometerRepository;
         this.beerRepository = beerRepository;
+        this.latestMeasurementRepository = latestMeasurementRepository;
+        this.tokenCache = tokenCache;
+        this.fermentationStatsService = fermentationStatsService;
+        this.liveEventService = liveEventService;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.meterRegistry = meterRegistry;
+        this.journal = journal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushBatchSize = flushBatchSize;
+
+        if (journal.isEnabled()) {
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "measurement-journal-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flushExecutor.scheduleWithFixedDelay(
+                    this::flushJournalSafely,
+                    flushIntervalMillis,
+                    flushIntervalMillis,
+                    TimeUnit.MILLISECONDS
+            );
+        } else {
+            this.flushExecutor = null;
+        }
     }
 
     /**
-     * Stores a new Measurement
+     * Stores a new Measurement, marks it as the latest measurement of its hydrometer
+     * and adds it to the fermentation aggregates of its beer. Hydrometers of known tokens are taken
+     * from the token cache, so neither the hydrometer nor its beer is fetched.
+     * The measurement is published to the live event subscribers of its owner once stored. Unless an earlier
+     * taken measurement is replayed, the thermostats bound to the hydrometer are notified to react to it
+     * without waiting for their schedule.
      *
      * @param measurement measurement entity to be stored
      * @return created measurement
      */
+    @Transactional
     public Measurement create(Measurement measurement, String token) {
-        Hydrometer hydrometer = hydrometerRepository.getFirstByToken(token)
-                .orElseThrow(() -> new AccessDeniedException("Access to hydrometer forbidden"));
+        startIngestion(MODE_SINGLE, 1);
+        Optional<HydrometerTokenCache.Entry> cached = tokenCache.get(token);
+        UUID ownerId;
+        if (cached.isPresent()) {
+            HydrometerTokenCache.Entry entry = cached.get();
+            ownerId = entry.ownerId();
+            assignHydrometer(
+                    measurement,
+                    hydrometerRepository.getReferenceById(entry.hydrometerId()),
+                    entry.active(),
+                    entry.getAssignedBeerId().map(beerRepository::getReferenceById)
+            );
+        } else {
+            Hydrometer hydrometer = hydrometerRepository.getFirstByToken(token)
+                    .orElseThrow(() -> new AccessDeniedException("Access to hydrometer forbidden"));
+            tokenCache.put(hydrometer);
+            ownerId = hydrometer.getCreatedBy().getId();
+            assignHydrometer(measurement, hydrometer);
+        }
 
-        Beer assignedBeer = hydrometer.getAssignedBeer()
-                .orElseThrow(() -> new ConflictException(
-                        "Cannot store the measurement as the hydrometer doesn't have a beer assigned"
-                ));
+        Measurement created = measurementRepository.save(measurement);
+        boolean latest = updateLatestMeasurement(created.getHydrometer().orElseThrow().getId(), created);
+        fermentationStatsService.record(List.of(created));
+        liveEventService.publishMeasurementAfterCommit(created, ownerId);
+        if (latest) {
+            eventPublisher.publishEvent(new MeasurementCreatedEvent(created.getHydrometer().orElseThrow().getId()));
+        }
 
-        // if gravity is outside sensible range, we'll hide the data point
-        boolean unreliableData = measurement.getSpecificGravity().compareTo(new BigDecimal(1)) < 0
-                || measurement.getSpecificGravity().compareTo(new BigDecimal("1.3")) > 0;
+        return created;
+    }
 
-        measurement.setIsHidden(!hydrometer.isActive() || unreliableData);
-        measurement.setHydrometer(hydrometer);
-        measurement.setBeer(assignedBeer);
+    /**
+     * Stores a batch of new Measurements, e.g. readings buffered by a gateway while offline.
+     * Each distinct token is resolved only once and the measurements are inserted together,
+     * measurements which cannot be stored are reported in the results without affecting the rest of the batch.
+     *
+     * @param measurements measurement entities to be stored
+     * @param tokens       tokens of the hydrometers, in the order of the measurements
+     * @return results in the order of the measurements
+     */
+    @Transactional
+    public List<BatchItemResult<Measurement>> createAll(List<Measurement> measurements, List<String> tokens) {
+        return storeAll(MODE_BATCH, measurements, tokens);
+    }
 
-        return measurementRepository.save(measurement);
+    /**
+     * @return whether new measurements are journaled and stored later by the write-behind ingestion
+     */
+    public boolean isWriteBehind() {
+        return journal.isEnabled();
+    }
+
+    /**
+     * Accepts a new Measurement to be stored later by the write-behind ingestion.
+     * The token is resolved right away, so measurements of unknown hydrometers or hydrometers without a beer
+     * are rejected as they would be by create. Accepted measurements are durable in the journal
+     * and created at the date and time of their reception.
+     *
+     * @param measurement measurement entity to be stored
+     * @param token       token of the hydrometer
+     * @throws AccessDeniedException       if there is no hydrometer with the token
+     * @throws ConflictException           if the hydrometer doesn't have a beer assigned
+     * @throws ServiceUnavailableException if the journal cannot accept more measurements
+     */
+    public void accept(
+            Measurement measurement,
+            String token
+    ) throws AccessDeniedException, ConflictException, ServiceUnavailableException {
+        boolean beerAssigned = tokenCache.get(token)
+                .map(entry -> entry.getAssignedBeerId().isPresent())
+                .orElseGet(() -> {
+                    Hydrometer hydrometer = hydrometerRepository.getFirstByToken(token)
+                            .orElseThrow(() -> new AccessDeniedException("Access to hydrometer forbidden"));
+                    tokenCache.put(hydrometer);
+                    return hydrometer.getAssignedBeer().isPresent();
+                });
+        if (!beerAssigned) {
+            throw new ConflictException("Cannot store the measurement as the hydrometer doesn't have a beer assigned");
+        }
+
+        // the ID makes storing the measurement idempotent, it may be stored again after a crash
+        journal.append(JournaledMeasurement.of(
+                UUID.randomUUID(),
+                measurement,
+                token,
+                measurement.getReceivedAt().orElseGet(LocalDateTime::now)
+        ));
+    }
+
+    /**
+     * Stores the measurements accepted by the write-behind ingestion in batches, each batch in its own transaction.
+     * Measurements are removed from the journal once stored, a batch which cannot be stored while the database
+     * is unavailable is retried by the next flush. Any other failure of a batch is isolated by storing
+     * its measurements one by one, the ones which still fail are quarantined by the journal.
+     * Measurements which can no longer be stored, e.g. because their hydrometer has been deleted since, are dropped.
+     */
+    public synchronized void flushJournal() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+
+        List<JournaledMeasurement> batch;
+        while (!(batch = journal.peek(flushBatchSize)).isEmpty()) {
+            int processed;
+            try {
+                storeJournaled(batch);
+                processed = batch.size();
+            } catch (RuntimeException e) {
+                if (isDatabaseUnavailable(e)) {
+                    logger.warn("Cannot store {} journaled measurements, retrying later", batch.size(), e);
+                    return;
+                }
+
+                logger.warn("Cannot store {} journaled measurements together, storing them one by one", batch.size(), e);
+                processed = storeJournaledOneByOne(batch);
+            }
+
+            journal.remove(processed);
+            if (processed < batch.size()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops flushing the journal, measurements not yet stored are replayed on the next startup
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
     }
 
     /**
@@ -90,8 +329,124 @@ public class MeasurementService {
         return measurementRepository.findByBeerCreatedById(userDetails.getId());
     }
 
+    /**
+     * Fetches a single page of measurements current user can access, matching the filters of the query.
+     * Supported filters are hidden, beerId and hydrometerId. Measurements are read as projections,
+     * so listing them doesn't load the entities nor their associations.
+     *
+     * @param query requested page and filters
+     * @return page of measurements
+     * @throws ConditionsNotMetException if the query contains an invalid cursor or filter
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<MeasurementView> readAll(PageQuery query) throws ConditionsNotMetException {
+        CustomUserDetails userDetails = AuthenticationHelper.getUserDetails();
+        Specification<Measurement> specification = Specification.where(null);
+        if (!userDetails.isAdmin()) {
+            specification = specification.and((root, q, cb) -> cb.equal(
+                    root.get("beer").get("createdBy").get("id"),
+                    userDetails.getId()
+            ));
+        }
+        for (Map.Entry<String, String> filter : query.getFilters().entrySet()) {
+            String name = filter.getKey();
+            String value = filter.getValue();
+            specification = specification.and(switch (name) {
+                case "hidden" -> ListSpecifications.equal(
+                        "hidden",
+                        PageQuery.parseFilter(name, value, PageQuery::parseBoolean)
+                );
+                case "beerId" -> ListSpecifications.referencing(
+                        "beer",
+                        PageQuery.parseFilter(name, value, UUID::fromString)
+                );
+                case "hydrometerId" -> ListSpecifications.referencing(
+                        "hydrometer",
+                        PageQuery.parseFilter(name, value, UUID::fromString)
+                );
+                default -> throw new ConditionsNotMetException("Unsupported filter %s".formatted(name));
+            });
+        }
+
+        return KeysetPagination.readViewPage(
+                entityManager,
+                Measurement.class,
+                MeasurementView.class,
+                MeasurementView.ATTRIBUTES,
+                specification,
+                query
+        );
+    }
+
+    /**
+     * Passes all measurements of a beer ordered by the time of creation to the consumer, e.g. to be exported.
+     * Measurements are read by a database cursor and detached once consumed,
+     * so the memory use doesn't depend on the number of measurements.
+     *
+     * @param beerId   ID of the beer
+     * @param consumer consumer of the measurements
+     * @throws EntityNotFoundException if the beer cannot be found
+     * @throws AccessDeniedException   if User doesn't have access to the beer
+     */
+    @Transactional(readOnly = true)
+    public void exportByBeerId(
+            UUID beerId,
+            Consumer<Measurement> consumer
+    ) throws EntityNotFoundException, AccessDeniedException {
+        ensureBeerIsAccessible(beerId);
+
+        try (Stream<Measurement> measurements = measurementRepository.streamByBeerId(beerId)) {
+            measurements.forEach(m -> {
+                consumer.accept(m);
+                entityManager.detach(m);
+            });
+        }
+    }
+
+    /**
+     * Fetches visible measurements of a beer aggregated into time buckets, e.g. to be displayed in a chart.
+     * When the number of points is limited, the buckets are further downsampled by the LTTB algorithm
+     * following the average specific gravity.
+     *
+     * @param beerId ID of the beer
+     * @param from   beginning of the series (inclusive), beginning of the measurements if null
+     * @param to     end of the series (exclusive), current date and time if null
+     * @param bucket length of a bucket
+     * @param points maximal number of buckets to be returned, unlimited if null
+     * @return buckets ordered by time
+     * @throws EntityNotFoundException if the beer cannot be found
+     * @throws AccessDeniedException   if User doesn't have access to the beer
+     */
+    public List<MeasurementBucket> readSeries(
+            UUID beerId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Duration bucket,
+            Integer points
+    ) throws EntityNotFoundException, AccessDeniedException {
+        ensureBeerIsAccessible(beerId);
+
+        List<MeasurementBucket> buckets = measurementRepository.findBucketsByBeerId(
+                beerId,
+                Optional.ofNullable(from).orElse(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC)),
+                Optional.ofNullable(to).orElseGet(LocalDateTime::now),
+                bucket.toSeconds()
+        );
+        if (points == null) {
+            return buckets;
+        }
+
+        return DownsamplingHelper.largestTriangleThreeBuckets(
+                buckets,
+                points,
+                b -> b.bucket().doubleValue(),
+                MeasurementBucket::gravityAvg
+        );
+    }
+
     /**
      * Attempts to update existing Measurement.
+     * Fermentation aggregates of the affected beers are rebuilt when the measurement is moved or hidden.
      *
      * @param id     id of the measurement
      * @param beerId id of the beer to be assigned
@@ -100,6 +455,7 @@ public class MeasurementService {
      * @throws EntityNotFoundException if Measurement or Beer cannot be found
      * @throws AccessDeniedException   if User doesn't have access to given Measurement or Beer
      */
+    @Transactional
     public Measurement update(UUID id, UUID beerId, boolean hidden) throws EntityNotFoundException, AccessDeniedException {
         Measurement measurement = measurementRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Measurement.class, id));
@@ -112,10 +468,21 @@ public class MeasurementService {
             throw new AccessDeniedException("User doesn't have access to this beer");
         }
 
+        UUID previousBeerId = measurement.getBeer().getId();
+        boolean wasHidden = measurement.isHidden();
         measurement.setBeer(beer);
         measurement.setIsHidden(hidden);
+        Measurement updated = measurementRepository.save(measurement);
 
-        return measurementRepository.save(measurement);
+        boolean moved = !previousBeerId.equals(beerId);
+        if (moved && !wasHidden) {
+            fermentationStatsService.rebuild(previousBeerId);
+        }
+        if (moved ? !hidden : wasHidden != hidden) {
+            fermentationStatsService.rebuild(beerId);
+        }
+
+        return updated;
     }
 
     /**
@@ -124,11 +491,259 @@ public class MeasurementService {
      * @param id id of the measurement to be deleted
      * @throws EntityNotFoundException if the measurement cannot be found
      */
+    @Transactional
     public void deleteById(UUID id) throws EntityNotFoundException {
         Measurement measurement = measurementRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Measurement.class, id));
         ensureIsAccessible(measurement);
         measurementRepository.deleteById(id);
+
+        measurement.getHydrometer().map(Hydrometer::getId).ifPresent(this::restoreLatestMeasurement);
+        if (!measurement.isHidden()) {
+            fermentationStatsService.rebuild(measurement.getBeer().getId());
+        }
+    }
+
+    /**
+     * Flushes the journal on schedule, an exception would cancel the subsequent flushes
+     */
+    private void flushJournalSafely() {
+        try {
+            flushJournal();
+        } catch (RuntimeException e) {
+            logger.error("Flushing the measurement journal failed", e);
+        }
+    }
+
+    /**
+     * Stores the journaled measurements in a single transaction, skipping the ones already stored
+     * by a flush which hasn't removed them from the journal, e.g. because of a crash
+     *
+     * @param batch journaled measurements
+     */
+    private void storeJournaled(List<JournaledMeasurement> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<UUID> ids = batch.stream().map(JournaledMeasurement::id).filter(Objects::nonNull).toList();
+            Set<UUID> storedIds = ids.isEmpty() ? Set.of() : measurementRepository.findStoredIds(ids);
+            List<JournaledMeasurement> unstored = batch.stream()
+                    .filter(m -> m.id() == null || !storedIds.contains(m.id()))
+                    .toList();
+            if (unstored.isEmpty()) {
+                return;
+            }
+
+            List<Measurement> measurements = unstored.stream().map(JournaledMeasurement::toMeasurement).toList();
+            List<String> tokens = unstored.stream().map(JournaledMeasurement::token).toList();
+
+            List<BatchItemResult<Measurement>> results = storeAll(MODE_WRITE_BEHIND, measurements, tokens);
+            for (int i = 0; i < unstored.size(); i++) {
+                JournaledMeasurement journaled = unstored.get(i);
+                results.get(i).getError().ifPresent(error -> logger.warn(
+                        "Dropping a journaled measurement received at {}: {}",
+                        journaled.receivedAt(),
+                        error.getMessage()
+                ));
+            }
+        });
+    }
+
+    /**
+     * Stores the journaled measurements each in its own transaction, quarantining the ones which cannot be stored.
+     * Stops once the database becomes unavailable, the rest is retried by the next flush.
+     *
+     * @param batch journaled measurements of a batch which cannot be stored together
+     * @return number of the leading measurements which have been stored or quarantined
+     */
+    private int storeJournaledOneByOne(List<JournaledMeasurement> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            JournaledMeasurement journaled = batch.get(i);
+            try {
+                storeJournaled(List.of(journaled));
+            } catch (RuntimeException e) {
+                if (isDatabaseUnavailable(e)) {
+                    logger.warn("Cannot store journaled measurements, retrying later", e);
+                    return i;
+                }
+
+                logger.error("Quarantining a journaled measurement received at {}", journaled.receivedAt(), e);
+                try {
+                    journal.quarantine(journaled);
+                } catch (UncheckedIOException quarantineException) {
+                    logger.error("Cannot quarantine a journaled measurement, retrying later", quarantineException);
+                    return i;
+                }
+            }
+        }
+
+        return batch.size();
+    }
+
+    /**
+     * @param e exception thrown while storing measurements
+     * @return whether the database cannot be reached, so storing the measurements should be retried later
+     */
+    private boolean isDatabaseUnavailable(RuntimeException e) {
+        return e instanceof CannotCreateTransactionException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException;
+    }
+
+    /**
+     * Stores a batch of new Measurements, measurements which cannot be stored are reported in the results
+     *
+     * @param mode         ingestion mode, batch or write-behind
+     * @param measurements measurement entities to be stored
+     * @param tokens       tokens of the hydrometers, in the order of the measurements
+     * @return results in the order of the measurements
+     */
+    private List<BatchItemResult<Measurement>> storeAll(String mode, List<Measurement> measurements, List<String> tokens) {
+        if (measurements.size() != tokens.size()) {
+            throw new IllegalArgumentException("Each measurement must be paired with a token");
+        }
+        Ingestion ingestion = startIngestion(mode, measurements.size());
+
+        Map<String, Hydrometer> hydrometers = new HashMap<>();
+        hydrometerRepository.findByTokenIn(new HashSet<>(tokens)).forEach(h -> hydrometers.put(h.getToken(), h));
+
+        List<BatchItemResult<Measurement>> results = new ArrayList<>(measurements.size());
+        List<Measurement> accepted = new ArrayList<>(measurements.size());
+        for (int i = 0; i < measurements.size(); i++) {
+            Measurement measurement = measurements.get(i);
+            try {
+                Hydrometer hydrometer = Optional.ofNullable(hydrometers.get(tokens.get(i)))
+                        .orElseThrow(() -> new AccessDeniedException("Access to hydrometer forbidden"));
+                assignHydrometer(measurement, hydrometer);
+            } catch (AccessDeniedException | ConflictException e) {
+                results.add(BatchItemResult.failure(e));
+                continue;
+            }
+
+            accepted.add(measurement);
+            results.add(BatchItemResult.success(measurement));
+        }
+        ingestion.rejected = measurements.size() - accepted.size();
+
+        measurementRepository.saveAll(accepted);
+
+        // only the newest measurement of each hydrometer is relevant
+        Map<UUID, Measurement> latest = new HashMap<>();
+        for (Measurement measurement : accepted) {
+            latest.merge(
+                    measurement.getHydrometer().orElseThrow().getId(),
+                    measurement,
+                    (a, b) -> b.getCreatedAt().isBefore(a.getCreatedAt()) ? a : b
+            );
+        }
+        // thermostats react only to measurements newer than the ones already stored, not to replayed older ones
+        latest.forEach((hydrometerId, measurement) -> {
+            if (updateLatestMeasurement(hydrometerId, measurement)) {
+                eventPublisher.publishEvent(new MeasurementCreatedEvent(hydrometerId));
+            }
+        });
+        fermentationStatsService.record(accepted);
+        for (Measurement measurement : accepted) {
+            liveEventService.publishMeasurementAfterCommit(
+                    measurement,
+                    measurement.getHydrometer().orElseThrow().getCreatedBy().getId()
+            );
+        }
+
+        return results;
+    }
+
+    /**
+     * Assigns the hydrometer and its beer to the measurement, hiding measurements which shouldn't be displayed
+     *
+     * @param measurement measurement entity to be stored
+     * @param hydrometer  hydrometer the measurement has been taken by
+     * @throws ConflictException if the hydrometer doesn't have a beer assigned
+     */
+    private void assignHydrometer(Measurement measurement, Hydrometer hydrometer) throws ConflictException {
+        assignHydrometer(measurement, hydrometer, hydrometer.isActive(), hydrometer.getAssignedBeer());
+    }
+
+    /**
+     * Assigns the hydrometer and its beer to the measurement, hiding measurements which shouldn't be displayed
+     *
+     * @param measurement  measurement entity to be stored
+     * @param hydrometer   hydrometer the measurement has been taken by, possibly an uninitialized reference
+     * @param active       whether the hydrometer is active
+     * @param assignedBeer beer assigned to the hydrometer, possibly an uninitialized reference
+     * @throws ConflictException if the hydrometer doesn't have a beer assigned
+     */
+    private void assignHydrometer(
+            Measurement measurement,
+            Hydrometer hydrometer,
+            boolean active,
+            Optional<Beer> assignedBeer
+    ) throws ConflictException {
+        Beer beer = assignedBeer.orElseThrow(() -> new ConflictException(
+                "Cannot store the measurement as the hydrometer doesn't have a beer assigned"
+        ));
+
+        // if gravity is outside sensible range, we'll hide the data point
+        boolean unreliableData = measurement.getSpecificGravity() < 1 || measurement.getSpecificGravity() > 1.3;
+
+        measurement.setIsHidden(!active || unreliableData);
+        measurement.setHydrometer(hydrometer);
+        measurement.setBeer(beer);
+    }
+
+    /**
+     * Marks given measurement as the latest measurement of the hydrometer unless a newer one is already known.
+     * The projection is updated in place, it is only read when the hydrometer doesn't have one yet.
+     *
+     * @param hydrometerId ID of the hydrometer
+     * @param measurement  newly stored measurement
+     * @return whether the measurement has become the latest one
+     */
+    private boolean updateLatestMeasurement(UUID hydrometerId, Measurement measurement) {
+        if (latestMeasurementRepository.updateIfNewer(hydrometerId, measurement, measurement.getCreatedAt()) > 0) {
+            return true;
+        }
+        if (latestMeasurementRepository.existsById(hydrometerId)) {
+            return false;
+        }
+
+        HydrometerLatestMeasurement latest = new HydrometerLatestMeasurement();
+        latest.setId(hydrometerId);
+        latest.setMeasurement(measurement);
+        latest.setMeasuredAt(measurement.getCreatedAt());
+        latestMeasurementRepository.save(latest);
+
+        return true;
+    }
+
+    /**
+     * Looks up the latest remaining measurement of the hydrometer after its latest measurement has been deleted.
+     * The projection row of a deleted measurement is removed by the database (on delete cascade).
+     *
+     * @param hydrometerId ID of the hydrometer
+     */
+    private void restoreLatestMeasurement(UUID hydrometerId) {
+        measurementRepository.flush();
+        if (latestMeasurementRepository.existsById(hydrometerId)) {
+            // the deleted measurement wasn't the latest one
+            return;
+        }
+
+        measurementRepository.findFirstByHydrometerIdOrderByCreatedAtDescIdDesc(hydrometerId)
+                .ifPresent(measurement -> updateLatestMeasurement(hydrometerId, measurement));
+    }
+
+    /**
+     * Ensures that the beer exists and current user has access to it, otherwise throws error
+     *
+     * @param beerId ID of the beer
+     * @throws EntityNotFoundException if the beer cannot be found
+     * @throws AccessDeniedException   if User doesn't have access to the beer
+     */
+    private void ensureBeerIsAccessible(UUID beerId) throws EntityNotFoundException, AccessDeniedException {
+        Beer beer = beerRepository.findById(beerId).orElseThrow(() -> new EntityNotFoundException(Beer.class, beerId));
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (!details.isAdmin() && !beer.getCreatedBy().getId().equals(details.getId())) {
+            throw new AccessDeniedException("You don't have access to this beer");
+        }
     }
 
     /**
@@ -143,4 +758,53 @@ public class MeasurementService {
             throw new AccessDeniedException("You don't have access to this measurement");
         }
     }
+
+    /**
+     * Starts recording an ingestion of measurements. Its duration and the stored, rejected and failed measurements
+     * are recorded once the transaction completes, so the commit is included and the measurements of a rolled back
+     * transaction are counted as failed. Hydrometers are not tagged to keep the number of the series bounded.
+     *
+     * @param mode  ingestion mode, single, batch or write-behind
+     * @param count number of the ingested measurements
+     * @return ingestion to be updated with the rejected measurements
+     */
+    private Ingestion startIngestion(String mode, int count) {
+        Ingestion ingestion = new Ingestion(count);
+        // all ingestion modes are transactional, there is nothing to wait for otherwise
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return ingestion;
+        }
+
+        long start = System.nanoTime();
+        TransactionHelper.runAfterCompletion(committed -> {
+            Timer.builder("measurements.ingestion")
+                    .description("Duration of the measurement ingestion including its commit")
+                    .tag("mode", mode)
+                    .tag("outcome", committed ? "committed" : "rolled_back")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            if (committed) {
+                ingestedCounter(mode, "stored").increment(ingestion.count - ingestion.rejected);
+                ingestedCounter(mode, "rejected").increment(ingestion.rejected);
+            } else {
+                ingestedCounter(mode, "failed").increment(ingestion.count);
+            }
+        });
+
+        return ingestion;
+    }
+
+    /**
+     * @param mode    ingestion mode, single, batch or write-behind
+     * @param outcome outcome of the measurements, stored, rejected or failed
+     * @return counter of the ingested measurements with given tags
+     */
+    private Counter ingestedCounter(String mode, String outcome) {
+        return Counter.builder("measurements.ingested")
+                .description("Measurements received from the hydrometers")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
@@ -1,22 +1,32 @@
 package cz.jansimerda.homebrewdash.business;
 
+import cz.jansimerda.homebrewdash.business.meross.MerossWorker;
 import cz.jansimerda.homebrewdash.exception.internal.meross.*;
-import org.springframework.core.io.FileSystemResource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class MerossService {
 
     private final String COMMAND_ON = "ON";
     private final String COMMAND_OFF = "OFF";
-    private final String SCRIPT_PATH = "src/main/python/meross.py";
+
+    /**
+     * exit codes of the worker tagged as they are, any other exit code is tagged as other to keep the tags bounded
+     */
+    private final Set<Integer> KNOWN_EXIT_CODES = Set.of(0, 100, 101, 102, 103, 104, 105, 106);
+
+    private final MerossWorker worker;
+
+    private final MeterRegistry meterRegistry;
+
+    public MerossService(MerossWorker worker, MeterRegistry meterRegistry) {
+        this.worker = worker;
+        this.meterRegistry = meterRegistry;
+    }
 
     /**
      * Tries to connect to a given meross and turn a device ON
@@ -55,7 +65,8 @@ public class MerossService {
     }
 
     /**
-     * Tries to connect to a given meross account and execute a command for given device
+     * Tries to connect to a given meross account and execute a command for given device.
+     * The command is delegated to the MerossWorker which keeps the account sessions alive between commands.
      *
      * @param email      email of the meross account
      * @param password   password of the meross account
@@ -70,37 +81,22 @@ public class MerossService {
      * @throws DeviceOfflineMerossException         if the meross device is offline
      */
     protected void sendCommand(String email, String password, String deviceName, String command) throws MerossException {
-
-        String path = new FileSystemResource(SCRIPT_PATH).getPath();
-        ProcessBuilder processBuilder = new ProcessBuilder("python3", path, command);
-        processBuilder.redirectErrorStream(true);
-
-        Map<String, String> env = processBuilder.environment();
-        env.clear();
-        env.put("MSS_EMAIL", email);
-        env.put("MSS_PASS", password);
-        env.put("MSS_DEVICE_NAME", deviceName);
-
-        String generalErrorMessage = "An unspecified error occurred while using the Meross service";
-        Process process = null;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        MerossWorker.Result result;
         try {
-            process = processBuilder.start();
-            if (!process.waitFor(30, TimeUnit.SECONDS)) {
-                throw new GeneralMerossException("Timed-out when using the Meross service");
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new GeneralMerossException(generalErrorMessage);
-        }
-
-        int exitCode = process.exitValue();
-        String output;
-        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            output = reader.lines().collect(Collectors.joining("\t")).trim();
-        } catch (IOException e) {
-            output = generalErrorMessage;
+            result = worker.execute(email, password, deviceName, command);
+        } catch (GeneralMerossException | RuntimeException e) {
+            // the worker failed before the command finished, e.g. timed out
+            sample.stop(commandTimer(command, "error"));
+            throw e;
         }
+        sample.stop(commandTimer(
+                command,
+                KNOWN_EXIT_CODES.contains(result.exitCode()) ? String.valueOf(result.exitCode()) : "other"
+        ));
+        String output = result.output();
 
-        switch (exitCode) {
+        switch (result.exitCode()) {
             case 0:
                 return;
             case 100:
@@ -120,4 +116,16 @@ public class MerossService {
         }
     }
 
+    /**
+     * @param command  command sent to the device
+     * @param exitCode exit code tag of the command
+     * @return timer of the meross commands with given tags
+     */
+    private Timer commandTimer(String command, String exitCode) {
+        return Timer.builder("meross.commands")
+                .description("Duration of the commands sent to the Meross devices")
+                .tag("command", command)
+                .tag("exit.code", exitCode)
+                .register(meterRegistry);
+    }
 }
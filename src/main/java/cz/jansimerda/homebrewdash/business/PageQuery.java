@@ -0,0 +1,144 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Request of a single page of a list, continuing after the cursor of the previous page.
+ * Entities are ordered by the date and time of their creation and their ID, so the pages stay stable
+ * even when new entities are being created.
+ */
+public final class PageQuery {
+
+    /**
+     * number of entities of a page when not specified
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * maximal number of entities of a page
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private final int limit;
+
+    private final String after;
+
+    private final LocalDateTime from;
+
+    private final LocalDateTime to;
+
+    private final Map<String, String> filters;
+
+    /**
+     * @param limit   maximal number of entities of the page, default limit if null
+     * @param after   cursor of the previous page, first page if null
+     * @param from    only entities created at or after this date and time, unlimited if null
+     * @param to      only entities created before this date and time, unlimited if null
+     * @param filters entity specific filters as name-value pairs
+     * @throws ConditionsNotMetException if the limit or the date range is invalid
+     */
+    public PageQuery(
+            Integer limit,
+            String after,
+            LocalDateTime from,
+            LocalDateTime to,
+            Map<String, String> filters
+    ) throws ConditionsNotMetException {
+        this.limit = limit == null ? DEFAULT_LIMIT : limit;
+        if (this.limit < 1 || this.limit > MAX_LIMIT) {
+            throw new ConditionsNotMetException("The limit must be between 1 and %d".formatted(MAX_LIMIT));
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ConditionsNotMetException("The beginning of the date range must precede its end");
+        }
+
+        this.after = after;
+        this.from = from;
+        this.to = to;
+        this.filters = Map.copyOf(filters);
+    }
+
+    /**
+     * @return query of the first page with the default limit and no filters
+     */
+    public static PageQuery firstPage() {
+        return new PageQuery(null, null, null, null, Map.of());
+    }
+
+    /**
+     * Parses the value of a filter
+     *
+     * @param name   name of the filter
+     * @param value  value of the filter
+     * @param parser parser throwing IllegalArgumentException on invalid values
+     * @param <T>    type of the value
+     * @return parsed value
+     * @throws ConditionsNotMetException if the value is invalid
+     */
+    public static <T> T parseFilter(
+            String name,
+            String value,
+            Function<String, T> parser
+    ) throws ConditionsNotMetException {
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new ConditionsNotMetException("Invalid value %s of filter %s".formatted(value, name));
+        }
+    }
+
+    /**
+     * Strictly parses a boolean value of a filter
+     *
+     * @param value either true or false
+     * @return parsed value
+     * @throws IllegalArgumentException if the value is neither true nor false
+     */
+    public static boolean parseBoolean(String value) throws IllegalArgumentException {
+        return switch (value) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException("Not a boolean value");
+        };
+    }
+
+    /**
+     * @return maximal number of entities of the page
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return cursor of the previous page
+     */
+    public Optional<String> getAfter() {
+        return Optional.ofNullable(after);
+    }
+
+    /**
+     * @return beginning of the creation date range (inclusive)
+     */
+    public Optional<LocalDateTime> getFrom() {
+        return Optional.ofNullable(from);
+    }
+
+    /**
+     * @return end of the creation date range (exclusive)
+     */
+    public Optional<LocalDateTime> getTo() {
+        return Optional.ofNullable(to);
+    }
+
+    /**
+     * @return entity specific filters as name-value pairs
+     */
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+}
@@ -0,0 +1,226 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.exception.exposed.ConflictException;
+import cz.jansimerda.homebrewdash.model.StockBalance;
+import cz.jansimerda.homebrewdash.model.StockLot;
+import cz.jansimerda.homebrewdash.model.StockLotSum;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the materialized stock balances in sync with the hop, malt and yeast changes.
+ * Balance rows are locked for the rest of the transaction before they are checked, so concurrent withdrawals
+ * of the same lot are serialized and cannot take the stock below zero.
+ */
+@Service
+public class StockLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerService.class);
+
+    private final StockBalanceRepository stockBalanceRepository;
+
+    private final HopChangeRepository hopChangeRepository;
+
+    private final MaltChangeRepository maltChangeRepository;
+
+    private final YeastChangeRepository yeastChangeRepository;
+
+    private final UserRepository userRepository;
+
+    private final InventoryCache inventoryCache;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public StockLedgerService(
+            StockBalanceRepository stockBalanceRepository,
+            HopChangeRepository hopChangeRepository,
+            MaltChangeRepository maltChangeRepository,
+            YeastChangeRepository yeastChangeRepository,
+            UserRepository userRepository,
+            InventoryCache inventoryCache,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.stockBalanceRepository = stockBalanceRepository;
+        this.hopChangeRepository = hopChangeRepository;
+        this.maltChangeRepository = maltChangeRepository;
+        this.yeastChangeRepository = yeastChangeRepository;
+        this.userRepository = userRepository;
+        this.inventoryCache = inventoryCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds grams to the balance of the lot, unless a withdrawal would take the stock below zero
+     *
+     * @param lot   lot to be changed
+     * @param grams count of added or subtracted grams
+     * @return whether the stock was sufficient and the balance has been changed
+     * @throws ConflictException thrown if the balance has been created concurrently
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean adjust(StockLot lot, int grams) throws ConflictException {
+        return apply(Map.of(lot, (long) grams));
+    }
+
+    /**
+     * Replaces a change of the old lot by a change of the new lot, e.g. when the change is updated.
+     * Nothing is changed if either of the balances would go below zero.
+     *
+     * @param oldLot   lot of the original change
+     * @param oldGrams grams of the original change
+     * @param newLot   lot of the updated change
+     * @param newGrams grams of the updated change
+     * @return whether the stock was sufficient and the balances have been changed
+     * @throws ConflictException thrown if the balance has been created concurrently
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean replace(StockLot oldLot, int oldGrams, StockLot newLot, int newGrams) throws ConflictException {
+        Map<StockLot, Long> deltas = new HashMap<>();
+        deltas.merge(oldLot, (long) -oldGrams, Long::sum);
+        deltas.merge(newLot, (long) newGrams, Long::sum);
+        return apply(deltas);
+    }
+
+    /**
+     * Rebuilds the balances from the change log, correcting any drift.
+     * Every user is reconciled in its own transaction holding the locks of all their balances.
+     *
+     * @return number of corrected lots
+     */
+    @Scheduled(cron = "${stock.reconciliation.cron:0 30 3 * * *}")
+    public int reconcile() {
+        int corrected = 0;
+        for (User user : userRepository.findAll()) {
+            try {
+                Integer userCorrected = transactionTemplate.execute(status -> reconcileUser(user.getId()));
+                corrected += Objects.requireNonNull(userCorrected);
+            } catch (DataIntegrityViolationException e) {
+                // a balance has been created concurrently, the user will be reconciled in the next run
+                logger.warn("Skipped reconciliation of stock of user {}", user.getId(), e);
+            }
+        }
+
+        return corrected;
+    }
+
+    /**
+     * Applies the deltas to the balances of their lots, locking the rows in a consistent order
+     *
+     * @param deltas grams to be added to the balance of each lot
+     * @return whether the stock was sufficient and the balances have been changed
+     * @throws ConflictException thrown if the balance has been created concurrently
+     */
+    private boolean apply(Map<StockLot, Long> deltas) throws ConflictException {
+        SortedMap<StockLot, StockBalance> balances = new TreeMap<>();
+        for (StockLot lot : new TreeSet<>(deltas.keySet())) {
+            balances.put(lot, stockBalanceRepository.findForUpdate(
+                    lot.userId(),
+                    lot.ingredientType(),
+                    lot.ingredientId(),
+                    lot.lot()
+            ).orElse(null));
+        }
+
+        // additions are always allowed, only withdrawals need the stock
+        for (Map.Entry<StockLot, Long> delta : deltas.entrySet()) {
+            StockBalance balance = balances.get(delta.getKey());
+            long current = balance == null ? 0 : balance.getBalanceGrams();
+            if (delta.getValue() < 0 && current + delta.getValue() < 0) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<StockLot, StockBalance> entry : balances.entrySet()) {
+            long delta = deltas.get(entry.getKey());
+            if (entry.getValue() != null) {
+                entry.getValue().setBalanceGrams(entry.getValue().getBalanceGrams() + delta);
+            } else if (delta != 0) {
+                try {
+                    stockBalanceRepository.saveAndFlush(createBalance(entry.getKey(), delta));
+                } catch (DataIntegrityViolationException e) {
+                    throw new ConflictException("Stock has been changed concurrently, please try again", e);
+                }
+            }
+        }
+
+        // the changes written along with the balances alter the inventories of their users
+        deltas.keySet().stream().map(StockLot::userId).distinct().forEach(inventoryCache::invalidateAfterCommit);
+
+        return true;
+    }
+
+    /**
+     * Creates a balance of the lot not yet stocked
+     *
+     * @param lot   lot of the balance
+     * @param grams initial grams of the lot
+     * @return new StockBalance
+     */
+    private StockBalance createBalance(StockLot lot, long grams) {
+        StockBalance balance = new StockBalance();
+        balance.setUser(userRepository.getReferenceById(lot.userId()));
+        balance.setIngredientType(lot.ingredientType());
+        balance.setIngredientId(lot.ingredientId());
+        balance.setLot(lot.lot());
+        balance.setBalanceGrams(grams);
+        return balance;
+    }
+
+    /**
+     * Compares the balances of the user with the sums of their changes and corrects them
+     *
+     * @param userId ID of the user
+     * @return number of corrected lots
+     */
+    private int reconcileUser(UUID userId) {
+        Map<StockLot, StockBalance> balances = stockBalanceRepository.findAllForUpdateByUserId(userId).stream()
+                .collect(Collectors.toMap(StockBalance::toStockLot, Function.identity()));
+
+        Map<StockLot, Long> sums = new HashMap<>();
+        for (List<StockLotSum> lotSums : List.of(
+                hopChangeRepository.sumChangesByLotAndUser(userId),
+                maltChangeRepository.sumChangesByLotAndUser(userId),
+                yeastChangeRepository.sumChangesByLotAndUser(userId)
+        )) {
+            lotSums.forEach(s -> sums.merge(s.lot(), s.grams(), Long::sum));
+        }
+
+        int corrected = 0;
+        for (StockBalance balance : balances.values()) {
+            long expected = sums.getOrDefault(balance.toStockLot(), 0L);
+            if (balance.getBalanceGrams() != expected) {
+                logger.warn(
+                        "Correcting stock balance of {} from {} to {} grams",
+                        balance.toStockLot(),
+                        balance.getBalanceGrams(),
+                        expected
+                );
+                balance.setBalanceGrams(expected);
+                corrected++;
+            }
+        }
+
+        for (Map.Entry<StockLot, Long> sum : sums.entrySet()) {
+            if (!balances.containsKey(sum.getKey()) && sum.getValue() != 0) {
+                logger.warn("Creating missing stock balance of {} with {} grams", sum.getKey(), sum.getValue());
+                stockBalanceRepository.saveAndFlush(createBalance(sum.getKey(), sum.getValue()));
+                corrected++;
+            }
+        }
+
+        return corrected;
+    }
+}
@@ -1,6 +1,8 @@
 package cz.jansimerda.homebrewdash.business;
 
 import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
+import cz.jansimerda.homebrewdash.business.control.ControlInput;
+import cz.jansimerda.homebrewdash.business.control.ControlStrategy;
 import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.exception.exposed.ServiceUnavailableException;
@@ -9,13 +11,21 @@ import cz.jansimerda.homebrewdash.exception.internal.meross.DeviceOfflineMerossE
 import cz.jansimerda.homebrewdash.exception.internal.meross.InvalidCredentialsMerossException;
 import cz.jansimerda.homebrewdash.exception.internal.meross.MerossException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
+import cz.jansimerda.homebrewdash.model.ControllerState;
 import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.model.Measurement;
 import cz.jansimerda.homebrewdash.model.Thermostat;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
 import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
 import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
 import cz.jansimerda.homebrewdash.repository.ThermostatRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.AccessDeniedException;
@@ -23,14 +33,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
@@ -41,8 +54,41 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
 
     private final MerossService merossService;
 
+    private final LiveEventService liveEventService;
+
     private final TransactionTemplate transactionTemplate;
 
+    /**
+     * executor switching the thermostats, its size limits the number of concurrent switching operations
+     */
+    private final ExecutorService switchingExecutor;
+
+    /**
+     * maximum number of concurrent switching operations for a single meross account
+     */
+    private final int accountConcurrency;
+
+    /**
+     * permits for concurrent switching per meross account (email)
+     */
+    private final Map<String, Semaphore> accountPermits = new ConcurrentHashMap<>();
+
+    /**
+     * IDs of thermostats being switched at the moment
+     */
+    private final Set<UUID> thermostatsInProgress = ConcurrentHashMap.newKeySet();
+
+    /**
+     * maximum duration of a single scheduling tick, thermostats not switched until then are skipped
+     */
+    private final Duration tickDeadline;
+
+    private final Timer tickTimer;
+
+    private final Counter processedCounter;
+
+    private final Counter skippedCounter;
+
     /**
      * maximum granularity of the thermostat
      * 5 minutes
@@ -61,21 +107,51 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
     private final int SEC_TEMP_READ_FAILURE_THRESHOLD = 11 * 60;
 
     /**
-     * difference between set and current temperature that won't trigger thermostat
+     * control strategies by the control modes they implement
      */
-    private final double TEMPERATURE_LEEWAY = .25;
+    private final Map<ThermostatControlModeEnum, ControlStrategy> controlStrategies =
+            new EnumMap<>(ThermostatControlModeEnum.class);
 
     protected ThermostatService(
             ThermostatRepository thermostatRepository,
             HydrometerRepository hydrometerRepository,
             MerossService merossService,
-            PlatformTransactionManager transactionManager
+            LiveEventService liveEventService,
+            List<ControlStrategy> controlStrategies,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${thermostat.scheduler.concurrency:8}") int concurrency,
+            @Value("${thermostat.scheduler.account-concurrency:2}") int accountConcurrency,
+            @Value("${thermostat.scheduler.tick-deadline-seconds:100}") int tickDeadlineSeconds
     ) {
         super(thermostatRepository);
         this.thermostatRepository = thermostatRepository;
         this.hydrometerRepository = hydrometerRepository;
         this.merossService = merossService;
+        this.liveEventService = liveEventService;
+        controlStrategies.forEach(strategy -> this.controlStrategies.put(strategy.getMode(), strategy));
         this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.accountConcurrency = accountConcurrency;
+        this.tickDeadline = Duration.ofSeconds(tickDeadlineSeconds);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.switchingExecutor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "thermostat-switching-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.tickTimer = Timer.builder("thermostat.scheduler.tick")
+                .description("Duration of a single thermostat scheduling tick")
+                .register(meterRegistry);
+        this.processedCounter = Counter.builder("thermostat.scheduler.thermostats")
+                .description("Thermostats processed by the scheduler")
+                .tag("outcome", "processed")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("thermostat.scheduler.thermostats")
+                .description("Thermostats skipped by the scheduler because the tick deadline was reached")
+                .tag("outcome", "skipped")
+                .register(meterRegistry);
     }
 
     @Transactional
@@ -116,6 +192,48 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
         return thermostatRepository.findByCreatedById(userDetails.getId());
     }
 
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of(
+                "createdBy",
+                "hydrometer",
+                "hydrometer.createdBy",
+                "hydrometer.assignedBeer",
+                "hydrometer.assignedBeer.createdBy",
+                "lastMeasurement",
+                "lastMeasurement.beer",
+                "lastMeasurement.beer.createdBy"
+        );
+    }
+
+    @Override
+    protected Specification<Thermostat> accessibleSpecification() {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (details.isAdmin()) {
+            return null;
+        }
+
+        return ListSpecifications.referencing("createdBy", details.getId());
+    }
+
+    @Override
+    protected Specification<Thermostat> filterSpecification(String name, String value) throws ConditionsNotMetException {
+        return switch (name) {
+            case "active" -> ListSpecifications.equal(
+                    "active",
+                    PageQuery.parseFilter(name, value, PageQuery::parseBoolean)
+            );
+            case "state" -> ListSpecifications.equal(
+                    "state",
+                    PageQuery.parseFilter(name, value, ThermostatStateEnum::valueOf)
+            );
+            default -> super.filterSpecification(name, value);
+        };
+    }
+
     @Transactional
     @Override
     public Thermostat update(Thermostat entity) throws EntityNotFoundException {
@@ -128,6 +246,10 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
         entity.setCreatedAt(existing.getCreatedAt());
         entity.setState(existing.getState());
         entity.setIsPoweredOn(existing.isPoweredOn());
+        // the state of the controller is only meaningful to the strategy which has built it
+        if (existing.getControlMode() == entity.getControlMode()) {
+            entity.setControllerState(existing.getControllerState());
+        }
         fillHydrometer(entity);
 
         // no change in meross credentials, service won't be invoked
@@ -166,8 +288,17 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
         }
     }
 
+    /**
+     * Switches all thermostats due to be switched.
+     * Thermostats are switched concurrently, bounded globally by the executor size and per meross account.
+     * Thermostats which could not be switched before the tick deadline are skipped until the next tick,
+     * so the ticks never overlap.
+     */
     @Scheduled(fixedRate = 2 * 60 * 1000)
     public void scheduleThermostats() {
+        long tickStart = System.nanoTime();
+        Instant deadline = Instant.now().plus(tickDeadline);
+
         List<Thermostat> thermostats = thermostatRepository.findToBeSwitched(
                 LocalDateTime.now().minusSeconds(SEC_SWITCHING_DELAY),
                 LocalDateTime.now().minusSeconds(SEC_FAILURE_DELAY),
@@ -175,19 +306,87 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
                 BrewStateEnum.FERMENTING
         );
 
+        List<Future<?>> switching = new ArrayList<>();
         for (Thermostat thermostat : thermostats) {
+            // still being switched since the previous tick
+            if (!thermostatsInProgress.add(thermostat.getId())) {
+                skippedCounter.increment();
+                continue;
+            }
+
             try {
-                transactionTemplate.execute(new TransactionCallbackWithoutResult() {
-                    protected void doInTransactionWithoutResult(@NonNull TransactionStatus status) {
-                        switchThermostat(thermostat);
-                    }
-                });
-            } catch (Exception ignored) {
+                switching.add(switchingExecutor.submit(() -> switchBeforeDeadline(thermostat, deadline)));
+            } catch (RejectedExecutionException e) {
+                thermostatsInProgress.remove(thermostat.getId());
+                skippedCounter.increment();
+            }
+        }
+
+        for (Future<?> future : switching) {
+            try {
+                future.get(Math.max(Duration.between(Instant.now(), deadline).toNanos(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // the deadline has been reached, thermostats not yet started will skip themselves
+                break;
+            } catch (ExecutionException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
         }
+
+        tickTimer.record(System.nanoTime() - tickStart, TimeUnit.NANOSECONDS);
     }
 
+    /**
+     * Switches the thermostats bound to the hydrometer of newly stored measurements right away,
+     * so they react to the measurements without waiting for the next scheduling tick.
+     * The same rules apply as to the scheduled switching, thermostats switched recently
+     * or being switched at the moment are left to the schedule.
+     *
+     * @param event event of the stored measurements, received once they are committed
+     */
+    @TransactionalEventListener
+    public void onMeasurementCreated(MeasurementCreatedEvent event) {
+        try {
+            switchingExecutor.execute(() -> switchHydrometerThermostats(event.hydrometerId()));
+        } catch (RejectedExecutionException ignored) {
+            // the thermostats will be switched by the schedule
+        }
+    }
+
+    /**
+     * Shuts down the switching executor, switching operations in progress are allowed to finish
+     */
+    @PreDestroy
+    public void shutdown() {
+        switchingExecutor.shutdown();
+    }
+
+    /**
+     * Switches the thermostat according to its latest measurement,
+     * changes of its state are published to the live event subscribers of its owner
+     *
+     * @param thermostat thermostat to be switched
+     */
     public void switchThermostat(Thermostat thermostat) {
+        ThermostatStateEnum previousState = thermostat.getState();
+        boolean wasPoweredOn = thermostat.isPoweredOn();
+
+        evaluateThermostat(thermostat);
+
+        if (thermostat.getState() != previousState || thermostat.isPoweredOn() != wasPoweredOn) {
+            liveEventService.publishThermostatAfterCommit(thermostat);
+        }
+    }
+
+    /**
+     * Powers the thermostat on or off as decided by the control strategy of its control mode
+     * from the temperature of its latest measurement
+     *
+     * @param thermostat thermostat to be switched
+     */
+    private void evaluateThermostat(Thermostat thermostat) {
         Optional<Measurement> lastMeasurement = thermostat.getLastMeasurement();
         if (
                 lastMeasurement.isEmpty() || lastMeasurement.get()
@@ -211,16 +410,23 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
                 .orElseThrow()
                 .getFermentationTemperatureThreshold()
                 .orElseThrow();
-        BigDecimal diff = lastMeasurement.get().getTemperature().subtract(thresholdTemp);
-        if (diff.abs().compareTo(BigDecimal.valueOf(TEMPERATURE_LEEWAY)) <= 0) {
-            return;
-            // current temp within bounds
-        }
-
-        boolean shouldBeOn = diff.signum() < 0 && thermostat.isHeating();
+        ControllerState previousState = thermostat.getControllerState().copy();
+        boolean shouldBeOn = controlStrategies.get(thermostat.getControlMode()).control(
+                thermostat.getControllerState(),
+                new ControlInput(
+                        lastMeasurement.get().getTemperature(),
+                        thresholdTemp.doubleValue(),
+                        thermostat.isHeating(),
+                        thermostat.isPoweredOn(),
+                        LocalDateTime.now()
+                )
+        );
         if (shouldBeOn == thermostat.isPoweredOn()) {
+            // no need to switch, the state of the controller is kept for the next evaluation
+            if (!previousState.equals(thermostat.getControllerState())) {
+                thermostatRepository.save(thermostat);
+            }
             return;
-            // no need to switch
         }
         thermostat.setIsPoweredOn(shouldBeOn);
         thermostat.setState(ThermostatStateEnum.ACTIVE);
@@ -231,6 +437,63 @@ public class ThermostatService extends AbstractCrudService<Thermostat, UUID> {
     }
 
 
+    /**
+     * Switches the thermostats of the hydrometer due to be switched, skipping those being switched at the moment
+     *
+     * @param hydrometerId ID of the hydrometer
+     */
+    private void switchHydrometerThermostats(UUID hydrometerId) {
+        Instant deadline = Instant.now().plus(tickDeadline);
+
+        List<Thermostat> thermostats = thermostatRepository.findToBeSwitchedByHydrometerId(
+                hydrometerId,
+                LocalDateTime.now().minusSeconds(SEC_SWITCHING_DELAY),
+                LocalDateTime.now().minusSeconds(SEC_FAILURE_DELAY),
+                ThermostatStateEnum.SERVICE_ERROR,
+                BrewStateEnum.FERMENTING
+        );
+        for (Thermostat thermostat : thermostats) {
+            if (thermostatsInProgress.add(thermostat.getId())) {
+                switchBeforeDeadline(thermostat, deadline);
+            }
+        }
+    }
+
+    /**
+     * Switches the thermostat in its own transaction unless the tick deadline has been reached,
+     * waiting for a free permit of the thermostat's meross account at most until the deadline
+     *
+     * @param thermostat thermostat to be switched
+     * @param deadline   tick deadline
+     */
+    private void switchBeforeDeadline(Thermostat thermostat, Instant deadline) {
+        Semaphore permits = accountPermits.computeIfAbsent(thermostat.getEmail(), e -> new Semaphore(accountConcurrency));
+        try {
+            long remaining = Duration.between(Instant.now(), deadline).toNanos();
+            if (remaining <= 0 || !permits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                skippedCounter.increment();
+                return;
+            }
+
+            try {
+                transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                    protected void doInTransactionWithoutResult(@NonNull TransactionStatus status) {
+                        switchThermostat(thermostat);
+                    }
+                });
+            } catch (Exception ignored) {
+            } finally {
+                permits.release();
+                processedCounter.increment();
+            }
+        } catch (InterruptedException e) {
+            skippedCounter.increment();
+            Thread.currentThread().interrupt();
+        } finally {
+            thermostatsInProgress.remove(thermostat.getId());
+        }
+    }
+
     private void switchThermostat(Thermostat thermostat, boolean switchOn) {
         try {
             if (switchOn) {
@@ -6,6 +6,7 @@ import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.repository.UserRepository;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,9 +18,15 @@ public class UserService extends AbstractCrudService<User, UUID> {
 
     private final UserRepository repository;
 
-    UserService(UserRepository repository) {
+    private final UserSessionCache sessionCache;
+
+    private final HydrometerTokenCache hydrometerTokenCache;
+
+    UserService(UserRepository repository, UserSessionCache sessionCache, HydrometerTokenCache hydrometerTokenCache) {
         super(repository);
         this.repository = repository;
+        this.sessionCache = sessionCache;
+        this.hydrometerTokenCache = hydrometerTokenCache;
     }
 
     @Override
@@ -39,7 +46,19 @@ public class UserService extends AbstractCrudService<User, UUID> {
         );
         enforceConstraints(existing, entity);
 
-        return super.update(entity);
+        User updated = super.update(entity);
+        // cached sessions hold the previous state of the user
+        sessionCache.invalidateUser(updated.getId());
+
+        return updated;
+    }
+
+    @Override
+    public void deleteById(UUID id) throws EntityNotFoundException {
+        super.deleteById(id);
+        sessionCache.invalidateUser(id);
+        // hydrometers of the user are deleted by the database (on delete cascade)
+        hydrometerTokenCache.invalidateOwner(id);
     }
 
     /**
@@ -56,6 +75,21 @@ public class UserService extends AbstractCrudService<User, UUID> {
         return repository.findById(details.getId()).stream().toList();
     }
 
+    /**
+     * Users other than admins can list themselves only
+     *
+     * @return condition, null for admins
+     */
+    @Override
+    protected Specification<User> accessibleSpecification() {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (details.isAdmin()) {
+            return null;
+        }
+
+        return ListSpecifications.equal("id", details.getId());
+    }
+
     /**
      * Examines possible User match based on username and email,
      * compares it with candidate User and possibly throws appropriate exception
@@ -0,0 +1,140 @@
+package cz.jansimerda.homebrewdash.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import cz.jansimerda.homebrewdash.model.UserSession;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * In-process cache of user sessions resolved from bearer tokens, so authenticating a request doesn't need
+ * to query the sessions and users on every call. Sessions are kept until they expire, unknown tokens are
+ * remembered for a short time only, so invalid tokens cannot be used to drive the database load either.
+ * Tokens are never kept in the memory as they are, entries are keyed by their SHA-256 hash.
+ */
+@Component
+public class UserSessionCache {
+
+    /**
+     * name under which the cache statistics are published
+     */
+    private final String METRICS_NAME = "userSessions";
+
+    private final Cache<String, Optional<UserSession>> cache;
+
+    public UserSessionCache(
+            MeterRegistry meterRegistry,
+            @Value("${user-session.cache.maximum-size:10000}") long maximumSize,
+            @Value("${user-session.cache.negative-ttl-seconds:30}") long negativeTtlSeconds
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new SessionExpiry(Duration.ofSeconds(negativeTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRICS_NAME);
+    }
+
+    /**
+     * Fetches the session of given token, loading it when not cached
+     *
+     * @param token  authentication opaque bearer token
+     * @param loader loads the session of given token from the database
+     * @return Optional of UserSession
+     */
+    public Optional<UserSession> get(String token, Function<String, Optional<UserSession>> loader) {
+        return cache.get(hash(token), key -> loader.apply(token));
+    }
+
+    /**
+     * Invalidates the entry of given token
+     *
+     * @param token authentication opaque bearer token
+     */
+    public void invalidate(String token) {
+        cache.invalidate(hash(token));
+    }
+
+    /**
+     * Invalidates entries of all sessions of the user with given ID
+     *
+     * @param userId ID of the user
+     */
+    public void invalidateUser(UUID userId) {
+        cache.asMap().values().removeIf(s -> s.isPresent() && userId.equals(s.get().getUser().getId()));
+    }
+
+    /**
+     * Invalidates all entries
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Hashes the token to be used as the cache key
+     *
+     * @param token authentication opaque bearer token
+     * @return hex encoded SHA-256 hash of the token
+     */
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Keeps found sessions until their expiration and unknown tokens for the negative TTL
+     *
+     * @param negativeTtl time to remember unknown tokens for
+     */
+    private record SessionExpiry(Duration negativeTtl) implements Expiry<String, Optional<UserSession>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<UserSession> session, long currentTime) {
+            if (session.isEmpty()) {
+                return negativeTtl.toNanos();
+            }
+
+            Duration validity = Duration.between(LocalDateTime.now(), session.get().getExpiresAt());
+            return Math.max(validity.toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                String key,
+                Optional<UserSession> session,
+                long currentTime,
+                long currentDuration
+        ) {
+            return expireAfterCreate(key, session, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                String key,
+                Optional<UserSession> session,
+                long currentTime,
+                long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
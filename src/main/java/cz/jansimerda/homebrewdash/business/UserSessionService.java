@@ -1,6 +1,7 @@
 package cz.jansimerda.homebrewdash.business;
 
 import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.UserUnauthenticatedException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
 import cz.jansimerda.homebrewdash.helpers.TokenHelper;
@@ -8,15 +9,20 @@ import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.UserSession;
 import cz.jansimerda.homebrewdash.repository.UserRepository;
 import cz.jansimerda.homebrewdash.repository.UserSessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 
 @Service
@@ -26,11 +32,32 @@ public class UserSessionService {
 
     private final UserRepository userRepository;
 
+    private final UserSessionCache sessionCache;
+
     private final PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
 
-    public UserSessionService(UserSessionRepository sessionRepository, UserRepository userRepository) {
+    private final Timer foundLookupTimer;
+
+    private final Timer missingLookupTimer;
+
+    public UserSessionService(
+            UserSessionRepository sessionRepository,
+            UserRepository userRepository,
+            UserSessionCache sessionCache,
+            MeterRegistry meterRegistry
+    ) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.sessionCache = sessionCache;
+
+        this.foundLookupTimer = Timer.builder("user.sessions.lookups")
+                .description("Database lookups of the sessions missing the session cache")
+                .tag("result", "found")
+                .register(meterRegistry);
+        this.missingLookupTimer = Timer.builder("user.sessions.lookups")
+                .description("Database lookups of the sessions missing the session cache")
+                .tag("result", "missing")
+                .register(meterRegistry);
     }
 
     /**
@@ -59,13 +86,28 @@ public class UserSessionService {
     }
 
     /**
-     * Retrieve a UserSession from a given authentication token, if exists
+     * Retrieve a UserSession from a given authentication token, if exists.
+     * Both found sessions and unknown tokens are served from the session cache when possible.
      *
      * @param token authentication opaque bearer token
      * @return Optional of UserSession
      */
     public Optional<UserSession> readByToken(String token) {
-        return sessionRepository.getFirstByToken(token);
+        return sessionCache.get(token, this::loadByToken);
+    }
+
+    /**
+     * Loads the session of given token from the database, the lookups are timed by whether the session was found
+     *
+     * @param token authentication opaque bearer token
+     * @return Optional of UserSession
+     */
+    private Optional<UserSession> loadByToken(String token) {
+        long start = System.nanoTime();
+        Optional<UserSession> session = sessionRepository.getFirstByToken(token);
+        (session.isPresent() ? foundLookupTimer : missingLookupTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return session;
     }
 
     /**
@@ -121,6 +163,34 @@ public class UserSessionService {
         return sessionRepository.findByUserId(details.getId(), false);
     }
 
+    /**
+     * Retrieve a single page of UserSessions for a logged-in user or of all UserSessions for admin
+     *
+     * @param query requested page
+     * @return page of UserSessions
+     * @throws ConditionsNotMetException if the query contains an invalid cursor or any filter
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<UserSession> readAllAccessible(PageQuery query) throws ConditionsNotMetException {
+        if (!query.getFilters().isEmpty()) {
+            throw new ConditionsNotMetException(
+                    "Unsupported filter %s".formatted(query.getFilters().keySet().iterator().next())
+            );
+        }
+
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        Specification<UserSession> specification = ListSpecifications.fetching(List.of("user"));
+        if (!details.isAdmin()) {
+            LocalDateTime now = LocalDateTime.now();
+            specification = Specification.where(specification).and((root, q, cb) -> cb.and(
+                    cb.equal(root.get("user").get("id"), details.getId()),
+                    cb.greaterThan(root.get("expiresAt"), now)
+            ));
+        }
+
+        return KeysetPagination.readPage(sessionRepository, UserSession.class, specification, query);
+    }
+
     /**
      * Set expiration of given UserSession to current date and time
      *
@@ -134,5 +204,6 @@ public class UserSessionService {
 
         session.setExpiresAt(LocalDateTime.now());
         sessionRepository.save(session);
+        sessionCache.invalidate(session.getToken());
     }
 }
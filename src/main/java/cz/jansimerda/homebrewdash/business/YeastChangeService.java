@@ -1,16 +1,20 @@
 package cz.jansimerda.homebrewdash.business;
 
+import cz.jansimerda.homebrewdash.authentication.CustomUserDetails;
 import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.helpers.AuthenticationHelper;
+import cz.jansimerda.homebrewdash.model.StockLot;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.Yeast;
 import cz.jansimerda.homebrewdash.model.YeastChange;
 import cz.jansimerda.homebrewdash.repository.UserRepository;
 import cz.jansimerda.homebrewdash.repository.YeastChangeRepository;
 import cz.jansimerda.homebrewdash.repository.YeastRepository;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,24 +30,25 @@ public class YeastChangeService extends AbstractCrudService<YeastChange, UUID> {
 
     private final UserRepository userRepository;
 
+    private final StockLedgerService stockLedgerService;
+
     protected YeastChangeService(
             YeastChangeRepository yeastChangeRepository,
             YeastRepository yeastRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            StockLedgerService stockLedgerService
     ) {
         super(yeastChangeRepository);
         this.yeastChangeRepository = yeastChangeRepository;
         this.yeastRepository = yeastRepository;
         this.userRepository = userRepository;
+        this.stockLedgerService = stockLedgerService;
     }
 
     @Override
+    @Transactional
     public YeastChange create(YeastChange entity) {
-        modifyingPreChecks(entity, c -> c.getChangeGrams() >= 0 || yeastChangeRepository.sumChangeByYeastAndUser(
-                c.getYeast().getId(),
-                c.getExpirationDate().orElse(null),
-                c.getUser().getId()
-        ) + c.getChangeGrams() >= 0);
+        modifyingPreChecks(entity, c -> stockLedgerService.adjust(StockLot.of(c), c.getChangeGrams()));
 
         return super.create(entity);
     }
@@ -66,29 +71,51 @@ public class YeastChangeService extends AbstractCrudService<YeastChange, UUID> {
     }
 
     @Override
+    protected Specification<YeastChange> accessibleSpecification() {
+        CustomUserDetails details = AuthenticationHelper.getUserDetails();
+        if (details.isAdmin()) {
+            return null;
+        }
+
+        return ListSpecifications.referencing("user", details.getId());
+    }
+
+    @Override
+    protected Specification<YeastChange> filterSpecification(String name, String value) throws ConditionsNotMetException {
+        return switch (name) {
+            case "yeastId" -> ListSpecifications.referencing(
+                    "yeast",
+                    PageQuery.parseFilter(name, value, UUID::fromString)
+            );
+            default -> super.filterSpecification(name, value);
+        };
+    }
+
+    @Override
+    @Transactional
     public YeastChange update(YeastChange entity) throws EntityNotFoundException {
-        modifyingPreChecks(entity, c -> yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                c.getYeast().getId(),
-                c.getExpirationDate().orElse(null),
-                c.getUser().getId(),
-                c.getId()
-        ) + c.getChangeGrams() >= 0);
+        modifyingPreChecks(entity, c -> {
+            YeastChange existing = yeastChangeRepository.findById(c.getId())
+                    .orElseThrow(() -> new EntityNotFoundException(YeastChange.class, c.getId()));
+            return stockLedgerService.replace(
+                    StockLot.of(existing),
+                    existing.getChangeGrams(),
+                    StockLot.of(c),
+                    c.getChangeGrams()
+            );
+        });
 
         return super.update(entity);
     }
 
     @Override
+    @Transactional
     public void deleteById(UUID id) throws EntityNotFoundException {
         YeastChange change = yeastChangeRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(YeastChange.class, id));
 
         ensureUserIsAccessible(change.getUser().getId());
-        if (change.getChangeGrams() > 0 && yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                change.getYeast().getId(),
-                change.getExpirationDate().orElse(null),
-                change.getUser().getId(),
-                id
-        ) < 0) {
+        if (!stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())) {
             throw new ConditionsNotMetException(
                     "Cannot remove this Yeast change as it would cause the Yeast stock to go negative"
             );
@@ -140,4 +167,12 @@ public class YeastChangeService extends AbstractCrudService<YeastChange, UUID> {
             throw new AccessDeniedException("Cannot access yeast changes of user with ID %s".formatted(userId));
         }
     }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("user", "yeast", "yeast.createdBy");
+    }
 }
@@ -9,6 +9,7 @@ import cz.jansimerda.homebrewdash.repository.YeastRepository;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,9 +18,12 @@ public class YeastService extends AbstractCrudService<Yeast, UUID> {
 
     private final YeastRepository repository;
 
-    protected YeastService(YeastRepository repository) {
+    private final InventoryCache inventoryCache;
+
+    protected YeastService(YeastRepository repository, InventoryCache inventoryCache) {
         super(repository);
         this.repository = repository;
+        this.inventoryCache = inventoryCache;
     }
 
     @Override
@@ -52,7 +56,11 @@ public class YeastService extends AbstractCrudService<Yeast, UUID> {
         ensureCanModifyEntity(existing);
 
         entity.setCreatedBy(existing.getCreatedBy());
-        return repository.save(entity);
+        Yeast updated = repository.save(entity);
+        // inventories list the yeast by its name, whoever has it in stock
+        inventoryCache.invalidateAllAfterCommit();
+
+        return updated;
     }
 
     @Override
@@ -67,6 +75,7 @@ public class YeastService extends AbstractCrudService<Yeast, UUID> {
         }
 
         repository.deleteById(id);
+        inventoryCache.invalidateAllAfterCommit();
     }
 
     /**
@@ -96,4 +105,12 @@ public class YeastService extends AbstractCrudService<Yeast, UUID> {
             throw new AccessDeniedException("Missing authorization to modify this yeast");
         }
     }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected List<String> fetchedAssociations() {
+        return List.of("createdBy");
+    }
 }
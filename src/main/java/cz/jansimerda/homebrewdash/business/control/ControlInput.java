@@ -0,0 +1,29 @@
+package cz.jansimerda.homebrewdash.business.control;
+
+import cz.jansimerda.homebrewdash.helpers.DecimalHelper;
+import cz.jansimerda.homebrewdash.model.Measurement;
+
+import java.time.LocalDateTime;
+
+/**
+ * Inputs of a single evaluation of a thermostat
+ *
+ * @param temperature current temperature in degrees Celsius
+ * @param target      target temperature in degrees Celsius
+ * @param heating     whether the device heats, cools otherwise
+ * @param poweredOn   whether the device is powered on at the moment
+ * @param at          date and time of the evaluation
+ */
+public record ControlInput(double temperature, double target, boolean heating, boolean poweredOn, LocalDateTime at) {
+
+    /**
+     * Difference of the temperatures in the direction the device works, i.e. positive when the device should run
+     *
+     * @return control error in degrees Celsius
+     */
+    public double error() {
+        double error = heating ? target - temperature : temperature - target;
+        // both temperatures are decimals of at most the scale of a measurement, and so is their exact difference
+        return DecimalHelper.round(error, Measurement.TEMPERATURE_SCALE);
+    }
+}
@@ -0,0 +1,24 @@
+package cz.jansimerda.homebrewdash.business.control;
+
+import cz.jansimerda.homebrewdash.model.ControllerState;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+
+/**
+ * Strategy deciding when a thermostat is powered on, selected by the control mode of the thermostat
+ */
+public interface ControlStrategy {
+
+    /**
+     * @return control mode the strategy implements
+     */
+    ThermostatControlModeEnum getMode();
+
+    /**
+     * Decides whether the device should be powered on, updating the state of the controller
+     *
+     * @param state state of the controller persisted between the evaluations
+     * @param input inputs of the evaluation
+     * @return true if the device should be powered on
+     */
+    boolean control(ControllerState state, ControlInput input);
+}
@@ -0,0 +1,42 @@
+package cz.jansimerda.homebrewdash.business.control;
+
+import cz.jansimerda.homebrewdash.model.ControllerState;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Proportional control, the device runs for the fraction of every cycle proportional to the control error,
+ * all of the time once the error reaches the proportional band. Without an integral term the temperature
+ * settles short of the target by the fraction of the band needed to balance the losses.
+ */
+@Component
+public class DutyCycleControlStrategy extends TimeProportionedControlStrategy {
+
+    /**
+     * control error in degrees Celsius at which the device runs all the time
+     */
+    private final double proportionalBand;
+
+    public DutyCycleControlStrategy(
+            @Value("${thermostat.control.duty-cycle.proportional-band:1.0}") double proportionalBand,
+            @Value("${thermostat.control.cycle-minutes:30}") int cycleMinutes,
+            @Value("${thermostat.control.min-pulse-minutes:5}") int minPulseMinutes
+    ) {
+        super(Duration.ofMinutes(cycleMinutes), Duration.ofMinutes(minPulseMinutes));
+        this.proportionalBand = proportionalBand;
+    }
+
+    @Override
+    public ThermostatControlModeEnum getMode() {
+        return ThermostatControlModeEnum.DUTY_CYCLE;
+    }
+
+    @Override
+    protected double output(ControllerState state, ControlInput input, Optional<Double> hoursElapsed) {
+        return input.error() / proportionalBand;
+    }
+}
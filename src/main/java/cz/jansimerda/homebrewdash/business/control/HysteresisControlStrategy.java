@@ -0,0 +1,40 @@
+package cz.jansimerda.homebrewdash.business.control;
+
+import cz.jansimerda.homebrewdash.model.ControllerState;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * On-off control, the device is powered on once the temperature leaves the band around the target
+ * in the direction the device works against and powered off once it leaves the band on the other side.
+ * The state of the device is kept within the band, so it doesn't switch on every fluctuation.
+ */
+@Component
+public class HysteresisControlStrategy implements ControlStrategy {
+
+    /**
+     * difference between the target and current temperature that won't switch the device
+     */
+    private final double band;
+
+    public HysteresisControlStrategy(@Value("${thermostat.control.hysteresis.band:0.25}") double band) {
+        this.band = band;
+    }
+
+    @Override
+    public ThermostatControlModeEnum getMode() {
+        return ThermostatControlModeEnum.HYSTERESIS;
+    }
+
+    @Override
+    public boolean control(ControllerState state, ControlInput input) {
+        double error = input.error();
+        if (Math.abs(error) <= band) {
+            // current temp within bounds
+            return input.poweredOn();
+        }
+
+        return error > 0;
+    }
+}
@@ -0,0 +1,75 @@
+package cz.jansimerda.homebrewdash.business.control;
+
+import cz.jansimerda.homebrewdash.model.ControllerState;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * PID control, the output is the sum of the proportional, integral and derivative terms of the control error.
+ * The derivative is taken of the temperature rather than of the error, so changes of the target don't kick it.
+ * The integral doesn't wind up: it is only accumulated while the output isn't saturated in the direction
+ * of the error, and it is bounded so that its term alone never exceeds the output range.
+ * The derivative is off by default, readings of a hydrometer are too coarse and too sparse
+ * for it not to amplify their noise.
+ */
+@Component
+public class PidControlStrategy extends TimeProportionedControlStrategy {
+
+    /**
+     * output per degree Celsius of the error
+     */
+    private final double proportionalGain;
+
+    /**
+     * output per degree hour of the accumulated error
+     */
+    private final double integralGain;
+
+    /**
+     * output per degree Celsius per hour of the temperature change
+     */
+    private final double derivativeGain;
+
+    public PidControlStrategy(
+            @Value("${thermostat.control.pid.kp:1.0}") double proportionalGain,
+            @Value("${thermostat.control.pid.ki:0.1}") double integralGain,
+            @Value("${thermostat.control.pid.kd:0}") double derivativeGain,
+            @Value("${thermostat.control.cycle-minutes:30}") int cycleMinutes,
+            @Value("${thermostat.control.min-pulse-minutes:5}") int minPulseMinutes
+    ) {
+        super(Duration.ofMinutes(cycleMinutes), Duration.ofMinutes(minPulseMinutes));
+        this.proportionalGain = proportionalGain;
+        this.integralGain = integralGain;
+        this.derivativeGain = derivativeGain;
+    }
+
+    @Override
+    public ThermostatControlModeEnum getMode() {
+        return ThermostatControlModeEnum.PID;
+    }
+
+    @Override
+    protected double output(ControllerState state, ControlInput input, Optional<Double> hoursElapsed) {
+        double error = input.error();
+        double derivative = 0;
+        if (hoursElapsed.isPresent() && hoursElapsed.get() > 0 && state.getPreviousTemperature().isPresent()) {
+            double change = (input.temperature() - state.getPreviousTemperature().get()) / hoursElapsed.get();
+            // a rising temperature reduces the output of heating, a falling one the output of cooling
+            derivative = input.heating() ? -change : change;
+        }
+
+        double output = proportionalGain * error + integralGain * state.getIntegral() + derivativeGain * derivative;
+        boolean saturated = (output >= 1 && error > 0) || (output <= 0 && error < 0);
+        if (hoursElapsed.isPresent() && !saturated && integralGain > 0) {
+            double integral = state.getIntegral() + error * hoursElapsed.get();
+            state.setIntegral(Math.min(Math.max(integral, 0), 1 / integralGain));
+            output = proportionalGain * error + integralGain * state.getIntegral() + derivativeGain * derivative;
+        }
+
+        return output;
+    }
+}
@@ -0,0 +1,66 @@
+package cz.jansimerda.homebrewdash.business.control;
+
+import cz.jansimerda.homebrewdash.model.ControllerState;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Base of the strategies computing a continuous output, i.e. the fraction of time the device should run.
+ * The output is turned into switching by time proportioning: the device runs at the beginning of every cycle
+ * for the output fraction of the cycle. Runs and pauses shorter than the minimal pulse are skipped,
+ * so the device isn't switched more often than it can be.
+ */
+public abstract class TimeProportionedControlStrategy implements ControlStrategy {
+
+    /**
+     * evaluations further apart are considered a restart of the controller, e.g. after a sensor outage
+     */
+    private final Duration MAX_EVALUATION_GAP = Duration.ofHours(1);
+
+    private final Duration cycle;
+
+    private final Duration minPulse;
+
+    protected TimeProportionedControlStrategy(Duration cycle, Duration minPulse) {
+        this.cycle = cycle;
+        this.minPulse = minPulse;
+    }
+
+    @Override
+    public boolean control(ControllerState state, ControlInput input) {
+        Optional<Double> hoursElapsed = state.getControlledAt()
+                .map(at -> Duration.between(at, input.at()))
+                .filter(elapsed -> !elapsed.isNegative() && elapsed.compareTo(MAX_EVALUATION_GAP) <= 0)
+                .map(elapsed -> elapsed.toMillis() / 3_600_000d);
+        double output = Math.min(Math.max(output(state, input, hoursElapsed), 0), 1);
+        state.setPreviousTemperature(input.temperature());
+        state.setControlledAt(input.at());
+
+        LocalDateTime cycleStartedAt = state.getCycleStartedAt()
+                .filter(at -> !at.isAfter(input.at()) && at.plus(cycle).isAfter(input.at()))
+                .orElse(input.at());
+        state.setCycleStartedAt(cycleStartedAt);
+
+        Duration onTime = Duration.ofMillis(Math.round(output * cycle.toMillis()));
+        if (onTime.compareTo(minPulse) < 0) {
+            return false;
+        }
+        if (cycle.minus(onTime).compareTo(minPulse) < 0) {
+            return true;
+        }
+
+        return Duration.between(cycleStartedAt, input.at()).compareTo(onTime) < 0;
+    }
+
+    /**
+     * Computes the output of the controller, updating its state
+     *
+     * @param state        state of the controller, the previous temperature is updated by the caller
+     * @param input        inputs of the evaluation
+     * @param hoursElapsed hours since the previous evaluation, empty if the controller has been restarted
+     * @return fraction of time the device should run, clamped to the range from 0 to 1
+     */
+    protected abstract double output(ControllerState state, ControlInput input, Optional<Double> hoursElapsed);
+}
@@ -0,0 +1,32 @@
+package cz.jansimerda.homebrewdash.business.meross;
+
+import cz.jansimerda.homebrewdash.exception.internal.meross.GeneralMerossException;
+
+/**
+ * Executes commands against the Meross cloud on behalf of the MerossService.
+ * Implementations are expected to reuse authenticated sessions and discovered devices between commands.
+ */
+@FunctionalInterface
+public interface MerossWorker {
+
+    /**
+     * Result of an executed command
+     *
+     * @param exitCode status code as defined by the internal script (0 on success, 100 - 106 on known failures)
+     * @param output   human-readable message describing the result
+     */
+    record Result(int exitCode, String output) {
+    }
+
+    /**
+     * Executes given command for the device of given meross account
+     *
+     * @param email      email of the meross account
+     * @param password   password of the meross account
+     * @param deviceName name of the device
+     * @param command    command to be executed
+     * @return result of the command
+     * @throws GeneralMerossException if the worker is not able to execute the command at all
+     */
+    Result execute(String email, String password, String deviceName, String command) throws GeneralMerossException;
+}
@@ -0,0 +1,209 @@
+package cz.jansimerda.homebrewdash.business.meross;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.exception.internal.meross.GeneralMerossException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MerossWorker backed by a single long-lived internal python process.
+ * The process keeps authenticated sessions and discovered devices per account and receives commands
+ * as JSON lines on its standard input. Responses are matched to requests by their ID,
+ * so multiple commands can be in flight at the same time.
+ */
+@Component
+public class PythonMerossWorker implements MerossWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PythonMerossWorker.class);
+
+    private final String SCRIPT_PATH = "src/main/python/meross.py";
+
+    /**
+     * maximum time to wait for a single command to be executed
+     */
+    private final int SEC_COMMAND_TIMEOUT = 30;
+
+    private final String GENERAL_ERROR_MESSAGE = "An unspecified error occurred while using the Meross service";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong requestIds = new AtomicLong();
+
+    private Process process;
+
+    /**
+     * requests sent to the current process and not yet answered, every process has its own
+     */
+    private Map<Long, CompletableFuture<Result>> pendingRequests;
+
+    private BufferedWriter processInput;
+
+    @Override
+    public Result execute(String email, String password, String deviceName, String command) throws GeneralMerossException {
+        long id = requestIds.incrementAndGet();
+        CompletableFuture<Result> response = new CompletableFuture<>();
+        Map<Long, CompletableFuture<Result>> pending = null;
+
+        try {
+            String request = objectMapper.createObjectNode()
+                    .put("id", id)
+                    .put("email", email)
+                    .put("password", password)
+                    .put("deviceName", deviceName)
+                    .put("command", command)
+                    .toString();
+            pending = send(id, request, response);
+
+            return response.get(SEC_COMMAND_TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new GeneralMerossException("Timed-out when using the Meross service");
+        } catch (IOException | ExecutionException e) {
+            throw new GeneralMerossException(GENERAL_ERROR_MESSAGE, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeneralMerossException(GENERAL_ERROR_MESSAGE, e);
+        } finally {
+            if (pending != null) {
+                pending.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Stops the internal process; sessions are logged out by the script once its input is closed
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (process == null) {
+            return;
+        }
+
+        try {
+            processInput.close();
+            if (!process.waitFor(SEC_COMMAND_TIMEOUT, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        process = null;
+    }
+
+    /**
+     * Writes a single request line to the internal process, (re)starting the process when not running
+     *
+     * @param id       ID of the request
+     * @param request  serialized request
+     * @param response future completed by the response
+     * @return pending requests of the process the request has been sent to
+     * @throws IOException if the process cannot be started or written to
+     */
+    private synchronized Map<Long, CompletableFuture<Result>> send(
+            long id,
+            String request,
+            CompletableFuture<Result> response
+    ) throws IOException {
+        if (process == null || !process.isAlive()) {
+            start();
+        }
+
+        Map<Long, CompletableFuture<Result>> pending = pendingRequests;
+        pending.put(id, response);
+        try {
+            processInput.write(request);
+            processInput.newLine();
+            processInput.flush();
+        } catch (IOException e) {
+            pending.remove(id);
+            throw e;
+        }
+
+        return pending;
+    }
+
+    /**
+     * Starts the internal process in the serving mode together with a thread reading its responses
+     *
+     * @throws IOException if the process cannot be started
+     */
+    private void start() throws IOException {
+        String path = new FileSystemResource(SCRIPT_PATH).getPath();
+        ProcessBuilder processBuilder = new ProcessBuilder("python3", path, "--serve");
+        processBuilder.environment().clear();
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        Process started = processBuilder.start();
+        Map<Long, CompletableFuture<Result>> pending = new ConcurrentHashMap<>();
+        process = started;
+        pendingRequests = pending;
+        processInput = new BufferedWriter(new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8));
+
+        Thread reader = new Thread(() -> readResponses(started, pending), "meross-worker-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Completes pending requests with responses of given process until its output is closed,
+     * then fails the requests sent to it; requests of a process started since are left intact
+     *
+     * @param source  process to read the responses from
+     * @param pending requests sent to the process
+     */
+    private void readResponses(Process source, Map<Long, CompletableFuture<Result>> pending) {
+        try (var reader = new BufferedReader(new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                complete(line, pending);
+            }
+        } catch (IOException e) {
+            logger.warn("Reading from the Meross worker failed", e);
+        }
+
+        // the process has exited, requests sent to it will never be answered
+        IOException exited = new IOException("The Meross worker process has exited");
+        pending.values().forEach(r -> r.completeExceptionally(exited));
+    }
+
+    /**
+     * Completes the pending request a given response line belongs to
+     *
+     * @param line    serialized response
+     * @param pending requests sent to the process the response has been read from
+     */
+    private void complete(String line, Map<Long, CompletableFuture<Result>> pending) {
+        try {
+            JsonNode response = objectMapper.readTree(line);
+            CompletableFuture<Result> request = pending.get(response.path("id").asLong());
+            if (request != null) {
+                request.complete(new Result(
+                        response.path("code").asInt(1),
+                        response.path("message").asText(GENERAL_ERROR_MESSAGE).trim()
+                ));
+            }
+        } catch (IOException e) {
+            logger.warn("Unexpected output of the Meross worker: {}", line);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package cz.jansimerda.homebrewdash.config;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the SQL statements run by Hibernate on the current thread between start and stop, e.g. while a request
+ * is being served: their number, the time spent executing them and the distinct statements.
+ * Statements of other threads are not recorded.
+ */
+@Component
+public class QueryRecorder implements StatementInspector, HibernatePropertiesCustomizer {
+
+    /**
+     * maximum number of distinct statements kept, so a request looping over queries cannot exhaust the memory
+     */
+    private static final int MAX_DISTINCT_STATEMENTS = 50;
+
+    /**
+     * recordings of the threads, static as the session event listeners are instantiated by Hibernate
+     */
+    private static final ThreadLocal<Recording> recordings = new ThreadLocal<>();
+
+    /**
+     * SQL statements recorded on a thread
+     */
+    public static final class Recording {
+
+        private long count;
+
+        private long executionNanos;
+
+        private long executionStart;
+
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+
+        /**
+         * @return number of the prepared statements
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return time spent executing the statements, reading of the results excluded
+         */
+        public Duration getExecutionTime() {
+            return Duration.ofNanos(executionNanos);
+        }
+
+        /**
+         * @return distinct statements in the order of their first use, with the number of times they were prepared
+         */
+        public Map<String, Integer> getStatements() {
+            return Collections.unmodifiableMap(statements);
+        }
+    }
+
+    /**
+     * Times the execution of the statements and batches, instantiated by Hibernate for every session
+     */
+    public static class ExecutionListener extends BaseSessionEventListener {
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            startExecution();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            endExecution();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            startExecution();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            endExecution();
+        }
+
+        private void startExecution() {
+            Recording recording = recordings.get();
+            if (recording != null) {
+                recording.executionStart = System.nanoTime();
+            }
+        }
+
+        private void endExecution() {
+            Recording recording = recordings.get();
+            if (recording != null && recording.executionStart != 0) {
+                recording.executionNanos += System.nanoTime() - recording.executionStart;
+                recording.executionStart = 0;
+            }
+        }
+    }
+
+    /**
+     * Starts recording the statements of the current thread anew
+     */
+    public void start() {
+        recordings.set(new Recording());
+    }
+
+    /**
+     * Stops recording the statements of the current thread
+     *
+     * @return statements recorded since the start, empty if the recording was not started
+     */
+    public Recording stop() {
+        Recording recording = recordings.get();
+        recordings.remove();
+
+        return recording == null ? new Recording() : recording;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Recording recording = recordings.get();
+        if (recording != null) {
+            recording.count++;
+            if (recording.statements.size() < MAX_DISTINCT_STATEMENTS || recording.statements.containsKey(sql)) {
+                recording.statements.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, ExecutionListener.class.getName());
+    }
+}
@@ -0,0 +1,108 @@
+package cz.jansimerda.homebrewdash.helpers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Decimal rounding and formatting of double values, e.g. sensor readings stored in numeric columns of fixed scale.
+ * Values are processed without allocating intermediate objects, only the rare values half-way between two decimals
+ * of the scale fall back to BigDecimal, so the result is always the same as of the decimal arithmetic.
+ */
+public class DecimalHelper {
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12};
+
+    /**
+     * Rounds the value half up to given number of decimal places, as a numeric column of the scale does
+     *
+     * @param value value to be rounded
+     * @param scale number of decimal places, at most 12
+     * @return the double closest to the rounded decimal value
+     */
+    public static double round(double value, int scale) {
+        if (isHalfWay(value, scale, Math.ulp(value))) {
+            // the binary representation of the value cannot tell on which side of the half it is
+            return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+        }
+
+        double power = POWERS_OF_TEN[scale];
+        return Math.copySign(Math.rint(Math.abs(value) * power) / power, value);
+    }
+
+    /**
+     * Checks whether the value is within the error from the half-way point between two decimals of the scale,
+     * i.e. whether its rounding to the scale might depend on the error
+     *
+     * @param value value to be rounded
+     * @param scale number of decimal places, at most 12
+     * @param error maximal absolute error of the value
+     * @return true if the value might be rounded either way
+     */
+    public static boolean isHalfWay(double value, int scale, double error) {
+        double power = POWERS_OF_TEN[scale];
+        double scaled = Math.abs(value) * power;
+
+        return Math.abs(scaled - Math.floor(scaled) - 0.5) <= 2 * (error * power + Math.ulp(scaled));
+    }
+
+    /**
+     * Formats the value with given number of decimal places rounded half even, the same way as DecimalFormat
+     * with pattern "0.00" (for two decimal places) of {@link java.util.Locale#ROOT} does, regardless of the locale
+     * of the server.
+     * The value must not be half-way between two decimals of the scale, see {@link #isHalfWay(double, int, double)}.
+     *
+     * @param value value to be formatted
+     * @param scale number of decimal places, at most 12
+     * @return formatted value
+     */
+    public static String format(double value, int scale) {
+        long units = (long) Math.rint(Math.abs(value) * POWERS_OF_TEN[scale]);
+        char[] chars = new char[24];
+        int position = chars.length;
+
+        for (int i = 0; i < scale; i++) {
+            chars[--position] = (char) ('0' + units % 10);
+            units /= 10;
+        }
+        if (scale > 0) {
+            chars[--position] = '.';
+        }
+        do {
+            chars[--position] = (char) ('0' + units % 10);
+            units /= 10;
+        } while (units > 0);
+        // the sign is kept even if the value rounds to zero
+        if (Math.copySign(1, value) < 0) {
+            chars[--position] = '-';
+        }
+
+        return new String(chars, position, chars.length - position);
+    }
+
+    /**
+     * Converts the value already rounded to the scale to a decimal of the scale, e.g. as read from a numeric column
+     *
+     * @param value value rounded to the scale
+     * @param scale number of decimal places, at most 12
+     * @return decimal value of the scale
+     */
+    public static BigDecimal toBigDecimal(double value, int scale) {
+        return BigDecimal.valueOf(Math.round(value * POWERS_OF_TEN[scale]), scale);
+    }
+
+    /**
+     * Formats the value as a plain decimal number, without an exponent
+     *
+     * @param value value to be formatted
+     * @return formatted value
+     */
+    public static String toPlainString(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude == 0 || (magnitude >= 1e-3 && magnitude < 1e7)) {
+            // Double.toString uses the plain notation within this range
+            return Double.toString(value);
+        }
+
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+}
@@ -0,0 +1,76 @@
+package cz.jansimerda.homebrewdash.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+public class DownsamplingHelper {
+    /**
+     * Downsample a series of points to given number of points using the Largest-Triangle-Three-Buckets algorithm.
+     * The first and the last point are always kept, of every other bucket the point forming the largest triangle
+     * with the previously selected point and the average of the next bucket is kept, which preserves the shape
+     * of the series much better than plain averaging.
+     *
+     * @param points    points sorted by the x coordinate
+     * @param threshold number of points to be kept, at least 3
+     * @param x         x coordinate of a point
+     * @param y         y coordinate of a point
+     * @param <T>       type of the points
+     * @return selected points, all points if there are not more of them than the threshold
+     */
+    public static <T> List<T> largestTriangleThreeBuckets(
+            List<T> points,
+            int threshold,
+            ToDoubleFunction<T> x,
+            ToDoubleFunction<T> y
+    ) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("At least 3 points must be kept");
+        }
+        if (points.size() <= threshold) {
+            return points;
+        }
+
+        List<T> sampled = new ArrayList<>(threshold);
+        // the first and the last point have buckets of their own
+        double bucketSize = (double) (points.size() - 2) / (threshold - 2);
+
+        int selected = 0;
+        sampled.add(points.get(selected));
+        for (int i = 0; i < threshold - 2; i++) {
+            // average point of the next bucket
+            int nextStart = (int) Math.floor((i + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((i + 2) * bucketSize) + 1, points.size());
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += x.applyAsDouble(points.get(j));
+                avgY += y.applyAsDouble(points.get(j));
+            }
+            avgX /= nextEnd - nextStart;
+            avgY /= nextEnd - nextStart;
+
+            // point of the current bucket forming the largest triangle
+            int start = (int) Math.floor(i * bucketSize) + 1;
+            int end = (int) Math.floor((i + 1) * bucketSize) + 1;
+            double selectedX = x.applyAsDouble(points.get(selected));
+            double selectedY = y.applyAsDouble(points.get(selected));
+            double maxArea = -1;
+            int next = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((selectedX - avgX) * (y.applyAsDouble(points.get(j)) - selectedY)
+                        - (selectedX - x.applyAsDouble(points.get(j))) * (avgY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+
+            selected = next;
+            sampled.add(points.get(selected));
+        }
+        sampled.add(points.get(points.size() - 1));
+
+        return sampled;
+    }
+}
@@ -0,0 +1,47 @@
+package cz.jansimerda.homebrewdash.helpers;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+public class TransactionHelper {
+    /**
+     * Run the action once the current transaction commits, immediately when there is no transaction.
+     * The action is not run at all when the transaction is rolled back.
+     *
+     * @param action action to be run
+     */
+    public static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Run the action once the current transaction completes, immediately when there is no transaction
+     *
+     * @param action action to be run, accepting whether the transaction has been committed
+     */
+    public static void runAfterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package cz.jansimerda.homebrewdash.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * UUID identifier generated on insert, entities implementing IdAssignmentAware can request a particular one,
+ * e.g. to be stored idempotently. The ID field itself stays empty until the insert, so the entity is persisted
+ * as a new one rather than merged.
+ */
+@IdGeneratorType(AssignableUuidGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface AssignableUuid {
+}
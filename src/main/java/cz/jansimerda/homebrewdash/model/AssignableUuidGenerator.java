@@ -0,0 +1,29 @@
+package cz.jansimerda.homebrewdash.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+/**
+ * Generates a random UUID unless the inserted entity requests its own by IdAssignmentAware
+ */
+public class AssignableUuidGenerator implements BeforeExecutionGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        if (owner instanceof IdAssignmentAware entity && entity.getAssignedId().isPresent()) {
+            return entity.getAssignedId().get();
+        }
+
+        return UUID.randomUUID();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
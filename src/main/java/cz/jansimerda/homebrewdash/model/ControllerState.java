@@ -0,0 +1,116 @@
+package cz.jansimerda.homebrewdash.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * State of the control strategy of a thermostat, persisted between its evaluations
+ */
+@Embeddable
+public class ControllerState {
+
+    @Column(name = "control_integral", nullable = false)
+    private double integral;
+
+    @Column(name = "control_previous_temperature")
+    private Double previousTemperature;
+
+    @Column(name = "controlled_at")
+    private LocalDateTime controlledAt;
+
+    @Column(name = "control_cycle_started_at")
+    private LocalDateTime cycleStartedAt;
+
+    /**
+     * @return accumulated integral of the control error in degree hours
+     */
+    public double getIntegral() {
+        return integral;
+    }
+
+    /**
+     * @param integral accumulated integral of the control error in degree hours
+     */
+    public void setIntegral(double integral) {
+        this.integral = integral;
+    }
+
+    /**
+     * @return temperature at the previous evaluation
+     */
+    public Optional<Double> getPreviousTemperature() {
+        return Optional.ofNullable(previousTemperature);
+    }
+
+    /**
+     * @param previousTemperature temperature at the previous evaluation
+     */
+    public void setPreviousTemperature(Double previousTemperature) {
+        this.previousTemperature = previousTemperature;
+    }
+
+    /**
+     * @return date and time of the previous evaluation
+     */
+    public Optional<LocalDateTime> getControlledAt() {
+        return Optional.ofNullable(controlledAt);
+    }
+
+    /**
+     * @param controlledAt date and time of the previous evaluation
+     */
+    public void setControlledAt(LocalDateTime controlledAt) {
+        this.controlledAt = controlledAt;
+    }
+
+    /**
+     * @return beginning of the current duty cycle
+     */
+    public Optional<LocalDateTime> getCycleStartedAt() {
+        return Optional.ofNullable(cycleStartedAt);
+    }
+
+    /**
+     * @param cycleStartedAt beginning of the current duty cycle
+     */
+    public void setCycleStartedAt(LocalDateTime cycleStartedAt) {
+        this.cycleStartedAt = cycleStartedAt;
+    }
+
+    /**
+     * @return copy of the state
+     */
+    public ControllerState copy() {
+        ControllerState copy = new ControllerState();
+        copy.setIntegral(integral);
+        copy.setPreviousTemperature(previousTemperature);
+        copy.setControlledAt(controlledAt);
+        copy.setCycleStartedAt(cycleStartedAt);
+
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ControllerState that)) {
+            return false;
+        }
+
+        return Double.compare(that.integral, integral) == 0
+                && Objects.equals(previousTemperature, that.previousTemperature)
+                && Objects.equals(controlledAt, that.controlledAt)
+                && Objects.equals(cycleStartedAt, that.cycleStartedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(integral, previousTemperature, controlledAt, cycleStartedAt);
+    }
+}
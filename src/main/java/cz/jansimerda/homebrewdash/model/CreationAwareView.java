@@ -0,0 +1,21 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a creation aware entity, constructed by the query itself,
+ * so the entity is never loaded into the persistence context
+ *
+ * @param <K> Type of (primary) key of the entity
+ */
+public interface CreationAwareView<K> {
+    /**
+     * @return ID of the entity
+     */
+    K id();
+
+    /**
+     * @return date and time of creation of the entity
+     */
+    LocalDateTime createdAt();
+}
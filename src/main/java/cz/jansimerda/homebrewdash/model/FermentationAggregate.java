@@ -0,0 +1,293 @@
+package cz.jansimerda.homebrewdash.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Running aggregates of the visible measurements of a beer, updated by the FermentationStatsService
+ * whenever a measurement is stored, so the fermentation statistics don't need to scan the measurements.
+ * The sums of the gravity regression are weighted by the age of the measurements relative to the last one,
+ * halving with every half-life, so the regression follows the recent course of the fermentation.
+ */
+@Entity
+@Table(name = "fermentation_aggregates")
+public class FermentationAggregate implements DomainEntity<UUID> {
+
+    @Id
+    @Column(name = "beer_id")
+    private UUID beerId;
+
+    @Column(nullable = false)
+    private int measurementCount;
+
+    @Column(nullable = false)
+    private LocalDateTime regressionOrigin;
+
+    @Column(nullable = false)
+    private LocalDateTime firstMeasuredAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lastMeasuredAt;
+
+    @Column(nullable = false)
+    private double lastGravity;
+
+    @Column(nullable = false)
+    private double lastTemperature;
+
+    @Column(nullable = false)
+    private double temperatureMean;
+
+    @Column(name = "temperature_m2", nullable = false)
+    private double temperatureM2;
+
+    @Column(nullable = false)
+    private double temperatureMin;
+
+    @Column(nullable = false)
+    private double temperatureMax;
+
+    @Column(nullable = false)
+    private double weightSum;
+
+    @Column(nullable = false)
+    private double weightedTimeSum;
+
+    @Column(nullable = false)
+    private double weightedGravitySum;
+
+    @Column(nullable = false)
+    private double weightedTimeSquaredSum;
+
+    @Column(nullable = false)
+    private double weightedTimeGravitySum;
+
+    /**
+     * @return ID of the beer
+     */
+    @Override
+    public UUID getId() {
+        return Objects.requireNonNull(beerId);
+    }
+
+    /**
+     * @param id ID of the beer
+     */
+    @Override
+    public void setId(UUID id) {
+        this.beerId = id;
+    }
+
+    /**
+     * @return number of aggregated measurements
+     */
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    /**
+     * @param measurementCount number of aggregated measurements
+     */
+    public void setMeasurementCount(int measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    /**
+     * @return date and time the times of the regression are measured from
+     */
+    public LocalDateTime getRegressionOrigin() {
+        return Objects.requireNonNull(regressionOrigin);
+    }
+
+    /**
+     * @param regressionOrigin date and time the times of the regression are measured from
+     */
+    public void setRegressionOrigin(LocalDateTime regressionOrigin) {
+        this.regressionOrigin = regressionOrigin;
+    }
+
+    /**
+     * @return date and time of the first aggregated measurement
+     */
+    public LocalDateTime getFirstMeasuredAt() {
+        return Objects.requireNonNull(firstMeasuredAt);
+    }
+
+    /**
+     * @param firstMeasuredAt date and time of the first aggregated measurement
+     */
+    public void setFirstMeasuredAt(LocalDateTime firstMeasuredAt) {
+        this.firstMeasuredAt = firstMeasuredAt;
+    }
+
+    /**
+     * @return date and time of the last aggregated measurement
+     */
+    public LocalDateTime getLastMeasuredAt() {
+        return Objects.requireNonNull(lastMeasuredAt);
+    }
+
+    /**
+     * @param lastMeasuredAt date and time of the last aggregated measurement
+     */
+    public void setLastMeasuredAt(LocalDateTime lastMeasuredAt) {
+        this.lastMeasuredAt = lastMeasuredAt;
+    }
+
+    /**
+     * @return specific gravity of the last aggregated measurement
+     */
+    public double getLastGravity() {
+        return lastGravity;
+    }
+
+    /**
+     * @param lastGravity specific gravity of the last aggregated measurement
+     */
+    public void setLastGravity(double lastGravity) {
+        this.lastGravity = lastGravity;
+    }
+
+    /**
+     * @return temperature of the last aggregated measurement
+     */
+    public double getLastTemperature() {
+        return lastTemperature;
+    }
+
+    /**
+     * @param lastTemperature temperature of the last aggregated measurement
+     */
+    public void setLastTemperature(double lastTemperature) {
+        this.lastTemperature = lastTemperature;
+    }
+
+    /**
+     * @return mean temperature
+     */
+    public double getTemperatureMean() {
+        return temperatureMean;
+    }
+
+    /**
+     * @param temperatureMean mean temperature
+     */
+    public void setTemperatureMean(double temperatureMean) {
+        this.temperatureMean = temperatureMean;
+    }
+
+    /**
+     * @return sum of squared deviations of the temperature from the mean
+     */
+    public double getTemperatureM2() {
+        return temperatureM2;
+    }
+
+    /**
+     * @param temperatureM2 sum of squared deviations of the temperature from the mean
+     */
+    public void setTemperatureM2(double temperatureM2) {
+        this.temperatureM2 = temperatureM2;
+    }
+
+    /**
+     * @return minimal temperature
+     */
+    public double getTemperatureMin() {
+        return temperatureMin;
+    }
+
+    /**
+     * @param temperatureMin minimal temperature
+     */
+    public void setTemperatureMin(double temperatureMin) {
+        this.temperatureMin = temperatureMin;
+    }
+
+    /**
+     * @return maximal temperature
+     */
+    public double getTemperatureMax() {
+        return temperatureMax;
+    }
+
+    /**
+     * @param temperatureMax maximal temperature
+     */
+    public void setTemperatureMax(double temperatureMax) {
+        this.temperatureMax = temperatureMax;
+    }
+
+    /**
+     * @return sum of the weights of the measurements
+     */
+    public double getWeightSum() {
+        return weightSum;
+    }
+
+    /**
+     * @param weightSum sum of the weights of the measurements
+     */
+    public void setWeightSum(double weightSum) {
+        this.weightSum = weightSum;
+    }
+
+    /**
+     * @return weighted sum of the times in days since the regression origin
+     */
+    public double getWeightedTimeSum() {
+        return weightedTimeSum;
+    }
+
+    /**
+     * @param weightedTimeSum weighted sum of the times in days since the regression origin
+     */
+    public void setWeightedTimeSum(double weightedTimeSum) {
+        this.weightedTimeSum = weightedTimeSum;
+    }
+
+    /**
+     * @return weighted sum of the specific gravities
+     */
+    public double getWeightedGravitySum() {
+        return weightedGravitySum;
+    }
+
+    /**
+     * @param weightedGravitySum weighted sum of the specific gravities
+     */
+    public void setWeightedGravitySum(double weightedGravitySum) {
+        this.weightedGravitySum = weightedGravitySum;
+    }
+
+    /**
+     * @return weighted sum of the squared times
+     */
+    public double getWeightedTimeSquaredSum() {
+        return weightedTimeSquaredSum;
+    }
+
+    /**
+     * @param weightedTimeSquaredSum weighted sum of the squared times
+     */
+    public void setWeightedTimeSquaredSum(double weightedTimeSquaredSum) {
+        this.weightedTimeSquaredSum = weightedTimeSquaredSum;
+    }
+
+    /**
+     * @return weighted sum of the products of the times and the specific gravities
+     */
+    public double getWeightedTimeGravitySum() {
+        return weightedTimeGravitySum;
+    }
+
+    /**
+     * @param weightedTimeGravitySum weighted sum of the products of the times and the specific gravities
+     */
+    public void setWeightedTimeGravitySum(double weightedTimeGravitySum) {
+        this.weightedTimeGravitySum = weightedTimeGravitySum;
+    }
+}
@@ -0,0 +1,59 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Fermentation statistics of a beer derived from its visible measurements.
+ * Values which cannot be derived, e.g. without any measurement or the original gravity of the beer, are null.
+ *
+ * @param beerId              ID of the beer
+ * @param measurementCount    number of visible measurements
+ * @param firstMeasuredAt     date and time of the first measurement
+ * @param lastMeasuredAt      date and time of the last measurement
+ * @param currentGravity      specific gravity of the last measurement
+ * @param currentTemperature  temperature of the last measurement
+ * @param apparentAttenuation apparent attenuation in percent, relative to the original gravity of the beer
+ * @param alcoholByVolume     current ABV in percent, estimated from the original gravity of the beer
+ * @param gravityChangePerDay change of the specific gravity per day following the recent measurements
+ * @param temperatureMean     mean temperature
+ * @param temperatureStdDev   standard deviation of the temperature, i.e. its stability
+ * @param temperatureMin      minimal temperature
+ * @param temperatureMax      maximal temperature
+ * @param estimatedFinishedAt estimated date and time the gravity reaches the final gravity threshold of the beer
+ */
+public record FermentationStats(
+        UUID beerId,
+        int measurementCount,
+        LocalDateTime firstMeasuredAt,
+        LocalDateTime lastMeasuredAt,
+        Double currentGravity,
+        Double currentTemperature,
+        Double apparentAttenuation,
+        Double alcoholByVolume,
+        Double gravityChangePerDay,
+        Double temperatureMean,
+        Double temperatureStdDev,
+        Double temperatureMin,
+        Double temperatureMax,
+        LocalDateTime estimatedFinishedAt
+) {
+
+    /**
+     * @param beerId ID of the beer
+     * @return statistics of a beer without any visible measurement
+     */
+    public static FermentationStats empty(UUID beerId) {
+        return new FermentationStats(
+                beerId, 0, null, null, null, null, null, null, null, null, null, null, null, null
+        );
+    }
+
+    /**
+     * @return estimated date and time the gravity reaches the final gravity threshold of the beer
+     */
+    public Optional<LocalDateTime> getEstimatedFinishedAt() {
+        return Optional.ofNullable(estimatedFinishedAt);
+    }
+}
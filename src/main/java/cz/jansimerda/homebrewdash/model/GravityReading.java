@@ -0,0 +1,25 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Values of a single measurement the fermentation statistics are aggregated from
+ *
+ * @param measuredAt      date and time of the measurement
+ * @param specificGravity SG - Specific Gravity
+ * @param temperature     temperature in degrees Celsius
+ */
+public record GravityReading(LocalDateTime measuredAt, double specificGravity, double temperature) {
+
+    /**
+     * @param measurement measurement entity
+     * @return values of the measurement
+     */
+    public static GravityReading of(Measurement measurement) {
+        return new GravityReading(
+                measurement.getCreatedAt(),
+                measurement.getSpecificGravity(),
+                measurement.getTemperature()
+        );
+    }
+}
@@ -0,0 +1,25 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Stock of a hop lot of a user
+ *
+ * @param hopId               ID of the hop
+ * @param hopName             name of the hop
+ * @param alphaAcidPercentage alpha acid percentage of the lot
+ * @param betaAcidPercentage  beta acid percentage of the lot
+ * @param harvestedAt         date of harvest of the lot
+ * @param grams               grams in stock
+ */
+public record HopStock(
+        UUID hopId,
+        String hopName,
+        BigDecimal alphaAcidPercentage,
+        BigDecimal betaAcidPercentage,
+        LocalDate harvestedAt,
+        Long grams
+) {
+}
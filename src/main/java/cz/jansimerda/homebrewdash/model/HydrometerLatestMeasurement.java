@@ -0,0 +1,71 @@
+package cz.jansimerda.homebrewdash.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Projection pointing to the most recent measurement of each hydrometer.
+ * Maintained by the MeasurementService, so the latest reading can be looked up by the hydrometer's primary key.
+ */
+@Entity
+@Table(name = "hydrometer_latest_measurements")
+public class HydrometerLatestMeasurement implements DomainEntity<UUID> {
+
+    @Id
+    @Column(name = "hydrometer_id")
+    private UUID hydrometerId;
+
+    @ManyToOne
+    @JoinColumn(name = "measurement_id", nullable = false)
+    private Measurement measurement;
+
+    @Column(nullable = false)
+    private LocalDateTime measuredAt;
+
+    /**
+     * @return ID of the hydrometer
+     */
+    @Override
+    public UUID getId() {
+        return Objects.requireNonNull(hydrometerId);
+    }
+
+    /**
+     * @param id ID of the hydrometer
+     */
+    @Override
+    public void setId(UUID id) {
+        this.hydrometerId = id;
+    }
+
+    /**
+     * @return the most recent measurement of the hydrometer
+     */
+    public Measurement getMeasurement() {
+        return Objects.requireNonNull(measurement);
+    }
+
+    /**
+     * @param measurement the most recent measurement of the hydrometer
+     */
+    public void setMeasurement(Measurement measurement) {
+        this.measurement = measurement;
+    }
+
+    /**
+     * @return date and time the most recent measurement was taken
+     */
+    public LocalDateTime getMeasuredAt() {
+        return Objects.requireNonNull(measuredAt);
+    }
+
+    /**
+     * @param measuredAt date and time the most recent measurement was taken
+     */
+    public void setMeasuredAt(LocalDateTime measuredAt) {
+        this.measuredAt = measuredAt;
+    }
+}
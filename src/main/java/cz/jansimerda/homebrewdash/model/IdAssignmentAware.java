@@ -0,0 +1,11 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface IdAssignmentAware {
+    /**
+     * @return ID the entity is to be inserted with, empty to generate a random one
+     */
+    Optional<UUID> getAssignedId();
+}
@@ -0,0 +1,13 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.util.List;
+
+/**
+ * Ingredients a user has in stock
+ *
+ * @param hops   hop lots in stock
+ * @param malts  malts in stock
+ * @param yeasts yeast lots in stock
+ */
+public record Inventory(List<HopStock> hops, List<MaltStock> malts, List<YeastStock> yeasts) {
+}
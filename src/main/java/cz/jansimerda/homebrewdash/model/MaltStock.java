@@ -0,0 +1,14 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.util.UUID;
+
+/**
+ * Stock of a malt of a user
+ *
+ * @param maltId   ID of the malt
+ * @param maltName name of the malt
+ * @param colorEbc color of the malt in EBC, null if unknown
+ * @param grams    grams in stock
+ */
+public record MaltStock(UUID maltId, String maltName, Integer colorEbc, Long grams) {
+}
@@ -1,11 +1,13 @@
 package cz.jansimerda.homebrewdash.model;
 
+import cz.jansimerda.homebrewdash.helpers.DecimalHelper;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.Optional;
@@ -14,23 +16,33 @@ import java.util.UUID;
 @Entity
 @Table(name = "measurements")
 @EntityListeners(AuditingEntityListener.class)
-public class Measurement implements DomainEntity<UUID>, CreationAware {
+public class Measurement implements DomainEntity<UUID>, CreationAware, IdAssignmentAware {
+
+    // scales of the numeric columns of the sensor values, the values are kept rounded to them
+    public static final int ANGLE_SCALE = 8;
+    public static final int TEMPERATURE_SCALE = 3;
+    public static final int BATTERY_SCALE = 9;
+    public static final int SPECIFIC_GRAVITY_SCALE = 8;
 
     @Id
-    @GeneratedValue
+    @AssignableUuid
     private UUID id;
 
-    @Column(nullable = false, precision = 11, scale = 8)
-    private BigDecimal angle;
+    @Column(nullable = false, precision = 11, scale = ANGLE_SCALE)
+    @JdbcTypeCode(SqlTypes.NUMERIC)
+    private double angle;
 
-    @Column(nullable = false, precision = 6, scale = 3)
-    private BigDecimal temperature;
+    @Column(nullable = false, precision = 6, scale = TEMPERATURE_SCALE)
+    @JdbcTypeCode(SqlTypes.NUMERIC)
+    private double temperature;
 
-    @Column(nullable = false, precision = 12, scale = 9)
-    private BigDecimal battery;
+    @Column(nullable = false, precision = 12, scale = BATTERY_SCALE)
+    @JdbcTypeCode(SqlTypes.NUMERIC)
+    private double battery;
 
-    @Column(nullable = false, precision = 11, scale = 8)
-    private BigDecimal specificGravity;
+    @Column(nullable = false, precision = 11, scale = SPECIFIC_GRAVITY_SCALE)
+    @JdbcTypeCode(SqlTypes.NUMERIC)
+    private double specificGravity;
 
     @Column(name = "measurement_interval", nullable = false)
     private int interval;
@@ -57,6 +69,18 @@ public class Measurement implements DomainEntity<UUID>, CreationAware {
     @CreatedDate
     private LocalDateTime createdAt;
 
+    /**
+     * date and time the measurement has been received at when it is stored later, e.g. by the write-behind ingestion
+     */
+    @Transient
+    private LocalDateTime receivedAt;
+
+    /**
+     * ID requested by the write-behind ingestion, so a replayed measurement is stored only once
+     */
+    @Transient
+    private UUID assignedId;
+
     /**
      * @inheritDoc
      */
@@ -76,43 +100,43 @@ public class Measurement implements DomainEntity<UUID>, CreationAware {
     /**
      * @return hydrometer angle in degrees
      */
-    public BigDecimal getAngle() {
-        return Objects.requireNonNull(angle);
+    public double getAngle() {
+        return angle;
     }
 
     /**
      * @param angle hydrometer angle in degrees
      */
-    public void setAngle(BigDecimal angle) {
-        this.angle = angle;
+    public void setAngle(double angle) {
+        this.angle = DecimalHelper.round(angle, ANGLE_SCALE);
     }
 
     /**
      * @return temperature in degrees Celsius
      */
-    public BigDecimal getTemperature() {
-        return Objects.requireNonNull(temperature);
+    public double getTemperature() {
+        return temperature;
     }
 
     /**
      * @param temperature temperature in degrees Celsius
      */
-    public void setTemperature(BigDecimal temperature) {
-        this.temperature = temperature;
+    public void setTemperature(double temperature) {
+        this.temperature = DecimalHelper.round(temperature, TEMPERATURE_SCALE);
     }
 
     /**
      * @return battery level in volts
      */
-    public BigDecimal getBattery() {
-        return Objects.requireNonNull(battery);
+    public double getBattery() {
+        return battery;
     }
 
     /**
      * @param battery battery level in volts
      */
-    public void setBattery(BigDecimal battery) {
-        this.battery = battery;
+    public void setBattery(double battery) {
+        this.battery = DecimalHelper.round(battery, BATTERY_SCALE);
     }
 
     /**
@@ -120,8 +144,8 @@ public class Measurement implements DomainEntity<UUID>, CreationAware {
      *
      * @return SG - Specific Gravity
      */
-    public BigDecimal getSpecificGravity() {
-        return Objects.requireNonNull(specificGravity);
+    public double getSpecificGravity() {
+        return specificGravity;
     }
 
     /**
@@ -129,8 +153,8 @@ public class Measurement implements DomainEntity<UUID>, CreationAware {
      *
      * @param specificGravity SG - Specific Gravity
      */
-    public void setSpecificGravity(BigDecimal specificGravity) {
-        this.specificGravity = specificGravity;
+    public void setSpecificGravity(double specificGravity) {
+        this.specificGravity = DecimalHelper.round(specificGravity, SPECIFIC_GRAVITY_SCALE);
     }
 
     /**
@@ -232,4 +256,43 @@ public class Measurement implements DomainEntity<UUID>, CreationAware {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    /**
+     * @return date and time the measurement has been received at if it differs from the date and time of storing
+     */
+    public Optional<LocalDateTime> getReceivedAt() {
+        return Optional.ofNullable(receivedAt);
+    }
+
+    /**
+     * @param receivedAt date and time the measurement has been received at, used as the date and time of creation
+     */
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Optional<UUID> getAssignedId() {
+        return Optional.ofNullable(assignedId);
+    }
+
+    /**
+     * @param assignedId ID the measurement is to be inserted with
+     */
+    public void setAssignedId(UUID assignedId) {
+        this.assignedId = assignedId;
+    }
+
+    /**
+     * Keeps the date and time of reception of a measurement stored later, called after the auditing listener
+     */
+    @PrePersist
+    private void applyReceivedAt() {
+        if (receivedAt != null) {
+            createdAt = receivedAt;
+        }
+    }
 }
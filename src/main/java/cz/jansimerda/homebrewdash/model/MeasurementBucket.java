@@ -0,0 +1,37 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Aggregated visible measurements of a beer taken within a single time bucket
+ *
+ * @param bucket         index of the bucket, i.e. number of whole buckets since the unix epoch
+ * @param count          number of aggregated measurements
+ * @param gravityAvg     average specific gravity
+ * @param gravityMin     minimal specific gravity
+ * @param gravityMax     maximal specific gravity
+ * @param temperatureAvg average temperature
+ * @param temperatureMin minimal temperature
+ * @param temperatureMax maximal temperature
+ */
+public record MeasurementBucket(
+        Number bucket,
+        Long count,
+        Double gravityAvg,
+        Double gravityMin,
+        Double gravityMax,
+        Double temperatureAvg,
+        Double temperatureMin,
+        Double temperatureMax
+) {
+
+    /**
+     * @param length length of the buckets
+     * @return date and time the bucket starts at
+     */
+    public LocalDateTime getStart(Duration length) {
+        return LocalDateTime.ofEpochSecond(bucket.longValue() * length.toSeconds(), 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,63 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read-only projection of a measurement as listed by the API
+ *
+ * @param id              ID of the measurement
+ * @param angle           hydrometer angle in degrees
+ * @param temperature     temperature in degrees Celsius
+ * @param battery         battery level in volts
+ * @param specificGravity SG - Specific Gravity
+ * @param interval        measurement interval in seconds
+ * @param rssi            received signal strength indicator
+ * @param hydrometerId    ID of the hydrometer, null if not related to any hydrometer
+ * @param beerId          ID of the beer
+ * @param hidden          whether the measurement is hidden
+ * @param updatedAt       date and time of last update
+ * @param createdAt       date and time of creation
+ */
+public record MeasurementView(
+        UUID id,
+        double angle,
+        double temperature,
+        double battery,
+        double specificGravity,
+        int interval,
+        int rssi,
+        UUID hydrometerId,
+        UUID beerId,
+        boolean hidden,
+        LocalDateTime updatedAt,
+        LocalDateTime createdAt
+) implements CreationAwareView<UUID> {
+
+    /**
+     * paths of the attributes of the Measurement entity, in the order of the components
+     */
+    public static final List<String> ATTRIBUTES = List.of(
+            "id",
+            "angle",
+            "temperature",
+            "battery",
+            "specificGravity",
+            "interval",
+            "rssi",
+            "hydrometer.id",
+            "beer.id",
+            "hidden",
+            "updatedAt",
+            "createdAt"
+    );
+
+    /**
+     * @return ID of the hydrometer
+     */
+    public Optional<UUID> getHydrometerId() {
+        return Optional.ofNullable(hydrometerId);
+    }
+}
@@ -0,0 +1,137 @@
+package cz.jansimerda.homebrewdash.model;
+
+import cz.jansimerda.homebrewdash.model.enums.IngredientTypeEnum;
+import jakarta.persistence.*;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Materialized stock balance of a single lot, i.e. sum of all changes of the lot.
+ * Maintained by the StockLedgerService together with the changes, so the stock can be checked without summing
+ * the whole change log.
+ */
+@Entity
+@Table(
+        name = "stock_balances",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uc_stock_balances_lot",
+                columnNames = {"user_id", "ingredient_type", "ingredient_id", "lot"}
+        )
+)
+public class StockBalance implements DomainEntity<UUID> {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "ingredient_type", nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    private IngredientTypeEnum ingredientType;
+
+    @Column(name = "ingredient_id", nullable = false)
+    private UUID ingredientId;
+
+    @Column(nullable = false, length = 50)
+    private String lot;
+
+    @Column(nullable = false)
+    private long balanceGrams;
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public UUID getId() {
+        return Objects.requireNonNull(id);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    /**
+     * @return user, stock belongs to
+     */
+    public User getUser() {
+        return Objects.requireNonNull(user);
+    }
+
+    /**
+     * @param user user, stock belongs to
+     */
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    /**
+     * @return type of the ingredient
+     */
+    public IngredientTypeEnum getIngredientType() {
+        return Objects.requireNonNull(ingredientType);
+    }
+
+    /**
+     * @param ingredientType type of the ingredient
+     */
+    public void setIngredientType(IngredientTypeEnum ingredientType) {
+        this.ingredientType = ingredientType;
+    }
+
+    /**
+     * @return ID of the hop, malt or yeast
+     */
+    public UUID getIngredientId() {
+        return Objects.requireNonNull(ingredientId);
+    }
+
+    /**
+     * @param ingredientId ID of the hop, malt or yeast
+     */
+    public void setIngredientId(UUID ingredientId) {
+        this.ingredientId = ingredientId;
+    }
+
+    /**
+     * @return encoded lot attributes
+     */
+    public String getLot() {
+        return Objects.requireNonNull(lot);
+    }
+
+    /**
+     * @param lot encoded lot attributes
+     */
+    public void setLot(String lot) {
+        this.lot = lot;
+    }
+
+    /**
+     * @return grams of the lot in stock
+     */
+    public long getBalanceGrams() {
+        return balanceGrams;
+    }
+
+    /**
+     * @param balanceGrams grams of the lot in stock
+     */
+    public void setBalanceGrams(long balanceGrams) {
+        this.balanceGrams = balanceGrams;
+    }
+
+    /**
+     * @return lot of the balance
+     */
+    public StockLot toStockLot() {
+        return new StockLot(getUser().getId(), getIngredientType(), getIngredientId(), getLot());
+    }
+}
@@ -0,0 +1,127 @@
+package cz.jansimerda.homebrewdash.model;
+
+import cz.jansimerda.homebrewdash.model.enums.IngredientTypeEnum;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Identifies a lot of an ingredient in the stock of a user. Changes of the same ingredient are only counted
+ * together when their lot attributes match, the attributes are encoded into the lot string.
+ *
+ * @param userId         ID of the user, stock belongs to
+ * @param ingredientType type of the ingredient
+ * @param ingredientId   ID of the hop, malt or yeast
+ * @param lot            encoded lot attributes, empty when the ingredient has none
+ */
+public record StockLot(UUID userId, IngredientTypeEnum ingredientType, UUID ingredientId, String lot)
+        implements Comparable<StockLot> {
+
+    /**
+     * separator of the encoded lot attributes
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * @param change hop change to get the lot of
+     * @return lot, change is attached to
+     */
+    public static StockLot of(HopChange change) {
+        return ofHop(
+                change.getUser().getId(),
+                change.getHop().getId(),
+                change.getAlphaAcidPercentage(),
+                change.getBetaAcidPercentage(),
+                change.getHarvestedAt()
+        );
+    }
+
+    /**
+     * @param change malt change to get the lot of
+     * @return lot, change is attached to
+     */
+    public static StockLot of(MaltChange change) {
+        return ofMalt(change.getUser().getId(), change.getMalt().getId());
+    }
+
+    /**
+     * @param change yeast change to get the lot of
+     * @return lot, change is attached to
+     */
+    public static StockLot of(YeastChange change) {
+        return ofYeast(change.getUser().getId(), change.getYeast().getId(), change.getExpirationDate().orElse(null));
+    }
+
+    /**
+     * Creates a hop lot, acid percentages are normalized to the scale of the database columns
+     *
+     * @param userId              ID of the user
+     * @param hopId               ID of the hop
+     * @param alphaAcidPercentage alpha acid percentage of the hop
+     * @param betaAcidPercentage  beta acid percentage of the hop
+     * @param harvestedAt         date of harvest
+     * @return hop lot
+     */
+    static StockLot ofHop(
+            UUID userId,
+            UUID hopId,
+            BigDecimal alphaAcidPercentage,
+            BigDecimal betaAcidPercentage,
+            LocalDate harvestedAt
+    ) {
+        String lot = String.join(
+                SEPARATOR,
+                alphaAcidPercentage.setScale(2, RoundingMode.HALF_UP).toPlainString(),
+                betaAcidPercentage.setScale(2, RoundingMode.HALF_UP).toPlainString(),
+                harvestedAt.toString()
+        );
+        return new StockLot(userId, IngredientTypeEnum.HOP, hopId, lot);
+    }
+
+    /**
+     * @param userId ID of the user
+     * @param maltId ID of the malt
+     * @return malt lot
+     */
+    static StockLot ofMalt(UUID userId, UUID maltId) {
+        return new StockLot(userId, IngredientTypeEnum.MALT, maltId, "");
+    }
+
+    /**
+     * @param userId         ID of the user
+     * @param yeastId        ID of the yeast
+     * @param expirationDate expiration date of the yeast, null if unknown
+     * @return yeast lot
+     */
+    static StockLot ofYeast(UUID userId, UUID yeastId, LocalDate expirationDate) {
+        return new StockLot(
+                userId,
+                IngredientTypeEnum.YEAST,
+                yeastId,
+                expirationDate == null ? "" : expirationDate.toString()
+        );
+    }
+
+    /**
+     * Orders lots so that rows are always locked in the same order and concurrent updates cannot deadlock
+     *
+     * @inheritDoc
+     */
+    @Override
+    public int compareTo(StockLot other) {
+        int result = userId.compareTo(other.userId);
+        if (result == 0) {
+            result = ingredientType.compareTo(other.ingredientType);
+        }
+        if (result == 0) {
+            result = ingredientId.compareTo(other.ingredientId);
+        }
+        if (result == 0) {
+            result = lot.compareTo(other.lot);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Sum of all changes of a lot, as computed from the change log
+ *
+ * @param lot   lot, changes are attached to
+ * @param grams sum of added and subtracted grams
+ */
+public record StockLotSum(StockLot lot, long grams) {
+
+    /**
+     * Used by the hop change query
+     */
+    public StockLotSum(
+            UUID userId,
+            UUID hopId,
+            BigDecimal alphaAcidPercentage,
+            BigDecimal betaAcidPercentage,
+            LocalDate harvestedAt,
+            Long grams
+    ) {
+        this(StockLot.ofHop(userId, hopId, alphaAcidPercentage, betaAcidPercentage, harvestedAt), grams);
+    }
+
+    /**
+     * Used by the malt change query
+     */
+    public StockLotSum(UUID userId, UUID maltId, Long grams) {
+        this(StockLot.ofMalt(userId, maltId), grams);
+    }
+
+    /**
+     * Used by the yeast change query
+     */
+    public StockLotSum(UUID userId, UUID yeastId, LocalDate expirationDate, Long grams) {
+        this(StockLot.ofYeast(userId, yeastId, expirationDate), grams);
+    }
+}
@@ -1,5 +1,6 @@
 package cz.jansimerda.homebrewdash.model;
 
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
 import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JoinFormula;
@@ -46,6 +47,13 @@ public class Thermostat implements DomainEntity<UUID>, CreationAware {
     @Enumerated(EnumType.ORDINAL)
     private ThermostatStateEnum state;
 
+    @Column(nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    private ThermostatControlModeEnum controlMode = ThermostatControlModeEnum.HYSTERESIS;
+
+    @Embedded
+    private ControllerState controllerState = new ControllerState();
+
     @ManyToOne
     @JoinColumn(name = "hydrometer_id")
     private Hydrometer hydrometer;
@@ -70,11 +78,8 @@ public class Thermostat implements DomainEntity<UUID>, CreationAware {
 
     @ManyToOne
     @JoinFormula("""
-            (SELECT m.id FROM thermostats t
-            JOIN hydrometers h ON t.hydrometer_id = h.id
-            JOIN measurements m ON h.id = m.hydrometer_id
-            WHERE t.id = id
-            ORDER BY m.created_at DESC LIMIT 1)
+            (SELECT l.measurement_id FROM hydrometer_latest_measurements l
+            WHERE l.hydrometer_id = hydrometer_id)
             """)
     private Measurement lastMeasurement;
 
@@ -206,6 +211,39 @@ public class Thermostat implements DomainEntity<UUID>, CreationAware {
         this.state = state;
     }
 
+    /**
+     * @return strategy deciding when the device is switched
+     */
+    public ThermostatControlModeEnum getControlMode() {
+        return Objects.requireNonNull(controlMode);
+    }
+
+    /**
+     * @param controlMode strategy deciding when the device is switched
+     */
+    public void setControlMode(ThermostatControlModeEnum controlMode) {
+        this.controlMode = controlMode;
+    }
+
+    /**
+     * @return state of the control strategy kept between the evaluations
+     */
+    public ControllerState getControllerState() {
+        if (controllerState == null) {
+            // an embeddable of null columns only is loaded as null
+            controllerState = new ControllerState();
+        }
+
+        return controllerState;
+    }
+
+    /**
+     * @param controllerState state of the control strategy kept between the evaluations
+     */
+    public void setControllerState(ControllerState controllerState) {
+        this.controllerState = controllerState;
+    }
+
     /**
      * @return hydrometer, thermostat is assigned to
      */
@@ -0,0 +1,30 @@
+package cz.jansimerda.homebrewdash.model;
+
+import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * State of a thermostat after it has been switched or its state has changed
+ *
+ * @param thermostatId ID of the thermostat
+ * @param state        state of the thermostat
+ * @param poweredOn    whether the thermostat is powered on
+ * @param changedAt    date and time of the change
+ */
+public record ThermostatTransition(UUID thermostatId, ThermostatStateEnum state, boolean poweredOn, LocalDateTime changedAt) {
+
+    /**
+     * @param thermostat thermostat entity
+     * @return current state of the thermostat
+     */
+    public static ThermostatTransition of(Thermostat thermostat) {
+        return new ThermostatTransition(
+                thermostat.getId(),
+                thermostat.getState(),
+                thermostat.isPoweredOn(),
+                LocalDateTime.now()
+        );
+    }
+}
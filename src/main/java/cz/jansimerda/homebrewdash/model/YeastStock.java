@@ -0,0 +1,15 @@
+package cz.jansimerda.homebrewdash.model;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Stock of a yeast lot of a user
+ *
+ * @param yeastId        ID of the yeast
+ * @param yeastName      name of the yeast
+ * @param expirationDate expiration date of the lot, null if unknown
+ * @param grams          grams in stock
+ */
+public record YeastStock(UUID yeastId, String yeastName, LocalDate expirationDate, Long grams) {
+}
@@ -0,0 +1,20 @@
+package cz.jansimerda.homebrewdash.model.enums;
+
+public enum IngredientTypeEnum {
+    HOP(0),
+    MALT(1),
+    YEAST(2);
+
+    private final int value;
+
+    IngredientTypeEnum(int value) {
+        this.value = value;
+    }
+
+    /**
+     * @return internal representation of the ingredient type
+     */
+    public int getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,20 @@
+package cz.jansimerda.homebrewdash.model.enums;
+
+public enum ThermostatControlModeEnum {
+    HYSTERESIS(0),
+    PID(1),
+    DUTY_CYCLE(2);
+
+    private final int value;
+
+    ThermostatControlModeEnum(int value) {
+        this.value = value;
+    }
+
+    /**
+     * @return internal control mode enum value
+     */
+    public int getValue() {
+        return value;
+    }
+}
@@ -1,14 +1,15 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.Beer;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface BeerRepository extends JpaRepository<Beer, UUID> {
+public interface BeerRepository extends DomainRepository<Beer, UUID> {
 
+    @EntityGraph(attributePaths = "createdBy")
     List<Beer> findByCreatedById(UUID id);
 }
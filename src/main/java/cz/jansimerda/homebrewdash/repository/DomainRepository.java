@@ -0,0 +1,16 @@
+package cz.jansimerda.homebrewdash.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * Common supertype for repositories of domain entities, supporting queries composed of specifications
+ * as used e.g. by the keyset pagination of the list endpoints.
+ *
+ * @param <E> Type of entity
+ * @param <K> Type of primary key of the entity
+ */
+@NoRepositoryBean
+public interface DomainRepository<E, K> extends JpaRepository<E, K>, JpaSpecificationExecutor<E> {
+}
@@ -0,0 +1,19 @@
+package cz.jansimerda.homebrewdash.repository;
+
+import cz.jansimerda.homebrewdash.model.FermentationAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface FermentationAggregateRepository extends JpaRepository<FermentationAggregate, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM FermentationAggregate a WHERE a.beerId = :beerId")
+    Optional<FermentationAggregate> findForUpdate(UUID beerId);
+}
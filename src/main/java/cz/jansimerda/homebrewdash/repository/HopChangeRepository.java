@@ -1,7 +1,9 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.HopChange;
-import org.springframework.data.jpa.repository.JpaRepository;
+import cz.jansimerda.homebrewdash.model.HopStock;
+import cz.jansimerda.homebrewdash.model.StockLotSum;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -11,7 +13,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface HopChangeRepository extends JpaRepository<HopChange, UUID> {
+public interface HopChangeRepository extends DomainRepository<HopChange, UUID> {
 
     @Query("SELECT coalesce(sum(c.changeGrams), 0) FROM HopChange c WHERE c.hop.id = :hopId AND "
             + "c.alphaAcidPercentage = :alphaAcidPercentage AND c.betaAcidPercentage = :betaAcidPercentage AND "
@@ -24,17 +26,17 @@ public interface HopChangeRepository extends JpaRepository<HopChange, UUID> {
             UUID userId
     );
 
-    @Query("SELECT coalesce(sum(c.changeGrams), 0) FROM HopChange c WHERE c.hop.id = :hopId AND "
-            + "c.alphaAcidPercentage = :alphaAcidPercentage AND c.betaAcidPercentage = :betaAcidPercentage AND "
-            + "c.harvestedAt = :harvestedAt AND c.user.id = :userId AND c.id != :changeId")
-    int sumChangeByHopAndUserExceptChangeId(
-            UUID hopId,
-            BigDecimal alphaAcidPercentage,
-            BigDecimal betaAcidPercentage,
-            LocalDate harvestedAt,
-            UUID userId,
-            UUID changeId
-    );
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.StockLotSum(c.user.id, c.hop.id, c.alphaAcidPercentage, "
+            + "c.betaAcidPercentage, c.harvestedAt, sum(c.changeGrams)) FROM HopChange c WHERE c.user.id = :userId "
+            + "GROUP BY c.user.id, c.hop.id, c.alphaAcidPercentage, c.betaAcidPercentage, c.harvestedAt")
+    List<StockLotSum> sumChangesByLotAndUser(UUID userId);
+
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.HopStock(c.hop.id, c.hop.name, c.alphaAcidPercentage, "
+            + "c.betaAcidPercentage, c.harvestedAt, sum(c.changeGrams)) FROM HopChange c WHERE c.user.id = :userId "
+            + "GROUP BY c.hop.id, c.hop.name, c.alphaAcidPercentage, c.betaAcidPercentage, c.harvestedAt "
+            + "HAVING sum(c.changeGrams) <> 0 ORDER BY c.hop.name, c.harvestedAt")
+    List<HopStock> findStockByUserId(UUID userId);
 
+    @EntityGraph(attributePaths = {"user", "hop", "hop.createdBy"})
     List<HopChange> findAllByUserId(UUID id);
 }
@@ -1,14 +1,13 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.Hop;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
 
 @Repository
-public interface HopRepository extends JpaRepository<Hop, UUID> {
+public interface HopRepository extends DomainRepository<Hop, UUID> {
 
     boolean existsByName(String name);
 
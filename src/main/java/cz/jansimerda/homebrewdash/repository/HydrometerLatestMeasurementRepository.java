@@ -0,0 +1,19 @@
+package cz.jansimerda.homebrewdash.repository;
+
+import cz.jansimerda.homebrewdash.model.HydrometerLatestMeasurement;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface HydrometerLatestMeasurementRepository extends JpaRepository<HydrometerLatestMeasurement, UUID> {
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE HydrometerLatestMeasurement l SET l.measurement = :measurement, l.measuredAt = :measuredAt "
+            + "WHERE l.hydrometerId = :hydrometerId AND l.measuredAt <= :measuredAt")
+    int updateIfNewer(UUID hydrometerId, Measurement measurement, LocalDateTime measuredAt);
+}
@@ -1,17 +1,21 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.Hydrometer;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface HydrometerRepository extends JpaRepository<Hydrometer, UUID> {
+public interface HydrometerRepository extends DomainRepository<Hydrometer, UUID> {
 
     Optional<Hydrometer> getFirstByToken(String token);
 
+    List<Hydrometer> findByTokenIn(Collection<String> tokens);
+
+    @EntityGraph(attributePaths = {"createdBy", "assignedBeer", "assignedBeer.createdBy"})
     List<Hydrometer> findByCreatedById(UUID id);
 }
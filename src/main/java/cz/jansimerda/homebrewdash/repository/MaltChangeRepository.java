@@ -1,7 +1,9 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.MaltChange;
-import org.springframework.data.jpa.repository.JpaRepository;
+import cz.jansimerda.homebrewdash.model.MaltStock;
+import cz.jansimerda.homebrewdash.model.StockLotSum;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -9,14 +11,21 @@ import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface MaltChangeRepository extends JpaRepository<MaltChange, UUID> {
+public interface MaltChangeRepository extends DomainRepository<MaltChange, UUID> {
 
     @Query("SELECT coalesce(sum(c.changeGrams), 0) FROM MaltChange c WHERE c.malt.id = :maltId AND c.user.id = :userId")
     int sumChangeByMaltAndUser(UUID maltId, UUID userId);
 
-    @Query("SELECT coalesce(sum(c.changeGrams), 0) FROM MaltChange c WHERE c.malt.id = :maltId AND "
-            + "c.user.id = :userId AND c.id != :changeId")
-    int sumChangeByMaltAndUserExceptChangeId(UUID maltId, UUID userId, UUID changeId);
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.StockLotSum(c.user.id, c.malt.id, sum(c.changeGrams)) "
+            + "FROM MaltChange c WHERE c.user.id = :userId GROUP BY c.user.id, c.malt.id")
+    List<StockLotSum> sumChangesByLotAndUser(UUID userId);
 
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.MaltStock(c.malt.id, c.malt.name, c.colorEbc, "
+            + "sum(c.changeGrams)) FROM MaltChange c WHERE c.user.id = :userId "
+            + "GROUP BY c.malt.id, c.malt.name, c.colorEbc HAVING sum(c.changeGrams) <> 0 "
+            + "ORDER BY c.malt.name, c.colorEbc")
+    List<MaltStock> findStockByUserId(UUID userId);
+
+    @EntityGraph(attributePaths = {"user", "malt", "malt.createdBy"})
     List<MaltChange> findAllByUserId(UUID id);
 }
@@ -1,14 +1,13 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.Malt;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
 
 @Repository
-public interface MaltRepository extends JpaRepository<Malt, UUID> {
+public interface MaltRepository extends DomainRepository<Malt, UUID> {
 
     boolean existsByNameAndManufacturerName(String name, String manufacturerName);
 
@@ -1,14 +1,76 @@
 package cz.jansimerda.homebrewdash.repository;
 
+import cz.jansimerda.homebrewdash.model.GravityReading;
 import cz.jansimerda.homebrewdash.model.Measurement;
-import org.springframework.data.jpa.repository.JpaRepository;
+import cz.jansimerda.homebrewdash.model.MeasurementBucket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface MeasurementRepository extends JpaRepository<Measurement, UUID> {
+public interface MeasurementRepository extends DomainRepository<Measurement, UUID> {
 
+    @EntityGraph(attributePaths = {
+            "beer",
+            "beer.createdBy",
+            "hydrometer",
+            "hydrometer.createdBy",
+            "hydrometer.assignedBeer",
+            "hydrometer.assignedBeer.createdBy"
+    })
     List<Measurement> findByBeerCreatedById(UUID id);
+
+    Optional<Measurement> findFirstByHydrometerIdOrderByCreatedAtDescIdDesc(UUID hydrometerId);
+
+    /**
+     * Streams all measurements of a beer ordered by the time of creation. Rows are fetched by a database cursor
+     * in chunks of the fetch size and the entities are read-only, so Hibernate doesn't keep their snapshots.
+     * The stream must be consumed within a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Measurement m WHERE m.beer.id = :beerId ORDER BY m.createdAt, m.id")
+    Stream<Measurement> streamByBeerId(UUID beerId);
+
+    /**
+     * Streams values of the visible measurements of a beer ordered by the time of creation,
+     * e.g. to rebuild its fermentation aggregates.
+     * The stream must be consumed within a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.GravityReading(m.createdAt, m.specificGravity, m.temperature) "
+            + "FROM Measurement m WHERE m.beer.id = :beerId AND m.hidden = false ORDER BY m.createdAt, m.id")
+    Stream<GravityReading> streamReadingsByBeerId(UUID beerId);
+
+    /**
+     * Aggregates visible measurements of a beer into time buckets of given length.
+     * The bucket is computed in a derived table, so it can be grouped by without repeating the bound parameter.
+     */
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.MeasurementBucket("
+            + "b.bucket, count(*), avg(b.gravity), min(b.gravity), max(b.gravity), "
+            + "avg(b.temperature), min(b.temperature), max(b.temperature)) "
+            + "FROM (SELECT floor(extract(epoch from m.createdAt) / :bucketSeconds) AS bucket, "
+            + "m.specificGravity AS gravity, m.temperature AS temperature FROM Measurement m "
+            + "WHERE m.beer.id = :beerId AND m.hidden = false AND m.createdAt >= :from AND m.createdAt < :to) b "
+            + "GROUP BY b.bucket ORDER BY b.bucket")
+    List<MeasurementBucket> findBucketsByBeerId(UUID beerId, LocalDateTime from, LocalDateTime to, long bucketSeconds);
+
+    /**
+     * Fetches the IDs of given ones which are already stored, e.g. by a flush interrupted before it completed
+     */
+    @Query("SELECT m.id FROM Measurement m WHERE m.id IN :ids")
+    Set<UUID> findStoredIds(Collection<UUID> ids);
 }
@@ -0,0 +1,31 @@
+package cz.jansimerda.homebrewdash.repository;
+
+import cz.jansimerda.homebrewdash.model.StockBalance;
+import cz.jansimerda.homebrewdash.model.enums.IngredientTypeEnum;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface StockBalanceRepository extends JpaRepository<StockBalance, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StockBalance b WHERE b.user.id = :userId AND b.ingredientType = :ingredientType AND "
+            + "b.ingredientId = :ingredientId AND b.lot = :lot")
+    Optional<StockBalance> findForUpdate(
+            UUID userId,
+            IngredientTypeEnum ingredientType,
+            UUID ingredientId,
+            String lot
+    );
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StockBalance b WHERE b.user.id = :userId")
+    List<StockBalance> findAllForUpdateByUserId(UUID userId);
+}
@@ -3,7 +3,7 @@ package cz.jansimerda.homebrewdash.repository;
 import cz.jansimerda.homebrewdash.model.Thermostat;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
 import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -12,8 +12,18 @@ import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface ThermostatRepository extends JpaRepository<Thermostat, UUID> {
+public interface ThermostatRepository extends DomainRepository<Thermostat, UUID> {
 
+    @EntityGraph(attributePaths = {
+            "createdBy",
+            "hydrometer",
+            "hydrometer.createdBy",
+            "hydrometer.assignedBeer",
+            "hydrometer.assignedBeer.createdBy",
+            "lastMeasurement",
+            "lastMeasurement.beer",
+            "lastMeasurement.beer.createdBy"
+    })
     List<Thermostat> findByCreatedById(UUID id);
 
     @Query("""
@@ -31,4 +41,21 @@ public interface ThermostatRepository extends JpaRepository<Thermostat, UUID> {
             ThermostatStateEnum errorState,
             BrewStateEnum fermentingState
     );
+
+    @Query("""
+            SELECT t FROM Thermostat t WHERE t.hydrometer.id = :hydrometerId AND (
+                t.lastSuccessAt IS NULL
+                OR (t.state != :errorState AND t.lastSuccessAt <= :successThreshold)
+                OR (t.state = :errorState AND t.lastFailAt <= :errorThreshold)
+            ) AND t.hydrometer.assignedBeer.state = :fermentingState
+            AND t.hydrometer.assignedBeer.fermentationTemperatureThreshold IS NOT NULL
+            AND t.active = TRUE
+            """)
+    List<Thermostat> findToBeSwitchedByHydrometerId(
+            UUID hydrometerId,
+            LocalDateTime successThreshold,
+            LocalDateTime errorThreshold,
+            ThermostatStateEnum errorState,
+            BrewStateEnum fermentingState
+    );
 }
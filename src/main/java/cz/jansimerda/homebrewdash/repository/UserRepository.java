@@ -1,7 +1,6 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.User;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -9,7 +8,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends DomainRepository<User, UUID> {
     Optional<User> getFirstByEmailOrUsername(String email, String username);
 
     @Query("SELECT u FROM User u WHERE u.id != :id AND (u.email = :email OR u.username = :username)")
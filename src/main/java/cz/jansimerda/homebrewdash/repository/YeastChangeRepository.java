@@ -1,7 +1,9 @@
 package cz.jansimerda.homebrewdash.repository;
 
+import cz.jansimerda.homebrewdash.model.StockLotSum;
 import cz.jansimerda.homebrewdash.model.YeastChange;
-import org.springframework.data.jpa.repository.JpaRepository;
+import cz.jansimerda.homebrewdash.model.YeastStock;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -10,17 +12,24 @@ import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface YeastChangeRepository extends JpaRepository<YeastChange, UUID> {
+public interface YeastChangeRepository extends DomainRepository<YeastChange, UUID> {
 
     @Query("SELECT coalesce(sum(c.changeGrams), 0) FROM YeastChange c WHERE c.yeast.id = :yeastId AND "
             + "((:expirationDate IS NULL AND c.expirationDate IS NULL) OR (c.expirationDate = :expirationDate)) AND "
             + "c.user.id = :userId")
     int sumChangeByYeastAndUser(UUID yeastId, LocalDate expirationDate, UUID userId);
 
-    @Query("SELECT coalesce(sum(c.changeGrams), 0) FROM YeastChange c WHERE c.yeast.id = :yeastId AND "
-            + "((:expirationDate IS NULL AND c.expirationDate IS NULL) OR (c.expirationDate = :expirationDate)) AND "
-            + "c.user.id = :userId AND c.id != :changeId")
-    int sumChangeByYeastAndUserExceptChangeId(UUID yeastId, LocalDate expirationDate, UUID userId, UUID changeId);
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.StockLotSum(c.user.id, c.yeast.id, c.expirationDate, "
+            + "sum(c.changeGrams)) FROM YeastChange c WHERE c.user.id = :userId "
+            + "GROUP BY c.user.id, c.yeast.id, c.expirationDate")
+    List<StockLotSum> sumChangesByLotAndUser(UUID userId);
+
+    @Query("SELECT new cz.jansimerda.homebrewdash.model.YeastStock(c.yeast.id, c.yeast.name, c.expirationDate, "
+            + "sum(c.changeGrams)) FROM YeastChange c WHERE c.user.id = :userId "
+            + "GROUP BY c.yeast.id, c.yeast.name, c.expirationDate HAVING sum(c.changeGrams) <> 0 "
+            + "ORDER BY c.yeast.name, c.expirationDate")
+    List<YeastStock> findStockByUserId(UUID userId);
 
+    @EntityGraph(attributePaths = {"user", "yeast", "yeast.createdBy"})
     List<YeastChange> findAllByUserId(UUID id);
 }
@@ -1,14 +1,13 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.model.Yeast;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
 
 @Repository
-public interface YeastRepository extends JpaRepository<Yeast, UUID> {
+public interface YeastRepository extends DomainRepository<Yeast, UUID> {
 
     boolean existsByNameAndManufacturerName(String name, String manufacturerName);
 
@@ -0,0 +1,112 @@
+package cz.jansimerda.homebrewdash.rest.config;
+
+import cz.jansimerda.homebrewdash.config.QueryRecorder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Records the number and the execution time of the SQL statements run while serving each request,
+ * authentication included. Requests are tagged by their method and URI template, as the request metrics are,
+ * to keep the tags bounded. Requests over the query budget are logged with their statements,
+ * so N+1 queries show up as soon as they are introduced.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    private final QueryRecorder queryRecorder;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long maxStatements;
+
+    private final Duration maxExecutionTime;
+
+    public QueryBudgetFilter(
+            QueryRecorder queryRecorder,
+            MeterRegistry meterRegistry,
+            @Value("${query-budget.max-statements:20}") long maxStatements,
+            @Value("${query-budget.max-millis:500}") long maxMillis
+    ) {
+        this.queryRecorder = queryRecorder;
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxExecutionTime = Duration.ofMillis(maxMillis);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        queryRecorder.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryRecorder.Recording recording = queryRecorder.stop();
+            // set once the request has been mapped to a handler
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+            DistributionSummary.builder("http.server.requests.queries")
+                    .description("SQL statements prepared while serving a request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(recording.getCount());
+            Timer.builder("http.server.requests.queries.time")
+                    .description("Execution time of the SQL statements of a request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(recording.getExecutionTime());
+
+            if (recording.getCount() > maxStatements || recording.getExecutionTime().compareTo(maxExecutionTime) > 0) {
+                logOverBudget(request, recording);
+            }
+        }
+    }
+
+    /**
+     * @param request   served request
+     * @param recording statements of the request
+     */
+    private void logOverBudget(HttpServletRequest request, QueryRecorder.Recording recording) {
+        String statements = recording.getStatements().entrySet().stream()
+                .map(s -> "%dx %s".formatted(s.getValue(), s.getKey()))
+                .collect(Collectors.joining(System.lineSeparator()));
+
+        logger.warn(
+                "{} {} ran {} SQL statements in {} ms, over the budget of {} statements and {} ms:{}{}",
+                request.getMethod(),
+                request.getRequestURI(),
+                recording.getCount(),
+                recording.getExecutionTime().toMillis(),
+                maxStatements,
+                maxExecutionTime.toMillis(),
+                System.lineSeparator(),
+                statements
+        );
+    }
+}
@@ -3,6 +3,9 @@ package cz.jansimerda.homebrewdash.rest.config;
 import cz.jansimerda.homebrewdash.authentication.AuthenticationFilter;
 import cz.jansimerda.homebrewdash.authentication.AuthenticationProvider;
 import cz.jansimerda.homebrewdash.authentication.FailedAuthenticationEntryPoint;
+import cz.jansimerda.homebrewdash.authentication.UserRoleEnum;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -39,6 +42,10 @@ public class SecurityConfig {
             a.requestMatchers(HttpMethod.POST, "/api/v1/user-sessions").permitAll();
             a.requestMatchers(HttpMethod.POST, "/api/v1/users").permitAll();
             a.requestMatchers(HttpMethod.POST, "/api/v1/measurements").permitAll();
+            a.requestMatchers(HttpMethod.POST, "/api/v1/measurements/batch").permitAll();
+            // health is probed by the load balancers, the metrics reveal the traffic of all users
+            a.requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll();
+            a.requestMatchers(EndpointRequest.toAnyEndpoint()).hasAuthority(UserRoleEnum.ADMIN.toString());
             a.anyRequest().fullyAuthenticated();
         });
         http.authenticationManager(authManager(http));
@@ -1,14 +1,18 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
 import cz.jansimerda.homebrewdash.business.AbstractCrudService;
+import cz.jansimerda.homebrewdash.business.PageQuery;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.model.DomainEntity;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.StreamSupport;
 
@@ -43,9 +47,28 @@ public abstract class AbstractCrudController<E extends DomainEntity<ID>, DRQ, DR
                 .body(responseDto);
     }
 
+    /**
+     * Returns a single page of entities, the link to the next page is returned in the Link header.
+     * Query parameters other than the listed ones are used as filters of the entities.
+     *
+     * @param limit      maximal number of entities of the page
+     * @param after      cursor of the previous page
+     * @param from       only entities created at or after this date and time
+     * @param to         only entities created before this date and time
+     * @param parameters all query parameters
+     * @return entities of the page
+     */
     @GetMapping
-    public ResponseEntity<List<DRS>> readAll() {
-        return ResponseEntity.ok(collectionToDto(service.readAll()));
+    public ResponseEntity<List<DRS>> readAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam Map<String, String> parameters
+    ) {
+        PageQuery query = PageResponses.createQuery(limit, after, from, to, parameters);
+
+        return PageResponses.createResponse(service.readAll(query), entityToDtoConverter);
     }
 
     @GetMapping("/{id}")
@@ -1,9 +1,16 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
 import cz.jansimerda.homebrewdash.business.AbstractCrudService;
+import cz.jansimerda.homebrewdash.business.FermentationStatsService;
+import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.rest.dto.converter.FermentationStatsToDtoConverter;
 import cz.jansimerda.homebrewdash.rest.dto.request.BeerRequestDto;
 import cz.jansimerda.homebrewdash.rest.dto.response.BeerResponseDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.FermentationStatsResponseDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -13,11 +20,33 @@ import java.util.function.Function;
 @RestController
 @RequestMapping(value = "/api/v1/beers")
 public class BeerController extends AbstractCrudController<Beer, BeerRequestDto, BeerResponseDto, UUID> {
+
+    private final FermentationStatsService statsService;
+
+    private final FermentationStatsToDtoConverter statsToDtoConverter;
+
     public BeerController(
             AbstractCrudService<Beer, UUID> service,
             Function<Beer, BeerResponseDto> toDtoConverter,
-            Function<BeerRequestDto, Beer> toEntityConverter
+            Function<BeerRequestDto, Beer> toEntityConverter,
+            FermentationStatsService statsService,
+            FermentationStatsToDtoConverter statsToDtoConverter
     ) {
         super(service, toDtoConverter, toEntityConverter);
+        this.statsService = statsService;
+        this.statsToDtoConverter = statsToDtoConverter;
+    }
+
+    /**
+     * Returns fermentation statistics of the beer, derived from the aggregates of its visible measurements
+     *
+     * @param id ID of the beer
+     * @return fermentation statistics
+     */
+    @GetMapping("/{id}/fermentation-stats")
+    public ResponseEntity<FermentationStatsResponseDto> readFermentationStats(
+            @PathVariable UUID id
+    ) throws EntityNotFoundException {
+        return ResponseEntity.ok(statsToDtoConverter.apply(statsService.readByBeerId(id)));
     }
 }
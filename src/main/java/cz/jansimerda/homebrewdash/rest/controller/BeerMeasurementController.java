@@ -0,0 +1,392 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.business.BeerService;
+import cz.jansimerda.homebrewdash.business.MeasurementService;
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
+import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
+import cz.jansimerda.homebrewdash.helpers.DecimalHelper;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.MeasurementBucket;
+import cz.jansimerda.homebrewdash.rest.dto.converter.MeasurementToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.response.MeasurementResponseDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.MeasurementSeriesPointDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.MeasurementSeriesValueDto;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping(value = "/api/v1/beers/{beerId}/measurements")
+public class BeerMeasurementController {
+
+    private final MeasurementService service;
+
+    private final BeerService beerService;
+
+    private final MeasurementToDtoConverter dtoConverter;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * bucket length, e.g. 30m, 1h or 1d
+     */
+    private final Pattern BUCKET_PATTERN = Pattern.compile("^(\\d+)([mhd])$");
+
+    private final Duration MAX_BUCKET = Duration.ofDays(30);
+
+    /**
+     * supported aggregations of the measured values
+     */
+    private final Set<String> AGGREGATIONS = Set.of("avg", "min", "max");
+
+    /**
+     * maximal number of points the series can be downsampled to
+     */
+    private final int MAX_POINTS = 10000;
+
+    /**
+     * supported formats of the export
+     */
+    private final Map<String, MediaType> EXPORT_FORMATS = Map.of(
+            "ndjson", MediaType.APPLICATION_NDJSON,
+            "csv", new MediaType("text", "csv", StandardCharsets.UTF_8)
+    );
+
+    private final String CSV_HEADER = "id,createdAt,updatedAt,specificGravity,plato,temperature,angle,battery,"
+            + "interval,rssi,hydrometerId,beerId,hidden";
+
+    /**
+     * size of the buffer between the exported rows and the response
+     */
+    private final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    public BeerMeasurementController(
+            MeasurementService service,
+            BeerService beerService,
+            MeasurementToDtoConverter dtoConverter,
+            ObjectMapper objectMapper
+    ) {
+        this.service = service;
+        this.beerService = beerService;
+        this.dtoConverter = dtoConverter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns visible measurements of the beer aggregated into time buckets, downsampled to the given
+     * number of points, so the size of the response is bounded whatever the range and the bucket length
+     *
+     * @param beerId ID of the beer
+     * @param from   beginning of the series (inclusive)
+     * @param to     end of the series (exclusive)
+     * @param bucket length of a bucket
+     * @param agg    comma separated aggregations of the values (avg, min, max)
+     * @param points maximal number of points, MAX_POINTS if omitted
+     * @return points of the series ordered by time
+     */
+    @GetMapping("/series")
+    public ResponseEntity<List<MeasurementSeriesPointDto>> readSeries(
+            @PathVariable UUID beerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1h") String bucket,
+            @RequestParam(defaultValue = "avg,min,max") String agg,
+            @RequestParam(required = false) Integer points
+    ) throws EntityNotFoundException {
+        Duration length = parseBucket(bucket);
+        Set<String> aggregations = parseAggregations(agg);
+        if (points != null && (points < 3 || points > MAX_POINTS)) {
+            throw new ConditionsNotMetException("The number of points must be between 3 and %d".formatted(MAX_POINTS));
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ConditionsNotMetException("The beginning of the series must precede its end");
+        }
+
+        int maxPoints = points == null ? MAX_POINTS : points;
+        List<MeasurementSeriesPointDto> series = service.readSeries(beerId, from, to, length, maxPoints).stream()
+                .map(b -> createPoint(b, length, aggregations))
+                .toList();
+
+        return ResponseEntity.ok(series);
+    }
+
+    /**
+     * Exports all measurements of the beer ordered by time, one measurement per line.
+     * The response is streamed while the measurements are read from the database, so exports of any size
+     * are served in constant memory. The response is compressed when the client accepts gzip encoding.
+     *
+     * @param beerId         ID of the beer
+     * @param format         format of the export, ndjson or csv
+     * @param acceptEncoding encodings accepted by the client
+     * @return streamed export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable UUID beerId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) throws EntityNotFoundException {
+        MediaType mediaType = EXPORT_FORMATS.get(format.toLowerCase(Locale.ROOT));
+        if (mediaType == null) {
+            throw new ConditionsNotMetException("Unsupported format %s, use ndjson or csv".formatted(format));
+        }
+        // access is checked before the response is committed, the streaming itself cannot respond with an error
+        beerService.readById(beerId).orElseThrow(() -> new EntityNotFoundException(Beer.class, beerId));
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("beer-%s-measurements.%s".formatted(beerId, format.toLowerCase(Locale.ROOT)))
+                        .build()
+                        .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(outputStream -> {
+            OutputStream out = gzip
+                    ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE)
+                    : new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+            if (MediaType.APPLICATION_NDJSON.equals(mediaType)) {
+                writeNdjson(beerId, out);
+            } else {
+                writeCsv(beerId, out);
+            }
+        });
+    }
+
+    /**
+     * Tells whether the client accepts gzip encoding, either by name or by the wildcard, with a non-zero quality
+     *
+     * @param acceptEncoding encodings accepted by the client, e.g. gzip;q=0.8, deflate
+     * @return whether the response can be compressed by gzip
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String[] parameter = parameters[i].split("=", 2);
+                if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                    try {
+                        quality = Double.parseDouble(parameter[1].trim());
+                    } catch (NumberFormatException e) {
+                        // an invalid quality doesn't accept the coding
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (name.equals("gzip")) {
+                gzipQuality = quality;
+            } else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+
+        // the wildcard applies only to the codings not listed explicitly
+        Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * Parses the bucket length
+     *
+     * @param bucket bucket length, e.g. 30m, 1h or 1d
+     * @return bucket length
+     */
+    private Duration parseBucket(String bucket) {
+        Matcher matcher = BUCKET_PATTERN.matcher(bucket);
+        if (!matcher.matches()) {
+            throw new ConditionsNotMetException("The bucket must be a number of minutes, hours or days, e.g. 30m");
+        }
+
+        long amount = Long.parseLong(matcher.group(1));
+        Duration length = switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+        if (length.isZero() || length.compareTo(MAX_BUCKET) > 0) {
+            throw new ConditionsNotMetException("The bucket must be between 1 minute and %d days long".formatted(
+                    MAX_BUCKET.toDays()
+            ));
+        }
+
+        return length;
+    }
+
+    /**
+     * Parses the requested aggregations
+     *
+     * @param agg comma separated aggregations
+     * @return set of aggregations
+     */
+    private Set<String> parseAggregations(String agg) {
+        Set<String> aggregations = new HashSet<>();
+        for (String aggregation : agg.split(",")) {
+            String name = aggregation.trim().toLowerCase(Locale.ROOT);
+            if (!AGGREGATIONS.contains(name)) {
+                throw new ConditionsNotMetException("Unsupported aggregation %s, use avg, min or max".formatted(name));
+            }
+            aggregations.add(name);
+        }
+
+        return aggregations;
+    }
+
+    /**
+     * Helper method to create a point of the series
+     *
+     * @param bucket       aggregated measurements
+     * @param length       bucket length
+     * @param aggregations requested aggregations
+     * @return point of the series
+     */
+    private MeasurementSeriesPointDto createPoint(MeasurementBucket bucket, Duration length, Set<String> aggregations) {
+        MeasurementSeriesPointDto point = new MeasurementSeriesPointDto();
+        point.setTime(bucket.getStart(length));
+        point.setCount(bucket.count());
+        point.setSpecificGravity(createValue(
+                bucket.gravityAvg(),
+                bucket.gravityMin(),
+                bucket.gravityMax(),
+                aggregations
+        ));
+        point.setTemperature(createValue(
+                bucket.temperatureAvg(),
+                bucket.temperatureMin(),
+                bucket.temperatureMax(),
+                aggregations
+        ));
+
+        return point;
+    }
+
+    /**
+     * Helper method to create aggregated value of a point, containing the requested aggregations only
+     *
+     * @param avg          average value
+     * @param min          minimal value
+     * @param max          maximal value
+     * @param aggregations requested aggregations
+     * @return aggregated value
+     */
+    private MeasurementSeriesValueDto createValue(Double avg, Double min, Double max, Set<String> aggregations) {
+        MeasurementSeriesValueDto value = new MeasurementSeriesValueDto();
+        if (aggregations.contains("avg")) {
+            value.setAvg(avg);
+        }
+        if (aggregations.contains("min")) {
+            value.setMin(min);
+        }
+        if (aggregations.contains("max")) {
+            value.setMax(max);
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes the measurements of the beer as newline delimited JSON objects and closes the stream
+     *
+     * @param beerId ID of the beer
+     * @param out    stream to write to
+     * @throws IOException if the measurements cannot be written
+     */
+    private void writeNdjson(UUID beerId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            // lines are separated explicitly instead of the default space between root values
+            generator.setRootValueSeparator(null);
+            exportMeasurements(beerId, m -> {
+                generator.writeObject(m);
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    /**
+     * Writes the measurements of the beer as CSV rows preceded by the header and closes the stream
+     *
+     * @param beerId ID of the beer
+     * @param out    stream to write to
+     * @throws IOException if the measurements cannot be written
+     */
+    private void writeCsv(UUID beerId, OutputStream out) throws IOException {
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            exportMeasurements(beerId, m -> {
+                writer.write(String.join(",",
+                        m.getId().toString(),
+                        m.getCreatedAt().toString(),
+                        m.getUpdatedAt().toString(),
+                        m.getGravity().getSpecificGravity().toPlainString(),
+                        m.getGravity().getPlato(),
+                        DecimalHelper.toPlainString(m.getTemperature()),
+                        DecimalHelper.toPlainString(m.getAngle()),
+                        DecimalHelper.toPlainString(m.getBattery()),
+                        String.valueOf(m.getInterval()),
+                        String.valueOf(m.getRssi()),
+                        Objects.toString(m.getHydrometerId(), ""),
+                        m.getBeerId().toString(),
+                        String.valueOf(m.isHidden())
+                ));
+                writer.write('\n');
+            });
+        }
+    }
+
+    /**
+     * Passes the measurements of the beer converted to Response DTOs to the writer
+     *
+     * @param beerId ID of the beer
+     * @param writer writer of a single measurement
+     * @throws IOException if the writer fails
+     */
+    private void exportMeasurements(UUID beerId, MeasurementWriter writer) throws IOException {
+        try {
+            service.exportByBeerId(beerId, m -> {
+                try {
+                    writer.write(dtoConverter.apply(m));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writer of a single exported measurement
+     */
+    @FunctionalInterface
+    private interface MeasurementWriter {
+        void write(MeasurementResponseDto measurement) throws IOException;
+    }
+}
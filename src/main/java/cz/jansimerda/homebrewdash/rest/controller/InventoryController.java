@@ -0,0 +1,33 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import cz.jansimerda.homebrewdash.business.InventoryService;
+import cz.jansimerda.homebrewdash.rest.dto.converter.InventoryToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.response.InventoryResponseDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/api/v1/inventory")
+public class InventoryController {
+
+    private final InventoryService service;
+
+    private final InventoryToDtoConverter dtoConverter;
+
+    public InventoryController(InventoryService service, InventoryToDtoConverter dtoConverter) {
+        this.service = service;
+        this.dtoConverter = dtoConverter;
+    }
+
+    /**
+     * Reads hop lots, malts and yeast lots the logged-in user has in stock
+     *
+     * @return current stock of the logged-in user
+     */
+    @GetMapping
+    public ResponseEntity<InventoryResponseDto> read() {
+        return ResponseEntity.ok(dtoConverter.apply(service.readInventory()));
+    }
+}
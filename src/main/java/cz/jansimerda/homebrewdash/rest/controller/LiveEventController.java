@@ -0,0 +1,86 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import cz.jansimerda.homebrewdash.business.LiveEventService;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.ThermostatTransition;
+import cz.jansimerda.homebrewdash.rest.dto.converter.MeasurementToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.converter.ThermostatTransitionToDtoConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+@RestController
+@RequestMapping(value = "/api/v1/stream")
+public class LiveEventController {
+
+    private final LiveEventService service;
+
+    private final MeasurementToDtoConverter measurementToDtoConverter;
+
+    private final ThermostatTransitionToDtoConverter transitionToDtoConverter;
+
+    /**
+     * time after which the streams are closed, the clients are expected to reconnect
+     */
+    private final Duration timeout;
+
+    public LiveEventController(
+            LiveEventService service,
+            MeasurementToDtoConverter measurementToDtoConverter,
+            ThermostatTransitionToDtoConverter transitionToDtoConverter,
+            @Value("${live-events.timeout-minutes:30}") long timeoutMinutes
+    ) {
+        this.service = service;
+        this.measurementToDtoConverter = measurementToDtoConverter;
+        this.transitionToDtoConverter = transitionToDtoConverter;
+        this.timeout = Duration.ofMinutes(timeoutMinutes);
+    }
+
+    /**
+     * Opens a stream of server-sent events with measurements stored and thermostat transitions made
+     * from now on, events named measurement and thermostat respectively.
+     * Only events of the logged-in user are sent unless the user is an admin.
+     * Events may be dropped when the client doesn't keep up with them. Heartbeat comments are sent
+     * while there are no events and the stream is closed after a configured timeout.
+     *
+     * @return stream of events
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        LiveEventService.Subscription subscription = service.subscribe(new LiveEventService.Sink() {
+            @Override
+            public void sendMeasurement(Measurement measurement) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .name("measurement")
+                        .data(measurementToDtoConverter.apply(measurement), MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void sendThermostat(ThermostatTransition transition) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .name("thermostat")
+                        .data(transitionToDtoConverter.apply(transition), MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void sendHeartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        });
+        emitter.onCompletion(() -> service.unsubscribe(subscription));
+        emitter.onTimeout(() -> {
+            service.unsubscribe(subscription);
+            emitter.complete();
+        });
+        emitter.onError(e -> service.unsubscribe(subscription));
+
+        return emitter;
+    }
+}
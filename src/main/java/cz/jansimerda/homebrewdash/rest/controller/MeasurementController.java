@@ -1,20 +1,31 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
+import cz.jansimerda.homebrewdash.business.BatchItemResult;
 import cz.jansimerda.homebrewdash.business.MeasurementService;
-import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
+import cz.jansimerda.homebrewdash.business.PageQuery;
+import cz.jansimerda.homebrewdash.exception.exposed.*;
 import cz.jansimerda.homebrewdash.model.Measurement;
 import cz.jansimerda.homebrewdash.rest.dto.converter.DtoToMeasurementConverter;
 import cz.jansimerda.homebrewdash.rest.dto.converter.MeasurementToDtoConverter;
+import cz.jansimerda.homebrewdash.rest.dto.converter.MeasurementViewToDtoConverter;
 import cz.jansimerda.homebrewdash.rest.dto.request.MeasurementCreateRequestDto;
 import cz.jansimerda.homebrewdash.rest.dto.request.MeasurementUpdateRequestDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.MeasurementBatchItemResponseDto;
 import cz.jansimerda.homebrewdash.rest.dto.response.MeasurementResponseDto;
+import cz.jansimerda.homebrewdash.rest.exception.ErrorResponse;
+import cz.jansimerda.homebrewdash.rest.exception.ValidationErrorResponse;
+import cz.jansimerda.homebrewdash.rest.exception.Violation;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @RestController
 @RequestMapping(value = "/api/v1/measurements")
@@ -22,22 +33,47 @@ public class MeasurementController {
 
     private final MeasurementToDtoConverter entityToDtoConverter;
 
+    private final MeasurementViewToDtoConverter viewToDtoConverter;
+
     private final DtoToMeasurementConverter dtoToEntityConverter;
 
     private final MeasurementService service;
 
+    private final Validator validator;
+
+    /**
+     * maximum number of measurements accepted in a single batch
+     */
+    private final int MAX_BATCH_SIZE = 1000;
+
     public MeasurementController(
             MeasurementToDtoConverter entityToDtoConverter,
+            MeasurementViewToDtoConverter viewToDtoConverter,
             DtoToMeasurementConverter dtoToEntityConverter,
-            MeasurementService service
+            MeasurementService service,
+            Validator validator
     ) {
         this.entityToDtoConverter = entityToDtoConverter;
+        this.viewToDtoConverter = viewToDtoConverter;
         this.dtoToEntityConverter = dtoToEntityConverter;
         this.service = service;
+        this.validator = validator;
     }
 
+    /**
+     * Stores a measurement of a hydrometer. With the write-behind ingestion enabled, the measurement is only
+     * journaled to be stored later and the response is 202 Accepted without a body.
+     *
+     * @param request measurement to be stored
+     * @return stored measurement
+     */
     @PostMapping
     public ResponseEntity<MeasurementResponseDto> create(@Valid @RequestBody MeasurementCreateRequestDto request) {
+        if (service.isWriteBehind()) {
+            service.accept(dtoToEntityConverter.apply(request), request.getToken());
+            return ResponseEntity.accepted().build();
+        }
+
         MeasurementResponseDto responseDto = entityToDtoConverter.apply(
                 service.create(dtoToEntityConverter.apply(request), request.getToken())
         );
@@ -45,9 +81,75 @@ public class MeasurementController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
+    /**
+     * Stores a batch of measurements, each item is validated and stored independently
+     * and the response contains a result for every item in the order of the request.
+     * Readings buffered by a gateway while offline keep the date and time they have been taken at (measured_at).
+     *
+     * @param request measurements to be stored
+     * @return results of the items
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<MeasurementBatchItemResponseDto>> createBatch(
+            @RequestBody List<MeasurementCreateRequestDto> request
+    ) {
+        if (request.size() > MAX_BATCH_SIZE) {
+            throw new ConditionsNotMetException(
+                    "At most %d measurements can be stored in a single batch".formatted(MAX_BATCH_SIZE)
+            );
+        }
+
+        MeasurementBatchItemResponseDto[] results = new MeasurementBatchItemResponseDto[request.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Measurement> measurements = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < request.size(); i++) {
+            MeasurementCreateRequestDto item = request.get(i);
+            ValidationErrorResponse validationError = validate(item);
+            if (validationError != null) {
+                results[i] = createBatchItem(i, HttpStatus.BAD_REQUEST, null, validationError);
+                continue;
+            }
+
+            validIndexes.add(i);
+            measurements.add(dtoToEntityConverter.apply(item));
+            tokens.add(item.getToken());
+        }
+
+        List<BatchItemResult<Measurement>> stored = service.createAll(measurements, tokens);
+        for (int i = 0; i < stored.size(); i++) {
+            int index = validIndexes.get(i);
+            BatchItemResult<Measurement> result = stored.get(i);
+            results[index] = result.getValue()
+                    .map(m -> createBatchItem(index, HttpStatus.CREATED, entityToDtoConverter.apply(m), null))
+                    .orElseGet(() -> createFailedBatchItem(index, result.getError().orElseThrow()));
+        }
+
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    /**
+     * Returns a single page of measurements, the link to the next page is returned in the Link header.
+     * Query parameters other than the listed ones are used as filters of the measurements.
+     *
+     * @param limit      maximal number of measurements of the page
+     * @param after      cursor of the previous page
+     * @param from       only measurements created at or after this date and time
+     * @param to         only measurements created before this date and time
+     * @param parameters all query parameters
+     * @return measurements of the page
+     */
     @GetMapping
-    public ResponseEntity<List<MeasurementResponseDto>> readAll() {
-        return ResponseEntity.ok(service.readAll().stream().map(entityToDtoConverter).toList());
+    public ResponseEntity<List<MeasurementResponseDto>> readAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam Map<String, String> parameters
+    ) {
+        PageQuery query = PageResponses.createQuery(limit, after, from, to, parameters);
+
+        return PageResponses.createResponse(service.readAll(query), viewToDtoConverter);
     }
 
     @GetMapping("/{id}")
@@ -73,4 +175,79 @@ public class MeasurementController {
         service.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Validates a single item of a batch
+     *
+     * @param item item to be validated
+     * @return validation error or null if the item is valid
+     */
+    private ValidationErrorResponse validate(MeasurementCreateRequestDto item) {
+        if (item == null) {
+            return new ValidationErrorResponse("The item cannot be empty");
+        }
+
+        Set<ConstraintViolation<MeasurementCreateRequestDto>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        ValidationErrorResponse error = new ValidationErrorResponse("The request body contains invalid data");
+        for (ConstraintViolation<?> violation : violations) {
+            error.addError(new Violation(violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+
+        return error;
+    }
+
+    /**
+     * Creates the result of an item which couldn't be stored, using the same status and error
+     * the single measurement endpoint responds with
+     *
+     * @param index position of the item
+     * @param error error preventing the item from being stored
+     * @return item result
+     */
+    private MeasurementBatchItemResponseDto createFailedBatchItem(int index, RuntimeException error) {
+        if (error instanceof AccessDeniedException) {
+            return createBatchItem(
+                    index,
+                    HttpStatus.FORBIDDEN,
+                    null,
+                    new ErrorResponse(ExposedExceptionTypeEnum.ACCESS_DENIED, error.getMessage())
+            );
+        }
+        if (error instanceof ConflictException e) {
+            return createBatchItem(index, HttpStatus.CONFLICT, null, new ErrorResponse(e.getType(), e.getMessage()));
+        }
+        if (error instanceof ExposedException e) {
+            return createBatchItem(index, HttpStatus.BAD_REQUEST, null, new ErrorResponse(e.getType(), e.getMessage()));
+        }
+
+        throw error;
+    }
+
+    /**
+     * Helper method to create the result of a batch item
+     *
+     * @param index       position of the item
+     * @param status      status of the item
+     * @param measurement stored measurement
+     * @param error       reason of rejection
+     * @return item result
+     */
+    private MeasurementBatchItemResponseDto createBatchItem(
+            int index,
+            HttpStatus status,
+            MeasurementResponseDto measurement,
+            ErrorResponse error
+    ) {
+        MeasurementBatchItemResponseDto item = new MeasurementBatchItemResponseDto();
+        item.setIndex(index);
+        item.setStatus(status.value());
+        item.setMeasurement(measurement);
+        item.setError(error);
+
+        return item;
+    }
 }
@@ -0,0 +1,75 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import cz.jansimerda.homebrewdash.business.KeysetPage;
+import cz.jansimerda.homebrewdash.business.PageQuery;
+import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Helpers of the list endpoints. Lists are returned page by page, the body contains the entities of the page
+ * and the Link header contains the URI of the next page, if there is any.
+ */
+final class PageResponses {
+
+    /**
+     * query parameters of the page itself, the other parameters are entity specific filters
+     */
+    private static final Set<String> PAGE_PARAMETERS = Set.of("limit", "after", "from", "to");
+
+    private PageResponses() {
+    }
+
+    /**
+     * Creates the query of the requested page
+     *
+     * @param limit      maximal number of entities of the page
+     * @param after      cursor of the previous page
+     * @param from       only entities created at or after this date and time
+     * @param to         only entities created before this date and time
+     * @param parameters all query parameters of the request
+     * @return query of the page
+     * @throws ConditionsNotMetException if the limit or the date range is invalid
+     */
+    static PageQuery createQuery(
+            Integer limit,
+            String after,
+            LocalDateTime from,
+            LocalDateTime to,
+            Map<String, String> parameters
+    ) throws ConditionsNotMetException {
+        Map<String, String> filters = new HashMap<>(parameters);
+        filters.keySet().removeAll(PAGE_PARAMETERS);
+
+        return new PageQuery(limit, after, from, to, filters);
+    }
+
+    /**
+     * Creates the response containing the entities of the page and the link to the next page
+     *
+     * @param page      page of entities
+     * @param converter converter of the entities to Response DTOs
+     * @param <E>       type of the entities
+     * @param <D>       type of the Response DTOs
+     * @return response
+     */
+    static <E, D> ResponseEntity<List<D>> createResponse(KeysetPage<E> page, Function<E, D> converter) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        page.getNextCursor().ifPresent(cursor -> response.header(
+                HttpHeaders.LINK,
+                "<%s>; rel=\"next\"".formatted(
+                        ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam("after", cursor).toUriString()
+                )
+        ));
+
+        return response.body(page.getItems().stream().map(converter).toList());
+    }
+}
@@ -9,7 +9,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -35,12 +34,6 @@ public class UserController extends AbstractCrudController<User, UserRequestDto,
         return super.create(request);
     }
 
-    @Override
-    @GetMapping
-    public ResponseEntity<List<UserResponseDto>> readAll() {
-        return ResponseEntity.ok(collectionToDto(service.readAllAccessible()));
-    }
-
     @Override
     @GetMapping("/{id}")
     @PreAuthorize("principal.id == #id || principal.isAdmin()")
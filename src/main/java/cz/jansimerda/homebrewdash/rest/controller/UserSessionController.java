@@ -1,5 +1,6 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
+import cz.jansimerda.homebrewdash.business.PageQuery;
 import cz.jansimerda.homebrewdash.business.UserSessionService;
 import cz.jansimerda.homebrewdash.model.UserSession;
 import cz.jansimerda.homebrewdash.rest.dto.converter.UserSessionToCreatedDtoConverter;
@@ -8,14 +9,16 @@ import cz.jansimerda.homebrewdash.rest.dto.request.UserSessionRequestDto;
 import cz.jansimerda.homebrewdash.rest.dto.response.UserSessionCreatedResponseDto;
 import cz.jansimerda.homebrewdash.rest.dto.response.UserSessionResponseDto;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.StreamSupport;
 
 @RestController
 @RequestMapping("/api/v1/user-sessions")
@@ -47,12 +50,27 @@ public class UserSessionController {
                 .body(responseDto);
     }
 
+    /**
+     * Returns a single page of sessions, the link to the next page is returned in the Link header.
+     *
+     * @param limit      maximal number of sessions of the page
+     * @param after      cursor of the previous page
+     * @param from       only sessions created at or after this date and time
+     * @param to         only sessions created before this date and time
+     * @param parameters all query parameters
+     * @return sessions of the page
+     */
     @GetMapping
-    public ResponseEntity<Collection<UserSessionResponseDto>> readAll() {
-        return ResponseEntity.ok(
-                StreamSupport.stream(userSessionService.readAllAccessible().spliterator(), false)
-                        .map(dtoConverter).toList()
-        );
+    public ResponseEntity<List<UserSessionResponseDto>> readAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam Map<String, String> parameters
+    ) {
+        PageQuery query = PageResponses.createQuery(limit, after, from, to, parameters);
+
+        return PageResponses.createResponse(userSessionService.readAllAccessible(query), dtoConverter);
     }
 
     @GetMapping("/{id}")
@@ -5,8 +5,6 @@ import cz.jansimerda.homebrewdash.model.enums.TemperatureUnitEnum;
 import cz.jansimerda.homebrewdash.rest.dto.request.MeasurementCreateRequestDto;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.function.Function;
 
 @Component
@@ -22,6 +20,8 @@ public class DtoToMeasurementConverter implements Function<MeasurementCreateRequ
         measurement.setSpecificGravity(dto.getGravity());
         measurement.setInterval(dto.getInterval());
         measurement.setRssi(dto.getRssi());
+        // created at the date and time of reception unless the measurement has been taken earlier
+        measurement.setReceivedAt(dto.getMeasuredAt());
 
         return measurement;
     }
@@ -33,16 +33,14 @@ public class DtoToMeasurementConverter implements Function<MeasurementCreateRequ
      * @param unit  temperature unit
      * @return value in Celsius
      */
-    private BigDecimal getTemperatureCelsius(BigDecimal value, TemperatureUnitEnum unit) {
+    private double getTemperatureCelsius(double value, TemperatureUnitEnum unit) {
         if (unit.equals(TemperatureUnitEnum.K)) {
-            return value.subtract(new BigDecimal("273.15"));
+            return value - 273.15;
         }
 
         if (unit.equals(TemperatureUnitEnum.F)) {
             // C = (F - 32) * 5/9
-            return value.subtract(new BigDecimal(32))
-                    .multiply(new BigDecimal(5))
-                    .divide(new BigDecimal(9), RoundingMode.HALF_UP);
+            return (value - 32) * 5 / 9;
         }
 
         return value;
@@ -18,6 +18,7 @@ public class DtoToThermostatConverter implements Function<ThermostatRequestDto,
         thermostat.setPassword(dto.getPassword());
         thermostat.setIsHeating(dto.isHeating());
         thermostat.setIsActive(dto.isActive());
+        thermostat.setControlMode(dto.getControlMode());
 
         if (dto.getHydrometerId() != null) {
             Hydrometer hydrometer = new Hydrometer();
@@ -0,0 +1,32 @@
+package cz.jansimerda.homebrewdash.rest.dto.converter;
+
+import cz.jansimerda.homebrewdash.model.FermentationStats;
+import cz.jansimerda.homebrewdash.rest.dto.response.FermentationStatsResponseDto;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+@Component
+public class FermentationStatsToDtoConverter implements Function<FermentationStats, FermentationStatsResponseDto> {
+
+    @Override
+    public FermentationStatsResponseDto apply(FermentationStats stats) {
+        FermentationStatsResponseDto dto = new FermentationStatsResponseDto();
+        dto.setBeerId(stats.beerId());
+        dto.setMeasurementCount(stats.measurementCount());
+        dto.setFirstMeasuredAt(stats.firstMeasuredAt());
+        dto.setLastMeasuredAt(stats.lastMeasuredAt());
+        dto.setCurrentGravity(stats.currentGravity());
+        dto.setCurrentTemperature(stats.currentTemperature());
+        dto.setApparentAttenuation(stats.apparentAttenuation());
+        dto.setAlcoholByVolume(stats.alcoholByVolume());
+        dto.setGravityChangePerDay(stats.gravityChangePerDay());
+        dto.setTemperatureMean(stats.temperatureMean());
+        dto.setTemperatureStdDev(stats.temperatureStdDev());
+        dto.setTemperatureMin(stats.temperatureMin());
+        dto.setTemperatureMax(stats.temperatureMax());
+        dto.setEstimatedFinishedAt(stats.estimatedFinishedAt());
+
+        return dto;
+    }
+}
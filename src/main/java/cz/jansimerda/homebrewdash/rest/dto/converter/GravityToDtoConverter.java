@@ -1,24 +1,72 @@
 package cz.jansimerda.homebrewdash.rest.dto.converter;
 
+import cz.jansimerda.homebrewdash.helpers.DecimalHelper;
+import cz.jansimerda.homebrewdash.model.Measurement;
 import cz.jansimerda.homebrewdash.rest.dto.response.BeerGravityDto;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.function.Function;
 
 @Component
 public class GravityToDtoConverter implements Function<BigDecimal, BeerGravityDto> {
+
+    /**
+     * number of decimal places of the degrees Plato
+     */
+    private static final int PLATO_SCALE = 2;
+
     @Override
     public BeerGravityDto apply(BigDecimal specificGravity) {
+        return convert(specificGravity, specificGravity.doubleValue());
+    }
+
+    /**
+     * Converts the specific gravity of a measurement without allocating intermediate values,
+     * e.g. of each listed measurement. The specific gravity keeps the scale of its column.
+     *
+     * @param specificGravity SG - Specific Gravity, rounded to the scale of its column
+     * @return gravity DTO
+     */
+    public BeerGravityDto convert(double specificGravity) {
+        return convert(
+                DecimalHelper.toBigDecimal(specificGravity, Measurement.SPECIFIC_GRAVITY_SCALE),
+                specificGravity
+        );
+    }
+
+    /**
+     * @param decimal         SG - Specific Gravity as responded
+     * @param specificGravity SG - Specific Gravity the degrees Plato are computed from
+     * @return gravity DTO
+     */
+    private BeerGravityDto convert(BigDecimal decimal, double specificGravity) {
         BeerGravityDto dto = new BeerGravityDto();
-        dto.setSpecificGravity(specificGravity);
+        dto.setSpecificGravity(decimal);
 
         // P = -460.234 + 662.649 * SG - 202.41 * SG^2
-        BigDecimal plato = new BigDecimal("-460.234")
-                .add(new BigDecimal("662.649").multiply(specificGravity))
-                .subtract(new BigDecimal("202.41").multiply(specificGravity.pow(2)));
-        dto.setPlato(plato);
+        double plato = -460.234 + 662.649 * specificGravity - 202.41 * specificGravity * specificGravity;
+        // bound of the rounding errors of the terms, e.g. SG 1 is exactly 0.005 °P and must be rounded to 0.00
+        double magnitude = 460.234 + 662.649 * Math.abs(specificGravity) + 202.41 * specificGravity * specificGravity;
+        double error = 8 * Math.ulp(magnitude);
+        if (Math.abs(plato) <= error || DecimalHelper.isHalfWay(plato, PLATO_SCALE, error)) {
+            // the binary value cannot tell how to round, the exact one is rounded and only formatted then
+            BigDecimal exact = exactPlato(BigDecimal.valueOf(specificGravity));
+            plato = Math.copySign(exact.setScale(PLATO_SCALE, RoundingMode.HALF_EVEN).doubleValue(), exact.signum());
+        }
+        dto.setPlato(DecimalHelper.format(plato, PLATO_SCALE));
 
         return dto;
     }
+
+    /**
+     * @param specificGravity SG - Specific Gravity
+     * @return exact degrees Plato of the polynomial approximation
+     */
+    private BigDecimal exactPlato(BigDecimal specificGravity) {
+        return new BigDecimal("-460.234")
+                .add(new BigDecimal("662.649").multiply(specificGravity))
+                .subtract(new BigDecimal("202.41").multiply(specificGravity.pow(2)));
+    }
 }
@@ -0,0 +1,59 @@
+package cz.jansimerda.homebrewdash.rest.dto.converter;
+
+import cz.jansimerda.homebrewdash.model.HopStock;
+import cz.jansimerda.homebrewdash.model.Inventory;
+import cz.jansimerda.homebrewdash.model.MaltStock;
+import cz.jansimerda.homebrewdash.model.YeastStock;
+import cz.jansimerda.homebrewdash.rest.dto.response.HopStockResponseDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.InventoryResponseDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.MaltStockResponseDto;
+import cz.jansimerda.homebrewdash.rest.dto.response.YeastStockResponseDto;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+@Component
+public class InventoryToDtoConverter implements Function<Inventory, InventoryResponseDto> {
+
+    @Override
+    public InventoryResponseDto apply(Inventory inventory) {
+        InventoryResponseDto dto = new InventoryResponseDto();
+        dto.setHops(inventory.hops().stream().map(this::convertHop).toList());
+        dto.setMalts(inventory.malts().stream().map(this::convertMalt).toList());
+        dto.setYeasts(inventory.yeasts().stream().map(this::convertYeast).toList());
+
+        return dto;
+    }
+
+    private HopStockResponseDto convertHop(HopStock stock) {
+        HopStockResponseDto dto = new HopStockResponseDto();
+        dto.setHopId(stock.hopId());
+        dto.setHopName(stock.hopName());
+        dto.setAlphaAcidPercentage(stock.alphaAcidPercentage());
+        dto.setBetaAcidPercentage(stock.betaAcidPercentage());
+        dto.setHarvestedAt(stock.harvestedAt());
+        dto.setGrams(stock.grams());
+
+        return dto;
+    }
+
+    private MaltStockResponseDto convertMalt(MaltStock stock) {
+        MaltStockResponseDto dto = new MaltStockResponseDto();
+        dto.setMaltId(stock.maltId());
+        dto.setMaltName(stock.maltName());
+        dto.setColorEbc(stock.colorEbc());
+        dto.setGrams(stock.grams());
+
+        return dto;
+    }
+
+    private YeastStockResponseDto convertYeast(YeastStock stock) {
+        YeastStockResponseDto dto = new YeastStockResponseDto();
+        dto.setYeastId(stock.yeastId());
+        dto.setYeastName(stock.yeastName());
+        dto.setExpirationDate(stock.expirationDate());
+        dto.setGrams(stock.grams());
+
+        return dto;
+    }
+}
@@ -0,0 +1,36 @@
+package cz.jansimerda.homebrewdash.rest.dto.converter;
+
+import cz.jansimerda.homebrewdash.model.MeasurementView;
+import cz.jansimerda.homebrewdash.rest.dto.response.MeasurementResponseDto;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+@Component
+public class MeasurementViewToDtoConverter implements Function<MeasurementView, MeasurementResponseDto> {
+
+    private final GravityToDtoConverter gravityToDtoConverter;
+
+    public MeasurementViewToDtoConverter(GravityToDtoConverter gravityToDtoConverter) {
+        this.gravityToDtoConverter = gravityToDtoConverter;
+    }
+
+    @Override
+    public MeasurementResponseDto apply(MeasurementView measurement) {
+        MeasurementResponseDto dto = new MeasurementResponseDto();
+        dto.setId(measurement.id());
+        dto.setAngle(measurement.angle());
+        dto.setTemperature(measurement.temperature());
+        dto.setBattery(measurement.battery());
+        dto.setGravity(gravityToDtoConverter.convert(measurement.specificGravity()));
+        dto.setInterval(measurement.interval());
+        dto.setRssi(measurement.rssi());
+        measurement.getHydrometerId().ifPresent(dto::setHydrometerId);
+        dto.setBeerId(measurement.beerId());
+        dto.setIsHidden(measurement.hidden());
+        dto.setUpdatedAt(measurement.updatedAt());
+        dto.setCreatedAt(measurement.createdAt());
+
+        return dto;
+    }
+}
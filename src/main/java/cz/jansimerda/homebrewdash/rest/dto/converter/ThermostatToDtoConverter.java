@@ -25,6 +25,7 @@ public class ThermostatToDtoConverter implements Function<Thermostat, Thermostat
         dto.setIsHeating(thermostat.isHeating());
         dto.setIsActive(thermostat.isActive());
         dto.setIsOn(thermostat.isPoweredOn());
+        dto.setControlMode(thermostat.getControlMode());
         dto.setState(thermostat.getState());
         thermostat.getHydrometer().map(hydrometerToDtoConverter).ifPresent(dto::setHydrometer);
         thermostat.getLastSuccessAt().ifPresent(dto::setLastSuccessAt);
@@ -0,0 +1,22 @@
+package cz.jansimerda.homebrewdash.rest.dto.converter;
+
+import cz.jansimerda.homebrewdash.model.ThermostatTransition;
+import cz.jansimerda.homebrewdash.rest.dto.response.ThermostatTransitionResponseDto;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+@Component
+public class ThermostatTransitionToDtoConverter implements Function<ThermostatTransition, ThermostatTransitionResponseDto> {
+
+    @Override
+    public ThermostatTransitionResponseDto apply(ThermostatTransition transition) {
+        ThermostatTransitionResponseDto dto = new ThermostatTransitionResponseDto();
+        dto.setThermostatId(transition.thermostatId());
+        dto.setState(transition.state());
+        dto.setIsOn(transition.poweredOn());
+        dto.setChangedAt(transition.changedAt());
+
+        return dto;
+    }
+}
@@ -3,10 +3,11 @@ package cz.jansimerda.homebrewdash.rest.dto.request;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import cz.jansimerda.homebrewdash.model.enums.TemperatureUnitEnum;
 import cz.jansimerda.homebrewdash.rest.validation.constraints.EnumValue;
+import cz.jansimerda.homebrewdash.rest.validation.constraints.RecentDateTime;
 import jakarta.validation.constraints.*;
 import org.springframework.validation.annotation.Validated;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Validated
 public class MeasurementCreateRequestDto {
@@ -17,12 +18,12 @@ public class MeasurementCreateRequestDto {
     @DecimalMin("0")
     @DecimalMax("180")
     @NotNull
-    private BigDecimal angle;
+    private Double angle;
 
     @DecimalMin("-100")
     @DecimalMax("500")
     @NotNull
-    private BigDecimal temperature;
+    private Double temperature;
 
     @JsonProperty("temp_units")
     @EnumValue(enumClass = TemperatureUnitEnum.class)
@@ -32,12 +33,12 @@ public class MeasurementCreateRequestDto {
     @DecimalMin("0")
     @DecimalMax("5")
     @NotNull
-    private BigDecimal battery;
+    private Double battery;
 
     @DecimalMin("-200")
     @DecimalMax("200")
     @NotNull
-    private BigDecimal gravity;
+    private Double gravity;
 
     @NotNull
     private Integer interval;
@@ -48,15 +49,23 @@ public class MeasurementCreateRequestDto {
     @NotNull
     private Integer RSSI;
 
+    /**
+     * date and time the measurement has been taken at, e.g. of a reading buffered by a gateway while offline;
+     * the date and time of reception if not sent
+     */
+    @JsonProperty("measured_at")
+    @RecentDateTime(maxAgeHours = 7 * 24)
+    private LocalDateTime measuredAt;
+
     public String getToken() {
         return token;
     }
 
-    public BigDecimal getAngle() {
+    public Double getAngle() {
         return angle;
     }
 
-    public BigDecimal getTemperature() {
+    public Double getTemperature() {
         return temperature;
     }
 
@@ -64,11 +73,11 @@ public class MeasurementCreateRequestDto {
         return TemperatureUnitEnum.valueOf(temp_units);
     }
 
-    public BigDecimal getBattery() {
+    public Double getBattery() {
         return battery;
     }
 
-    public BigDecimal getGravity() {
+    public Double getGravity() {
         return gravity;
     }
 
@@ -79,4 +88,8 @@ public class MeasurementCreateRequestDto {
     public int getRssi() {
         return RSSI;
     }
+
+    public LocalDateTime getMeasuredAt() {
+        return measuredAt;
+    }
 }
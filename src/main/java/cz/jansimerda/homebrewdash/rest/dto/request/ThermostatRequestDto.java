@@ -1,5 +1,7 @@
 package cz.jansimerda.homebrewdash.rest.dto.request;
 
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+import cz.jansimerda.homebrewdash.rest.validation.constraints.EnumValue;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -33,6 +35,9 @@ public class ThermostatRequestDto {
     @NotNull
     private boolean active;
 
+    @EnumValue(enumClass = ThermostatControlModeEnum.class)
+    private String controlMode;
+
     @org.hibernate.validator.constraints.UUID
     private String hydrometerId;
 
@@ -60,6 +65,13 @@ public class ThermostatRequestDto {
         return active;
     }
 
+    /**
+     * @return control mode of the thermostat, hysteresis if not specified
+     */
+    public ThermostatControlModeEnum getControlMode() {
+        return controlMode == null ? ThermostatControlModeEnum.HYSTERESIS : ThermostatControlModeEnum.valueOf(controlMode);
+    }
+
     public UUID getHydrometerId() {
         return hydrometerId == null ? null : UUID.fromString(hydrometerId);
     }
@@ -1,7 +1,6 @@
 package cz.jansimerda.homebrewdash.rest.dto.response;
 
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
 
 public class BeerGravityDto {
     private BigDecimal specificGravity;
@@ -19,7 +18,7 @@ public class BeerGravityDto {
         return plato;
     }
 
-    public void setPlato(BigDecimal plato) {
-        this.plato = new DecimalFormat("0.00").format(plato);
+    public void setPlato(String plato) {
+        this.plato = plato;
     }
 }
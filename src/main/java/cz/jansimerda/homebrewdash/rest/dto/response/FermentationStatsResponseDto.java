@@ -0,0 +1,133 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class FermentationStatsResponseDto {
+    private UUID beerId;
+    private int measurementCount;
+    private LocalDateTime firstMeasuredAt;
+    private LocalDateTime lastMeasuredAt;
+    private Double currentGravity;
+    private Double currentTemperature;
+    private Double apparentAttenuation;
+    private Double alcoholByVolume;
+    private Double gravityChangePerDay;
+    private Double temperatureMean;
+    private Double temperatureStdDev;
+    private Double temperatureMin;
+    private Double temperatureMax;
+    private LocalDateTime estimatedFinishedAt;
+
+    public UUID getBeerId() {
+        return beerId;
+    }
+
+    public void setBeerId(UUID beerId) {
+        this.beerId = beerId;
+    }
+
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(int measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    public LocalDateTime getFirstMeasuredAt() {
+        return firstMeasuredAt;
+    }
+
+    public void setFirstMeasuredAt(LocalDateTime firstMeasuredAt) {
+        this.firstMeasuredAt = firstMeasuredAt;
+    }
+
+    public LocalDateTime getLastMeasuredAt() {
+        return lastMeasuredAt;
+    }
+
+    public void setLastMeasuredAt(LocalDateTime lastMeasuredAt) {
+        this.lastMeasuredAt = lastMeasuredAt;
+    }
+
+    public Double getCurrentGravity() {
+        return currentGravity;
+    }
+
+    public void setCurrentGravity(Double currentGravity) {
+        this.currentGravity = currentGravity;
+    }
+
+    public Double getCurrentTemperature() {
+        return currentTemperature;
+    }
+
+    public void setCurrentTemperature(Double currentTemperature) {
+        this.currentTemperature = currentTemperature;
+    }
+
+    public Double getApparentAttenuation() {
+        return apparentAttenuation;
+    }
+
+    public void setApparentAttenuation(Double apparentAttenuation) {
+        this.apparentAttenuation = apparentAttenuation;
+    }
+
+    public Double getAlcoholByVolume() {
+        return alcoholByVolume;
+    }
+
+    public void setAlcoholByVolume(Double alcoholByVolume) {
+        this.alcoholByVolume = alcoholByVolume;
+    }
+
+    public Double getGravityChangePerDay() {
+        return gravityChangePerDay;
+    }
+
+    public void setGravityChangePerDay(Double gravityChangePerDay) {
+        this.gravityChangePerDay = gravityChangePerDay;
+    }
+
+    public Double getTemperatureMean() {
+        return temperatureMean;
+    }
+
+    public void setTemperatureMean(Double temperatureMean) {
+        this.temperatureMean = temperatureMean;
+    }
+
+    public Double getTemperatureStdDev() {
+        return temperatureStdDev;
+    }
+
+    public void setTemperatureStdDev(Double temperatureStdDev) {
+        this.temperatureStdDev = temperatureStdDev;
+    }
+
+    public Double getTemperatureMin() {
+        return temperatureMin;
+    }
+
+    public void setTemperatureMin(Double temperatureMin) {
+        this.temperatureMin = temperatureMin;
+    }
+
+    public Double getTemperatureMax() {
+        return temperatureMax;
+    }
+
+    public void setTemperatureMax(Double temperatureMax) {
+        this.temperatureMax = temperatureMax;
+    }
+
+    public LocalDateTime getEstimatedFinishedAt() {
+        return estimatedFinishedAt;
+    }
+
+    public void setEstimatedFinishedAt(LocalDateTime estimatedFinishedAt) {
+        this.estimatedFinishedAt = estimatedFinishedAt;
+    }
+}
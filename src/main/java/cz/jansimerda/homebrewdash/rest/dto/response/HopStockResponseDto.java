@@ -0,0 +1,62 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class HopStockResponseDto {
+    private UUID hopId;
+    private String hopName;
+    private BigDecimal alphaAcidPercentage;
+    private BigDecimal betaAcidPercentage;
+    private LocalDate harvestedAt;
+    private long grams;
+
+    public UUID getHopId() {
+        return hopId;
+    }
+
+    public void setHopId(UUID hopId) {
+        this.hopId = hopId;
+    }
+
+    public String getHopName() {
+        return hopName;
+    }
+
+    public void setHopName(String hopName) {
+        this.hopName = hopName;
+    }
+
+    public BigDecimal getAlphaAcidPercentage() {
+        return alphaAcidPercentage;
+    }
+
+    public void setAlphaAcidPercentage(BigDecimal alphaAcidPercentage) {
+        this.alphaAcidPercentage = alphaAcidPercentage;
+    }
+
+    public BigDecimal getBetaAcidPercentage() {
+        return betaAcidPercentage;
+    }
+
+    public void setBetaAcidPercentage(BigDecimal betaAcidPercentage) {
+        this.betaAcidPercentage = betaAcidPercentage;
+    }
+
+    public LocalDate getHarvestedAt() {
+        return harvestedAt;
+    }
+
+    public void setHarvestedAt(LocalDate harvestedAt) {
+        this.harvestedAt = harvestedAt;
+    }
+
+    public long getGrams() {
+        return grams;
+    }
+
+    public void setGrams(long grams) {
+        this.grams = grams;
+    }
+}
@@ -0,0 +1,33 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import java.util.List;
+
+public class InventoryResponseDto {
+    private List<HopStockResponseDto> hops;
+    private List<MaltStockResponseDto> malts;
+    private List<YeastStockResponseDto> yeasts;
+
+    public List<HopStockResponseDto> getHops() {
+        return hops;
+    }
+
+    public void setHops(List<HopStockResponseDto> hops) {
+        this.hops = hops;
+    }
+
+    public List<MaltStockResponseDto> getMalts() {
+        return malts;
+    }
+
+    public void setMalts(List<MaltStockResponseDto> malts) {
+        this.malts = malts;
+    }
+
+    public List<YeastStockResponseDto> getYeasts() {
+        return yeasts;
+    }
+
+    public void setYeasts(List<YeastStockResponseDto> yeasts) {
+        this.yeasts = yeasts;
+    }
+}
@@ -0,0 +1,42 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import java.util.UUID;
+
+public class MaltStockResponseDto {
+    private UUID maltId;
+    private String maltName;
+    private Integer colorEbc;
+    private long grams;
+
+    public UUID getMaltId() {
+        return maltId;
+    }
+
+    public void setMaltId(UUID maltId) {
+        this.maltId = maltId;
+    }
+
+    public String getMaltName() {
+        return maltName;
+    }
+
+    public void setMaltName(String maltName) {
+        this.maltName = maltName;
+    }
+
+    public Integer getColorEbc() {
+        return colorEbc;
+    }
+
+    public void setColorEbc(Integer colorEbc) {
+        this.colorEbc = colorEbc;
+    }
+
+    public long getGrams() {
+        return grams;
+    }
+
+    public void setGrams(long grams) {
+        this.grams = grams;
+    }
+}
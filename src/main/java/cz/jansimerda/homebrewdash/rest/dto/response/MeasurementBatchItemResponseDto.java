@@ -0,0 +1,54 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import cz.jansimerda.homebrewdash.rest.exception.ErrorResponse;
+
+public class MeasurementBatchItemResponseDto {
+    private int index;
+    private int status;
+    private MeasurementResponseDto measurement;
+    private ErrorResponse error;
+
+    /**
+     * @return position of the item in the batch
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return HTTP status the item would have been answered with by the single measurement endpoint
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * @return stored measurement, null if the item has been rejected
+     */
+    public MeasurementResponseDto getMeasurement() {
+        return measurement;
+    }
+
+    public void setMeasurement(MeasurementResponseDto measurement) {
+        this.measurement = measurement;
+    }
+
+    /**
+     * @return reason of the rejection, null if the item has been stored
+     */
+    public ErrorResponse getError() {
+        return error;
+    }
+
+    public void setError(ErrorResponse error) {
+        this.error = error;
+    }
+}
@@ -1,14 +1,13 @@
 package cz.jansimerda.homebrewdash.rest.dto.response;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 public class MeasurementResponseDto {
     private UUID id;
-    private BigDecimal angle;
-    private BigDecimal temperature;
-    private BigDecimal battery;
+    private double angle;
+    private double temperature;
+    private double battery;
     private BeerGravityDto gravity;
     private int interval;
     private int rssi;
@@ -26,27 +25,27 @@ public class MeasurementResponseDto {
         this.id = id;
     }
 
-    public BigDecimal getAngle() {
+    public double getAngle() {
         return angle;
     }
 
-    public void setAngle(BigDecimal angle) {
+    public void setAngle(double angle) {
         this.angle = angle;
     }
 
-    public BigDecimal getTemperature() {
+    public double getTemperature() {
         return temperature;
     }
 
-    public void setTemperature(BigDecimal temperature) {
+    public void setTemperature(double temperature) {
         this.temperature = temperature;
     }
 
-    public BigDecimal getBattery() {
+    public double getBattery() {
         return battery;
     }
 
-    public void setBattery(BigDecimal battery) {
+    public void setBattery(double battery) {
         this.battery = battery;
     }
 
@@ -0,0 +1,42 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import java.time.LocalDateTime;
+
+public class MeasurementSeriesPointDto {
+    private LocalDateTime time;
+    private long count;
+    private MeasurementSeriesValueDto specificGravity;
+    private MeasurementSeriesValueDto temperature;
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public void setTime(LocalDateTime time) {
+        this.time = time;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public MeasurementSeriesValueDto getSpecificGravity() {
+        return specificGravity;
+    }
+
+    public void setSpecificGravity(MeasurementSeriesValueDto specificGravity) {
+        this.specificGravity = specificGravity;
+    }
+
+    public MeasurementSeriesValueDto getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(MeasurementSeriesValueDto temperature) {
+        this.temperature = temperature;
+    }
+}
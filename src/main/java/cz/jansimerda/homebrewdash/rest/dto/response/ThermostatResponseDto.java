@@ -1,5 +1,6 @@
 package cz.jansimerda.homebrewdash.rest.dto.response;
 
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
 import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
 
 import java.time.LocalDateTime;
@@ -13,6 +14,7 @@ public class ThermostatResponseDto {
     private boolean heating;
     private boolean active;
     private boolean on;
+    private ThermostatControlModeEnum controlMode;
     private ThermostatStateEnum state;
     private HydrometerResponseDto hydrometer;
     private LocalDateTime lastSuccessAt;
@@ -77,6 +79,14 @@ public class ThermostatResponseDto {
         this.on = on;
     }
 
+    public ThermostatControlModeEnum getControlMode() {
+        return controlMode;
+    }
+
+    public void setControlMode(ThermostatControlModeEnum controlMode) {
+        this.controlMode = controlMode;
+    }
+
     public ThermostatStateEnum getState() {
         return state;
     }
@@ -0,0 +1,45 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class ThermostatTransitionResponseDto {
+    private UUID thermostatId;
+    private ThermostatStateEnum state;
+    private boolean on;
+    private LocalDateTime changedAt;
+
+    public UUID getThermostatId() {
+        return thermostatId;
+    }
+
+    public void setThermostatId(UUID thermostatId) {
+        this.thermostatId = thermostatId;
+    }
+
+    public ThermostatStateEnum getState() {
+        return state;
+    }
+
+    public void setState(ThermostatStateEnum state) {
+        this.state = state;
+    }
+
+    public boolean isOn() {
+        return on;
+    }
+
+    public void setIsOn(boolean on) {
+        this.on = on;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,43 @@
+package cz.jansimerda.homebrewdash.rest.dto.response;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class YeastStockResponseDto {
+    private UUID yeastId;
+    private String yeastName;
+    private LocalDate expirationDate;
+    private long grams;
+
+    public UUID getYeastId() {
+        return yeastId;
+    }
+
+    public void setYeastId(UUID yeastId) {
+        this.yeastId = yeastId;
+    }
+
+    public String getYeastName() {
+        return yeastName;
+    }
+
+    public void setYeastName(String yeastName) {
+        this.yeastName = yeastName;
+    }
+
+    public LocalDate getExpirationDate() {
+        return expirationDate;
+    }
+
+    public void setExpirationDate(LocalDate expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+
+    public long getGrams() {
+        return grams;
+    }
+
+    public void setGrams(long grams) {
+        this.grams = grams;
+    }
+}
@@ -0,0 +1,24 @@
+package cz.jansimerda.homebrewdash.rest.validation.constraints;
+
+import cz.jansimerda.homebrewdash.rest.validation.validators.RecentDateTimeValidator;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.*;
+
+@Documented
+@Constraint(validatedBy = RecentDateTimeValidator.class)
+@Target({ElementType.METHOD, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RecentDateTime {
+    /**
+     * maximum age of the date and time in hours
+     */
+    long maxAgeHours();
+
+    String message() default "Must not be in the future";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
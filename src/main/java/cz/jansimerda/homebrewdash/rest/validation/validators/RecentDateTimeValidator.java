@@ -0,0 +1,37 @@
+package cz.jansimerda.homebrewdash.rest.validation.validators;
+
+import cz.jansimerda.homebrewdash.rest.validation.constraints.RecentDateTime;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+import java.time.LocalDateTime;
+
+public class RecentDateTimeValidator implements ConstraintValidator<RecentDateTime, LocalDateTime> {
+    private long maxAgeHours;
+
+    @Override
+    public void initialize(RecentDateTime annotation) {
+        maxAgeHours = annotation.maxAgeHours();
+    }
+
+    @Override
+    public boolean isValid(LocalDateTime value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (value.isAfter(now)) {
+            return false;
+        }
+
+        if (value.isBefore(now.minusHours(maxAgeHours))) {
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate("Must not be older than %d hours".formatted(maxAgeHours))
+                    .addConstraintViolation();
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -1,4 +1,5 @@
 import asyncio
+import json
 import os
 import sys
 import logging
@@ -12,100 +13,245 @@ from meross_iot.model.http.error_codes import ErrorCodes
 COMMAND_ON = "ON"
 COMMAND_OFF = "OFF"
 
+# starts a long-lived worker reading JSON commands from stdin, one per line
+SERVE_FLAG = "--serve"
+
 ENV_EMAIL = "MSS_EMAIL"
 ENV_PASSWORD = "MSS_PASS"
 ENV_DEVICE_NAME = "MSS_DEVICE_NAME"
 
+API_BASE_URL = "https://iotx-eu.meross.com"
 
-async def main() -> int:
-    # disable logging
-    logging.getLogger("meross_iot").propagate = False
-    logging.getLogger("meross_iot.manager").disabled = True
+CODE_SUCCESS = 0
+CODE_GENERAL_ERROR = 1
+CODE_AUTHENTICATION_MISSING = 100
+CODE_DEVICE_NAME_MISSING = 101
+CODE_COMMAND_MISSING = 102
+CODE_INVALID_COMMAND = 103
+CODE_INVALID_CREDENTIALS = 104
+CODE_DEVICE_NOT_FOUND = 105
+CODE_DEVICE_OFFLINE = 106
 
-    email = os.environ.get(ENV_EMAIL) or ""
-    password = os.environ.get(ENV_PASSWORD) or ""
-    device_name = os.environ.get(ENV_DEVICE_NAME) or ""
 
+class InvalidCredentials(Exception):
+    pass
+
+
+class MerossSession:
+    """
+    Authenticated connection to a single Meross account with its discovered devices
+    """
+
+    def __init__(self, email: str, password: str):
+        self.email = email
+        self.password = password
+        self.lock = asyncio.Lock()
+        self.http_client = None
+        self.manager = None
+
+    async def connect(self):
+        try:
+            self.http_client = await MerossHttpClient.async_from_user_password(
+                api_base_url=API_BASE_URL,
+                email=self.email,
+                password=self.password
+            )
+        except BadLoginException:
+            raise InvalidCredentials()
+        except HttpApiError as e:
+            if ErrorCodes.CODE_WRONG_EMAIL == e.error_code or ErrorCodes.CODE_INVALID_EMAIL == e.error_code:
+                raise InvalidCredentials()
+            raise e
+
+        # Setup and start the device manager
+        self.manager = MerossManager(http_client=self.http_client)
+        await self.manager.async_init()
+        await self.manager.async_device_discovery()
+
+    async def find_devices(self, device_name: str) -> list:
+        devices = self.manager.find_devices(device_name=device_name)
+        if len(devices) < 1:
+            # the device may have been added to the account since the last discovery
+            await self.manager.async_device_discovery()
+            devices = self.manager.find_devices(device_name=device_name)
+
+        return devices
+
+    async def close(self):
+        # Close the manager and logout from http_api
+        if self.manager is not None:
+            self.manager.close()
+        if self.http_client is not None:
+            await self.http_client.async_logout()
+        self.manager = None
+        self.http_client = None
+
+
+def validate(email: str, password: str, device_name: str, command: str):
     if len(email) <= 0 or len(password) <= 0:
-        print("Authentication credentials missing")
-        return 100
+        return CODE_AUTHENTICATION_MISSING, "Authentication credentials missing"
 
     if len(device_name) <= 0:
-        print("Device name missing")
-        return 101
+        return CODE_DEVICE_NAME_MISSING, "Device name missing"
 
-    if len(sys.argv) < 2 or len(sys.argv[1]) <= 0:
-        print("Command missing")
-        return 102
-
-    command = sys.argv[1]
+    if len(command) <= 0:
+        return CODE_COMMAND_MISSING, "Command missing"
 
     if command != COMMAND_ON and command != COMMAND_OFF:
-        print("Invalid command")
-        return 103
-    print(email, password, device_name, command)
-    try:
-        http_api_client = await MerossHttpClient.async_from_user_password(
-            api_base_url="https://iotx-eu.meross.com",
-            email=email,
-            password=password
-        )
-    except BadLoginException:
-        print("Invalid credentials")
-        return 104
-    except HttpApiError as e:
-        if ErrorCodes.CODE_WRONG_EMAIL == e.error_code or ErrorCodes.CODE_INVALID_EMAIL == e.error_code:
-            print("Invalid credentials")
-            return 104
-        raise e
+        return CODE_INVALID_COMMAND, "Invalid command"
+
+    return None
 
-    # Setup and start the device manager
-    manager = MerossManager(http_client=http_api_client)
-    await manager.async_init()
 
+async def switch_device(session: MerossSession, device_name: str, command: str):
     # Retrieve all the devices with name device_name
-    await manager.async_device_discovery()
-    all_devices = manager.find_devices(device_name=device_name)
+    all_devices = await session.find_devices(device_name)
     online_devices = list(filter(lambda d: d.online_status == OnlineStatus.ONLINE, all_devices))
 
     devices = all_devices if len(online_devices) < 1 else online_devices
 
     if len(devices) < 1:
-        print("Device not found")
-        # Close the manager and logout from http_api
-        manager.close()
-        await http_api_client.async_logout()
-        return 105
+        return CODE_DEVICE_NOT_FOUND, "Device not found"
 
     device = devices[0]
     # update device status
     await device.async_update()
 
     if device.online_status != OnlineStatus.ONLINE:
-        print("Device offline")
-        # Close the manager and logout from http_api
-        manager.close()
-        await http_api_client.async_logout()
-        return 106
+        return CODE_DEVICE_OFFLINE, "Device offline"
 
     if command == COMMAND_ON:
         await device.async_turn_on()
     elif command == COMMAND_OFF:
         await device.async_turn_off()
 
-    # Close the manager and logout from http_api
-    manager.close()
-    await http_api_client.async_logout()
-    return 0
+    return CODE_SUCCESS, ""
+
+
+async def main() -> int:
+    email = os.environ.get(ENV_EMAIL) or ""
+    password = os.environ.get(ENV_PASSWORD) or ""
+    device_name = os.environ.get(ENV_DEVICE_NAME) or ""
+    command = sys.argv[1] if len(sys.argv) >= 2 else ""
+
+    error = validate(email, password, device_name, command)
+    if error is not None:
+        print(error[1])
+        return error[0]
+
+    session = MerossSession(email, password)
+    try:
+        await session.connect()
+    except InvalidCredentials:
+        print("Invalid credentials")
+        return CODE_INVALID_CREDENTIALS
+
+    try:
+        code, message = await switch_device(session, device_name, command)
+    finally:
+        await session.close()
+
+    if len(message) > 0:
+        print(message)
+    return code
+
+
+async def handle_request(sessions: dict, request: dict) -> dict:
+    email = str(request.get("email") or "")
+    password = str(request.get("password") or "")
+    device_name = str(request.get("deviceName") or "")
+    command = str(request.get("command") or "")
+
+    error = validate(email, password, device_name, command)
+    if error is not None:
+        return {"code": error[0], "message": error[1]}
+
+    session = sessions.get(email)
+    if session is None:
+        session = MerossSession(email, password)
+        sessions[email] = session
+
+    # commands for the same account are serialized, different accounts run concurrently
+    async with session.lock:
+        try:
+            if session.password != password and session.manager is not None:
+                await session.close()
+            session.password = password
+            if session.manager is None:
+                await session.connect()
+
+            code, message = await switch_device(session, device_name, command)
+        except InvalidCredentials:
+            sessions.pop(email, None)
+            return {"code": CODE_INVALID_CREDENTIALS, "message": "Invalid credentials"}
+        except Exception as e:
+            # the session may be broken, it will be re-established by the next command
+            sessions.pop(email, None)
+            try:
+                await session.close()
+            except Exception:
+                pass
+            return {"code": CODE_GENERAL_ERROR, "message": str(e) or type(e).__name__}
+
+    return {"code": code, "message": message}
+
+
+async def respond(sessions: dict, line: bytes):
+    request_id = None
+    try:
+        request = json.loads(line)
+        request_id = request.get("id")
+        response = await handle_request(sessions, request)
+    except Exception as e:
+        response = {"code": CODE_GENERAL_ERROR, "message": str(e) or type(e).__name__}
+
+    response["id"] = request_id
+    sys.stdout.write(json.dumps(response) + "\n")
+    sys.stdout.flush()
+
+
+async def serve() -> int:
+    loop = asyncio.get_running_loop()
+    reader = asyncio.StreamReader()
+    await loop.connect_read_pipe(lambda: asyncio.StreamReaderProtocol(reader), sys.stdin)
+
+    sessions = {}
+    tasks = set()
+    while True:
+        line = await reader.readline()
+        if not line:
+            # stdin closed by the parent process
+            break
+        if len(line.strip()) <= 0:
+            continue
+
+        task = asyncio.create_task(respond(sessions, line))
+        tasks.add(task)
+        task.add_done_callback(tasks.discard)
+
+    if len(tasks) > 0:
+        await asyncio.gather(*tasks, return_exceptions=True)
+
+    for session in list(sessions.values()):
+        try:
+            await session.close()
+        except Exception:
+            pass
+
+    return CODE_SUCCESS
 
 
 if __name__ == "__main__":
+    # disable logging
+    logging.getLogger("meross_iot").propagate = False
+    logging.getLogger("meross_iot.manager").disabled = True
+
     # Windows and python 3.8 requires to set up a specific event_loop_policy.
     #  On Linux and MacOSX this is not necessary.
     if os.name == "nt":
         asyncio.set_event_loop_policy(asyncio.WindowsSelectorEventLoopPolicy())
     loop = asyncio.get_event_loop()
-    exit_code = loop.run_until_complete(main())
+    exit_code = loop.run_until_complete(serve() if SERVE_FLAG in sys.argv[1:] else main())
     loop.stop()
 
     sys.exit(exit_code)
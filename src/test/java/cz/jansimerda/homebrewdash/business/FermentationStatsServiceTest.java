@@ -0,0 +1,255 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.model.*;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.FermentationAggregateRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.test.context.support.TestExecutionEvent;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@SpringBootTest
+class FermentationStatsServiceTest extends AbstractServiceTest {
+
+    /**
+     * beginning of the fermentation of the test beer
+     */
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    @Autowired
+    FermentationStatsService fermentationStatsService;
+
+    @MockBean
+    FermentationAggregateRepository aggregateRepository;
+
+    @MockBean
+    MeasurementRepository measurementRepository;
+
+    @MockBean
+    BeerRepository beerRepository;
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void readByBeerIdWithoutAggregate() {
+        // prepare entities
+        Beer beer = createBeer(getUser());
+        List<GravityReading> readings = createReadings();
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        Mockito.when(aggregateRepository.findById(beer.getId())).thenReturn(Optional.empty());
+        Mockito.when(measurementRepository.streamReadingsByBeerId(beer.getId()))
+                .thenAnswer(invocation -> readings.stream());
+
+        // test
+        assertStats(beer, fermentationStatsService.readByBeerId(beer.getId()));
+        Mockito.verify(aggregateRepository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    @Transactional
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void recordIncrementally() {
+        // prepare entities
+        Beer beer = createBeer(getUser());
+        FermentationAggregate aggregate = new FermentationAggregate();
+        aggregate.setId(beer.getId());
+        List<Measurement> measurements = new ArrayList<>(createReadings().stream()
+                .map(r -> createMeasurement(beer, r, false))
+                .toList());
+        // a delayed measurement and a hidden one
+        measurements.add(measurements.remove(3));
+        measurements.add(createMeasurement(beer, new GravityReading(
+                START.plusDays(2),
+                1.2,
+                30
+        ), true));
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        Mockito.when(aggregateRepository.findForUpdate(beer.getId())).thenReturn(Optional.of(aggregate));
+        Mockito.when(aggregateRepository.findById(beer.getId())).thenReturn(Optional.of(aggregate));
+
+        // test
+        for (Measurement measurement : measurements) {
+            fermentationStatsService.record(List.of(measurement));
+        }
+        assertStats(beer, fermentationStatsService.readByBeerId(beer.getId()));
+        Mockito.verify(measurementRepository, Mockito.never()).streamReadingsByBeerId(Mockito.any());
+    }
+
+    @Test
+    @Transactional
+    void recordFirstMeasurement() {
+        // prepare entities
+        Beer beer = createBeer(getUser());
+        List<GravityReading> readings = createReadings();
+
+        // mock repository calls
+        Mockito.when(aggregateRepository.findForUpdate(beer.getId())).thenReturn(Optional.empty());
+        Mockito.when(measurementRepository.streamReadingsByBeerId(beer.getId()))
+                .thenAnswer(invocation -> readings.stream());
+
+        // test
+        fermentationStatsService.record(List.of(createMeasurement(beer, readings.get(0), false)));
+        Mockito.verify(aggregateRepository, Mockito.times(1)).saveAndFlush(Mockito.argThat(a ->
+                a.getId().equals(beer.getId()) && a.getMeasurementCount() == readings.size()
+        ));
+    }
+
+    @Test
+    void recordWithoutTransactionFail() {
+        Beer beer = createBeer(getUser());
+        GravityReading reading = createReadings().get(0);
+
+        Assertions.assertThrowsExactly(
+                IllegalTransactionStateException.class,
+                () -> fermentationStatsService.record(List.of(createMeasurement(beer, reading, false)))
+        );
+        Mockito.verifyNoInteractions(aggregateRepository);
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void readByBeerIdWithoutMeasurements() {
+        // prepare entities
+        Beer beer = createBeer(getUser());
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        Mockito.when(aggregateRepository.findById(beer.getId())).thenReturn(Optional.empty());
+        Mockito.when(measurementRepository.streamReadingsByBeerId(beer.getId()))
+                .thenAnswer(invocation -> Stream.empty());
+
+        // test
+        FermentationStats stats = fermentationStatsService.readByBeerId(beer.getId());
+        Assertions.assertEquals(0, stats.measurementCount());
+        Assertions.assertNull(stats.currentGravity());
+        Assertions.assertTrue(stats.getEstimatedFinishedAt().isEmpty());
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void readByBeerIdOfOtherUserFail() {
+        // prepare entities
+        Beer beer = createBeer(getAdmin());
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+
+        // test
+        Assertions.assertThrowsExactly(
+                AccessDeniedException.class,
+                () -> fermentationStatsService.readByBeerId(beer.getId())
+        );
+        Mockito.verifyNoInteractions(aggregateRepository);
+    }
+
+    /**
+     * Helper method asserting the statistics of the readings created by {@link #createReadings()}
+     *
+     * @param beer  beer entity
+     * @param stats statistics of the beer
+     */
+    private void assertStats(Beer beer, FermentationStats stats) {
+        Assertions.assertEquals(beer.getId(), stats.beerId());
+        Assertions.assertEquals(17, stats.measurementCount());
+        Assertions.assertEquals(START, stats.firstMeasuredAt());
+        Assertions.assertEquals(START.plusDays(4), stats.lastMeasuredAt());
+        Assertions.assertEquals(1.030, stats.currentGravity(), 1e-9);
+        Assertions.assertEquals(19, stats.currentTemperature(), 1e-9);
+        Assertions.assertEquals(40, stats.apparentAttenuation(), 1e-6);
+        Assertions.assertEquals(2.625, stats.alcoholByVolume(), 1e-6);
+        Assertions.assertEquals(-0.005, stats.gravityChangePerDay(), 1e-9);
+        Assertions.assertEquals(19 + 8.0 / 17, stats.temperatureMean(), 1e-9);
+        Assertions.assertEquals(19, stats.temperatureMin(), 1e-9);
+        Assertions.assertEquals(20, stats.temperatureMax(), 1e-9);
+        Assertions.assertTrue(stats.temperatureStdDev() > 0.4 && stats.temperatureStdDev() < 0.6);
+
+        // the gravity falls linearly from 1.050 by 0.005 a day, so it reaches 1.010 in 8 days
+        LocalDateTime estimate = stats.getEstimatedFinishedAt().orElseThrow();
+        Assertions.assertTrue(Duration.between(START.plusDays(8), estimate).abs().toSeconds() < 60);
+    }
+
+    /**
+     * Helper method creating readings of a linearly falling gravity taken every 6 hours for 4 days,
+     * with the temperature alternating between 19 and 20 degrees
+     *
+     * @return readings ordered by time
+     */
+    private List<GravityReading> createReadings() {
+        List<GravityReading> readings = new ArrayList<>();
+        for (int i = 0; i <= 16; i++) {
+            readings.add(new GravityReading(
+                    START.plusHours(6L * i),
+                    1.050 - 0.00125 * i,
+                    i % 2 == 0 ? 19 : 20
+            ));
+        }
+
+        return readings;
+    }
+
+    /**
+     * Helper method creating a fermenting beer
+     *
+     * @param user owner of the beer
+     * @return Beer
+     */
+    private Beer createBeer(User user) {
+        Beer beer = new Beer();
+        beer.setId(UUID.randomUUID());
+        beer.setName("Test beer");
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setOriginalGravity(BigDecimal.valueOf(1.050));
+        beer.setFinalGravityThreshold(BigDecimal.valueOf(1.010));
+        beer.setCreatedBy(user);
+        beer.setCreatedAt(START);
+        beer.setUpdatedAt(START);
+
+        return beer;
+    }
+
+    /**
+     * Helper method creating a stored measurement of the reading
+     *
+     * @param beer    measured beer
+     * @param reading values of the measurement
+     * @param hidden  whether the measurement is hidden
+     * @return Measurement
+     */
+    private Measurement createMeasurement(Beer beer, GravityReading reading, boolean hidden) {
+        Measurement measurement = new Measurement();
+        measurement.setId(UUID.randomUUID());
+        measurement.setAngle(58.9);
+        measurement.setTemperature(reading.temperature());
+        measurement.setBattery(3.9);
+        measurement.setSpecificGravity(reading.specificGravity());
+        measurement.setInterval(300);
+        measurement.setRssi(-70);
+        measurement.setBeer(beer);
+        measurement.setIsHidden(hidden);
+        measurement.setCreatedAt(reading.measuredAt());
+        measurement.setUpdatedAt(reading.measuredAt());
+
+        return measurement;
+    }
+}
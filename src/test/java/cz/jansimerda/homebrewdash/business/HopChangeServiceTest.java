@@ -4,6 +4,7 @@ import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.model.Hop;
 import cz.jansimerda.homebrewdash.model.HopChange;
+import cz.jansimerda.homebrewdash.model.StockLot;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.repository.HopChangeRepository;
 import cz.jansimerda.homebrewdash.repository.HopRepository;
@@ -36,6 +37,9 @@ class HopChangeServiceTest extends AbstractServiceTest {
     @MockBean
     HopChangeRepository hopChangeRepository;
 
+    @MockBean
+    StockLedgerService stockLedgerService;
+
     @Test
     @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
     void createWithUserAuth() {
@@ -56,12 +60,7 @@ class HopChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // hop stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUser(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(true);
 
         // mock save
         Mockito.when(hopChangeRepository.save(Mockito.any(HopChange.class)))
@@ -86,13 +85,7 @@ class HopChangeServiceTest extends AbstractServiceTest {
 
         Mockito.verify(hopRepository, Mockito.times(1)).findById(hop.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1))
-                .sumChangeByHopAndUser(
-                        hop.getId(),
-                        BigDecimal.valueOf(5.6),
-                        BigDecimal.valueOf(2.2),
-                        LocalDate.now(), user.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
         Mockito.verify(hopChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -116,12 +109,7 @@ class HopChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // hop stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUser(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(true);
 
         // mock save
         Mockito.when(hopChangeRepository.save(Mockito.any(HopChange.class)))
@@ -146,13 +134,7 @@ class HopChangeServiceTest extends AbstractServiceTest {
 
         Mockito.verify(hopRepository, Mockito.times(1)).findById(hop.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1))
-                .sumChangeByHopAndUser(
-                        hop.getId(),
-                        BigDecimal.valueOf(5.6),
-                        BigDecimal.valueOf(2.2),
-                        LocalDate.now(), user.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
         Mockito.verify(hopChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -176,24 +158,13 @@ class HopChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // hop stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUser(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> hopChangeService.create(change));
 
         Mockito.verify(hopRepository, Mockito.times(1)).findById(hop.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1))
-                .sumChangeByHopAndUser(
-                        hop.getId(),
-                        BigDecimal.valueOf(5.6),
-                        BigDecimal.valueOf(2.2),
-                        LocalDate.now(), user.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
     }
 
     @Test
@@ -425,13 +396,12 @@ class HopChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // hop stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(true);
 
         // mock save
         Mockito.when(hopChangeRepository.save(change)).thenReturn(change);
@@ -440,17 +410,15 @@ class HopChangeServiceTest extends AbstractServiceTest {
         Assertions.assertNotNull(updated);
         Assertions.assertEquals(change.getId(), updated.getId());
 
-        Mockito.verify(hopChangeRepository, Mockito.times(1)).findById(change.getId());
+        Mockito.verify(hopChangeRepository, Mockito.times(2)).findById(change.getId());
         Mockito.verify(hopRepository, Mockito.times(1)).findById(hop.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1))
-                .sumChangeByHopAndUserExceptChangeId(
-                        hop.getId(),
-                        BigDecimal.valueOf(5.6),
-                        BigDecimal.valueOf(2.2),
-                        LocalDate.now(), user.getId(),
-                        change.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
         Mockito.verify(hopChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -477,13 +445,12 @@ class HopChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // hop stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(true);
 
         // mock save
         Mockito.when(hopChangeRepository.save(change)).thenReturn(change);
@@ -492,17 +459,15 @@ class HopChangeServiceTest extends AbstractServiceTest {
         Assertions.assertNotNull(updated);
         Assertions.assertEquals(change.getId(), updated.getId());
 
-        Mockito.verify(hopChangeRepository, Mockito.times(1)).findById(change.getId());
+        Mockito.verify(hopChangeRepository, Mockito.times(2)).findById(change.getId());
         Mockito.verify(hopRepository, Mockito.times(1)).findById(hop.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1))
-                .sumChangeByHopAndUserExceptChangeId(
-                        hop.getId(),
-                        BigDecimal.valueOf(5.6),
-                        BigDecimal.valueOf(2.2),
-                        LocalDate.now(), user.getId(),
-                        change.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
         Mockito.verify(hopChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -524,30 +489,28 @@ class HopChangeServiceTest extends AbstractServiceTest {
         change.setCreatedAt(LocalDateTime.now());
 
         // mock repository calls
+        Mockito.when(hopChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         Mockito.when(hopRepository.findById(hop.getId())).thenReturn(Optional.of(hop));
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // hop stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> hopChangeService.update(change));
 
         Mockito.verify(hopRepository, Mockito.times(1)).findById(hop.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1))
-                .sumChangeByHopAndUserExceptChangeId(
-                        hop.getId(),
-                        BigDecimal.valueOf(5.6),
-                        BigDecimal.valueOf(2.2),
-                        LocalDate.now(), user.getId(),
-                        change.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
     }
 
     @Test
@@ -646,24 +609,12 @@ class HopChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(hopChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        )).thenReturn(0);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(true);
 
         hopChangeService.deleteById(change.getId());
 
         Mockito.verify(hopChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1)).sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
         Mockito.verify(hopChangeRepository, Mockito.times(1)).deleteById(change.getId());
     }
 
@@ -686,24 +637,12 @@ class HopChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(hopChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        )).thenReturn(0);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(true);
 
         hopChangeService.deleteById(change.getId());
 
         Mockito.verify(hopChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1)).sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
         Mockito.verify(hopChangeRepository, Mockito.times(1)).deleteById(change.getId());
     }
 
@@ -774,24 +713,12 @@ class HopChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(hopChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        )).thenReturn(-250);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> hopChangeService.deleteById(change.getId()));
 
         Mockito.verify(hopChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(hopChangeRepository, Mockito.times(1)).sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(5.6),
-                BigDecimal.valueOf(2.2),
-                LocalDate.now(), user.getId(),
-                change.getId()
-        );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
     }
 
     /**
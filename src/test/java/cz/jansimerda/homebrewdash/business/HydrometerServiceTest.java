@@ -26,6 +26,9 @@ class HydrometerServiceTest extends AbstractServiceTest {
     @Autowired
     HydrometerService hydrometerService;
 
+    @Autowired
+    HydrometerTokenCache tokenCache;
+
     @MockBean
     HydrometerRepository hydrometerRepository;
 
@@ -291,6 +294,8 @@ class HydrometerServiceTest extends AbstractServiceTest {
         existing.setAssignedBeer(null);
         existing.setCreatedAt(LocalDateTime.now().minusDays(1));
         existing.setCreatedBy(getUser());
+        existing.setToken("update-user-token");
+        tokenCache.put(existing);
 
         // mock repository calls
         Mockito.when(hydrometerRepository.save(Mockito.any(Hydrometer.class)))
@@ -305,6 +310,8 @@ class HydrometerServiceTest extends AbstractServiceTest {
         Mockito.when(beerRepository.findById(beerId)).thenReturn(Optional.of(beer));
 
         Hydrometer updated = hydrometerService.update(hydrometer);
+        // the cached state of the hydrometer is outdated
+        Assertions.assertTrue(tokenCache.get("update-user-token").isEmpty());
         Assertions.assertNotNull(updated);
         Assertions.assertNotNull(updated.getCreatedBy());
         Assertions.assertNotNull(updated.getCreatedAt());
@@ -565,11 +572,14 @@ class HydrometerServiceTest extends AbstractServiceTest {
         Hydrometer hydrometer = createHydrometer();
         hydrometer.setId(UUID.randomUUID());
         hydrometer.setCreatedBy(getUser());
+        hydrometer.setToken("delete-user-token");
+        tokenCache.put(hydrometer);
 
         // mock repository calls
         Mockito.when(hydrometerRepository.findById(hydrometer.getId())).thenReturn(Optional.of(hydrometer));
 
         hydrometerService.deleteById(hydrometer.getId());
+        Assertions.assertTrue(tokenCache.get("delete-user-token").isEmpty());
 
         Mockito.verify(hydrometerRepository, Mockito.times(1)).findById(hydrometer.getId());
         Mockito.verify(hydrometerRepository, Mockito.times(1)).deleteById(hydrometer.getId());
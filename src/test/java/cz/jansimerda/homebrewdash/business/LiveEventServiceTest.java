@@ -0,0 +1,255 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.Thermostat;
+import cz.jansimerda.homebrewdash.model.ThermostatTransition;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.TestExecutionEvent;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+class LiveEventServiceTest extends AbstractServiceTest {
+
+    @Autowired
+    LiveEventService liveEventService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void publishToOwner() throws InterruptedException {
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        LiveEventService.Subscription subscription = liveEventService.subscribe(createSink(received));
+
+        Measurement foreign = createMeasurement(100);
+        Measurement own = createMeasurement(200);
+        liveEventService.publishMeasurementAfterCommit(foreign, getAdmin().getId());
+        liveEventService.publishMeasurementAfterCommit(own, getUser().getId());
+
+        // events of a subscriber are delivered in order, so the foreign one would have been first
+        Assertions.assertSame(own, received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(received.isEmpty());
+
+        liveEventService.unsubscribe(subscription);
+    }
+
+    @Test
+    @WithUserDetails(value = "admin", setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void publishToAdmin() throws InterruptedException {
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        LiveEventService.Subscription subscription = liveEventService.subscribe(createSink(received));
+
+        Thermostat thermostat = new Thermostat();
+        thermostat.setId(UUID.randomUUID());
+        thermostat.setCreatedBy(getUser());
+        thermostat.setState(ThermostatStateEnum.ACTIVE);
+        thermostat.setIsPoweredOn(true);
+        liveEventService.publishThermostatAfterCommit(thermostat);
+        // later changes of the entity aren't reflected by the published state
+        thermostat.setIsPoweredOn(false);
+
+        ThermostatTransition transition = (ThermostatTransition) received.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(transition);
+        Assertions.assertEquals(thermostat.getId(), transition.thermostatId());
+        Assertions.assertEquals(ThermostatStateEnum.ACTIVE, transition.state());
+        Assertions.assertTrue(transition.poweredOn());
+
+        liveEventService.unsubscribe(subscription);
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void publishAfterCommit() throws InterruptedException {
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        LiveEventService.Subscription subscription = liveEventService.subscribe(createSink(received));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Measurement rolledBack = createMeasurement(100);
+        transactionTemplate.executeWithoutResult(status -> {
+            liveEventService.publishMeasurementAfterCommit(rolledBack, getUser().getId());
+            status.setRollbackOnly();
+        });
+        Measurement committed = createMeasurement(200);
+        transactionTemplate.executeWithoutResult(status -> {
+            liveEventService.publishMeasurementAfterCommit(committed, getUser().getId());
+            Assertions.assertTrue(received.isEmpty());
+        });
+
+        Assertions.assertSame(committed, received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(received.isEmpty());
+
+        liveEventService.unsubscribe(subscription);
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void publishDropOldest() throws InterruptedException {
+        // single delivery thread, at most two events waiting
+        LiveEventService service = new LiveEventService(new SimpleMeterRegistry(), 1, 2, 15);
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        service.subscribe(new LiveEventService.Sink() {
+            @Override
+            public void sendMeasurement(Measurement measurement) {
+                delivering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(measurement);
+            }
+
+            @Override
+            public void sendThermostat(ThermostatTransition transition) {
+                received.add(transition);
+            }
+        });
+
+        List<Measurement> measurements = List.of(
+                createMeasurement(100),
+                createMeasurement(200),
+                createMeasurement(300),
+                createMeasurement(400),
+                createMeasurement(500)
+        );
+        service.publishMeasurementAfterCommit(measurements.get(0), getUser().getId());
+        Assertions.assertTrue(delivering.await(5, TimeUnit.SECONDS));
+        // the subscriber is stuck, publishing doesn't wait for it
+        for (Measurement measurement : measurements.subList(1, measurements.size())) {
+            service.publishMeasurementAfterCommit(measurement, getUser().getId());
+        }
+        release.countDown();
+
+        Assertions.assertSame(measurements.get(0), received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertSame(measurements.get(3), received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertSame(measurements.get(4), received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+        service.shutdown();
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void publishSinkFailureUnsubscribes() throws InterruptedException {
+        CountDownLatch failed = new CountDownLatch(1);
+        LiveEventService.Subscription subscription = liveEventService.subscribe(new LiveEventService.Sink() {
+            @Override
+            public void sendMeasurement(Measurement measurement) throws IOException {
+                failed.countDown();
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void sendThermostat(ThermostatTransition transition) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        liveEventService.publishMeasurementAfterCommit(createMeasurement(100), getUser().getId());
+
+        Assertions.assertTrue(failed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && !subscription.isClosed(); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(subscription.isClosed());
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void heartbeatFailureUnsubscribes() throws InterruptedException {
+        // heartbeat every second
+        LiveEventService service = new LiveEventService(new SimpleMeterRegistry(), 1, 2, 1);
+        CountDownLatch heartbeats = new CountDownLatch(2);
+        LiveEventService.Subscription alive = service.subscribe(new LiveEventService.Sink() {
+            @Override
+            public void sendMeasurement(Measurement measurement) {
+            }
+
+            @Override
+            public void sendThermostat(ThermostatTransition transition) {
+            }
+
+            @Override
+            public void sendHeartbeat() {
+                heartbeats.countDown();
+            }
+        });
+        LiveEventService.Subscription dead = service.subscribe(new LiveEventService.Sink() {
+            @Override
+            public void sendMeasurement(Measurement measurement) {
+            }
+
+            @Override
+            public void sendThermostat(ThermostatTransition transition) {
+            }
+
+            @Override
+            public void sendHeartbeat() throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        Assertions.assertTrue(heartbeats.await(5, TimeUnit.SECONDS));
+        Assertions.assertFalse(alive.isClosed());
+        Assertions.assertTrue(dead.isClosed());
+
+        service.shutdown();
+    }
+
+    /**
+     * Helper method creating a sink collecting the received measurements and thermostat transitions
+     *
+     * @param received collection of the received events
+     * @return sink
+     */
+    private LiveEventService.Sink createSink(BlockingQueue<Object> received) {
+        return new LiveEventService.Sink() {
+            @Override
+            public void sendMeasurement(Measurement measurement) {
+                received.add(measurement);
+            }
+
+            @Override
+            public void sendThermostat(ThermostatTransition transition) {
+                received.add(transition);
+            }
+        };
+    }
+
+    /**
+     * Helper method creating a measurement distinguished by its interval
+     *
+     * @param interval interval of the measurement
+     * @return measurement entity
+     */
+    private Measurement createMeasurement(int interval) {
+        Measurement measurement = new Measurement();
+        measurement.setId(UUID.randomUUID());
+        measurement.setAngle(58.9);
+        measurement.setTemperature(20.5);
+        measurement.setBattery(3.9);
+        measurement.setSpecificGravity(1.045);
+        measurement.setInterval(interval);
+        measurement.setRssi(-70);
+
+        return measurement;
+    }
+}
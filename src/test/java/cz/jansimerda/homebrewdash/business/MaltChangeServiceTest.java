@@ -4,6 +4,7 @@ import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.model.Malt;
 import cz.jansimerda.homebrewdash.model.MaltChange;
+import cz.jansimerda.homebrewdash.model.StockLot;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.repository.MaltChangeRepository;
 import cz.jansimerda.homebrewdash.repository.MaltRepository;
@@ -34,6 +35,9 @@ class MaltChangeServiceTest extends AbstractServiceTest {
     @MockBean
     MaltChangeRepository maltChangeRepository;
 
+    @MockBean
+    StockLedgerService stockLedgerService;
+
     @Test
     @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
     void createWithUserAuth() {
@@ -52,7 +56,7 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // malt stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUser(malt.getId(), user.getId())).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(true);
 
         // mock save
         Mockito.when(maltChangeRepository.save(Mockito.any(MaltChange.class)))
@@ -74,8 +78,7 @@ class MaltChangeServiceTest extends AbstractServiceTest {
 
         Mockito.verify(maltRepository, Mockito.times(1)).findById(malt.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1))
-                .sumChangeByMaltAndUser(malt.getId(), user.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
         Mockito.verify(maltChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -97,7 +100,7 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // malt stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUser(malt.getId(), user.getId())).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(true);
 
         // mock save
         Mockito.when(maltChangeRepository.save(Mockito.any(MaltChange.class)))
@@ -119,8 +122,7 @@ class MaltChangeServiceTest extends AbstractServiceTest {
 
         Mockito.verify(maltRepository, Mockito.times(1)).findById(malt.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1))
-                .sumChangeByMaltAndUser(malt.getId(), user.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
         Mockito.verify(maltChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -142,14 +144,13 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // malt stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUser(malt.getId(), user.getId())).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> maltChangeService.create(change));
 
         Mockito.verify(maltRepository, Mockito.times(1)).findById(malt.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1))
-                .sumChangeByMaltAndUser(malt.getId(), user.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
     }
 
     @Test
@@ -363,7 +364,12 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // malt stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId())).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(true);
 
         // mock save
         Mockito.when(maltChangeRepository.save(change)).thenReturn(change);
@@ -372,11 +378,15 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         Assertions.assertNotNull(updated);
         Assertions.assertEquals(change.getId(), updated.getId());
 
-        Mockito.verify(maltChangeRepository, Mockito.times(1)).findById(change.getId());
+        Mockito.verify(maltChangeRepository, Mockito.times(2)).findById(change.getId());
         Mockito.verify(maltRepository, Mockito.times(1)).findById(malt.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1))
-                .sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
         Mockito.verify(maltChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -401,7 +411,12 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // malt stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId())).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(true);
 
         // mock save
         Mockito.when(maltChangeRepository.save(change)).thenReturn(change);
@@ -410,11 +425,15 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         Assertions.assertNotNull(updated);
         Assertions.assertEquals(change.getId(), updated.getId());
 
-        Mockito.verify(maltChangeRepository, Mockito.times(1)).findById(change.getId());
+        Mockito.verify(maltChangeRepository, Mockito.times(2)).findById(change.getId());
         Mockito.verify(maltRepository, Mockito.times(1)).findById(malt.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1))
-                .sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
         Mockito.verify(maltChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -434,18 +453,28 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         change.setCreatedAt(LocalDateTime.now());
 
         // mock repository calls
+        Mockito.when(maltChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         Mockito.when(maltRepository.findById(malt.getId())).thenReturn(Optional.of(malt));
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // malt stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId())).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> maltChangeService.update(change));
 
         Mockito.verify(maltRepository, Mockito.times(1)).findById(malt.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1))
-                .sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
     }
 
     @Test
@@ -536,12 +565,12 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(maltChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId())).thenReturn(0);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(true);
 
         maltChangeService.deleteById(change.getId());
 
         Mockito.verify(maltChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1)).sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
         Mockito.verify(maltChangeRepository, Mockito.times(1)).deleteById(change.getId());
     }
 
@@ -562,12 +591,12 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(maltChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId())).thenReturn(0);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(true);
 
         maltChangeService.deleteById(change.getId());
 
         Mockito.verify(maltChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1)).sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
         Mockito.verify(maltChangeRepository, Mockito.times(1)).deleteById(change.getId());
     }
 
@@ -632,12 +661,12 @@ class MaltChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(maltChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId())).thenReturn(-250);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> maltChangeService.deleteById(change.getId()));
 
         Mockito.verify(maltChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(maltChangeRepository, Mockito.times(1)).sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), change.getId());
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
     }
 
     /**
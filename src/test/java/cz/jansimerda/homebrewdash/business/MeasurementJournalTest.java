@@ -0,0 +1,212 @@
+package cz.jansimerda.homebrewdash.business;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.exception.exposed.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+class MeasurementJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void appendReplayed() throws IOException {
+        MeasurementJournal journal = createJournal(10);
+        List<JournaledMeasurement> appended = List.of(createMeasurement(1), createMeasurement(2), createMeasurement(3));
+        appended.forEach(journal::append);
+        journal.close();
+
+        MeasurementJournal replayed = createJournal(10);
+        Assertions.assertEquals(appended, replayed.peek(10));
+        Assertions.assertEquals(appended.subList(0, 2), replayed.peek(2));
+    }
+
+    @Test
+    void removedNotReplayed() throws IOException {
+        MeasurementJournal journal = createJournal(10);
+        journal.append(createMeasurement(1));
+        journal.append(createMeasurement(2));
+        Assertions.assertEquals(2, journal.peek(10).size());
+        journal.append(createMeasurement(3));
+
+        journal.remove(2);
+        // the segment of the stored measurements is deleted, the one of the third measurement is kept
+        Assertions.assertEquals(1, countSegments());
+        journal.close();
+
+        MeasurementJournal replayed = createJournal(10);
+        Assertions.assertEquals(List.of(createMeasurement(3)), replayed.peek(10));
+        replayed.remove(1);
+        Assertions.assertEquals(1, countSegments());
+        replayed.close();
+
+        Assertions.assertTrue(createJournal(10).peek(10).isEmpty());
+    }
+
+    @Test
+    void appendFullFail() {
+        MeasurementJournal journal = createJournal(2);
+        journal.append(createMeasurement(1));
+        journal.append(createMeasurement(2));
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> journal.append(createMeasurement(3)));
+
+        journal.peek(2);
+        journal.remove(1);
+        Assertions.assertDoesNotThrow(() -> journal.append(createMeasurement(3)));
+    }
+
+    @Test
+    void incompleteEntrySkipped() throws IOException {
+        MeasurementJournal journal = createJournal(10);
+        journal.append(createMeasurement(1));
+        journal.close();
+        try (Stream<Path> segments = Files.list(directory)) {
+            Files.writeString(segments.findFirst().orElseThrow(), "{\"token\":\"hydro", StandardOpenOption.APPEND);
+        }
+
+        Assertions.assertEquals(List.of(createMeasurement(1)), createJournal(10).peek(10));
+    }
+
+    @Test
+    void concurrentAppendsReplayed() throws Exception {
+        MeasurementJournal journal = createJournal(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> appends = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            JournaledMeasurement measurement = createMeasurement(i);
+            appends.add(executor.submit(() -> journal.append(measurement)));
+            // segments are rolled while other threads append and force
+            if (i % 100 == 0) {
+                journal.peek(1);
+            }
+        }
+        for (Future<?> append : appends) {
+            append.get();
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        journal.close();
+
+        List<JournaledMeasurement> replayed = createJournal(1000).peek(1000);
+        Assertions.assertEquals(400, replayed.size());
+        Assertions.assertEquals(400, new HashSet<>(replayed).size());
+    }
+
+    @Test
+    void quarantinedNotReplayed() throws IOException {
+        MeasurementJournal journal = createJournal(10);
+        journal.append(createMeasurement(1));
+        journal.append(createMeasurement(2));
+        List<JournaledMeasurement> peeked = journal.peek(10);
+
+        journal.quarantine(peeked.get(0));
+        journal.remove(2);
+        journal.close();
+
+        Assertions.assertTrue(createJournal(10).peek(10).isEmpty());
+        List<String> quarantined = Files.readAllLines(directory.resolve("quarantine.jsonl"));
+        Assertions.assertEquals(1, quarantined.size());
+        Assertions.assertEquals(createMeasurement(1), objectMapper.readValue(quarantined.get(0), JournaledMeasurement.class));
+    }
+
+    @Test
+    void appendRetriedAfterForceFailureStoredOnce() throws IOException {
+        MeasurementJournal journal = new MeasurementJournal(objectMapper, new SimpleMeterRegistry(), true, directory, 10) {
+            private boolean failed;
+
+            @Override
+            void force(FileChannel segment) throws IOException {
+                if (!failed) {
+                    failed = true;
+                    throw new IOException("Force failed");
+                }
+                super.force(segment);
+            }
+        };
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> journal.append(createMeasurement(1)));
+        Assertions.assertTrue(journal.peek(10).isEmpty());
+
+        journal.append(createMeasurement(1));
+        Assertions.assertEquals(List.of(createMeasurement(1)), journal.peek(10));
+        journal.close();
+
+        Assertions.assertEquals(List.of(createMeasurement(1)), createJournal(10).peek(10));
+    }
+
+    @Test
+    void disabledNotCreated() {
+        Path disabledDirectory = directory.resolve("disabled");
+        MeasurementJournal journal = new MeasurementJournal(
+                objectMapper,
+                new SimpleMeterRegistry(),
+                false,
+                disabledDirectory,
+                10
+        );
+
+        Assertions.assertFalse(journal.isEnabled());
+        Assertions.assertFalse(Files.exists(disabledDirectory));
+    }
+
+    /**
+     * Helper method to create an enabled journal in the temporary directory
+     *
+     * @param capacity maximum number of measurements waiting to be stored
+     * @return journal
+     */
+    private MeasurementJournal createJournal(int capacity) {
+        return new MeasurementJournal(objectMapper, new SimpleMeterRegistry(), true, directory, capacity);
+    }
+
+    /**
+     * Helper method to create a journaled measurement
+     *
+     * @param i distinguishes the measurement
+     * @return journaled measurement
+     */
+    private JournaledMeasurement createMeasurement(int i) {
+        return new JournaledMeasurement(
+                new UUID(0, i),
+                "hydro-token",
+                58.9,
+                20 + i,
+                3.9,
+                1.045,
+                900,
+                -70,
+                LocalDateTime.of(2023, 9, 1, 12, 0).plusMinutes(i)
+        );
+    }
+
+    /**
+     * @return number of the segment files
+     */
+    private long countSegments() throws IOException {
+        try (Stream<Path> segments = Files.list(directory)) {
+            return segments.filter(f -> f.getFileName().toString().endsWith(".journal")).count();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.AbstractTest;
+import cz.jansimerda.homebrewdash.model.*;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import cz.jansimerda.homebrewdash.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Compares listing the measurements as entities and as projections constructed by the query. Both paths
+ * must list the same measurements and the projections must not load any entities into the persistence context.
+ * The times of both paths are measured by the MeasurementListingBenchmark of the jmh source set.
+ */
+@DataJpaTest
+class MeasurementListingTest extends AbstractTest {
+
+    /**
+     * number of the measurements, spanning several pages
+     */
+    private static final int MEASUREMENT_COUNT = PageQuery.MAX_LIMIT * 2 + PageQuery.MAX_LIMIT / 2;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    @Test
+    void compareEntitiesAndViews() {
+        createMeasurements();
+
+        List<UUID> entityIds = listAll(query -> toPage(
+                KeysetPagination.readPage(measurementRepository, Measurement.class, null, query),
+                Measurement::getId
+        ));
+        Assertions.assertTrue(persistenceContextSize() > 0);
+        entityManager.clear();
+
+        List<UUID> viewIds = listAll(query -> toPage(
+                KeysetPagination.readViewPage(
+                        entityManager,
+                        Measurement.class,
+                        MeasurementView.class,
+                        MeasurementView.ATTRIBUTES,
+                        null,
+                        query
+                ),
+                MeasurementView::id
+        ));
+        Assertions.assertEquals(0, persistenceContextSize());
+        Assertions.assertEquals(MEASUREMENT_COUNT, viewIds.size());
+        Assertions.assertEquals(entityIds, viewIds);
+    }
+
+    /**
+     * Helper method reading all pages of the listing
+     *
+     * @param reader reads the IDs of the page and its next cursor
+     * @return IDs of all listed measurements
+     */
+    private List<UUID> listAll(Function<PageQuery, KeysetPage<UUID>> reader) {
+        List<UUID> ids = new ArrayList<>();
+        String after = null;
+        do {
+            KeysetPage<UUID> page = reader.apply(new PageQuery(PageQuery.MAX_LIMIT, after, null, null, Map.of()));
+            ids.addAll(page.getItems());
+            after = page.getNextCursor().orElse(null);
+        } while (after != null);
+
+        return ids;
+    }
+
+    /**
+     * Helper method mapping the items of the page to their IDs
+     *
+     * @param page page of items
+     * @param id   ID of an item
+     * @param <T>  type of the items
+     * @return page of IDs
+     */
+    private <T> KeysetPage<UUID> toPage(KeysetPage<T> page, Function<T, UUID> id) {
+        return new KeysetPage<>(page.getItems().stream().map(id).toList(), page.getNextCursor().orElse(null));
+    }
+
+    /**
+     * @return number of entities in the persistence context
+     */
+    private int persistenceContextSize() {
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    /**
+     * Helper method storing the measurements of a single beer
+     */
+    private void createMeasurements() {
+        User user = userRepository.save(createUser());
+
+        Beer beer = new Beer();
+        beer.setName("Test beer");
+        beer.setCreatedBy(user);
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+        beer = beerRepository.save(beer);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < MEASUREMENT_COUNT; i++) {
+            Measurement measurement = new Measurement();
+            measurement.setAngle(58.9);
+            measurement.setTemperature(20.12);
+            measurement.setBattery(3.9);
+            measurement.setSpecificGravity(1.045);
+            measurement.setInterval(300);
+            measurement.setRssi(-70);
+            measurement.setBeer(beer);
+            measurement.setIsHidden(false);
+            measurement.setCreatedAt(start.plusMinutes(i));
+            measurement.setUpdatedAt(start.plusMinutes(i));
+            measurements.add(measurement);
+        }
+        measurementRepository.saveAll(measurements);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -4,11 +4,16 @@ import cz.jansimerda.homebrewdash.exception.exposed.ConflictException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.model.Beer;
 import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.HydrometerLatestMeasurement;
 import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.MeasurementBucket;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
 import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerLatestMeasurementRepository;
 import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
 import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -18,19 +23,30 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.test.context.support.TestExecutionEvent;
 import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @SpringBootTest
+@RecordApplicationEvents
 class MeasurementServiceTest extends AbstractServiceTest {
 
     @Autowired
     MeasurementService measurementService;
 
+    @Autowired
+    ApplicationEvents applicationEvents;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @MockBean
     MeasurementRepository measurementRepository;
 
@@ -40,6 +56,15 @@ class MeasurementServiceTest extends AbstractServiceTest {
     @MockBean
     BeerRepository beerRepository;
 
+    @MockBean
+    HydrometerLatestMeasurementRepository latestMeasurementRepository;
+
+    @MockBean
+    FermentationStatsService fermentationStatsService;
+
+    @MockBean
+    LiveEventService liveEventService;
+
     @Test
     void create() {
         // prepare entity
@@ -73,6 +98,84 @@ class MeasurementServiceTest extends AbstractServiceTest {
 
         Mockito.verify(hydrometerRepository, Mockito.times(1)).getFirstByToken(hydrometer.getToken());
         Mockito.verify(measurementRepository, Mockito.times(1)).save(measurement);
+        Mockito.verify(latestMeasurementRepository, Mockito.times(1)).save(Mockito.argThat(latest ->
+                latest.getId().equals(hydrometer.getId()) && latest.getMeasurement() == created
+        ));
+        Mockito.verify(liveEventService, Mockito.times(1))
+                .publishMeasurementAfterCommit(created, hydrometer.getCreatedBy().getId());
+        Assertions.assertEquals(
+                List.of(new MeasurementCreatedEvent(hydrometer.getId())),
+                applicationEvents.stream(MeasurementCreatedEvent.class).toList()
+        );
+    }
+
+    @Test
+    void createCachedToken() {
+        // prepare entity
+        Hydrometer hydrometer = createHydrometer();
+        Beer beer = hydrometer.getAssignedBeer().orElseThrow();
+
+        // mock repository calls
+        Mockito.when(measurementRepository.save(Mockito.any(Measurement.class)))
+                .thenAnswer(invocation -> {
+                    Measurement measurementToSave = invocation.getArgument(0);
+                    measurementToSave.setId(UUID.randomUUID());
+                    measurementToSave.setCreatedAt(LocalDateTime.now());
+                    measurementToSave.setUpdatedAt(LocalDateTime.now());
+                    return measurementToSave;
+                });
+
+        Mockito.when(hydrometerRepository.getFirstByToken(hydrometer.getToken())).thenReturn(Optional.of(hydrometer));
+        Mockito.when(hydrometerRepository.getReferenceById(hydrometer.getId())).thenReturn(hydrometer);
+        Mockito.when(beerRepository.getReferenceById(beer.getId())).thenReturn(beer);
+
+        // test
+        measurementService.create(createMeasurement(null, null), hydrometer.getToken());
+        Measurement created = measurementService.create(createMeasurement(null, null), hydrometer.getToken());
+        Assertions.assertEquals(hydrometer.getId(), created.getHydrometer().orElseThrow().getId());
+        Assertions.assertEquals(beer.getId(), created.getBeer().getId());
+        Assertions.assertFalse(created.isHidden());
+
+        // the token is looked up only once, the second measurement uses references
+        Mockito.verify(hydrometerRepository, Mockito.times(1)).getFirstByToken(hydrometer.getToken());
+        Mockito.verify(hydrometerRepository, Mockito.times(1)).getReferenceById(hydrometer.getId());
+        Mockito.verify(beerRepository, Mockito.times(1)).getReferenceById(beer.getId());
+        Mockito.verify(measurementRepository, Mockito.times(2)).save(Mockito.any(Measurement.class));
+        // the owner of a cached hydrometer is known without fetching it
+        Mockito.verify(liveEventService, Mockito.times(1))
+                .publishMeasurementAfterCommit(created, hydrometer.getCreatedBy().getId());
+    }
+
+    @Test
+    void createOlderThanLatest() {
+        // prepare entity
+        Hydrometer hydrometer = createHydrometer();
+        Measurement measurement = createMeasurement(null, null);
+
+        HydrometerLatestMeasurement latest = new HydrometerLatestMeasurement();
+        latest.setId(hydrometer.getId());
+        latest.setMeasurement(createMeasurement(hydrometer, hydrometer.getAssignedBeer().orElse(null)));
+        latest.setMeasuredAt(LocalDateTime.now().plusMinutes(5));
+
+        // mock repository calls
+        Mockito.when(measurementRepository.save(Mockito.any(Measurement.class)))
+                .thenAnswer(invocation -> {
+                    Object[] args = invocation.getArguments();
+                    Measurement measurementToSave = (Measurement) args[0];
+                    measurementToSave.setId(UUID.randomUUID());
+                    measurementToSave.setCreatedAt(LocalDateTime.now());
+                    measurementToSave.setUpdatedAt(LocalDateTime.now());
+                    return measurementToSave;
+                });
+
+        Mockito.when(hydrometerRepository.getFirstByToken(hydrometer.getToken())).thenReturn(Optional.of(hydrometer));
+        Mockito.when(latestMeasurementRepository.existsById(hydrometer.getId())).thenReturn(true);
+
+        // test
+        measurementService.create(measurement, hydrometer.getToken());
+
+        Mockito.verify(measurementRepository, Mockito.times(1)).save(measurement);
+        Mockito.verify(latestMeasurementRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -81,7 +184,7 @@ class MeasurementServiceTest extends AbstractServiceTest {
         Hydrometer hydrometer = createHydrometer();
         Measurement measurement = createMeasurement(null, null);
         // set unrealistic gravity value
-        measurement.setSpecificGravity(BigDecimal.valueOf(10));
+        measurement.setSpecificGravity(10);
 
         // mock repository calls
         Mockito.when(measurementRepository.save(Mockito.any(Measurement.class)))
@@ -113,6 +216,64 @@ class MeasurementServiceTest extends AbstractServiceTest {
         Mockito.verify(measurementRepository, Mockito.times(1)).save(measurement);
     }
 
+    @Test
+    void createAll() {
+        // prepare entities
+        Hydrometer hydrometer = createHydrometer();
+        hydrometer.setToken("token-1");
+        Hydrometer hydrometerWithoutBeer = createHydrometer();
+        hydrometerWithoutBeer.setToken("token-2");
+        hydrometerWithoutBeer.setAssignedBeer(null);
+
+        List<Measurement> measurements = List.of(
+                createMeasurement(null, null),
+                createMeasurement(null, null),
+                createMeasurement(null, null),
+                createMeasurement(null, null)
+        );
+        List<String> tokens = List.of("token-1", "unknown", "token-2", "token-1");
+
+        // mock repository calls
+        Mockito.when(hydrometerRepository.findByTokenIn(Set.of("token-1", "token-2", "unknown")))
+                .thenReturn(List.of(hydrometer, hydrometerWithoutBeer));
+        Mockito.when(measurementRepository.saveAll(Mockito.anyList()))
+                .thenAnswer(invocation -> {
+                    List<Measurement> measurementsToSave = invocation.getArgument(0);
+                    measurementsToSave.forEach(m -> {
+                        m.setId(UUID.randomUUID());
+                        m.setCreatedAt(LocalDateTime.now());
+                        m.setUpdatedAt(LocalDateTime.now());
+                    });
+                    return measurementsToSave;
+                });
+
+        // test
+        double stored = ingested("batch", "stored");
+        double rejected = ingested("batch", "rejected");
+        List<BatchItemResult<Measurement>> results = measurementService.createAll(measurements, tokens);
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertTrue(results.get(0).isSuccess());
+        Assertions.assertSame(measurements.get(0), results.get(0).getValue().orElseThrow());
+        Assertions.assertEquals(hydrometer.getId(), measurements.get(0).getHydrometer().orElseThrow().getId());
+        Assertions.assertInstanceOf(AccessDeniedException.class, results.get(1).getError().orElseThrow());
+        Assertions.assertInstanceOf(ConflictException.class, results.get(2).getError().orElseThrow());
+        Assertions.assertTrue(results.get(3).isSuccess());
+
+        // tokens are resolved at once and the accepted measurements are stored together
+        Mockito.verify(hydrometerRepository, Mockito.times(1)).findByTokenIn(Mockito.anyCollection());
+        Mockito.verify(hydrometerRepository, Mockito.never()).getFirstByToken(Mockito.anyString());
+        Mockito.verify(measurementRepository, Mockito.times(1))
+                .saveAll(List.of(measurements.get(0), measurements.get(3)));
+        Mockito.verify(latestMeasurementRepository, Mockito.times(1)).save(Mockito.any());
+        // thermostats are notified once per hydrometer
+        Assertions.assertEquals(
+                List.of(new MeasurementCreatedEvent(hydrometer.getId())),
+                applicationEvents.stream(MeasurementCreatedEvent.class).toList()
+        );
+        Assertions.assertEquals(stored + 2, ingested("batch", "stored"));
+        Assertions.assertEquals(rejected + 2, ingested("batch", "rejected"));
+    }
+
     @Test
     void createIncorrectTokenFail() {
         // prepare entity
@@ -132,6 +293,7 @@ class MeasurementServiceTest extends AbstractServiceTest {
         Mockito.when(hydrometerRepository.getFirstByToken("incorrect-token")).thenReturn(Optional.empty());
 
         // test
+        double failed = ingested("single", "failed");
         Assertions.assertThrowsExactly(
                 AccessDeniedException.class,
                 () -> measurementService.create(measurement, "incorrect-token")
@@ -139,6 +301,8 @@ class MeasurementServiceTest extends AbstractServiceTest {
 
         Mockito.verify(hydrometerRepository, Mockito.times(1)).getFirstByToken("incorrect-token");
         Mockito.verify(measurementRepository, Mockito.never()).save(measurement);
+        // counted once the transaction is rolled back
+        Assertions.assertEquals(failed + 1, ingested("single", "failed"));
     }
 
     @Test
@@ -538,6 +702,32 @@ class MeasurementServiceTest extends AbstractServiceTest {
         Mockito.verify(measurementRepository, Mockito.times(1)).deleteById(measurement.getId());
     }
 
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void deleteByIdRestoresLatest() {
+        // prepare entity
+        Hydrometer hydrometer = createHydrometer();
+        Measurement measurement = createMeasurement(hydrometer, hydrometer.getAssignedBeer().orElse(null));
+        measurement.setId(UUID.randomUUID());
+
+        Measurement previous = createMeasurement(hydrometer, hydrometer.getAssignedBeer().orElse(null));
+        previous.setId(UUID.randomUUID());
+        previous.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+
+        // mock repository calls, the projection row was removed together with the deleted measurement
+        Mockito.when(measurementRepository.findById(measurement.getId())).thenReturn(Optional.of(measurement));
+        Mockito.when(latestMeasurementRepository.existsById(hydrometer.getId())).thenReturn(false);
+        Mockito.when(measurementRepository.findFirstByHydrometerIdOrderByCreatedAtDescIdDesc(hydrometer.getId()))
+                .thenReturn(Optional.of(previous));
+
+        measurementService.deleteById(measurement.getId());
+
+        Mockito.verify(measurementRepository, Mockito.times(1)).deleteById(measurement.getId());
+        Mockito.verify(latestMeasurementRepository, Mockito.times(1)).save(Mockito.argThat(latest ->
+                latest.getId().equals(hydrometer.getId()) && latest.getMeasurement() == previous
+        ));
+    }
+
     @Test
     @WithUserDetails(value = "admin", setupBefore = TestExecutionEvent.TEST_EXECUTION)
     void deleteByIdAdmin() {
@@ -596,6 +786,97 @@ class MeasurementServiceTest extends AbstractServiceTest {
         Mockito.verify(measurementRepository, Mockito.never()).deleteById(measurement.getId());
     }
 
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void readSeriesDownsampled() {
+        // prepare entities
+        Beer beer = createHydrometer().getAssignedBeer().orElseThrow();
+        List<MeasurementBucket> buckets = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // a single spike in the otherwise steady series
+            double gravity = i == 4 ? 1.08 : 1.05;
+            buckets.add(new MeasurementBucket(i, 4L, gravity, null, null, 20.0, null, null));
+        }
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        Mockito.when(measurementRepository.findBucketsByBeerId(
+                Mockito.eq(beer.getId()),
+                Mockito.any(LocalDateTime.class),
+                Mockito.any(LocalDateTime.class),
+                Mockito.eq(3600L)
+        )).thenReturn(buckets);
+
+        // test
+        List<MeasurementBucket> series = measurementService.readSeries(beer.getId(), null, null, Duration.ofHours(1), 4);
+        Assertions.assertEquals(4, series.size());
+        Assertions.assertSame(buckets.get(0), series.get(0));
+        Assertions.assertSame(buckets.get(9), series.get(3));
+        // the spike is preserved
+        Assertions.assertTrue(series.contains(buckets.get(4)));
+
+        // without the limit all buckets are returned
+        Assertions.assertEquals(buckets, measurementService.readSeries(beer.getId(), null, null, Duration.ofHours(1), null));
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void readSeriesUnauthorizedFail() {
+        // prepare entities
+        Beer beer = createHydrometer().getAssignedBeer().orElseThrow();
+        beer.setCreatedBy(getAdmin());
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+
+        // test
+        Assertions.assertThrowsExactly(
+                AccessDeniedException.class,
+                () -> measurementService.readSeries(beer.getId(), null, null, Duration.ofHours(1), null)
+        );
+        Mockito.verify(measurementRepository, Mockito.never())
+                .findBucketsByBeerId(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void exportByBeerId() {
+        // prepare entities
+        Hydrometer hydrometer = createHydrometer();
+        Beer beer = hydrometer.getAssignedBeer().orElseThrow();
+        List<Measurement> measurements = List.of(
+                createMeasurement(hydrometer, beer),
+                createMeasurement(hydrometer, beer)
+        );
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+        Mockito.when(measurementRepository.streamByBeerId(beer.getId())).thenReturn(measurements.stream());
+
+        // test
+        List<Measurement> exported = new ArrayList<>();
+        measurementService.exportByBeerId(beer.getId(), exported::add);
+        Assertions.assertEquals(measurements, exported);
+    }
+
+    @Test
+    @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
+    void exportByBeerIdUnauthorizedFail() {
+        // prepare entities
+        Beer beer = createHydrometer().getAssignedBeer().orElseThrow();
+        beer.setCreatedBy(getAdmin());
+
+        // mock repository calls
+        Mockito.when(beerRepository.findById(beer.getId())).thenReturn(Optional.of(beer));
+
+        // test
+        Assertions.assertThrowsExactly(
+                AccessDeniedException.class,
+                () -> measurementService.exportByBeerId(beer.getId(), m -> Assertions.fail())
+        );
+        Mockito.verify(measurementRepository, Mockito.never()).streamByBeerId(Mockito.any());
+    }
+
     /**
      * Helper method to create a dummy hydrometer instance
      *
@@ -613,6 +894,7 @@ class MeasurementServiceTest extends AbstractServiceTest {
         Hydrometer hydrometer = new Hydrometer();
         hydrometer.setId(UUID.randomUUID());
         hydrometer.setName("iSpindel");
+        hydrometer.setToken(UUID.randomUUID().toString());
         hydrometer.setAssignedBeer(null);
         hydrometer.setIsActive(true);
         hydrometer.setAssignedBeer(beer);
@@ -630,10 +912,10 @@ class MeasurementServiceTest extends AbstractServiceTest {
      */
     private Measurement createMeasurement(Hydrometer hydrometer, Beer beer) {
         Measurement measurement = new Measurement();
-        measurement.setAngle(BigDecimal.valueOf(65.32));
-        measurement.setTemperature(BigDecimal.valueOf(18.93));
-        measurement.setBattery(BigDecimal.valueOf(2.11));
-        measurement.setSpecificGravity(BigDecimal.valueOf(1.089));
+        measurement.setAngle(65.32);
+        measurement.setTemperature(18.93);
+        measurement.setBattery(2.11);
+        measurement.setSpecificGravity(1.089);
         measurement.setInterval(300);
         measurement.setRssi(-73);
         measurement.setHydrometer(hydrometer);
@@ -642,4 +924,19 @@ class MeasurementServiceTest extends AbstractServiceTest {
 
         return measurement;
     }
+
+    /**
+     * @param mode    ingestion mode tag
+     * @param outcome outcome tag
+     * @return number of the ingested measurements with given tags, 0 if none has been counted yet
+     */
+    private double ingested(String mode, String outcome) {
+        return Search.in(meterRegistry)
+                .name("measurements.ingested")
+                .tags("mode", mode, "outcome", outcome)
+                .counters()
+                .stream()
+                .mapToDouble(c -> c.count())
+                .sum();
+    }
 }
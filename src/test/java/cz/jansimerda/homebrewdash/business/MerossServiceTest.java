@@ -0,0 +1,114 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.business.meross.MerossWorker;
+import cz.jansimerda.homebrewdash.exception.internal.meross.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class MerossServiceTest {
+
+    @Test
+    void turnOn() throws MerossException {
+        List<String> commands = new ArrayList<>();
+        MerossService merossService = new MerossService((email, password, deviceName, command) -> {
+            commands.add(String.join(";", email, password, deviceName, command));
+            return new MerossWorker.Result(0, "");
+        }, new SimpleMeterRegistry());
+
+        merossService.turnOn("my@mail.com", "mypass", "Smart Plug");
+
+        Assertions.assertEquals(List.of("my@mail.com;mypass;Smart Plug;ON"), commands);
+    }
+
+    @Test
+    void turnOff() throws MerossException {
+        List<String> commands = new ArrayList<>();
+        MerossService merossService = new MerossService((email, password, deviceName, command) -> {
+            commands.add(String.join(";", email, password, deviceName, command));
+            return new MerossWorker.Result(0, "");
+        }, new SimpleMeterRegistry());
+
+        merossService.turnOff("my@mail.com", "mypass", "Smart Plug");
+
+        Assertions.assertEquals(List.of("my@mail.com;mypass;Smart Plug;OFF"), commands);
+    }
+
+    @Test
+    void exitCodesMapping() {
+        assertExitCodeThrows(1, GeneralMerossException.class);
+        assertExitCodeThrows(100, AuthenticationMissingMerossException.class);
+        assertExitCodeThrows(101, DeviceNameMissingMerossException.class);
+        assertExitCodeThrows(102, InvalidCommandMerossException.class);
+        assertExitCodeThrows(103, InvalidCommandMerossException.class);
+        assertExitCodeThrows(104, InvalidCredentialsMerossException.class);
+        assertExitCodeThrows(105, DeviceNotFoundMerossException.class);
+        assertExitCodeThrows(106, DeviceOfflineMerossException.class);
+    }
+
+    @Test
+    void workerFailure() {
+        MerossService merossService = new MerossService((email, password, deviceName, command) -> {
+            throw new GeneralMerossException("Timed-out when using the Meross service");
+        }, new SimpleMeterRegistry());
+
+        Assertions.assertThrowsExactly(
+                GeneralMerossException.class,
+                () -> merossService.turnOn("my@mail.com", "mypass", "Smart Plug")
+        );
+    }
+
+    @Test
+    void commandsTimedByExitCode() throws MerossException {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<Integer> exitCodes = new ArrayList<>(List.of(0, 106, 42));
+        MerossService merossService = new MerossService(
+                (email, password, deviceName, command) -> new MerossWorker.Result(exitCodes.remove(0), "message"),
+                meterRegistry
+        );
+
+        merossService.turnOn("my@mail.com", "mypass", "Smart Plug");
+        Assertions.assertThrows(MerossException.class, () -> merossService.turnOff("my@mail.com", "mypass", "Smart Plug"));
+        Assertions.assertThrows(MerossException.class, () -> merossService.turnOff("my@mail.com", "mypass", "Smart Plug"));
+
+        Assertions.assertEquals(1, meterRegistry.get("meross.commands").tags("command", "ON", "exit.code", "0").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("meross.commands").tags("command", "OFF", "exit.code", "106").timer().count());
+        // unknown exit codes are not tagged as they are
+        Assertions.assertEquals(1, meterRegistry.get("meross.commands").tags("command", "OFF", "exit.code", "other").timer().count());
+    }
+
+    @Test
+    void workerFailureTimed() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MerossService merossService = new MerossService((email, password, deviceName, command) -> {
+            throw new GeneralMerossException("Timed-out when using the Meross service");
+        }, meterRegistry);
+
+        Assertions.assertThrows(MerossException.class, () -> merossService.turnOn("my@mail.com", "mypass", "Smart Plug"));
+
+        Assertions.assertEquals(1, meterRegistry.get("meross.commands").tags("command", "ON", "exit.code", "error").timer().count());
+    }
+
+    /**
+     * Helper method asserting that the exit code reported by the worker is mapped to the given exception
+     *
+     * @param exitCode       exit code reported by the worker
+     * @param exceptionClass expected exception
+     */
+    private void assertExitCodeThrows(int exitCode, Class<? extends MerossException> exceptionClass) {
+        MerossService merossService = new MerossService(
+                (email, password, deviceName, command) -> new MerossWorker.Result(exitCode, "message"),
+                new SimpleMeterRegistry()
+        );
+
+        MerossException exception = Assertions.assertThrowsExactly(
+                exceptionClass,
+                () -> merossService.turnOff("my@mail.com", "mypass", "Smart Plug")
+        );
+        Assertions.assertEquals("message", exception.getMessage());
+    }
+}
@@ -0,0 +1,211 @@
+package cz.jansimerda.homebrewdash.business;
+
+import cz.jansimerda.homebrewdash.model.StockBalance;
+import cz.jansimerda.homebrewdash.model.StockLot;
+import cz.jansimerda.homebrewdash.model.StockLotSum;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.enums.IngredientTypeEnum;
+import cz.jansimerda.homebrewdash.repository.HopChangeRepository;
+import cz.jansimerda.homebrewdash.repository.MaltChangeRepository;
+import cz.jansimerda.homebrewdash.repository.StockBalanceRepository;
+import cz.jansimerda.homebrewdash.repository.YeastChangeRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@SpringBootTest
+class StockLedgerServiceTest extends AbstractServiceTest {
+
+    @Autowired
+    StockLedgerService stockLedgerService;
+
+    @MockBean
+    StockBalanceRepository stockBalanceRepository;
+
+    @MockBean
+    HopChangeRepository hopChangeRepository;
+
+    @MockBean
+    MaltChangeRepository maltChangeRepository;
+
+    @MockBean
+    YeastChangeRepository yeastChangeRepository;
+
+    @Test
+    @Transactional
+    void adjustWithdrawal() {
+        // prepare entities
+        StockLot lot = createLot(IngredientTypeEnum.MALT, "");
+        StockBalance balance = createBalance(lot, 100);
+
+        // mock repository calls
+        mockBalance(lot, balance);
+
+        // test
+        Assertions.assertTrue(stockLedgerService.adjust(lot, -80));
+        Assertions.assertEquals(20, balance.getBalanceGrams());
+    }
+
+    @Test
+    @Transactional
+    void adjustInsufficientStockFail() {
+        // prepare entities
+        StockLot lot = createLot(IngredientTypeEnum.MALT, "");
+        StockBalance balance = createBalance(lot, 50);
+
+        // mock repository calls
+        mockBalance(lot, balance);
+
+        // test
+        Assertions.assertFalse(stockLedgerService.adjust(lot, -80));
+        Assertions.assertEquals(50, balance.getBalanceGrams());
+    }
+
+    @Test
+    @Transactional
+    void adjustNewLot() {
+        // prepare entities
+        StockLot lot = createLot(IngredientTypeEnum.YEAST, "2026-12-31");
+
+        // mock repository calls
+        mockBalance(lot, null);
+        Mockito.when(userRepository.getReferenceById(getUser().getId())).thenReturn(getUser());
+
+        // test
+        Assertions.assertFalse(stockLedgerService.adjust(lot, -10));
+        Mockito.verify(stockBalanceRepository, Mockito.never()).saveAndFlush(Mockito.any());
+
+        Assertions.assertTrue(stockLedgerService.adjust(lot, 100));
+        ArgumentCaptor<StockBalance> captor = ArgumentCaptor.forClass(StockBalance.class);
+        Mockito.verify(stockBalanceRepository, Mockito.times(1)).saveAndFlush(captor.capture());
+        Assertions.assertEquals(lot, captor.getValue().toStockLot());
+        Assertions.assertEquals(100, captor.getValue().getBalanceGrams());
+    }
+
+    @Test
+    @Transactional
+    void replace() {
+        // prepare entities
+        StockLot oldLot = createLot(IngredientTypeEnum.HOP, "5.60|2.20|2026-09-01");
+        StockLot newLot = createLot(IngredientTypeEnum.HOP, "5.60|2.20|2026-09-15");
+        StockBalance oldBalance = createBalance(oldLot, 100);
+        StockBalance newBalance = createBalance(newLot, 100);
+
+        // mock repository calls
+        mockBalance(oldLot, oldBalance);
+        mockBalance(newLot, newBalance);
+
+        // test same lot
+        Assertions.assertTrue(stockLedgerService.replace(oldLot, -50, oldLot, -120));
+        Assertions.assertEquals(30, oldBalance.getBalanceGrams());
+
+        // test moving an addition of 40 grams away from the lot with only 30 grams left
+        Assertions.assertFalse(stockLedgerService.replace(oldLot, 40, newLot, 40));
+        Assertions.assertEquals(30, oldBalance.getBalanceGrams());
+        Assertions.assertEquals(100, newBalance.getBalanceGrams());
+
+        // test moving withdrawal of 20 grams to the other lot
+        Assertions.assertTrue(stockLedgerService.replace(oldLot, -20, newLot, -20));
+        Assertions.assertEquals(50, oldBalance.getBalanceGrams());
+        Assertions.assertEquals(80, newBalance.getBalanceGrams());
+    }
+
+    @Test
+    void adjustWithoutTransactionFail() {
+        StockLot lot = createLot(IngredientTypeEnum.MALT, "");
+
+        Assertions.assertThrowsExactly(
+                IllegalTransactionStateException.class,
+                () -> stockLedgerService.adjust(lot, 10)
+        );
+        Mockito.verifyNoInteractions(stockBalanceRepository);
+    }
+
+    @Test
+    void reconcile() {
+        // prepare entities
+        User user = getUser();
+        StockLot hopLot = createLot(IngredientTypeEnum.HOP, "5.60|2.20|2026-09-01");
+        StockLot maltLot = createLot(IngredientTypeEnum.MALT, "");
+        StockLot yeastLot = createLot(IngredientTypeEnum.YEAST, "");
+        StockBalance hopBalance = createBalance(hopLot, 10);
+        StockBalance yeastBalance = createBalance(yeastLot, 30);
+
+        // mock repository calls
+        Mockito.when(userRepository.findAll()).thenReturn(List.of(user));
+        Mockito.when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        Mockito.when(stockBalanceRepository.findAllForUpdateByUserId(user.getId()))
+                .thenReturn(List.of(hopBalance, yeastBalance));
+        Mockito.when(hopChangeRepository.sumChangesByLotAndUser(user.getId()))
+                .thenReturn(List.of(new StockLotSum(hopLot, 70)));
+        Mockito.when(maltChangeRepository.sumChangesByLotAndUser(user.getId()))
+                .thenReturn(List.of(new StockLotSum(maltLot, 25)));
+        Mockito.when(yeastChangeRepository.sumChangesByLotAndUser(user.getId()))
+                .thenReturn(List.of(new StockLotSum(yeastLot, 30)));
+
+        // test
+        Assertions.assertEquals(2, stockLedgerService.reconcile());
+        Assertions.assertEquals(70, hopBalance.getBalanceGrams());
+        Assertions.assertEquals(30, yeastBalance.getBalanceGrams());
+
+        ArgumentCaptor<StockBalance> captor = ArgumentCaptor.forClass(StockBalance.class);
+        Mockito.verify(stockBalanceRepository, Mockito.times(1)).saveAndFlush(captor.capture());
+        Assertions.assertEquals(maltLot, captor.getValue().toStockLot());
+        Assertions.assertEquals(25, captor.getValue().getBalanceGrams());
+    }
+
+    /**
+     * Helper method creating a lot of the regular user
+     *
+     * @param ingredientType type of the ingredient
+     * @param lot            encoded lot attributes
+     * @return StockLot
+     */
+    private StockLot createLot(IngredientTypeEnum ingredientType, String lot) {
+        return new StockLot(getUser().getId(), ingredientType, UUID.randomUUID(), lot);
+    }
+
+    /**
+     * Helper method creating a balance of the lot
+     *
+     * @param lot   lot of the balance
+     * @param grams grams of the lot in stock
+     * @return StockBalance
+     */
+    private StockBalance createBalance(StockLot lot, long grams) {
+        StockBalance balance = new StockBalance();
+        balance.setId(UUID.randomUUID());
+        balance.setUser(getUser());
+        balance.setIngredientType(lot.ingredientType());
+        balance.setIngredientId(lot.ingredientId());
+        balance.setLot(lot.lot());
+        balance.setBalanceGrams(grams);
+
+        return balance;
+    }
+
+    /**
+     * Helper method mocking the locking lookup of the balance
+     *
+     * @param lot     lot of the balance
+     * @param balance balance to be returned, null if not stocked
+     */
+    private void mockBalance(StockLot lot, StockBalance balance) {
+        Mockito.when(stockBalanceRepository.findForUpdate(
+                lot.userId(),
+                lot.ingredientType(),
+                lot.ingredientId(),
+                lot.lot()
+        )).thenReturn(Optional.ofNullable(balance));
+    }
+}
@@ -5,10 +5,12 @@ import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
 import cz.jansimerda.homebrewdash.exception.exposed.ServiceUnavailableException;
 import cz.jansimerda.homebrewdash.exception.internal.meross.*;
 import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.ControllerState;
 import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.model.Measurement;
 import cz.jansimerda.homebrewdash.model.Thermostat;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
 import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
 import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
 import cz.jansimerda.homebrewdash.repository.ThermostatRepository;
@@ -26,9 +28,11 @@ import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SpringBootTest
 class ThermostatServiceTest extends AbstractServiceTest {
@@ -45,6 +49,9 @@ class ThermostatServiceTest extends AbstractServiceTest {
     @MockBean
     HydrometerRepository hydrometerRepository;
 
+    @MockBean
+    LiveEventService liveEventService;
+
     @Test
     @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
     void createNoHydrometer() throws MerossException {
@@ -1040,10 +1047,10 @@ class ThermostatServiceTest extends AbstractServiceTest {
         hydrometer.setCreatedAt(LocalDateTime.now());
 
         Measurement lastMeasurement = new Measurement();
-        lastMeasurement.setAngle(BigDecimal.valueOf(65.32));
-        lastMeasurement.setTemperature(BigDecimal.valueOf(18.93));
-        lastMeasurement.setBattery(BigDecimal.valueOf(2.11));
-        lastMeasurement.setSpecificGravity(BigDecimal.valueOf(1.089));
+        lastMeasurement.setAngle(65.32);
+        lastMeasurement.setTemperature(18.93);
+        lastMeasurement.setBattery(2.11);
+        lastMeasurement.setSpecificGravity(1.089);
         lastMeasurement.setInterval(300);
         lastMeasurement.setRssi(-73);
         lastMeasurement.setHydrometer(hydrometer);
@@ -1083,6 +1090,7 @@ class ThermostatServiceTest extends AbstractServiceTest {
         Mockito.verify(thermostatRepository, Mockito.times(1)).save(thermostat);
         Mockito.verify(merossService, Mockito.times(1))
                 .turnOn(thermostat.getEmail(), thermostat.getPassword(), thermostat.getDeviceName());
+        Mockito.verify(liveEventService, Mockito.times(1)).publishThermostatAfterCommit(thermostat);
     }
 
     @Test
@@ -1107,10 +1115,10 @@ class ThermostatServiceTest extends AbstractServiceTest {
         hydrometer.setCreatedAt(LocalDateTime.now());
 
         Measurement lastMeasurement = new Measurement();
-        lastMeasurement.setAngle(BigDecimal.valueOf(65.32));
-        lastMeasurement.setTemperature(BigDecimal.valueOf(18.93));
-        lastMeasurement.setBattery(BigDecimal.valueOf(2.11));
-        lastMeasurement.setSpecificGravity(BigDecimal.valueOf(1.089));
+        lastMeasurement.setAngle(65.32);
+        lastMeasurement.setTemperature(18.93);
+        lastMeasurement.setBattery(2.11);
+        lastMeasurement.setSpecificGravity(1.089);
         lastMeasurement.setInterval(300);
         lastMeasurement.setRssi(-73);
         lastMeasurement.setHydrometer(hydrometer);
@@ -1149,6 +1157,7 @@ class ThermostatServiceTest extends AbstractServiceTest {
         Mockito.verify(thermostatRepository, Mockito.times(1)).save(thermostat);
         Mockito.verify(merossService, Mockito.times(1))
                 .turnOff(thermostat.getEmail(), thermostat.getPassword(), thermostat.getDeviceName());
+        Mockito.verify(liveEventService, Mockito.times(1)).publishThermostatAfterCommit(thermostat);
     }
 
     @Test
@@ -1173,10 +1182,10 @@ class ThermostatServiceTest extends AbstractServiceTest {
         hydrometer.setCreatedAt(LocalDateTime.now());
 
         Measurement lastMeasurement = new Measurement();
-        lastMeasurement.setAngle(BigDecimal.valueOf(65.32));
-        lastMeasurement.setTemperature(BigDecimal.valueOf(18.93));
-        lastMeasurement.setBattery(BigDecimal.valueOf(2.11));
-        lastMeasurement.setSpecificGravity(BigDecimal.valueOf(1.089));
+        lastMeasurement.setAngle(65.32);
+        lastMeasurement.setTemperature(18.93);
+        lastMeasurement.setBattery(2.11);
+        lastMeasurement.setSpecificGravity(1.089);
         lastMeasurement.setInterval(300);
         lastMeasurement.setRssi(-73);
         lastMeasurement.setHydrometer(hydrometer);
@@ -1218,6 +1227,213 @@ class ThermostatServiceTest extends AbstractServiceTest {
                 .turnOn(thermostat.getEmail(), thermostat.getPassword(), thermostat.getDeviceName());
     }
 
+    @Test
+    void scheduleThermostatsConcurrently() throws NoSuchFieldException, IllegalAccessException, MerossException {
+        List<Thermostat> thermostats = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            thermostats.add(createSchedulableThermostat(i % 2 == 0 ? "first@mail.com" : "second@mail.com"));
+        }
+
+        Mockito.when(thermostatRepository.findToBeSwitched(
+                Mockito.any(LocalDateTime.class),
+                Mockito.any(LocalDateTime.class),
+                Mockito.eq(ThermostatStateEnum.SERVICE_ERROR),
+                Mockito.eq(BrewStateEnum.FERMENTING)
+        )).thenReturn(thermostats);
+
+        // track the number of concurrent calls in total and per account
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Map<String, AtomicInteger> runningPerAccount = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> maxRunningPerAccount = new ConcurrentHashMap<>();
+        Mockito.doAnswer(invocation -> {
+            String email = invocation.getArgument(0);
+            AtomicInteger accountRunning = runningPerAccount.computeIfAbsent(email, e -> new AtomicInteger());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            maxRunningPerAccount.computeIfAbsent(email, e -> new AtomicInteger())
+                    .accumulateAndGet(accountRunning.incrementAndGet(), Math::max);
+            Thread.sleep(200);
+            accountRunning.decrementAndGet();
+            running.decrementAndGet();
+            return null;
+        }).when(merossService).turnOn(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+
+        thermostatService.scheduleThermostats();
+
+        thermostats.forEach(thermostat -> Assertions.assertTrue(thermostat.isPoweredOn()));
+        Assertions.assertTrue(maxRunning.get() > 1);
+        maxRunningPerAccount.values().forEach(max -> Assertions.assertTrue(max.get() <= 2));
+
+        Mockito.verify(merossService, Mockito.times(6))
+                .turnOn(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+    }
+
+    @Test
+    void scheduleThermostatsCoolingSwitchOn() throws NoSuchFieldException, IllegalAccessException, MerossException {
+        Thermostat thermostat = createSchedulableThermostat("user@mail.com");
+        thermostat.setIsHeating(false);
+        thermostat.getLastMeasurement().orElseThrow().setTemperature(21.07);
+
+        Mockito.when(thermostatRepository.findToBeSwitched(
+                Mockito.any(LocalDateTime.class),
+                Mockito.any(LocalDateTime.class),
+                Mockito.eq(ThermostatStateEnum.SERVICE_ERROR),
+                Mockito.eq(BrewStateEnum.FERMENTING)
+        )).thenReturn(List.of(thermostat));
+
+        thermostatService.scheduleThermostats();
+
+        // a cooling device runs while the temperature is above the target
+        Assertions.assertTrue(thermostat.isPoweredOn());
+        Assertions.assertEquals(ThermostatStateEnum.ACTIVE, thermostat.getState());
+        Mockito.verify(merossService, Mockito.times(1))
+                .turnOn(thermostat.getEmail(), thermostat.getPassword(), thermostat.getDeviceName());
+    }
+
+    @Test
+    void scheduleThermostatsPidPersistsState() throws NoSuchFieldException, IllegalAccessException, MerossException {
+        Thermostat thermostat = createSchedulableThermostat("user@mail.com");
+        thermostat.setControlMode(ThermostatControlModeEnum.PID);
+
+        Mockito.when(thermostatRepository.findToBeSwitched(
+                Mockito.any(LocalDateTime.class),
+                Mockito.any(LocalDateTime.class),
+                Mockito.eq(ThermostatStateEnum.SERVICE_ERROR),
+                Mockito.eq(BrewStateEnum.FERMENTING)
+        )).thenReturn(List.of(thermostat));
+
+        thermostatService.scheduleThermostats();
+
+        // the output is saturated, so the device runs for the whole cycle
+        Assertions.assertTrue(thermostat.isPoweredOn());
+        ControllerState state = thermostat.getControllerState();
+        Assertions.assertEquals(18.93, state.getPreviousTemperature().orElseThrow());
+        Assertions.assertTrue(state.getControlledAt().isPresent());
+        Assertions.assertEquals(state.getControlledAt(), state.getCycleStartedAt());
+
+        Mockito.verify(thermostatRepository, Mockito.times(1)).save(thermostat);
+        Mockito.verify(merossService, Mockito.times(1))
+                .turnOn(thermostat.getEmail(), thermostat.getPassword(), thermostat.getDeviceName());
+    }
+
+    @Test
+    void onMeasurementCreatedSwitchOn() throws NoSuchFieldException, IllegalAccessException, MerossException {
+        Thermostat thermostat = createSchedulableThermostat("user@mail.com");
+        UUID hydrometerId = thermostat.getHydrometer().orElseThrow().getId();
+
+        Mockito.when(thermostatRepository.findToBeSwitchedByHydrometerId(
+                Mockito.eq(hydrometerId),
+                Mockito.any(LocalDateTime.class),
+                Mockito.any(LocalDateTime.class),
+                Mockito.eq(ThermostatStateEnum.SERVICE_ERROR),
+                Mockito.eq(BrewStateEnum.FERMENTING)
+        )).thenReturn(List.of(thermostat));
+
+        thermostatService.onMeasurementCreated(new MeasurementCreatedEvent(hydrometerId));
+
+        // the thermostat is switched in the background, the notifying request doesn't wait for it
+        Mockito.verify(merossService, Mockito.timeout(5000).times(1))
+                .turnOn(thermostat.getEmail(), thermostat.getPassword(), thermostat.getDeviceName());
+        Mockito.verify(thermostatRepository, Mockito.timeout(5000).times(1)).save(thermostat);
+        Assertions.assertTrue(thermostat.isPoweredOn());
+        Assertions.assertEquals(ThermostatStateEnum.ACTIVE, thermostat.getState());
+        Mockito.verify(thermostatRepository, Mockito.never()).findToBeSwitched(
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any()
+        );
+    }
+
+    @Test
+    void onMeasurementCreatedInProgressSkipped() throws Exception {
+        Thermostat thermostat = createSchedulableThermostat("user@mail.com");
+        UUID hydrometerId = thermostat.getHydrometer().orElseThrow().getId();
+
+        Mockito.when(thermostatRepository.findToBeSwitchedByHydrometerId(
+                Mockito.eq(hydrometerId),
+                Mockito.any(LocalDateTime.class),
+                Mockito.any(LocalDateTime.class),
+                Mockito.eq(ThermostatStateEnum.SERVICE_ERROR),
+                Mockito.eq(BrewStateEnum.FERMENTING)
+        )).thenReturn(List.of(thermostat));
+        Mockito.when(thermostatRepository.findToBeSwitched(
+                Mockito.any(LocalDateTime.class),
+                Mockito.any(LocalDateTime.class),
+                Mockito.eq(ThermostatStateEnum.SERVICE_ERROR),
+                Mockito.eq(BrewStateEnum.FERMENTING)
+        )).thenReturn(List.of(thermostat));
+
+        // the scheduled switching is still in progress when the measurement arrives
+        CountDownLatch switching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            switching.countDown();
+            release.await();
+            return null;
+        }).when(merossService).turnOn(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+
+        Thread tick = new Thread(() -> thermostatService.scheduleThermostats());
+        tick.start();
+        Assertions.assertTrue(switching.await(5, TimeUnit.SECONDS));
+        thermostatService.onMeasurementCreated(new MeasurementCreatedEvent(hydrometerId));
+        Mockito.verify(thermostatRepository, Mockito.timeout(5000).times(1))
+                .findToBeSwitchedByHydrometerId(
+                        Mockito.eq(hydrometerId),
+                        Mockito.any(),
+                        Mockito.any(),
+                        Mockito.any(),
+                        Mockito.any()
+                );
+        release.countDown();
+        tick.join(5000);
+
+        Mockito.verify(merossService, Mockito.times(1))
+                .turnOn(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+    }
+
+    /**
+     * Helper method to create a thermostat with a recent measurement below the threshold temperature
+     *
+     * @param email meross account email
+     * @return created thermostat
+     */
+    private Thermostat createSchedulableThermostat(String email) throws NoSuchFieldException, IllegalAccessException {
+        Beer beer = new Beer();
+        beer.setId(UUID.randomUUID());
+        beer.setName("testbeer");
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setFermentationTemperatureThreshold(BigDecimal.valueOf(20));
+        beer.setCreatedBy(getUser());
+
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setId(UUID.randomUUID());
+        hydrometer.setName("ispindel");
+        hydrometer.setAssignedBeer(beer);
+        hydrometer.setIsActive(true);
+        hydrometer.setCreatedBy(getUser());
+
+        Measurement lastMeasurement = new Measurement();
+        lastMeasurement.setTemperature(18.93);
+        lastMeasurement.setHydrometer(hydrometer);
+        lastMeasurement.setBeer(beer);
+        lastMeasurement.setCreatedAt(LocalDateTime.now());
+
+        Thermostat thermostat = createThermostat(hydrometer);
+        thermostat.setId(UUID.randomUUID());
+        thermostat.setEmail(email);
+        thermostat.setCreatedBy(getUser());
+        thermostat.setState(ThermostatStateEnum.READY);
+        thermostat.setIsPoweredOn(false);
+        thermostat.setLastSuccessAt(LocalDateTime.now().minusSeconds(301));
+        Field field = Thermostat.class.getDeclaredField("lastMeasurement");
+        field.setAccessible(true);
+        field.set(thermostat, lastMeasurement);
+        field.setAccessible(false);
+
+        return thermostat;
+    }
+
     /**
      * Helper method to create a dummy thermostat instance
      *
@@ -1,6 +1,7 @@
 package cz.jansimerda.homebrewdash.business;
 
 import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.model.User;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,9 @@ class UserServiceTest extends AbstractServiceTest {
     @Autowired
     UserService userService;
 
+    @Autowired
+    HydrometerTokenCache hydrometerTokenCache;
+
     @Test
     void create() {
         User user = createDummyUser();
@@ -63,6 +67,22 @@ class UserServiceTest extends AbstractServiceTest {
                 .getFirstByEmailOrUsernameExceptId(user.getEmail(), user.getUsername(), user.getId());
     }
 
+    @Test
+    void deleteByIdInvalidatesHydrometerTokens() {
+        User user = createDummyUser();
+        User other = createDummyUser();
+        hydrometerTokenCache.put(createHydrometer(user, "deleted-token"));
+        hydrometerTokenCache.put(createHydrometer(other, "other-token"));
+        Mockito.when(userRepository.existsById(user.getId())).thenReturn(true);
+
+        userService.deleteById(user.getId());
+
+        Assertions.assertTrue(hydrometerTokenCache.get("deleted-token").isEmpty());
+        Assertions.assertTrue(hydrometerTokenCache.get("other-token").isPresent());
+        Mockito.verify(userRepository, Mockito.times(1)).deleteById(user.getId());
+        hydrometerTokenCache.invalidateAll();
+    }
+
     @Test
     void updateFail() {
         User user = createDummyUser();
@@ -103,4 +123,22 @@ class UserServiceTest extends AbstractServiceTest {
                 getUsers().stream().map(User::getId).toList())
         );
     }
+
+    /**
+     * Helper method to create a dummy hydrometer instance
+     *
+     * @param owner user the hydrometer belongs to
+     * @param token hydrometer token
+     * @return hydrometer instance
+     */
+    private Hydrometer createHydrometer(User owner, String token) {
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setId(UUID.randomUUID());
+        hydrometer.setName("iSpindel");
+        hydrometer.setToken(token);
+        hydrometer.setIsActive(true);
+        hydrometer.setCreatedBy(owner);
+
+        return hydrometer;
+    }
 }
@@ -4,7 +4,9 @@ import cz.jansimerda.homebrewdash.exception.exposed.UserUnauthenticatedException
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.UserSession;
 import cz.jansimerda.homebrewdash.repository.UserSessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,9 +28,20 @@ class UserSessionServiceTest extends AbstractServiceTest {
     @Autowired
     UserSessionService sessionService;
 
+    @Autowired
+    UserSessionCache sessionCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @MockBean
     UserSessionRepository sessionRepository;
 
+    @BeforeEach
+    void clearSessionCache() {
+        sessionCache.invalidateAll();
+    }
+
     @Test
     void create() {
         User user = createDummyUser();
@@ -117,6 +130,7 @@ class UserSessionServiceTest extends AbstractServiceTest {
     void readByToken() {
         UserSession session = new UserSession();
         session.setToken("token");
+        session.setExpiresAt(LocalDateTime.now().plusMinutes(5));
         Mockito.when(sessionRepository.getFirstByToken("token")).thenReturn(Optional.of(session));
         Optional<UserSession> found = sessionService.readByToken("token");
 
@@ -126,6 +140,43 @@ class UserSessionServiceTest extends AbstractServiceTest {
         Mockito.verify(sessionRepository, Mockito.times(1)).getFirstByToken("token");
     }
 
+    @Test
+    void readByTokenCached() {
+        UserSession session = new UserSession();
+        session.setToken("token");
+        session.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        Mockito.when(sessionRepository.getFirstByToken("token")).thenReturn(Optional.of(session));
+        Mockito.when(sessionRepository.getFirstByToken("unknown")).thenReturn(Optional.empty());
+
+        Assertions.assertEquals(Optional.of(session), sessionService.readByToken("token"));
+        Assertions.assertEquals(Optional.of(session), sessionService.readByToken("token"));
+        Assertions.assertTrue(sessionService.readByToken("unknown").isEmpty());
+        Assertions.assertTrue(sessionService.readByToken("unknown").isEmpty());
+
+        // both the found session and the unknown token are looked up only once
+        Mockito.verify(sessionRepository, Mockito.times(1)).getFirstByToken("token");
+        Mockito.verify(sessionRepository, Mockito.times(1)).getFirstByToken("unknown");
+    }
+
+    @Test
+    void readByTokenTimesDatabaseLookups() {
+        UserSession session = new UserSession();
+        session.setToken("token");
+        session.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        Mockito.when(sessionRepository.getFirstByToken("token")).thenReturn(Optional.of(session));
+        Mockito.when(sessionRepository.getFirstByToken("unknown")).thenReturn(Optional.empty());
+        long found = lookups("found");
+        long missing = lookups("missing");
+
+        sessionService.readByToken("token");
+        sessionService.readByToken("token");
+        sessionService.readByToken("unknown");
+
+        // cached lookups don't reach the database
+        Assertions.assertEquals(found + 1, lookups("found"));
+        Assertions.assertEquals(missing + 1, lookups("missing"));
+    }
+
     @Test
     void readOne() {
         UserSession session = new UserSession();
@@ -223,15 +274,22 @@ class UserSessionServiceTest extends AbstractServiceTest {
         UserSession session = new UserSession();
         UUID id = UUID.randomUUID();
         session.setId(id);
+        session.setToken("token");
         session.setExpiresAt(LocalDateTime.now().plusMinutes(5));
         Assertions.assertFalse(session.isExpired());
 
+        Mockito.when(sessionRepository.getFirstByToken("token")).thenReturn(Optional.of(session));
         Mockito.when(sessionRepository.getFirstByIdForUser(id, getUser().getId(), false))
                 .thenReturn(Optional.of(session));
+        sessionService.readByToken("token");
         sessionService.expireById(id);
 
         Assertions.assertTrue(session.isExpired());
 
+        // the expired session is no longer served from the cache
+        sessionService.readByToken("token");
+        Mockito.verify(sessionRepository, Mockito.times(2)).getFirstByToken("token");
+
         Mockito.verify(sessionRepository, Mockito.times(1))
                 .getFirstByIdForUser(id, getUser().getId(), false);
     }
@@ -242,6 +300,7 @@ class UserSessionServiceTest extends AbstractServiceTest {
         UserSession session = new UserSession();
         UUID id = UUID.randomUUID();
         session.setId(id);
+        session.setToken("token");
         session.setExpiresAt(LocalDateTime.now().plusMinutes(5));
         Assertions.assertFalse(session.isExpired());
 
@@ -291,4 +350,12 @@ class UserSessionServiceTest extends AbstractServiceTest {
         Mockito.verify(sessionRepository, Mockito.times(1))
                 .getFirstByIdForUser(id, getUser().getId(), false);
     }
+
+    /**
+     * @param result result tag of the lookups
+     * @return number of the database lookups of the sessions with given result
+     */
+    private long lookups(String result) {
+        return meterRegistry.get("user.sessions.lookups").tag("result", result).timer().count();
+    }
 }
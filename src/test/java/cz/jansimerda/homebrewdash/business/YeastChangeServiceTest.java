@@ -2,6 +2,7 @@ package cz.jansimerda.homebrewdash.business;
 
 import cz.jansimerda.homebrewdash.exception.exposed.ConditionsNotMetException;
 import cz.jansimerda.homebrewdash.exception.exposed.EntityNotFoundException;
+import cz.jansimerda.homebrewdash.model.StockLot;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.Yeast;
 import cz.jansimerda.homebrewdash.model.YeastChange;
@@ -37,6 +38,9 @@ class YeastChangeServiceTest extends AbstractServiceTest {
     @MockBean
     YeastChangeRepository yeastChangeRepository;
 
+    @MockBean
+    StockLedgerService stockLedgerService;
+
     @Test
     @WithUserDetails(setupBefore = TestExecutionEvent.TEST_EXECUTION)
     void createWithUserAuth() {
@@ -55,11 +59,7 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // yeast stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUser(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(true);
 
         // mock save
         Mockito.when(yeastChangeRepository.save(Mockito.any(YeastChange.class)))
@@ -82,12 +82,7 @@ class YeastChangeServiceTest extends AbstractServiceTest {
 
         Mockito.verify(yeastRepository, Mockito.times(1)).findById(yeast.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1))
-                .sumChangeByYeastAndUser(
-                        yeast.getId(),
-                        LocalDate.now(),
-                        user.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -109,11 +104,7 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // yeast stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUser(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(true);
 
         // mock save
         Mockito.when(yeastChangeRepository.save(Mockito.any(YeastChange.class)))
@@ -136,12 +127,7 @@ class YeastChangeServiceTest extends AbstractServiceTest {
 
         Mockito.verify(yeastRepository, Mockito.times(1)).findById(yeast.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1))
-                .sumChangeByYeastAndUser(
-                        yeast.getId(),
-                        LocalDate.now(),
-                        user.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -163,22 +149,13 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // yeast stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUser(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), change.getChangeGrams())).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> yeastChangeService.create(change));
 
         Mockito.verify(yeastRepository, Mockito.times(1)).findById(yeast.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1))
-                .sumChangeByYeastAndUser(
-                        yeast.getId(),
-                        LocalDate.now(),
-                        user.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), change.getChangeGrams());
     }
 
     @Test
@@ -392,12 +369,12 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // yeast stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(true);
 
         // mock save
         Mockito.when(yeastChangeRepository.save(change)).thenReturn(change);
@@ -406,16 +383,15 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         Assertions.assertNotNull(updated);
         Assertions.assertEquals(change.getId(), updated.getId());
 
-        Mockito.verify(yeastChangeRepository, Mockito.times(1)).findById(change.getId());
+        Mockito.verify(yeastChangeRepository, Mockito.times(2)).findById(change.getId());
         Mockito.verify(yeastRepository, Mockito.times(1)).findById(yeast.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1))
-                .sumChangeByYeastAndUserExceptChangeId(
-                        yeast.getId(),
-                        LocalDate.now(),
-                        user.getId(),
-                        change.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -440,12 +416,12 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // yeast stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(true);
 
         // mock save
         Mockito.when(yeastChangeRepository.save(change)).thenReturn(change);
@@ -454,16 +430,15 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         Assertions.assertNotNull(updated);
         Assertions.assertEquals(change.getId(), updated.getId());
 
-        Mockito.verify(yeastChangeRepository, Mockito.times(1)).findById(change.getId());
+        Mockito.verify(yeastChangeRepository, Mockito.times(2)).findById(change.getId());
         Mockito.verify(yeastRepository, Mockito.times(1)).findById(yeast.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1))
-                .sumChangeByYeastAndUserExceptChangeId(
-                        yeast.getId(),
-                        LocalDate.now(),
-                        user.getId(),
-                        change.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).save(change);
     }
 
@@ -483,28 +458,28 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         change.setCreatedAt(LocalDateTime.now());
 
         // mock repository calls
+        Mockito.when(yeastChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         Mockito.when(yeastRepository.findById(yeast.getId())).thenReturn(Optional.of(yeast));
         Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         // yeast stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        )).thenReturn(100);
+        Mockito.when(stockLedgerService.replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        )).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> yeastChangeService.update(change));
 
         Mockito.verify(yeastRepository, Mockito.times(1)).findById(yeast.getId());
         Mockito.verify(userRepository, Mockito.times(1)).findById(user.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1))
-                .sumChangeByYeastAndUserExceptChangeId(
-                        yeast.getId(),
-                        LocalDate.now(),
-                        user.getId(),
-                        change.getId()
-                );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).replace(
+                StockLot.of(change),
+                change.getChangeGrams(),
+                StockLot.of(change),
+                change.getChangeGrams()
+        );
     }
 
     @Test
@@ -595,22 +570,12 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(yeastChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        )).thenReturn(0);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(true);
 
         yeastChangeService.deleteById(change.getId());
 
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1)).sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).deleteById(change.getId());
     }
 
@@ -631,22 +596,12 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(yeastChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        )).thenReturn(0);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(true);
 
         yeastChangeService.deleteById(change.getId());
 
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1)).sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).deleteById(change.getId());
     }
 
@@ -711,22 +666,12 @@ class YeastChangeServiceTest extends AbstractServiceTest {
         // mock repository calls
         Mockito.when(yeastChangeRepository.findById(change.getId())).thenReturn(Optional.of(change));
         // mock stock level
-        Mockito.when(yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        )).thenReturn(-250);
+        Mockito.when(stockLedgerService.adjust(StockLot.of(change), -change.getChangeGrams())).thenReturn(false);
 
         Assertions.assertThrowsExactly(ConditionsNotMetException.class, () -> yeastChangeService.deleteById(change.getId()));
 
         Mockito.verify(yeastChangeRepository, Mockito.times(1)).findById(change.getId());
-        Mockito.verify(yeastChangeRepository, Mockito.times(1)).sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                change.getId()
-        );
+        Mockito.verify(stockLedgerService, Mockito.times(1)).adjust(StockLot.of(change), -change.getChangeGrams());
     }
 
     /**
@@ -0,0 +1,187 @@
+package cz.jansimerda.homebrewdash.business.control;
+
+import cz.jansimerda.homebrewdash.helpers.DecimalHelper;
+import cz.jansimerda.homebrewdash.model.ControllerState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Runs the control strategies against a thermal model of a fermenter for two days and compares
+ * their overshoot, number of switches and settling time. The fermenter loses heat to the ambient air
+ * proportionally to the temperature difference, and the device reaches its full power only gradually,
+ * e.g. a heat belt warming up or a fridge compressor cooling down its air first.
+ * The temperature is read every five minutes with the precision of a hydrometer and every reading
+ * is followed by an evaluation, as when the thermostats are switched on arrival of a measurement.
+ */
+class ThermostatControlSimulationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThermostatControlSimulationTest.class);
+
+    private static final int SIMULATED_MINUTES = 48 * 60;
+
+    private static final int READING_INTERVAL_MINUTES = 5;
+
+    private static final int SENSOR_SCALE = 2;
+
+    /**
+     * distance from the target the temperature has to stay within to be considered settled
+     */
+    private static final double SETTLED_BAND = 0.5;
+
+    /**
+     * hours in which the difference of the fermenter and ambient temperature drops to about a third
+     */
+    private static final double AMBIENT_TIME_CONSTANT_HOURS = 10;
+
+    /**
+     * Parameters of a scenario
+     *
+     * @param ambient           temperature of the ambient air, also the initial temperature of the fermenter
+     * @param target            target temperature
+     * @param heating           whether the device heats, cools otherwise
+     * @param power             temperature change per hour by the device running at full power
+     * @param deviceTimeHours   hours in which the device gets to about two thirds of its power
+     */
+    private record Scenario(double ambient, double target, boolean heating, double power, double deviceTimeHours) {
+    }
+
+    /**
+     * Metrics of a simulated run
+     *
+     * @param overshoot       the furthest the temperature got past the target, in degrees Celsius
+     * @param switches        number of times the device was switched
+     * @param settlingMinutes minutes after which the temperature stayed close to the target, -1 if it didn't
+     * @param offset          average distance of the temperature from the target during the second day
+     */
+    private record Result(double overshoot, int switches, int settlingMinutes, double offset) {
+    }
+
+    /**
+     * heat belt of a bucket in a cold cellar
+     */
+    private static final Scenario HEATING = new Scenario(16, 20, true, 1.0, 0.5);
+
+    /**
+     * fermentation fridge in a warm room
+     */
+    private static final Scenario COOLING = new Scenario(24, 18, false, 3.0, 0.25);
+
+    @Test
+    void simulateHeating() {
+        Result hysteresis = simulate(new HysteresisControlStrategy(0.25), HEATING);
+        Result dutyCycle = simulate(new DutyCycleControlStrategy(1.0, 30, 5), HEATING);
+        Result pid = simulate(new PidControlStrategy(1.0, 0.1, 0, 30, 5), HEATING);
+        log("heating", hysteresis, dutyCycle, pid);
+
+        assertSettled(dutyCycle);
+        assertSettled(pid);
+        // the time-proportioned output doesn't wait for the temperature to leave the band, so it overshoots less,
+        // at the cost of switching the device more often
+        Assertions.assertTrue(pid.overshoot() < hysteresis.overshoot());
+        Assertions.assertTrue(hysteresis.switches() < pid.switches());
+        // the integral removes the offset of the proportional control
+        Assertions.assertTrue(Math.abs(pid.offset()) < Math.abs(dutyCycle.offset()));
+    }
+
+    @Test
+    void simulateCooling() {
+        Result hysteresis = simulate(new HysteresisControlStrategy(0.25), COOLING);
+        Result dutyCycle = simulate(new DutyCycleControlStrategy(1.0, 30, 5), COOLING);
+        Result pid = simulate(new PidControlStrategy(1.0, 0.1, 0, 30, 5), COOLING);
+        log("cooling", hysteresis, dutyCycle, pid);
+
+        // the lag of the fridge carries the temperature past the band of the hysteresis, it keeps oscillating
+        Assertions.assertTrue(hysteresis.overshoot() > SETTLED_BAND);
+        assertSettled(dutyCycle);
+        assertSettled(pid);
+        Assertions.assertTrue(pid.overshoot() < hysteresis.overshoot());
+        Assertions.assertTrue(hysteresis.switches() < pid.switches());
+        Assertions.assertTrue(Math.abs(pid.offset()) < Math.abs(dutyCycle.offset()));
+    }
+
+    /**
+     * Helper method running the strategy against the thermal model
+     *
+     * @param strategy strategy controlling the device
+     * @param scenario parameters of the fermenter
+     * @return metrics of the run
+     */
+    private Result simulate(ControlStrategy strategy, Scenario scenario) {
+        double stepHours = 1 / 60d;
+        double direction = scenario.heating() ? 1 : -1;
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        ControllerState state = new ControllerState();
+
+        double temperature = scenario.ambient();
+        double devicePower = 0;
+        boolean poweredOn = false;
+        boolean reachedTarget = false;
+        double overshoot = 0;
+        int switches = 0;
+        int lastUnsettledMinute = 0;
+        double secondDayError = 0;
+        for (int minute = 0; minute < SIMULATED_MINUTES; minute++) {
+            if (minute % READING_INTERVAL_MINUTES == 0) {
+                double reading = DecimalHelper.round(temperature, SENSOR_SCALE);
+                ControlInput input = new ControlInput(
+                        reading,
+                        scenario.target(),
+                        scenario.heating(),
+                        poweredOn,
+                        start.plusMinutes(minute)
+                );
+                boolean on = strategy.control(state, input);
+                if (on != poweredOn) {
+                    poweredOn = on;
+                    switches++;
+                }
+            }
+
+            double target = poweredOn ? direction * scenario.power() : 0;
+            devicePower += (target - devicePower) * stepHours / scenario.deviceTimeHours();
+            temperature += ((scenario.ambient() - temperature) / AMBIENT_TIME_CONSTANT_HOURS + devicePower) * stepHours;
+
+            double error = direction * (temperature - scenario.target());
+            reachedTarget |= error >= 0;
+            if (reachedTarget) {
+                overshoot = Math.max(overshoot, error);
+            }
+            if (minute >= SIMULATED_MINUTES / 2) {
+                secondDayError += error;
+            }
+            if (Math.abs(error) > SETTLED_BAND) {
+                lastUnsettledMinute = minute + 1;
+            }
+        }
+
+        int settlingMinutes = lastUnsettledMinute < SIMULATED_MINUTES ? lastUnsettledMinute : -1;
+        double offset = secondDayError / (SIMULATED_MINUTES - SIMULATED_MINUTES / 2);
+        return new Result(overshoot, switches, settlingMinutes, offset);
+    }
+
+    /**
+     * Helper method asserting the run settled within the first day with a small overshoot, without switching
+     * the device more often than every quarter of an hour on average
+     *
+     * @param result metrics of the run
+     */
+    private void assertSettled(Result result) {
+        Assertions.assertTrue(result.settlingMinutes() >= 0, result.toString());
+        Assertions.assertTrue(result.settlingMinutes() < 24 * 60, result.toString());
+        Assertions.assertTrue(result.switches() <= SIMULATED_MINUTES / 15, result.toString());
+        Assertions.assertTrue(result.overshoot() < SETTLED_BAND, result.toString());
+    }
+
+    /**
+     * Helper method logging the metrics of the strategies in the scenario
+     */
+    private void log(String scenario, Result hysteresis, Result dutyCycle, Result pid) {
+        logger.info("Simulated {} with hysteresis: {}", scenario, hysteresis);
+        logger.info("Simulated {} with duty cycle: {}", scenario, dutyCycle);
+        logger.info("Simulated {} with PID: {}", scenario, pid);
+    }
+}
@@ -3,6 +3,8 @@ package cz.jansimerda.homebrewdash.repository;
 import cz.jansimerda.homebrewdash.AbstractTest;
 import cz.jansimerda.homebrewdash.model.Hop;
 import cz.jansimerda.homebrewdash.model.HopChange;
+import cz.jansimerda.homebrewdash.model.StockLot;
+import cz.jansimerda.homebrewdash.model.StockLotSum;
 import cz.jansimerda.homebrewdash.model.User;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -110,7 +112,7 @@ class HopChangeRepositoryTest extends AbstractTest {
     }
 
     @Test
-    void sumChangeByHopAndUserExceptChangeId() {
+    void sumChangesByLotAndUser() {
         // init
         User user = userRepository.save(createDummyUser());
 
@@ -169,35 +171,16 @@ class HopChangeRepositoryTest extends AbstractTest {
         hopRepository.save(hop);
 
         // test zero sum
-        Assertions.assertEquals(0, hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(6.4),
-                BigDecimal.valueOf(3.3),
-                LocalDate.now(),
-                user.getId(),
-                UUID.randomUUID()
-        ));
+        Assertions.assertTrue(hopChangeRepository.sumChangesByLotAndUser(user.getId()).isEmpty());
 
         // store changes
         hopChangeRepository.saveAll(changes);
 
         // test all
-        Assertions.assertEquals(70, hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(6.4),
-                BigDecimal.valueOf(3.3),
-                LocalDate.now(),
-                user.getId(),
-                UUID.randomUUID()
-        ));
-        Assertions.assertEquals(20, hopChangeRepository.sumChangeByHopAndUserExceptChangeId(
-                hop.getId(),
-                BigDecimal.valueOf(6.4),
-                BigDecimal.valueOf(3.3),
-                LocalDate.now(),
-                user.getId(),
-                changes.get(2).getId()
-        ));
+        Assertions.assertEquals(
+                List.of(new StockLotSum(StockLot.of(changes.get(0)), 70)),
+                hopChangeRepository.sumChangesByLotAndUser(user.getId())
+        );
     }
 
     @Test
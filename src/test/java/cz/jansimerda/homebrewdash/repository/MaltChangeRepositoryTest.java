@@ -3,6 +3,8 @@ package cz.jansimerda.homebrewdash.repository;
 import cz.jansimerda.homebrewdash.AbstractTest;
 import cz.jansimerda.homebrewdash.model.Malt;
 import cz.jansimerda.homebrewdash.model.MaltChange;
+import cz.jansimerda.homebrewdash.model.StockLot;
+import cz.jansimerda.homebrewdash.model.StockLotSum;
 import cz.jansimerda.homebrewdash.model.User;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -86,7 +88,7 @@ class MaltChangeRepositoryTest extends AbstractTest {
     }
 
     @Test
-    void sumChangeByMaltAndUserExceptChangeId() {
+    void sumChangesByLotAndUser() {
         // init
         User user = userRepository.save(createDummyUser());
 
@@ -135,14 +137,16 @@ class MaltChangeRepositoryTest extends AbstractTest {
         maltRepository.save(malt);
 
         // test zero sum
-        Assertions.assertEquals(0, maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), UUID.randomUUID()));
+        Assertions.assertTrue(maltChangeRepository.sumChangesByLotAndUser(user.getId()).isEmpty());
 
         // store changes
         maltChangeRepository.saveAll(changes);
 
         // test all
-        Assertions.assertEquals(70, maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), UUID.randomUUID()));
-        Assertions.assertEquals(20, maltChangeRepository.sumChangeByMaltAndUserExceptChangeId(malt.getId(), user.getId(), changes.get(2).getId()));
+        Assertions.assertEquals(
+                List.of(new StockLotSum(StockLot.of(changes.get(0)), 70)),
+                maltChangeRepository.sumChangesByLotAndUser(user.getId())
+        );
     }
 
     @Test
@@ -2,16 +2,20 @@ package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.AbstractTest;
 import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.MeasurementBucket;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.UUID;
 
 @DataJpaTest
@@ -26,6 +30,12 @@ class MeasurementRepositoryTest extends AbstractTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private HydrometerRepository hydrometerRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findByBeerCreatedById() {
         // init
@@ -49,6 +59,113 @@ class MeasurementRepositoryTest extends AbstractTest {
         Assertions.assertEquals(measurementDummyUser.getId(), measurementRepository.findByBeerCreatedById(dummyUser.getId()).get(0).getId());
     }
 
+    @Test
+    void findFirstByHydrometerIdOrderByCreatedAtDescIdDesc() {
+        // init
+        User user = userRepository.save(createUser());
+
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel");
+        hydrometer.setToken(UUID.randomUUID().toString());
+        hydrometer.setCreatedBy(user);
+        hydrometerRepository.save(hydrometer);
+
+        Measurement older = createMeasurement(user);
+        older.setHydrometer(hydrometer);
+        older.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        Measurement latest = createMeasurement(user);
+        latest.setHydrometer(hydrometer);
+        Measurement otherHydrometer = createMeasurement(user);
+        otherHydrometer.setCreatedAt(LocalDateTime.now().plusMinutes(5));
+
+        // persist
+        measurementRepository.save(older);
+        measurementRepository.save(latest);
+        measurementRepository.save(otherHydrometer);
+
+        // test
+        Assertions.assertTrue(measurementRepository.findFirstByHydrometerIdOrderByCreatedAtDescIdDesc(UUID.randomUUID()).isEmpty());
+        Assertions.assertEquals(
+                latest.getId(),
+                measurementRepository.findFirstByHydrometerIdOrderByCreatedAtDescIdDesc(hydrometer.getId()).orElseThrow().getId()
+        );
+    }
+
+    @Test
+    void saveRoundedToColumnScale() {
+        // init
+        User user = userRepository.save(createUser());
+        Measurement measurement = createMeasurement(user);
+        // values half-way between two decimals of the column scale are rounded half up
+        measurement.setAngle(12.123456785);
+        measurement.setTemperature(-20.1235);
+        measurement.setBattery(3.9);
+        measurement.setSpecificGravity(1.0000000049);
+
+        // persist
+        UUID id = measurementRepository.save(measurement).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        // test the stored values are the same as the rounded ones
+        Measurement stored = measurementRepository.findById(id).orElseThrow();
+        Assertions.assertEquals(12.12345679, measurement.getAngle());
+        Assertions.assertEquals(12.12345679, stored.getAngle());
+        Assertions.assertEquals(-20.124, measurement.getTemperature());
+        Assertions.assertEquals(-20.124, stored.getTemperature());
+        Assertions.assertEquals(3.9, stored.getBattery());
+        Assertions.assertEquals(1.0, measurement.getSpecificGravity());
+        Assertions.assertEquals(1.0, stored.getSpecificGravity());
+    }
+
+    @Test
+    void findBucketsByBeerId() {
+        // init
+        User user = userRepository.save(createUser());
+        LocalDateTime start = LocalDateTime.of(2023, 9, 1, 10, 0);
+
+        Measurement first = createMeasurement(user);
+        Beer beer = first.getBeer();
+        first.setSpecificGravity(1.05);
+        Measurement second = createMeasurement(user);
+        second.setBeer(beer);
+        second.setSpecificGravity(1.03);
+        Measurement nextHour = createMeasurement(user);
+        nextHour.setBeer(beer);
+        Measurement hidden = createMeasurement(user);
+        hidden.setBeer(beer);
+        hidden.setSpecificGravity(2);
+        hidden.setIsHidden(true);
+        Measurement outOfRange = createMeasurement(user);
+        outOfRange.setBeer(beer);
+        Measurement otherBeer = createMeasurement(user);
+
+        // persist
+        measurementRepository.saveAll(List.of(first, second, nextHour, hidden, outOfRange, otherBeer));
+        moveTo(first, start.plusMinutes(10));
+        moveTo(second, start.plusMinutes(50));
+        moveTo(nextHour, start.plusMinutes(70));
+        moveTo(hidden, start.plusMinutes(20));
+        moveTo(outOfRange, start.plusHours(5));
+        moveTo(otherBeer, start.plusMinutes(30));
+
+        // test
+        List<MeasurementBucket> buckets = measurementRepository.findBucketsByBeerId(
+                beer.getId(),
+                start,
+                start.plusHours(2),
+                3600
+        );
+        Assertions.assertEquals(2, buckets.size());
+        Assertions.assertEquals(start.toEpochSecond(ZoneOffset.UTC) / 3600, buckets.get(0).bucket().longValue());
+        Assertions.assertEquals(2, buckets.get(0).count());
+        Assertions.assertEquals(1.04, buckets.get(0).gravityAvg(), 0.0001);
+        Assertions.assertEquals(1.03, buckets.get(0).gravityMin(), 0.0001);
+        Assertions.assertEquals(1.05, buckets.get(0).gravityMax(), 0.0001);
+        Assertions.assertEquals(buckets.get(0).bucket().longValue() + 1, buckets.get(1).bucket().longValue());
+        Assertions.assertEquals(1, buckets.get(1).count());
+    }
+
     /**
      * Helper method to create a dummy measurement instance
      *
@@ -65,10 +182,10 @@ class MeasurementRepositoryTest extends AbstractTest {
         beerRepository.save(beer);
 
         Measurement measurement = new Measurement();
-        measurement.setAngle(BigDecimal.valueOf(12.5));
-        measurement.setTemperature(BigDecimal.valueOf(23.3));
-        measurement.setBattery(BigDecimal.valueOf(2.5));
-        measurement.setSpecificGravity(BigDecimal.valueOf(1.12));
+        measurement.setAngle(12.5);
+        measurement.setTemperature(23.3);
+        measurement.setBattery(2.5);
+        measurement.setSpecificGravity(1.12);
         measurement.setInterval(300);
         measurement.setRssi(-73);
         measurement.setHydrometer(null);
@@ -79,4 +196,19 @@ class MeasurementRepositoryTest extends AbstractTest {
 
         return measurement;
     }
+
+    /**
+     * Helper method overriding the audited creation date of a stored measurement
+     *
+     * @param measurement stored measurement
+     * @param createdAt   date and time the measurement should be taken at
+     */
+    private void moveTo(Measurement measurement, LocalDateTime createdAt) {
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Measurement m SET m.createdAt = :createdAt WHERE m.id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", measurement.getId())
+                .executeUpdate();
+    }
 }
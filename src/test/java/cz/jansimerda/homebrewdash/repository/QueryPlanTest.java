@@ -0,0 +1,69 @@
+package cz.jansimerda.homebrewdash.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+/**
+ * Ensures the hot query paths of the repositories are served by indexes.
+ * The query plans are obtained by EXPLAIN of the embedded database, a table scan in the plan fails the test.
+ */
+@DataJpaTest
+class QueryPlanTest {
+
+    private static final String ID = "'00000000-0000-0000-0000-000000000000'";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // BeerRepository
+            "SELECT * FROM beers WHERE created_by_user_id = " + ID,
+            // HydrometerRepository
+            "SELECT * FROM hydrometers WHERE token = 'token'",
+            "SELECT * FROM hydrometers WHERE created_by_user_id = " + ID,
+            // ThermostatRepository
+            "SELECT * FROM thermostats WHERE created_by_user_id = " + ID,
+            "SELECT * FROM thermostats WHERE hydrometer_id = " + ID + " AND active = TRUE",
+            // MeasurementRepository
+            "SELECT m.* FROM measurements m JOIN beers b ON b.id = m.beer_id WHERE b.created_by_user_id = " + ID,
+            "SELECT * FROM measurements WHERE beer_id = " + ID + " AND hidden = FALSE ORDER BY created_at",
+            "SELECT * FROM measurements WHERE hydrometer_id = " + ID + " ORDER BY created_at DESC, id DESC LIMIT 1",
+            "SELECT * FROM hydrometer_latest_measurements WHERE measurement_id = " + ID,
+            // UserRepository, the embedded database doesn't combine indexes for OR conditions, so they are checked apart
+            "SELECT * FROM users WHERE email = 'mail'",
+            "SELECT * FROM users WHERE username = 'user'",
+            // UserSessionRepository
+            "SELECT * FROM user_sessions WHERE token = 'token'",
+            "SELECT * FROM user_sessions WHERE user_id = " + ID + " AND expires_at > CURRENT_TIMESTAMP",
+            "SELECT * FROM user_sessions WHERE expires_at > CURRENT_TIMESTAMP",
+            // HopRepository, MaltRepository, YeastRepository
+            "SELECT * FROM hops WHERE name = 'name'",
+            "SELECT * FROM malts WHERE name = 'name' AND manufacturer_name = 'manufacturer'",
+            "SELECT * FROM yeasts WHERE name = 'name' AND manufacturer_name = 'manufacturer'",
+            // HopChangeRepository
+            "SELECT coalesce(sum(change_grams), 0) FROM hop_changes WHERE hop_id = " + ID
+                    + " AND alpha_acid_percentage = 5 AND beta_acid_percentage = 4"
+                    + " AND harvested_at = DATE '2023-09-01' AND user_id = " + ID,
+            "SELECT * FROM hop_changes WHERE user_id = " + ID,
+            "SELECT * FROM hop_changes WHERE hop_id = " + ID,
+            // MaltChangeRepository
+            "SELECT coalesce(sum(change_grams), 0) FROM malt_changes WHERE malt_id = " + ID + " AND user_id = " + ID,
+            "SELECT * FROM malt_changes WHERE user_id = " + ID,
+            "SELECT * FROM malt_changes WHERE malt_id = " + ID,
+            // YeastChangeRepository
+            "SELECT coalesce(sum(change_grams), 0) FROM yeast_changes WHERE yeast_id = " + ID
+                    + " AND expiration_date = DATE '2024-01-01' AND user_id = " + ID,
+            "SELECT * FROM yeast_changes WHERE user_id = " + ID,
+            "SELECT * FROM yeast_changes WHERE yeast_id = " + ID,
+    })
+    void noTableScan(String query) {
+        String plan = entityManager.createNativeQuery("EXPLAIN " + query).getSingleResult().toString();
+
+        Assertions.assertFalse(plan.contains("tableScan"), () -> "Query performs a table scan:\n" + plan);
+    }
+}
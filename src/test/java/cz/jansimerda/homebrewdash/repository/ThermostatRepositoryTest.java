@@ -3,6 +3,8 @@ package cz.jansimerda.homebrewdash.repository;
 import cz.jansimerda.homebrewdash.AbstractTest;
 import cz.jansimerda.homebrewdash.model.Beer;
 import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.HydrometerLatestMeasurement;
+import cz.jansimerda.homebrewdash.model.Measurement;
 import cz.jansimerda.homebrewdash.model.Thermostat;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
@@ -11,10 +13,12 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -34,6 +38,15 @@ class ThermostatRepositoryTest extends AbstractTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    @Autowired
+    private HydrometerLatestMeasurementRepository latestMeasurementRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findByCreatedById() {
         // init
@@ -168,6 +181,125 @@ class ThermostatRepositoryTest extends AbstractTest {
         );
     }
 
+    @Test
+    void findToBeSwitchedByHydrometerId() {
+        User user = userRepository.save(createUser());
+
+        Function<String, Hydrometer> hydrometerSupplier = token -> {
+            Beer beer = new Beer();
+            beer.setName("Beer name");
+            beer.setFermentationTemperatureThreshold(BigDecimal.valueOf(20));
+            beer.setState(BrewStateEnum.FERMENTING);
+            beer.setCreatedBy(user);
+            beer.setCreatedAt(LocalDateTime.now());
+            beer.setUpdatedAt(LocalDateTime.now());
+            beerRepository.save(beer);
+
+            Hydrometer hydrometer = new Hydrometer();
+            hydrometer.setName("iSpindel");
+            hydrometer.setToken(token);
+            hydrometer.setAssignedBeer(beer);
+            hydrometer.setCreatedBy(user);
+            hydrometer.setUpdatedAt(LocalDateTime.now());
+            hydrometer.setCreatedAt(LocalDateTime.now());
+            return hydrometerRepository.save(hydrometer);
+        };
+        Hydrometer hydrometer = hydrometerSupplier.apply("token-1");
+
+        // thermostat to be switched
+        Thermostat thermostat = thermostatRepository.save(createThermostat(user, hydrometer));
+
+        // succeeded recently
+        Thermostat recent = createThermostat(user, hydrometer);
+        recent.setState(ThermostatStateEnum.ACTIVE);
+        recent.setLastSuccessAt(LocalDateTime.now().minusMinutes(4));
+        thermostatRepository.save(recent);
+
+        // thermostat of another hydrometer
+        thermostatRepository.save(createThermostat(user, hydrometerSupplier.apply("token-2")));
+
+        // test
+        Assertions.assertEquals(
+                List.of(thermostat.getId()),
+                thermostatRepository.findToBeSwitchedByHydrometerId(
+                        hydrometer.getId(),
+                        LocalDateTime.now().minusMinutes(5),
+                        LocalDateTime.now().minusHours(1),
+                        ThermostatStateEnum.SERVICE_ERROR,
+                        BrewStateEnum.FERMENTING
+                ).stream().map(Thermostat::getId).toList()
+        );
+    }
+
+    @Test
+    void lastMeasurement() {
+        // init
+        User user = userRepository.save(createUser());
+
+        Beer beer = new Beer();
+        beer.setName("Pilsner");
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedBy(user);
+        beerRepository.save(beer);
+
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel");
+        hydrometer.setToken(UUID.randomUUID().toString());
+        hydrometer.setAssignedBeer(beer);
+        hydrometer.setCreatedBy(user);
+        hydrometerRepository.save(hydrometer);
+
+        Measurement older = createMeasurement(hydrometer, beer, LocalDateTime.now().minusMinutes(5));
+        Measurement latest = createMeasurement(hydrometer, beer, LocalDateTime.now());
+        measurementRepository.save(older);
+        measurementRepository.save(latest);
+
+        Thermostat thermostat = thermostatRepository.save(createThermostat(user, hydrometer));
+        Thermostat withoutHydrometer = thermostatRepository.save(createThermostat(user, null));
+
+        HydrometerLatestMeasurement latestMeasurement = new HydrometerLatestMeasurement();
+        latestMeasurement.setId(hydrometer.getId());
+        latestMeasurement.setMeasurement(latest);
+        latestMeasurement.setMeasuredAt(latest.getCreatedAt());
+        latestMeasurementRepository.save(latestMeasurement);
+
+        // test the last measurement is resolved from the projection
+        entityManager.flush();
+        entityManager.clear();
+        Assertions.assertEquals(
+                latest.getId(),
+                thermostatRepository.findById(thermostat.getId()).orElseThrow().getLastMeasurement().orElseThrow().getId()
+        );
+        Assertions.assertTrue(
+                thermostatRepository.findById(withoutHydrometer.getId()).orElseThrow().getLastMeasurement().isEmpty()
+        );
+    }
+
+    /**
+     * Helper method to create a dummy measurement instance
+     *
+     * @param hydrometer hydrometer the measurement was taken by
+     * @param beer       beer the measurement belongs to
+     * @param createdAt  date and time the measurement was taken
+     * @return created measurement
+     */
+    private Measurement createMeasurement(Hydrometer hydrometer, Beer beer, LocalDateTime createdAt) {
+        Measurement measurement = new Measurement();
+        measurement.setAngle(12.5);
+        measurement.setTemperature(18.3);
+        measurement.setBattery(2.5);
+        measurement.setSpecificGravity(1.05);
+        measurement.setInterval(300);
+        measurement.setRssi(-73);
+        measurement.setHydrometer(hydrometer);
+        measurement.setBeer(beer);
+        measurement.setIsHidden(false);
+        measurement.setUpdatedAt(createdAt);
+        measurement.setCreatedAt(createdAt);
+
+        return measurement;
+    }
+
     /**
      * Helper method to create a dummy thermostat instance
      *
@@ -1,6 +1,8 @@
 package cz.jansimerda.homebrewdash.repository;
 
 import cz.jansimerda.homebrewdash.AbstractTest;
+import cz.jansimerda.homebrewdash.model.StockLot;
+import cz.jansimerda.homebrewdash.model.StockLotSum;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.Yeast;
 import cz.jansimerda.homebrewdash.model.YeastChange;
@@ -99,7 +101,7 @@ class YeastChangeRepositoryTest extends AbstractTest {
     }
 
     @Test
-    void sumChangeByYeastAndUserExceptChangeId() {
+    void sumChangesByLotAndUser() {
         // init
         User user = userRepository.save(createDummyUser());
 
@@ -150,29 +152,16 @@ class YeastChangeRepositoryTest extends AbstractTest {
         yeastRepository.save(yeast);
 
         // test zero sum
-        Assertions.assertEquals(0, yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                UUID.randomUUID()
-        ));
+        Assertions.assertTrue(yeastChangeRepository.sumChangesByLotAndUser(user.getId()).isEmpty());
 
         // store changes
         yeastChangeRepository.saveAll(changes);
 
         // test all
-        Assertions.assertEquals(70, yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                UUID.randomUUID()
-        ));
-        Assertions.assertEquals(20, yeastChangeRepository.sumChangeByYeastAndUserExceptChangeId(
-                yeast.getId(),
-                LocalDate.now(),
-                user.getId(),
-                changes.get(2).getId()
-        ));
+        Assertions.assertEquals(
+                List.of(new StockLotSum(StockLot.of(changes.get(0)), 70)),
+                yeastChangeRepository.sumChangesByLotAndUser(user.getId())
+        );
     }
 
     @Test
@@ -1,6 +1,9 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
 import cz.jansimerda.homebrewdash.AbstractTest;
+import cz.jansimerda.homebrewdash.business.HydrometerTokenCache;
+import cz.jansimerda.homebrewdash.business.InventoryCache;
+import cz.jansimerda.homebrewdash.business.UserSessionCache;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.UserSession;
 import cz.jansimerda.homebrewdash.repository.UserRepository;
@@ -19,6 +22,12 @@ public abstract class AbstractControllerTest extends AbstractTest {
     protected UserRepository userRepository;
     @Autowired
     protected UserSessionRepository sessionRepository;
+    @Autowired
+    protected HydrometerTokenCache hydrometerTokenCache;
+    @Autowired
+    protected UserSessionCache userSessionCache;
+    @Autowired
+    protected InventoryCache inventoryCache;
     private User admin;
     private User user;
 
@@ -32,6 +41,10 @@ public abstract class AbstractControllerTest extends AbstractTest {
     protected void tearDown() {
         sessionRepository.deleteAll();
         userRepository.deleteAll();
+        // entities are removed directly by the repositories, bypassing the cache invalidation
+        hydrometerTokenCache.invalidateAll();
+        userSessionCache.invalidateAll();
+        inventoryCache.invalidateAll();
     }
 
     /**
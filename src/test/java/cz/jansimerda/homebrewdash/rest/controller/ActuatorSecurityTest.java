@@ -0,0 +1,54 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Health is open to everyone, the other actuator endpoints to admins only
+ */
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=health,metrics")
+@AutoConfigureMockMvc
+class ActuatorSecurityTest extends AbstractControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void healthUnauthenticated() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/health"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    void metricsUnauthenticatedFail() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    @Test
+    void metricsUserFail() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/actuator/metrics")
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    void metricsAdmin() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/actuator/metrics")
+                                .header(AUTHORIZATION, authenticateAdmin())
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+}
@@ -1,9 +1,13 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
 import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -11,17 +15,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
 
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.LINK;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -33,9 +39,17 @@ class BeerControllerTest extends AbstractControllerTest {
     @Autowired
     private BeerRepository beerRepository;
 
+    @Autowired
+    private HydrometerRepository hydrometerRepository;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
     @Override
     @AfterEach
     protected void tearDown() {
+        measurementRepository.deleteAll();
+        hydrometerRepository.deleteAll();
         beerRepository.deleteAll();
         super.tearDown();
     }
@@ -618,6 +632,88 @@ class BeerControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isUnauthorized());
     }
 
+    @Test
+    void readAllPaginated() throws Exception {
+        List<String> ids = Stream.of(createBeer(), createBeer(), createBeer()).map(b -> b.getId().toString()).toList();
+
+        MockHttpServletResponse firstPage = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .param("limit", "2")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.header().string(LINK, Matchers.endsWith(">; rel=\"next\"")))
+                .andReturn().getResponse();
+        List<String> firstPageIds = JsonPath.read(firstPage.getContentAsString(), "$[*].id");
+        String next = Objects.requireNonNull(firstPage.getHeader(LINK));
+
+        String lastId = ids.stream().filter(id -> !firstPageIds.contains(id)).findFirst().orElseThrow();
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(next.substring(1, next.indexOf('>')))
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(lastId)))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(LINK));
+    }
+
+    @Test
+    void readAllFiltered() throws Exception {
+        createBeer();
+        Beer planned = createBeer();
+        planned.setState(BrewStateEnum.PLANNING);
+        beerRepository.save(planned);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .param("state", "PLANNING")
+                                .param("from", LocalDateTime.now().minusHours(1).toString())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(planned.getId().toString())));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .param("to", LocalDateTime.now().minusHours(1).toString())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(0)));
+    }
+
+    @Test
+    void readAllInvalidQueryFail() throws Exception {
+        Map<String, String> invalidParameters = Map.of(
+                "limit", "0",
+                "after", "invalid-cursor",
+                "state", "BOTTLED",
+                "color", "pale"
+        );
+
+        for (Map.Entry<String, String> parameter : invalidParameters.entrySet()) {
+            mockMvc.perform(
+                            MockMvcRequestBuilders
+                                    .get(getUri())
+                                    .param(parameter.getKey(), parameter.getValue())
+                                    .header(AUTHORIZATION, authenticateUser())
+                                    .accept(MediaType.APPLICATION_JSON)
+                    )
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        }
+    }
+
     @Test
     void readOneUser() throws Exception {
         Beer beer = createBeer();
@@ -731,6 +827,90 @@ class BeerControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
+    @Test
+    void readFermentationStats() throws Exception {
+        Beer beer = createBeer();
+        Hydrometer hydrometer = createHydrometer(beer);
+        createMeasurement(hydrometer, "1.030", "19");
+        createMeasurement(hydrometer, "1.5", "30");
+        createMeasurement(hydrometer, "1.020", "21");
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getFermentationStatsUri(beer.getId()))
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.beerId", Matchers.is(beer.getId().toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.measurementCount", Matchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.firstMeasuredAt", Matchers.not(Matchers.emptyString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.lastMeasuredAt", Matchers.not(Matchers.emptyString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.currentGravity", Matchers.closeTo(1.02, 0.000001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.currentTemperature", Matchers.closeTo(21, 0.000001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.apparentAttenuation", Matchers.closeTo(37.5, 0.000001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.alcoholByVolume", Matchers.closeTo(1.575, 0.000001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.temperatureMean", Matchers.closeTo(20, 0.000001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.temperatureStdDev", Matchers.closeTo(1.414214, 0.000001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.temperatureMin", Matchers.closeTo(19, 0.000001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.temperatureMax", Matchers.closeTo(21, 0.000001)));
+    }
+
+    @Test
+    void readFermentationStatsWithoutMeasurements() throws Exception {
+        Beer beer = createBeer();
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getFermentationStatsUri(beer.getId()))
+                                .header(AUTHORIZATION, authenticateAdmin())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.measurementCount", Matchers.is(0)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.currentGravity", Matchers.nullValue()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.estimatedFinishedAt", Matchers.nullValue()));
+    }
+
+    @Test
+    void readFermentationStatsUnauthorisedFail() throws Exception {
+        Beer beer = createBeer();
+        beer.setCreatedBy(getAdmin());
+        beerRepository.save(beer);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getFermentationStatsUri(beer.getId()))
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    void readFermentationStatsUnauthenticatedFail() throws Exception {
+        Beer beer = createBeer();
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getFermentationStatsUri(beer.getId()))
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    @Test
+    void readFermentationStatsNotFoundFail() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getFermentationStatsUri(UUID.randomUUID()))
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
     @Test
     void updateUser() throws Exception {
         Beer beer = createBeer();
@@ -1492,6 +1672,53 @@ class BeerControllerTest extends AbstractControllerTest {
         return beerRepository.save(beer);
     }
 
+    /**
+     * Create a dummy Hydrometer entity assigned to the beer and persist it into the DB
+     *
+     * @param beer assigned beer
+     * @return Hydrometer entity
+     */
+    private Hydrometer createHydrometer(Beer beer) {
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel");
+        hydrometer.setToken("hydro-token");
+        hydrometer.setIsActive(true);
+        hydrometer.setAssignedBeer(beer);
+        hydrometer.setCreatedBy(getUser());
+        hydrometer.setCreatedAt(LocalDateTime.now());
+        hydrometer.setUpdatedAt(LocalDateTime.now());
+
+        return hydrometerRepository.save(hydrometer);
+    }
+
+    /**
+     * Helper method sending a measurement of the hydrometer to the API, as the hydrometer itself would
+     *
+     * @param hydrometer  hydrometer the measurement is taken by
+     * @param gravity     measured specific gravity
+     * @param temperature measured temperature in degrees Celsius
+     */
+    private void createMeasurement(Hydrometer hydrometer, String gravity, String temperature) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("token", hydrometer.getToken());
+        data.put("angle", "58.9");
+        data.put("temperature", temperature);
+        data.put("temp_units", "C");
+        data.put("battery", "3.9");
+        data.put("gravity", gravity);
+        data.put("interval", 300);
+        data.put("RSSI", -70);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post("/api/v1/measurements")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(new ObjectMapper().writeValueAsString(data))
+                )
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
     private String getUri() {
         return "/api/v1/beers";
     }
@@ -1499,4 +1726,8 @@ class BeerControllerTest extends AbstractControllerTest {
     private String getUri(UUID id) {
         return getUri() + "/" + id.toString();
     }
+
+    private String getFermentationStatsUri(UUID id) {
+        return getUri(id) + "/fermentation-stats";
+    }
 }
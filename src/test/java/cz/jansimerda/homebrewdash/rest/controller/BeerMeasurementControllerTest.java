@@ -0,0 +1,335 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BeerMeasurementControllerTest extends AbstractControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @AfterEach
+    @Override
+    protected void tearDown() {
+        measurementRepository.deleteAll();
+        super.tearDown();
+    }
+
+    @Test
+    void readSeries() throws Exception {
+        Beer beer = createBeer();
+        createMeasurement(beer, 1.05, false);
+        createMeasurement(beer, 1.03, false);
+        createMeasurement(beer, 2, true);
+        createMeasurement(createBeer(), 1.01, false);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(beer.getId()))
+                                .param("bucket", "1d")
+                                .param("agg", "avg,max")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].time", Matchers.endsWith("T00:00:00")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].count", Matchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].specificGravity.avg", Matchers.closeTo(1.04, 0.0001)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].specificGravity.max", Matchers.is(1.05)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].specificGravity.min").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].temperature.avg", Matchers.closeTo(20.12, 0.0001)));
+    }
+
+    @Test
+    void readSeriesOutOfRange() throws Exception {
+        Beer beer = createBeer();
+        createMeasurement(beer, 1.05, false);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(beer.getId()))
+                                .param("from", LocalDateTime.now().minusDays(2).toString())
+                                .param("to", LocalDateTime.now().minusDays(1).toString())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(0)));
+    }
+
+    @Test
+    void readSeriesInvalidParametersFail() throws Exception {
+        Beer beer = createBeer();
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(beer.getId()))
+                                .param("bucket", "1y")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(beer.getId()))
+                                .param("agg", "avg,median")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(beer.getId()))
+                                .param("points", "2")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void readSeriesNotFoundFail() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(UUID.randomUUID()))
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    void readSeriesUnauthorizedFail() throws Exception {
+        Beer beer = createBeer();
+        beer.setCreatedBy(getAdmin());
+        beerRepository.save(beer);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(beer.getId()))
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    void readSeriesUnauthenticatedFail() throws Exception {
+        Beer beer = createBeer();
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri(beer.getId()))
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        Beer beer = createBeer();
+        Measurement first = createMeasurement(beer, 1.05, false);
+        Measurement second = createMeasurement(beer, 1.03, true);
+        createMeasurement(createBeer(), 1.01, false);
+
+        MvcResult result = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getExportUri(beer.getId()))
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String content = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString();
+
+        Map<String, String> lines = content.lines().collect(Collectors.toMap(l -> JsonPath.read(l, "$.id"), l -> l));
+        Assertions.assertEquals(Set.of(first.getId().toString(), second.getId().toString()), lines.keySet());
+        Assertions.assertTrue(content.endsWith("\n"));
+        Assertions.assertEquals(1.05, JsonPath.<Double>read(lines.get(first.getId().toString()), "$.gravity.specificGravity"));
+        Assertions.assertTrue(JsonPath.<Boolean>read(lines.get(second.getId().toString()), "$.hidden"));
+    }
+
+    @Test
+    void exportCsvGzip() throws Exception {
+        Beer beer = createBeer();
+        Measurement measurement = createMeasurement(beer, 1.05, false);
+
+        MvcResult result = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getExportUri(beer.getId()))
+                                .param("format", "csv")
+                                .header(ACCEPT_ENCODING, "gzip, deflate")
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        byte[] content = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(MockMvcResultMatchers.header().string(CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> lines = csv.lines().toList();
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).startsWith("id,createdAt,"));
+        Assertions.assertTrue(lines.get(1).startsWith(measurement.getId().toString() + ","));
+        Assertions.assertTrue(lines.get(1).endsWith("," + beer.getId() + ",false"));
+    }
+
+    @Test
+    void exportGzipRefused() throws Exception {
+        Beer beer = createBeer();
+        Measurement measurement = createMeasurement(beer, 1.05, false);
+
+        for (String acceptEncoding : List.of("gzip;q=0, deflate", "x-gzip", "*;q=0", "*, gzip;q=0")) {
+            MvcResult result = mockMvc.perform(
+                            MockMvcRequestBuilders
+                                    .get(getExportUri(beer.getId()))
+                                    .param("format", "csv")
+                                    .header(ACCEPT_ENCODING, acceptEncoding)
+                                    .header(AUTHORIZATION, authenticateUser())
+                    )
+                    .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                    .andReturn();
+
+            String csv = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.header().doesNotExist(CONTENT_ENCODING))
+                    .andReturn().getResponse().getContentAsString();
+            Assertions.assertTrue(csv.contains(measurement.getId().toString()), acceptEncoding);
+        }
+    }
+
+    @Test
+    void exportInvalidFormatFail() throws Exception {
+        Beer beer = createBeer();
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getExportUri(beer.getId()))
+                                .param("format", "xlsx")
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void exportUnauthorizedFail() throws Exception {
+        Beer beer = createBeer();
+        beer.setCreatedBy(getAdmin());
+        beerRepository.save(beer);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getExportUri(beer.getId()))
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getExportUri(UUID.randomUUID()))
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    /**
+     * Helper method to create a dummy beer instance
+     *
+     * @return beer instance
+     */
+    private Beer createBeer() {
+        Beer beer = new Beer();
+        beer.setName("Test beer");
+        beer.setCreatedBy(getUser());
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+
+        return beerRepository.save(beer);
+    }
+
+    /**
+     * Helper method to create a dummy measurement instance
+     *
+     * @param beer            beer to be assigned to
+     * @param specificGravity measured specific gravity
+     * @param hidden          whether the measurement is hidden
+     * @return measurement instance
+     */
+    private Measurement createMeasurement(Beer beer, double specificGravity, boolean hidden) {
+        Measurement measurement = new Measurement();
+        measurement.setAngle(58.9);
+        measurement.setTemperature(20.12);
+        measurement.setBattery(1.1132);
+        measurement.setSpecificGravity(specificGravity);
+        measurement.setInterval(300);
+        measurement.setRssi(-70);
+        measurement.setBeer(beer);
+        measurement.setIsHidden(hidden);
+        measurement.setCreatedAt(LocalDateTime.now());
+        measurement.setUpdatedAt(LocalDateTime.now());
+
+        return measurementRepository.save(measurement);
+    }
+
+    private String getUri(UUID beerId) {
+        return "/api/v1/beers/" + beerId.toString() + "/measurements/series";
+    }
+
+    private String getExportUri(UUID beerId) {
+        return "/api/v1/beers/" + beerId.toString() + "/measurements/export";
+    }
+}
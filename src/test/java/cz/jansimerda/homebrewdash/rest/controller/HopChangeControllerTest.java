@@ -1,11 +1,13 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.business.StockLedgerService;
 import cz.jansimerda.homebrewdash.model.Hop;
 import cz.jansimerda.homebrewdash.model.HopChange;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.repository.HopChangeRepository;
 import cz.jansimerda.homebrewdash.repository.HopRepository;
+import cz.jansimerda.homebrewdash.repository.StockBalanceRepository;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -38,9 +40,16 @@ class HopChangeControllerTest extends AbstractControllerTest {
     @Autowired
     private HopChangeRepository hopChangeRepository;
 
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
     @Override
     @AfterEach
     protected void tearDown() {
+        stockBalanceRepository.deleteAll();
         hopChangeRepository.deleteAll();
         hopRepository.deleteAll();
         super.tearDown();
@@ -545,6 +554,7 @@ class HopChangeControllerTest extends AbstractControllerTest {
         change.setHop(hop);
         change.setChangeGrams(-100);
         hopChangeRepository.save(change);
+        stockLedgerService.reconcile();
         User user = changeToUpdate.getUser();
 
         ObjectMapper objectMapper = new ObjectMapper();
@@ -752,6 +762,7 @@ class HopChangeControllerTest extends AbstractControllerTest {
         change.setHop(hop);
         change.setChangeGrams(-100);
         hopChangeRepository.save(change);
+        stockLedgerService.reconcile();
 
         mockMvc.perform(
                         MockMvcRequestBuilders
@@ -780,7 +791,7 @@ class HopChangeControllerTest extends AbstractControllerTest {
     }
 
     /**
-     * Create a dummy HopChange entity and persist it into the DB
+     * Create a dummy HopChange entity and persist it into the DB, stock balances are rebuilt to match
      *
      * @return HopChange entity
      */
@@ -793,7 +804,10 @@ class HopChangeControllerTest extends AbstractControllerTest {
         change.setUser(getUser());
         change.setHop(createHop());
 
-        return hopChangeRepository.save(change);
+        HopChange saved = hopChangeRepository.save(change);
+        stockLedgerService.reconcile();
+
+        return saved;
     }
 
     private String getUri() {
@@ -7,6 +7,7 @@ import cz.jansimerda.homebrewdash.repository.HopChangeRepository;
 import cz.jansimerda.homebrewdash.repository.HopRepository;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -24,6 +25,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.LINK;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -170,6 +172,46 @@ class HopControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isUnauthorized());
     }
 
+    @Test
+    void readAllPaginated() throws Exception {
+        createHop();
+        createHop("Another hop name");
+
+        String next = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .param("limit", "1")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andReturn().getResponse().getHeader(LINK);
+        Assertions.assertNotNull(next);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(next.substring(1, next.indexOf('>')))
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(LINK));
+    }
+
+    @Test
+    void readAllByCreationFail() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .param("from", LocalDateTime.now().minusDays(1).toString())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     void readOne() throws Exception {
         Hop hop = createHop();
@@ -462,8 +504,18 @@ class HopControllerTest extends AbstractControllerTest {
      * @return Hop entity
      */
     private Hop createHop() {
+        return createHop("Some hop name");
+    }
+
+    /**
+     * Create a dummy Hop entity of given name and persist it into the DB
+     *
+     * @param name name of the hop
+     * @return Hop entity
+     */
+    private Hop createHop(String name) {
         Hop hop = new Hop();
-        hop.setName("Some hop name");
+        hop.setName(name);
         hop.setAlphaAcidPercentage(BigDecimal.valueOf(7.7));
         hop.setBetaAcidPercentage(BigDecimal.valueOf(3.2));
         hop.setHopStorageIndex(BigDecimal.valueOf(0.000043));
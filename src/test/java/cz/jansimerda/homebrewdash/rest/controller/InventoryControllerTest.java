@@ -0,0 +1,305 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.model.Hop;
+import cz.jansimerda.homebrewdash.model.Malt;
+import cz.jansimerda.homebrewdash.model.Yeast;
+import cz.jansimerda.homebrewdash.model.enums.YeastKindEnum;
+import cz.jansimerda.homebrewdash.model.enums.YeastTypeEnum;
+import cz.jansimerda.homebrewdash.repository.*;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class InventoryControllerTest extends AbstractControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HopRepository hopRepository;
+
+    @Autowired
+    private HopChangeRepository hopChangeRepository;
+
+    @Autowired
+    private MaltRepository maltRepository;
+
+    @Autowired
+    private MaltChangeRepository maltChangeRepository;
+
+    @Autowired
+    private YeastRepository yeastRepository;
+
+    @Autowired
+    private YeastChangeRepository yeastChangeRepository;
+
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Override
+    @AfterEach
+    protected void tearDown() {
+        stockBalanceRepository.deleteAll();
+        hopChangeRepository.deleteAll();
+        hopRepository.deleteAll();
+        maltChangeRepository.deleteAll();
+        maltRepository.deleteAll();
+        yeastChangeRepository.deleteAll();
+        yeastRepository.deleteAll();
+        super.tearDown();
+    }
+
+    @Test
+    void read() throws Exception {
+        Hop hop = createHop();
+        Malt malt = createMalt();
+        Yeast yeast = createYeast();
+        LocalDate today = LocalDate.now();
+
+        // cache the empty inventory
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops", Matchers.empty()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts", Matchers.empty()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.yeasts", Matchers.empty()));
+
+        createHopChange(hop, today, 500);
+        createHopChange(hop, today.minusDays(1), 200);
+        createHopChange(hop, today, -100);
+        createMaltChange(malt, 300);
+        createYeastChange(yeast, today, 11);
+        createYeastChange(yeast, today, -11);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[0].hopId", Matchers.is(hop.getId().toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[0].hopName", Matchers.is(hop.getName())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[0].alphaAcidPercentage", Matchers.is(5.12)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[0].betaAcidPercentage", Matchers.is(3.38)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[0].harvestedAt", Matchers.is(today.minusDays(1).toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[0].grams", Matchers.is(200)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[1].harvestedAt", Matchers.is(today.toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops[1].grams", Matchers.is(400)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts[0].maltId", Matchers.is(malt.getId().toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts[0].maltName", Matchers.is(malt.getName())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts[0].colorEbc", Matchers.is(30)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts[0].grams", Matchers.is(300)))
+                // used up lots are not listed
+                .andExpect(MockMvcResultMatchers.jsonPath("$.yeasts", Matchers.empty()));
+    }
+
+    @Test
+    void readOwnStockOnly() throws Exception {
+        Malt malt = createMalt();
+        createMaltChange(malt, 300);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .header(AUTHORIZATION, authenticateAdmin())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hops", Matchers.empty()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts", Matchers.empty()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.yeasts", Matchers.empty()));
+    }
+
+    @Test
+    void readAfterIngredientUpdate() throws Exception {
+        Malt malt = createMalt();
+        createMaltChange(malt, 300);
+
+        // cache the inventory listing the original name
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts[0].maltName", Matchers.is(malt.getName())));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "Pilsner malt");
+        data.put("manufacturerName", malt.getManufacturerName().orElseThrow());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .put("/api/v1/malts/" + malt.getId())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(new ObjectMapper().writeValueAsString(data))
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.malts[0].maltName", Matchers.is("Pilsner malt")));
+    }
+
+    @Test
+    void readUnauthenticated() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    /**
+     * Create a dummy Hop entity and persist it into the DB
+     *
+     * @return Hop entity
+     */
+    private Hop createHop() {
+        Hop hop = new Hop();
+        hop.setName("Some hop name");
+        hop.setAlphaAcidPercentage(BigDecimal.valueOf(7.7));
+        hop.setBetaAcidPercentage(BigDecimal.valueOf(3.2));
+        hop.setHopStorageIndex(BigDecimal.valueOf(0.000043));
+        hop.setCreatedBy(getUser());
+
+        return hopRepository.save(hop);
+    }
+
+    /**
+     * Create a dummy Malt entity and persist it into the DB
+     *
+     * @return Malt entity
+     */
+    private Malt createMalt() {
+        Malt malt = new Malt();
+        malt.setName("Some malt name");
+        malt.setManufacturerName("Some malt manufacturer name");
+        malt.setCreatedBy(getUser());
+
+        return maltRepository.save(malt);
+    }
+
+    /**
+     * Create a dummy Yeast entity and persist it into the DB
+     *
+     * @return Yeast entity
+     */
+    private Yeast createYeast() {
+        Yeast yeast = new Yeast();
+        yeast.setName("Some yeast name");
+        yeast.setKind(YeastKindEnum.LIQUID);
+        yeast.setType(YeastTypeEnum.ALE);
+        yeast.setCreatedBy(getUser());
+
+        return yeastRepository.save(yeast);
+    }
+
+    /**
+     * Creates a hop change of the default user through the API
+     *
+     * @param hop         changed hop
+     * @param harvestedAt date of harvest of the lot
+     * @param changeGrams count of added or subtracted grams
+     */
+    private void createHopChange(Hop hop, LocalDate harvestedAt, int changeGrams) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("hopId", hop.getId());
+        data.put("alphaAcidPercentage", "5.12");
+        data.put("betaAcidPercentage", 3.38);
+        data.put("harvestedAt", harvestedAt.toString());
+        data.put("changeGrams", changeGrams);
+
+        createChange("/api/v1/hops/changes", data);
+    }
+
+    /**
+     * Creates a malt change of the default user through the API
+     *
+     * @param malt        changed malt
+     * @param changeGrams count of added or subtracted grams
+     */
+    private void createMaltChange(Malt malt, int changeGrams) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("maltId", malt.getId());
+        data.put("colorEbc", 30);
+        data.put("changeGrams", changeGrams);
+
+        createChange("/api/v1/malts/changes", data);
+    }
+
+    /**
+     * Creates a yeast change of the default user through the API
+     *
+     * @param yeast          changed yeast
+     * @param expirationDate expiration date of the lot
+     * @param changeGrams    count of added or subtracted grams
+     */
+    private void createYeastChange(Yeast yeast, LocalDate expirationDate, int changeGrams) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("yeastId", yeast.getId());
+        data.put("expirationDate", expirationDate.toString());
+        data.put("changeGrams", changeGrams);
+
+        createChange("/api/v1/yeasts/changes", data);
+    }
+
+    /**
+     * Posts the change of the default user
+     *
+     * @param uri  URI of the change endpoint
+     * @param data request body without the user
+     */
+    private void createChange(String uri, Map<String, Object> data) throws Exception {
+        data.put("userId", getUser().getId());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(uri)
+                                .header(AUTHORIZATION, authenticateUser())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(new ObjectMapper().writeValueAsString(data))
+                )
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    private String getUri() {
+        return "/api/v1/inventory";
+    }
+}
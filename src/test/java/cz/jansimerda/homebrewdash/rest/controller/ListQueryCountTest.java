@@ -0,0 +1,340 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import cz.jansimerda.homebrewdash.model.*;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
+import cz.jansimerda.homebrewdash.model.enums.YeastKindEnum;
+import cz.jansimerda.homebrewdash.model.enums.YeastTypeEnum;
+import cz.jansimerda.homebrewdash.repository.*;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Guards the list endpoints against N+1 queries, the number of SQL statements issued by a listing
+ * must not grow with the number of listed entities.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ListQueryCountTest extends AbstractControllerTest {
+
+    /**
+     * number of listed entities of each kind
+     */
+    private static final int ENTITY_COUNT = 10;
+
+    /**
+     * maximum number of SQL statements a single listing may issue, authentication included
+     */
+    private static final int MAX_QUERIES = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private HydrometerRepository hydrometerRepository;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    @Autowired
+    private HydrometerLatestMeasurementRepository latestMeasurementRepository;
+
+    @Autowired
+    private ThermostatRepository thermostatRepository;
+
+    @Autowired
+    private HopRepository hopRepository;
+
+    @Autowired
+    private HopChangeRepository hopChangeRepository;
+
+    @Autowired
+    private MaltRepository maltRepository;
+
+    @Autowired
+    private MaltChangeRepository maltChangeRepository;
+
+    @Autowired
+    private YeastRepository yeastRepository;
+
+    @Autowired
+    private YeastChangeRepository yeastChangeRepository;
+
+    private Statistics statistics;
+
+    @Override
+    @BeforeEach
+    protected void setUp() {
+        super.setUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Override
+    @AfterEach
+    protected void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        thermostatRepository.deleteAll();
+        latestMeasurementRepository.deleteAll();
+        measurementRepository.deleteAll();
+        hydrometerRepository.deleteAll();
+        beerRepository.deleteAll();
+        hopChangeRepository.deleteAll();
+        hopRepository.deleteAll();
+        maltChangeRepository.deleteAll();
+        maltRepository.deleteAll();
+        yeastChangeRepository.deleteAll();
+        yeastRepository.deleteAll();
+        super.tearDown();
+    }
+
+    @Test
+    void readAllUser() throws Exception {
+        createEntities();
+
+        for (String uri : getUris()) {
+            assertQueryCount(uri, authenticateUser());
+        }
+    }
+
+    @Test
+    void readAllAdmin() throws Exception {
+        createEntities();
+
+        for (String uri : getUris()) {
+            assertQueryCount(uri, authenticateAdmin());
+        }
+    }
+
+    /**
+     * Helper method asserting that listing the entities doesn't exceed the maximum number of queries
+     *
+     * @param uri           URI of the list endpoint
+     * @param authorization Authorization header
+     */
+    private void assertQueryCount(String uri, String authorization) throws Exception {
+        statistics.clear();
+        double recordedBefore = recordedQueries(uri);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(uri)
+                                .header(AUTHORIZATION, authorization)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        long queries = statistics.getPrepareStatementCount();
+        Assertions.assertTrue(
+                queries <= MAX_QUERIES,
+                "Listing %s issued %d queries, at most %d expected".formatted(uri, queries, MAX_QUERIES)
+        );
+        // the queries of the request are published to the metrics as well
+        Assertions.assertEquals(queries, recordedQueries(uri) - recordedBefore, uri);
+    }
+
+    /**
+     * @param uri URI template of the endpoint
+     * @return total of the queries recorded by the metrics of the GET requests of the endpoint
+     */
+    private double recordedQueries(String uri) {
+        DistributionSummary summary = meterRegistry.find("http.server.requests.queries")
+                .tags("method", "GET", "uri", uri)
+                .summary();
+
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    /**
+     * Helper method creating the entities of the default user, each of them referencing distinct entities
+     */
+    private void createEntities() {
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            Beer beer = createBeer(i);
+            Hydrometer hydrometer = createHydrometer(beer, i);
+            Measurement measurement = createMeasurement(hydrometer, beer);
+            createLatestMeasurement(measurement);
+            createThermostat(hydrometer, i);
+            createHopChange(createHop(i));
+            createMaltChange(createMalt(i));
+            createYeastChange(createYeast(i));
+        }
+    }
+
+    private Beer createBeer(int i) {
+        Beer beer = new Beer();
+        beer.setName("Test beer #" + i);
+        beer.setCreatedBy(getUser());
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+
+        return beerRepository.save(beer);
+    }
+
+    private Hydrometer createHydrometer(Beer beer, int i) {
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel #" + i);
+        hydrometer.setToken("hydro-token-" + i);
+        hydrometer.setIsActive(true);
+        hydrometer.setAssignedBeer(beer);
+        hydrometer.setCreatedBy(getUser());
+        hydrometer.setCreatedAt(LocalDateTime.now());
+        hydrometer.setUpdatedAt(LocalDateTime.now());
+
+        return hydrometerRepository.save(hydrometer);
+    }
+
+    private Measurement createMeasurement(Hydrometer hydrometer, Beer beer) {
+        Measurement measurement = new Measurement();
+        measurement.setAngle(58.9);
+        measurement.setTemperature(20.12);
+        measurement.setBattery(1.1132);
+        measurement.setSpecificGravity(1.1001);
+        measurement.setInterval(300);
+        measurement.setRssi(-70);
+        measurement.setHydrometer(hydrometer);
+        measurement.setBeer(beer);
+        measurement.setIsHidden(false);
+        measurement.setCreatedAt(LocalDateTime.now());
+        measurement.setUpdatedAt(LocalDateTime.now());
+
+        return measurementRepository.save(measurement);
+    }
+
+    private void createLatestMeasurement(Measurement measurement) {
+        HydrometerLatestMeasurement latestMeasurement = new HydrometerLatestMeasurement();
+        latestMeasurement.setId(measurement.getHydrometer().orElseThrow().getId());
+        latestMeasurement.setMeasurement(measurement);
+        latestMeasurement.setMeasuredAt(measurement.getCreatedAt());
+
+        latestMeasurementRepository.save(latestMeasurement);
+    }
+
+    private void createThermostat(Hydrometer hydrometer, int i) {
+        Thermostat thermostat = new Thermostat();
+        thermostat.setName("Thermostat #" + i);
+        thermostat.setDeviceName("Smart Plug");
+        thermostat.setEmail("my@mail.com");
+        thermostat.setPassword("mypass");
+        thermostat.setIsHeating(true);
+        thermostat.setIsActive(true);
+        thermostat.setIsPoweredOn(true);
+        thermostat.setHydrometer(hydrometer);
+        thermostat.setState(ThermostatStateEnum.ACTIVE);
+        thermostat.setCreatedBy(getUser());
+        thermostat.setCreatedAt(LocalDateTime.now());
+        thermostat.setUpdatedAt(LocalDateTime.now());
+
+        thermostatRepository.save(thermostat);
+    }
+
+    private Hop createHop(int i) {
+        Hop hop = new Hop();
+        hop.setName("Some hop name #" + i);
+        hop.setAlphaAcidPercentage(BigDecimal.valueOf(7.7));
+        hop.setBetaAcidPercentage(BigDecimal.valueOf(3.2));
+        hop.setHopStorageIndex(BigDecimal.valueOf(0.000043));
+        hop.setCreatedBy(getUser());
+
+        return hopRepository.save(hop);
+    }
+
+    private void createHopChange(Hop hop) {
+        HopChange change = new HopChange();
+        change.setHop(hop);
+        change.setUser(getUser());
+        change.setAlphaAcidPercentage(BigDecimal.valueOf(5.12));
+        change.setBetaAcidPercentage(BigDecimal.valueOf(3.38));
+        change.setHarvestedAt(LocalDate.now());
+        change.setChangeGrams(100);
+
+        hopChangeRepository.save(change);
+    }
+
+    private Malt createMalt(int i) {
+        Malt malt = new Malt();
+        malt.setName("Some malt name #" + i);
+        malt.setManufacturerName("Some malt manufacturer name");
+        malt.setCreatedBy(getUser());
+
+        return maltRepository.save(malt);
+    }
+
+    private void createMaltChange(Malt malt) {
+        MaltChange change = new MaltChange();
+        change.setMalt(malt);
+        change.setUser(getUser());
+        change.setColorEbc(30);
+        change.setChangeGrams(100);
+
+        maltChangeRepository.save(change);
+    }
+
+    private Yeast createYeast(int i) {
+        Yeast yeast = new Yeast();
+        yeast.setName("Some yeast name #" + i);
+        yeast.setKind(YeastKindEnum.LIQUID);
+        yeast.setType(YeastTypeEnum.ALE);
+        yeast.setCreatedBy(getUser());
+
+        return yeastRepository.save(yeast);
+    }
+
+    private void createYeastChange(Yeast yeast) {
+        YeastChange change = new YeastChange();
+        change.setYeast(yeast);
+        change.setUser(getUser());
+        change.setExpirationDate(LocalDate.now());
+        change.setChangeGrams(100);
+
+        yeastChangeRepository.save(change);
+    }
+
+    private List<String> getUris() {
+        return List.of(
+                "/api/v1/beers",
+                "/api/v1/hydrometers",
+                "/api/v1/measurements",
+                "/api/v1/thermostats",
+                "/api/v1/hops",
+                "/api/v1/hops/changes",
+                "/api/v1/malts",
+                "/api/v1/malts/changes",
+                "/api/v1/yeasts",
+                "/api/v1/yeasts/changes",
+                "/api/v1/users",
+                "/api/v1/user-sessions"
+        );
+    }
+}
@@ -0,0 +1,220 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LiveEventControllerTest extends AbstractControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    @Autowired
+    private HydrometerRepository hydrometerRepository;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    @Override
+    protected void tearDown() {
+        measurementRepository.deleteAll();
+        super.tearDown();
+    }
+
+    @Test
+    void streamUser() throws Exception {
+        Hydrometer own = createHydrometer(getUser(), "user-token");
+        createHydrometer(getAdmin(), "admin-token");
+
+        MvcResult result = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        createMeasurement("admin-token", 1.061);
+        createMeasurement("user-token", 1.052);
+
+        // the event is written in parts, the data comes last
+        String content = awaitContent(result.getResponse(), "\"specificGravity\":1.052");
+        Assertions.assertTrue(content.startsWith("event:measurement"));
+        Assertions.assertTrue(content.contains("\"hydrometerId\":\"%s\"".formatted(own.getId())));
+        // the measurement of the other user has been stored first, it would have been sent first
+        Assertions.assertFalse(content.contains("1.061"));
+    }
+
+    @Test
+    void streamAdmin() throws Exception {
+        createHydrometer(getUser(), "user-token");
+
+        MvcResult result = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                                .header(AUTHORIZATION, authenticateAdmin())
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        createMeasurement("user-token", 1.052);
+
+        String content = awaitContent(result.getResponse(), "\"specificGravity\":1.052");
+        Assertions.assertTrue(content.startsWith("event:measurement"));
+    }
+
+    @Test
+    void streamTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                                .header(AUTHORIZATION, authenticateUser())
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        double subscribers = countSubscribers();
+
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        Assertions.assertNotNull(asyncContext);
+        Assertions.assertEquals(30 * 60 * 1000, asyncContext.getTimeout());
+        // the servlet container times out the request
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        Assertions.assertEquals(subscribers - 1, countSubscribers());
+    }
+
+    @Test
+    void streamUnauthenticatedFail() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                )
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    /**
+     * Helper method reading the number of the subscribers of the live events
+     *
+     * @return number of the subscribers
+     */
+    private double countSubscribers() {
+        return meterRegistry.get("live.events.subscribers").gauge().value();
+    }
+
+    /**
+     * Helper method waiting until the streamed response contains given text
+     *
+     * @param response streamed response
+     * @param text     expected text
+     * @return content of the response
+     */
+    private String awaitContent(MockHttpServletResponse response, String text) throws Exception {
+        for (int i = 0; i < 100 && !response.getContentAsString().contains(text); i++) {
+            Thread.sleep(50);
+        }
+        String content = response.getContentAsString();
+        Assertions.assertTrue(content.contains(text), content);
+
+        return content;
+    }
+
+    /**
+     * Helper method storing a measurement through the API as a hydrometer would
+     *
+     * @param token           token of the hydrometer
+     * @param specificGravity measured specific gravity
+     */
+    private void createMeasurement(String token, double specificGravity) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("token", token);
+        data.put("angle", 58.9);
+        data.put("temperature", 20.5);
+        data.put("temp_units", "C");
+        data.put("battery", 3.9);
+        data.put("gravity", specificGravity);
+        data.put("interval", 300);
+        data.put("RSSI", -70);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post("/api/v1/measurements")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(new ObjectMapper().writeValueAsString(data))
+                )
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    /**
+     * Helper method to create a hydrometer with a fermenting beer assigned
+     *
+     * @param owner owner of the hydrometer and the beer
+     * @param token token of the hydrometer
+     * @return hydrometer instance
+     */
+    private Hydrometer createHydrometer(User owner, String token) {
+        Beer beer = new Beer();
+        beer.setName("Test beer");
+        beer.setCreatedBy(owner);
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel");
+        hydrometer.setToken(token);
+        hydrometer.setIsActive(true);
+        hydrometer.setAssignedBeer(beerRepository.save(beer));
+        hydrometer.setCreatedBy(owner);
+        hydrometer.setCreatedAt(LocalDateTime.now());
+        hydrometer.setUpdatedAt(LocalDateTime.now());
+
+        return hydrometerRepository.save(hydrometer);
+    }
+
+    private String getUri() {
+        return "/api/v1/stream";
+    }
+}
@@ -1,11 +1,13 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.business.StockLedgerService;
 import cz.jansimerda.homebrewdash.model.Malt;
 import cz.jansimerda.homebrewdash.model.MaltChange;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.repository.MaltChangeRepository;
 import cz.jansimerda.homebrewdash.repository.MaltRepository;
+import cz.jansimerda.homebrewdash.repository.StockBalanceRepository;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -36,9 +38,16 @@ class MaltChangeControllerTest extends AbstractControllerTest {
     @Autowired
     private MaltChangeRepository maltChangeRepository;
 
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
     @Override
     @AfterEach
     protected void tearDown() {
+        stockBalanceRepository.deleteAll();
         maltChangeRepository.deleteAll();
         maltRepository.deleteAll();
         super.tearDown();
@@ -487,6 +496,7 @@ class MaltChangeControllerTest extends AbstractControllerTest {
         change.setMalt(malt);
         change.setChangeGrams(-100);
         maltChangeRepository.save(change);
+        stockLedgerService.reconcile();
         User user = changeToUpdate.getUser();
 
         ObjectMapper objectMapper = new ObjectMapper();
@@ -684,6 +694,7 @@ class MaltChangeControllerTest extends AbstractControllerTest {
         change.setMalt(malt);
         change.setChangeGrams(-100);
         maltChangeRepository.save(change);
+        stockLedgerService.reconcile();
 
         mockMvc.perform(
                         MockMvcRequestBuilders
@@ -710,7 +721,7 @@ class MaltChangeControllerTest extends AbstractControllerTest {
     }
 
     /**
-     * Create a dummy MaltChange entity and persist it into the DB
+     * Create a dummy MaltChange entity and persist it into the DB, stock balances are rebuilt to match
      *
      * @return MaltChange entity
      */
@@ -721,7 +732,10 @@ class MaltChangeControllerTest extends AbstractControllerTest {
         change.setUser(getUser());
         change.setMalt(createMalt());
 
-        return maltChangeRepository.save(change);
+        MaltChange saved = maltChangeRepository.save(change);
+        stockLedgerService.reconcile();
+
+        return saved;
     }
 
     private String getUri() {
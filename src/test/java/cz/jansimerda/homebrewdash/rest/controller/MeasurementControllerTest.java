@@ -7,10 +7,12 @@ import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.model.Measurement;
 import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
 import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerLatestMeasurementRepository;
 import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
 import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -20,9 +22,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -44,6 +47,9 @@ public class MeasurementControllerTest extends AbstractControllerTest {
     @Autowired
     private BeerRepository beerRepository;
 
+    @Autowired
+    private HydrometerLatestMeasurementRepository latestMeasurementRepository;
+
     @AfterEach
     @Override
     protected void tearDown() {
@@ -89,6 +95,147 @@ public class MeasurementControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.createdAt", Matchers.not(Matchers.emptyString())));
     }
 
+    @Test
+    void createPlato() throws Exception {
+        Hydrometer hydrometer = createHydrometer(createBeer());
+
+        // SG 1 is exactly 0.005 °P, rounded half even
+        Map<String, String> expected = Map.of("1.0", "0.00", "1.05", "12.39", "0.99", "-2.59");
+        for (Map.Entry<String, String> gravity : expected.entrySet()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("token", hydrometer.getToken());
+            data.put("angle", 58.9);
+            data.put("temperature", 68);
+            data.put("temp_units", "F");
+            data.put("battery", 3.9);
+            data.put("gravity", gravity.getKey());
+            data.put("interval", 300);
+            data.put("RSSI", -70);
+
+            mockMvc.perform(
+                            MockMvcRequestBuilders
+                                    .post(getUri())
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .accept(MediaType.APPLICATION_JSON)
+                                    .content(new ObjectMapper().writeValueAsString(data))
+                    )
+                    .andExpect(MockMvcResultMatchers.status().isCreated())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.temperature", Matchers.is(20.0)))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.gravity.plato", Matchers.is(gravity.getValue())));
+        }
+    }
+
+    @Test
+    void createBatch() throws Exception {
+        Hydrometer hydrometer = createHydrometer(createBeer());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> valid = new HashMap<>();
+        valid.put("token", hydrometer.getToken());
+        valid.put("angle", "65.12345678");
+        valid.put("temperature", 18.5);
+        valid.put("temp_units", "C");
+        valid.put("battery", "3.123456789");
+        valid.put("gravity", "1.045");
+        valid.put("interval", 300);
+        valid.put("RSSI", -65);
+
+        Map<String, Object> unknownToken = new HashMap<>(valid);
+        unknownToken.put("token", "wrong-token");
+
+        Map<String, Object> invalid = new HashMap<>(valid);
+        invalid.put("angle", "200");
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(getUri() + "/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(List.of(valid, unknownToken, invalid, valid)))
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(4)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].index", Matchers.is(0)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.is(201)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].measurement.id", Matchers.not(Matchers.emptyString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].measurement.hydrometerId", Matchers.is(hydrometer.getId().toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].measurement.hidden", Matchers.is(false)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].error", Matchers.nullValue()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status", Matchers.is(403)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].measurement", Matchers.nullValue()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error.type", Matchers.is(ExposedExceptionTypeEnum.ACCESS_DENIED.toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status", Matchers.is(400)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].error.type", Matchers.is(ExposedExceptionTypeEnum.VALIDATION_ERROR.toString())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].error.errors[?(@.fieldName == 'angle')]").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[3].index", Matchers.is(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[3].status", Matchers.is(201)));
+
+        Assertions.assertEquals(2, measurementRepository.count());
+    }
+
+    @Test
+    void createBatchReplayed() throws Exception {
+        Hydrometer hydrometer = createHydrometer(createBeer());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        // readings buffered by a gateway while offline, replayed out of order
+        List<Map<String, Object>> buffered = List.of(
+                createBatchItem(hydrometer.getToken(), now.minusHours(3)),
+                createBatchItem(hydrometer.getToken(), now.minusHours(1)),
+                createBatchItem(hydrometer.getToken(), now.minusHours(2)),
+                createBatchItem(hydrometer.getToken(), now.plusHours(1)),
+                createBatchItem(hydrometer.getToken(), now.minusDays(8))
+        );
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(getUri() + "/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(new ObjectMapper().writeValueAsString(buffered))
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.is(201)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status", Matchers.is(201)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status", Matchers.is(201)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[3].status", Matchers.is(400)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[3].error.errors[?(@.fieldName == 'measuredAt')]").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[4].status", Matchers.is(400)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[4].error.errors[?(@.fieldName == 'measuredAt')]").exists());
+
+        List<LocalDateTime> createdAt = measurementRepository.findAll().stream()
+                .map(Measurement::getCreatedAt)
+                .sorted()
+                .toList();
+        Assertions.assertEquals(List.of(now.minusHours(3), now.minusHours(2), now.minusHours(1)), createdAt);
+        Assertions.assertEquals(
+                now.minusHours(1),
+                latestMeasurementRepository.findById(hydrometer.getId()).orElseThrow().getMeasuredAt()
+        );
+
+        // a reading replayed after a newer one has been stored doesn't become the latest one
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post(getUri() + "/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(new ObjectMapper().writeValueAsString(List.of(
+                                        createBatchItem(hydrometer.getToken(), now.minusMinutes(90))
+                                )))
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.is(201)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].measurement.createdAt", Matchers.startsWith(
+                        now.minusMinutes(90).toString()
+                )));
+
+        Assertions.assertEquals(4, measurementRepository.count());
+        Assertions.assertEquals(
+                now.minusHours(1),
+                latestMeasurementRepository.findById(hydrometer.getId()).orElseThrow().getMeasuredAt()
+        );
+    }
+
     @Test
     void createNotHidden() throws Exception {
         Hydrometer hydrometer = createHydrometer(createBeer());
@@ -303,10 +450,10 @@ public class MeasurementControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].id", Matchers.hasItem(measurement.getId().toString())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].angle", Matchers.hasItem(measurement.getAngle().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].temperature", Matchers.hasItem(measurement.getTemperature().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].battery", Matchers.hasItem(measurement.getBattery().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].gravity.specificGravity", Matchers.hasItem(measurement.getSpecificGravity().doubleValue())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].angle", Matchers.hasItem(measurement.getAngle())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].temperature", Matchers.hasItem(measurement.getTemperature())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].battery", Matchers.hasItem(measurement.getBattery())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].gravity.specificGravity", Matchers.hasItem(measurement.getSpecificGravity())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].interval", Matchers.hasItem(measurement.getInterval())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].rssi", Matchers.hasItem(measurement.getRssi())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].hydrometerId", Matchers.hasItem(hydrometer.getId().toString())))
@@ -333,10 +480,10 @@ public class MeasurementControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].id", Matchers.hasItem(measurement.getId().toString())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].angle", Matchers.hasItem(measurement.getAngle().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].temperature", Matchers.hasItem(measurement.getTemperature().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].battery", Matchers.hasItem(measurement.getBattery().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[*].gravity.specificGravity", Matchers.hasItem(measurement.getSpecificGravity().doubleValue())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].angle", Matchers.hasItem(measurement.getAngle())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].temperature", Matchers.hasItem(measurement.getTemperature())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].battery", Matchers.hasItem(measurement.getBattery())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].gravity.specificGravity", Matchers.hasItem(measurement.getSpecificGravity())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].interval", Matchers.hasItem(measurement.getInterval())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].rssi", Matchers.hasItem(measurement.getRssi())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[*].hydrometerId", Matchers.hasItem(hydrometer.getId().toString())))
@@ -357,6 +504,40 @@ public class MeasurementControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isUnauthorized());
     }
 
+    @Test
+    void readAllFiltered() throws Exception {
+        Beer beer = createBeer();
+        Hydrometer hydrometer = createHydrometer(beer);
+        createMeasurement(hydrometer, beer);
+        Measurement hidden = createMeasurement(hydrometer, beer);
+        hidden.setIsHidden(true);
+        measurementRepository.save(hidden);
+
+        Beer otherBeer = createBeer();
+        createMeasurement(hydrometer, otherBeer);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .param("beerId", beer.getId().toString())
+                                .param("hidden", "true")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(hidden.getId().toString())));
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get(getUri())
+                                .param("hidden", "yes")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     void readOneUser() throws Exception {
         Beer beer = createBeer();
@@ -373,10 +554,12 @@ public class MeasurementControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(measurement.getId().toString())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.angle", Matchers.is(measurement.getAngle().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.temperature", Matchers.is(measurement.getTemperature().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.battery", Matchers.is(measurement.getBattery().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.gravity.specificGravity", Matchers.is(measurement.getSpecificGravity().doubleValue())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.angle", Matchers.is(measurement.getAngle())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.temperature", Matchers.is(measurement.getTemperature())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.battery", Matchers.is(measurement.getBattery())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.gravity.specificGravity", Matchers.is(measurement.getSpecificGravity())))
+                // the specific gravity keeps the scale of its column
+                .andExpect(MockMvcResultMatchers.content().string(Matchers.containsString("\"specificGravity\":1.10010000,")))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.interval", Matchers.is(measurement.getInterval())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.rssi", Matchers.is(measurement.getRssi())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.hydrometerId", Matchers.is(hydrometer.getId().toString())))
@@ -402,10 +585,10 @@ public class MeasurementControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(measurement.getId().toString())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.angle", Matchers.is(measurement.getAngle().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.temperature", Matchers.is(measurement.getTemperature().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.battery", Matchers.is(measurement.getBattery().doubleValue())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.gravity.specificGravity", Matchers.is(measurement.getSpecificGravity().doubleValue())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.angle", Matchers.is(measurement.getAngle())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.temperature", Matchers.is(measurement.getTemperature())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.battery", Matchers.is(measurement.getBattery())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.gravity.specificGravity", Matchers.is(measurement.getSpecificGravity())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.interval", Matchers.is(measurement.getInterval())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.rssi", Matchers.is(measurement.getRssi())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.hydrometerId", Matchers.is(hydrometer.getId().toString())))
@@ -747,6 +930,28 @@ public class MeasurementControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
+    /**
+     * Helper method to create a batch item of a reading taken at given date and time
+     *
+     * @param token      hydrometer token
+     * @param measuredAt date and time of the reading
+     * @return batch item
+     */
+    private Map<String, Object> createBatchItem(String token, LocalDateTime measuredAt) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("token", token);
+        item.put("angle", 58.9);
+        item.put("temperature", 20.1);
+        item.put("temp_units", "C");
+        item.put("battery", 3.9);
+        item.put("gravity", 1.045);
+        item.put("interval", 900);
+        item.put("RSSI", -70);
+        item.put("measured_at", measuredAt.toString());
+
+        return item;
+    }
+
     /**
      * Helper method to create a dummy beer instance
      *
@@ -792,10 +997,10 @@ public class MeasurementControllerTest extends AbstractControllerTest {
      */
     private Measurement createMeasurement(Hydrometer hydrometer, Beer beer) {
         Measurement measurement = new Measurement();
-        measurement.setAngle(BigDecimal.valueOf(58.9));
-        measurement.setTemperature(BigDecimal.valueOf(20.12));
-        measurement.setBattery(BigDecimal.valueOf(1.1132));
-        measurement.setSpecificGravity(BigDecimal.valueOf(1.1001));
+        measurement.setAngle(58.9);
+        measurement.setTemperature(20.12);
+        measurement.setBattery(1.1132);
+        measurement.setSpecificGravity(1.1001);
         measurement.setInterval(300);
         measurement.setRssi(-70);
         measurement.setHydrometer(hydrometer);
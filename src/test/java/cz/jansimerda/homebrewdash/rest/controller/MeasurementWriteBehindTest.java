@@ -0,0 +1,261 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.business.JournaledMeasurement;
+import cz.jansimerda.homebrewdash.business.MeasurementJournal;
+import cz.jansimerda.homebrewdash.business.MeasurementService;
+import cz.jansimerda.homebrewdash.exception.exposed.ExposedExceptionTypeEnum;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.Measurement;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Measurements of the write-behind ingestion are accepted right away and stored by the flush of the journal
+ */
+@SpringBootTest(properties = {
+        "measurement.write-behind.enabled=true",
+        // flushed by the tests only
+        "measurement.write-behind.flush-interval-millis=3600000"
+})
+@AutoConfigureMockMvc
+class MeasurementWriteBehindTest extends AbstractControllerTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeasurementService measurementService;
+
+    @Autowired
+    private MeasurementJournal journal;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    @Autowired
+    private HydrometerRepository hydrometerRepository;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("measurement.write-behind.directory", journalDirectory::toString);
+    }
+
+    @AfterEach
+    @Override
+    protected void tearDown() {
+        measurementService.flushJournal();
+        measurementRepository.deleteAll();
+        super.tearDown();
+    }
+
+    @Test
+    void createAccepted() throws Exception {
+        Hydrometer hydrometer = createHydrometer(createBeer());
+        LocalDateTime receivedAfter = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post("/api/v1/measurements")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(createRequest(hydrometer.getToken()))
+                )
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+        Assertions.assertEquals(0, measurementRepository.count());
+
+        measurementService.flushJournal();
+
+        List<Measurement> measurements = measurementRepository.findAll();
+        Assertions.assertEquals(1, measurements.size());
+        Measurement measurement = measurements.get(0);
+        Assertions.assertEquals(58.9, measurement.getAngle());
+        Assertions.assertEquals(20.1, measurement.getTemperature());
+        Assertions.assertEquals(1.045, measurement.getSpecificGravity());
+        Assertions.assertEquals(hydrometer.getId(), measurement.getHydrometer().orElseThrow().getId());
+        // created at the date and time of reception rather than of the flush
+        Assertions.assertFalse(measurement.getCreatedAt().isBefore(receivedAfter));
+        Assertions.assertTrue(measurement.getCreatedAt().isBefore(measurement.getUpdatedAt()));
+    }
+
+    @Test
+    void createIncorrectTokenFail() throws Exception {
+        createHydrometer(createBeer());
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post("/api/v1/measurements")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(createRequest("incorrect-token"))
+                )
+                .andExpect(MockMvcResultMatchers.status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.type").value(ExposedExceptionTypeEnum.ACCESS_DENIED.toString()));
+
+        measurementService.flushJournal();
+        Assertions.assertEquals(0, measurementRepository.count());
+    }
+
+    @Test
+    void createUnassignedHydrometerFail() throws Exception {
+        Hydrometer hydrometer = createHydrometer(null);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post("/api/v1/measurements")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(createRequest(hydrometer.getToken()))
+                )
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+
+        measurementService.flushJournal();
+        Assertions.assertEquals(0, measurementRepository.count());
+    }
+
+    @Test
+    void replayedStoredOnce() {
+        Hydrometer hydrometer = createHydrometer(createBeer());
+        JournaledMeasurement journaled = createJournaledMeasurement(hydrometer.getToken(), 58.9);
+
+        journal.append(journaled);
+        measurementService.flushJournal();
+        // replayed after a crash between the commit of the flush and the removal from the journal
+        journal.append(journaled);
+        measurementService.flushJournal();
+
+        List<Measurement> measurements = measurementRepository.findAll();
+        Assertions.assertEquals(1, measurements.size());
+        Assertions.assertEquals(journaled.id(), measurements.get(0).getId());
+    }
+
+    @Test
+    void failingMeasurementQuarantined() throws Exception {
+        Hydrometer hydrometer = createHydrometer(createBeer());
+        JournaledMeasurement first = createJournaledMeasurement(hydrometer.getToken(), 58.9);
+        // exceeds the precision of the column, so the batch fails on insert
+        JournaledMeasurement failing = createJournaledMeasurement(hydrometer.getToken(), 123456.0);
+        JournaledMeasurement last = createJournaledMeasurement(hydrometer.getToken(), 60.1);
+        journal.append(first);
+        journal.append(failing);
+        journal.append(last);
+
+        measurementService.flushJournal();
+
+        List<UUID> stored = measurementRepository.findAll().stream().map(Measurement::getId).toList();
+        Assertions.assertEquals(2, stored.size());
+        Assertions.assertTrue(stored.containsAll(List.of(first.id(), last.id())));
+        Assertions.assertTrue(journal.peek(10).isEmpty());
+        List<String> quarantined = Files.readAllLines(journalDirectory.resolve("quarantine.jsonl"));
+        Assertions.assertEquals(1, quarantined.size());
+        Assertions.assertTrue(quarantined.get(0).contains(failing.id().toString()));
+    }
+
+    /**
+     * Helper method to create a measurement accepted by the write-behind ingestion
+     *
+     * @param token hydrometer token
+     * @param angle hydrometer angle in degrees
+     * @return journaled measurement
+     */
+    private JournaledMeasurement createJournaledMeasurement(String token, double angle) {
+        return new JournaledMeasurement(
+                UUID.randomUUID(),
+                token,
+                angle,
+                20.1,
+                3.9,
+                1.045,
+                900,
+                -70,
+                LocalDateTime.now()
+        );
+    }
+
+    /**
+     * Helper method to create the body of a measurement request
+     *
+     * @param token hydrometer token
+     * @return request body
+     */
+    private String createRequest(String token) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("token", token);
+        data.put("angle", 58.9);
+        data.put("temperature", 20.1);
+        data.put("temp_units", "C");
+        data.put("battery", 3.9);
+        data.put("gravity", 1.045);
+        data.put("interval", 900);
+        data.put("RSSI", -70);
+
+        return new ObjectMapper().writeValueAsString(data);
+    }
+
+    /**
+     * Helper method to create a dummy beer instance
+     *
+     * @return beer instance
+     */
+    private Beer createBeer() {
+        Beer beer = new Beer();
+        beer.setName("Test beer");
+        beer.setCreatedBy(getUser());
+        beer.setState(BrewStateEnum.FERMENTING);
+        beer.setCreatedAt(LocalDateTime.now());
+        beer.setUpdatedAt(LocalDateTime.now());
+
+        return beerRepository.save(beer);
+    }
+
+    /**
+     * Helper method to create a dummy hydrometer instance
+     *
+     * @param beer beer to assign to hydrometer, null if none
+     * @return hydrometer instance
+     */
+    private Hydrometer createHydrometer(Beer beer) {
+        Hydrometer hydrometer = new Hydrometer();
+        hydrometer.setName("iSpindel");
+        hydrometer.setToken("hydro-token");
+        hydrometer.setIsActive(true);
+        hydrometer.setAssignedBeer(beer);
+        hydrometer.setCreatedBy(getUser());
+        hydrometer.setCreatedAt(LocalDateTime.now());
+        hydrometer.setUpdatedAt(LocalDateTime.now());
+
+        return hydrometerRepository.save(hydrometer);
+    }
+}
@@ -0,0 +1,79 @@
+package cz.jansimerda.homebrewdash.rest.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Requests over the query budget are logged with their SQL statements
+ */
+@SpringBootTest(properties = "query-budget.max-statements=0")
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class QueryBudgetTest extends AbstractControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void overBudgetLogged(CapturedOutput output) throws Exception {
+        long timedBefore = timedRequests();
+        double nanosBefore = timedNanos();
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/api/v1/beers")
+                                .header(AUTHORIZATION, authenticateUser())
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Assertions.assertTrue(output.getOut().contains("GET /api/v1/beers ran"), output.getOut());
+        Assertions.assertTrue(output.getOut().contains("over the budget of 0 statements"), output.getOut());
+        Assertions.assertTrue(output.getOut().matches("(?s).*\\dx select .* from beers .*"), output.getOut());
+        Assertions.assertEquals(timedBefore + 1, timedRequests());
+        Assertions.assertTrue(timedNanos() > nanosBefore);
+    }
+
+    /**
+     * @return number of the GET requests of the beer listing with timed SQL statements
+     */
+    private long timedRequests() {
+        Timer timer = findTimer();
+
+        return timer == null ? 0 : timer.count();
+    }
+
+    /**
+     * @return execution time of the SQL statements of the beer listing in nanoseconds
+     */
+    private double timedNanos() {
+        Timer timer = findTimer();
+
+        return timer == null ? 0 : timer.totalTime(TimeUnit.NANOSECONDS);
+    }
+
+    private Timer findTimer() {
+        return meterRegistry.find("http.server.requests.queries.time")
+                .tags("method", "GET", "uri", "/api/v1/beers")
+                .timer();
+    }
+}
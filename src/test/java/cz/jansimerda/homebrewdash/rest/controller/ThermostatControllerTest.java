@@ -9,6 +9,7 @@ import cz.jansimerda.homebrewdash.exception.internal.meross.InvalidCredentialsMe
 import cz.jansimerda.homebrewdash.model.Beer;
 import cz.jansimerda.homebrewdash.model.Hydrometer;
 import cz.jansimerda.homebrewdash.model.Thermostat;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
 import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
 import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
 import cz.jansimerda.homebrewdash.repository.ThermostatRepository;
@@ -65,6 +66,7 @@ class ThermostatControllerTest extends AbstractControllerTest {
         data.put("password", "1SecurePass++");
         data.put("heating", true);
         data.put("active", true);
+        data.put("controlMode", "PID");
         data.put("hydrometerId", hydrometer.getId());
 
         mockMvc.perform(
@@ -84,6 +86,7 @@ class ThermostatControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.heating", Matchers.is(true)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.active", Matchers.is(true)))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.on", Matchers.is(false)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.controlMode", Matchers.is(ThermostatControlModeEnum.PID.toString())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.state", Matchers.is(ThermostatStateEnum.READY.toString())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.hydrometer.id", Matchers.is(hydrometer.getId().toString())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.hydrometer.name", Matchers.is(hydrometer.getName())))
@@ -138,6 +141,7 @@ class ThermostatControllerTest extends AbstractControllerTest {
         data.put("password", "p".repeat(151));
         data.put("heating", false);
         data.put("active", false);
+        data.put("controlMode", "FUZZY");
         data.put("hydrometerId", "not UUID");
 
         mockMvc.perform(
@@ -155,6 +159,7 @@ class ThermostatControllerTest extends AbstractControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.errors[?(@.fieldName == 'deviceName')]").exists())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.errors[?(@.fieldName == 'email')]").exists())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.errors[?(@.fieldName == 'password')]").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[?(@.fieldName == 'controlMode')]").exists())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.errors[?(@.fieldName == 'hydrometerId')]").exists());
     }
 
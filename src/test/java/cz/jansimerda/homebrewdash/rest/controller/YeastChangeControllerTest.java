@@ -1,6 +1,7 @@
 package cz.jansimerda.homebrewdash.rest.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.business.StockLedgerService;
 import cz.jansimerda.homebrewdash.model.User;
 import cz.jansimerda.homebrewdash.model.Yeast;
 import cz.jansimerda.homebrewdash.model.YeastChange;
@@ -8,6 +9,7 @@ import cz.jansimerda.homebrewdash.model.enums.YeastKindEnum;
 import cz.jansimerda.homebrewdash.model.enums.YeastTypeEnum;
 import cz.jansimerda.homebrewdash.repository.YeastChangeRepository;
 import cz.jansimerda.homebrewdash.repository.YeastRepository;
+import cz.jansimerda.homebrewdash.repository.StockBalanceRepository;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -39,9 +41,16 @@ public class YeastChangeControllerTest extends AbstractControllerTest {
     @Autowired
     private YeastChangeRepository yeastChangeRepository;
 
+    @Autowired
+    private StockBalanceRepository stockBalanceRepository;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
     @Override
     @AfterEach
     protected void tearDown() {
+        stockBalanceRepository.deleteAll();
         yeastChangeRepository.deleteAll();
         yeastRepository.deleteAll();
         super.tearDown();
@@ -499,6 +508,7 @@ public class YeastChangeControllerTest extends AbstractControllerTest {
         change.setYeast(yeast);
         change.setChangeGrams(-100);
         yeastChangeRepository.save(change);
+        stockLedgerService.reconcile();
         User user = changeToUpdate.getUser();
 
         ObjectMapper objectMapper = new ObjectMapper();
@@ -696,6 +706,7 @@ public class YeastChangeControllerTest extends AbstractControllerTest {
         change.setYeast(yeast);
         change.setChangeGrams(-100);
         yeastChangeRepository.save(change);
+        stockLedgerService.reconcile();
 
         mockMvc.perform(
                         MockMvcRequestBuilders
@@ -723,7 +734,7 @@ public class YeastChangeControllerTest extends AbstractControllerTest {
     }
 
     /**
-     * Create a dummy YeastChange entity and persist it into the DB
+     * Create a dummy YeastChange entity and persist it into the DB, stock balances are rebuilt to match
      *
      * @return YeastChange entity
      */
@@ -734,7 +745,10 @@ public class YeastChangeControllerTest extends AbstractControllerTest {
         change.setUser(getUser());
         change.setYeast(createYeast());
 
-        return yeastChangeRepository.save(change);
+        YeastChange saved = yeastChangeRepository.save(change);
+        stockLedgerService.reconcile();
+
+        return saved;
     }
 
     private String getUri() {
@@ -0,0 +1,566 @@
+package cz.jansimerda.homebrewdash.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.business.ThermostatService;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.Thermostat;
+import cz.jansimerda.homebrewdash.model.User;
+import cz.jansimerda.homebrewdash.model.UserSession;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import cz.jansimerda.homebrewdash.repository.ThermostatRepository;
+import cz.jansimerda.homebrewdash.rest.controller.AbstractControllerTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Replays the traffic of many brewers against the application served on a random port, backed by H2
+ * and the simulated Meross cloud. Hydrometers post their readings every interval, dashboard users poll
+ * their beers, measurements and fermentation statistics and the thermostat scheduler ticks.
+ * Latency is measured from the time a call is due, so a server falling behind is not hidden by the calls
+ * waiting for it. After the steady traffic, every endpoint is loaded alone with doubling request rates
+ * to find the highest rate served within the latency budget and the error rate.
+ * Run only by the loadTest Gradle task and sized by its load properties, e.g. -Pload.hydrometers=1000.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApplicationLoadTest extends AbstractControllerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationLoadTest.class);
+
+    private static final String INGESTION = "POST /api/v1/measurements";
+
+    private static final String BEERS = "GET /api/v1/beers";
+
+    private static final String MEASUREMENTS = "GET /api/v1/measurements";
+
+    private static final String STATS = "GET /api/v1/beers/{id}/fermentation-stats";
+
+    private static final String TICK = "thermostat tick";
+
+    private static final String READING = """
+            {"token":"%s","angle":58.9,"temperature":%.2f,"temp_units":"C","battery":3.9,"gravity":1.045,
+            "interval":%d,"RSSI":-70}""";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * longest wait for the calls of a replay to complete after the last one is due
+     */
+    private static final Duration COMPLETION_TIMEOUT = Duration.ofMinutes(3);
+
+    @TestConfiguration
+    static class LoadConfiguration {
+
+        @Bean
+        @Primary
+        SimulatedMerossWorker simulatedMerossWorker() {
+            return new SimulatedMerossWorker(Duration.ofMillis(50), Duration.ofMillis(250), 0.01, 42);
+        }
+    }
+
+    /**
+     * Dashboard user with the hydrometers of their fermenters
+     *
+     * @param authorization Authorization header of the user
+     * @param beerIds       IDs of the fermenting beers
+     * @param tokens        tokens of the hydrometers
+     */
+    private record Brewer(String authorization, List<UUID> beerIds, List<String> tokens) {
+    }
+
+    /**
+     * Call due at an offset from the start of a replay
+     *
+     * @param offsetNanos time from the start of the replay when the call is due
+     * @param endpoint    endpoint the outcome is recorded to
+     * @param call        starts the call, completed with whether the call succeeded
+     */
+    private record Call(long offsetNanos, String endpoint, Supplier<CompletableFuture<Boolean>> call) {
+    }
+
+    /**
+     * Outcomes of the calls of an endpoint
+     *
+     * @param calls     number of the calls
+     * @param errorRate share of the failed calls
+     * @param p50Millis median latency
+     * @param p99Millis 99th percentile of the latency
+     */
+    private record Summary(int calls, double errorRate, double p50Millis, double p99Millis) {
+    }
+
+    /**
+     * Collects the outcomes of the calls of an endpoint, completed by any thread
+     */
+    private static final class Recorder {
+
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+        private final AtomicInteger errors = new AtomicInteger();
+
+        void record(long latencyNanos, boolean success) {
+            latencies.add(latencyNanos);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Summary summarize() {
+            List<Long> sorted = latencies.stream().sorted().toList();
+
+            return new Summary(
+                    sorted.size(),
+                    sorted.isEmpty() ? 0 : (double) errors.get() / sorted.size(),
+                    percentile(sorted, 0.5) / 1e6,
+                    percentile(sorted, 0.99) / 1e6
+            );
+        }
+
+        private static long percentile(List<Long> sorted, double quantile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+        }
+    }
+
+    @Value("${load.hydrometers:200}")
+    private int hydrometerCount;
+
+    @Value("${load.users:20}")
+    private int userCount;
+
+    /**
+     * posting interval of the hydrometers, much shorter than the usual 15 minutes to keep the test short
+     */
+    @Value("${load.interval-seconds:10}")
+    private int intervalSeconds;
+
+    @Value("${load.poll-seconds:5}")
+    private int pollSeconds;
+
+    @Value("${load.tick-seconds:10}")
+    private int tickSeconds;
+
+    @Value("${load.warmup-seconds:5}")
+    private int warmupSeconds;
+
+    @Value("${load.duration-seconds:30}")
+    private int durationSeconds;
+
+    @Value("${load.ramp-start:25}")
+    private int rampStart;
+
+    @Value("${load.ramp-limit:1600}")
+    private int rampLimit;
+
+    @Value("${load.ramp-step-seconds:3}")
+    private int rampStepSeconds;
+
+    @Value("${load.p99-budget-millis:250}")
+    private double p99BudgetMillis;
+
+    @Value("${load.max-error-rate:0.01}")
+    private double maxErrorRate;
+
+    /**
+     * path of the JSON report, no report is written if empty
+     */
+    @Value("${load.report:}")
+    private String reportPath;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ThermostatService thermostatService;
+
+    @Autowired
+    private ThermostatRepository thermostatRepository;
+
+    @Autowired
+    private HydrometerRepository hydrometerRepository;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final ExecutorService tickExecutor = Executors.newSingleThreadExecutor();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Random random = new Random(42);
+
+    @AfterEach
+    @Override
+    protected void tearDown() {
+        tickExecutor.shutdownNow();
+        thermostatRepository.deleteAllInBatch();
+        measurementRepository.deleteAll();
+        hydrometerRepository.deleteAllInBatch();
+        beerRepository.deleteAllInBatch();
+        super.tearDown();
+    }
+
+    @Test
+    void replayTraffic() throws Exception {
+        List<Brewer> brewers = createBrewers();
+
+        replay(steadyTraffic(brewers, Duration.ofSeconds(warmupSeconds)));
+        Map<String, Summary> steady = replay(steadyTraffic(brewers, Duration.ofSeconds(durationSeconds)));
+        Map<String, Integer> maxRates = findMaxRates(brewers);
+        report(steady, maxRates);
+
+        steady.forEach((endpoint, summary) -> Assertions.assertTrue(summary.errorRate() <= maxErrorRate, endpoint));
+    }
+
+    /**
+     * Helper method planning the calls of the hydrometers, the dashboards and the scheduler,
+     * the hydrometers and the dashboards start at random moments of their intervals
+     *
+     * @param brewers  brewers with their beers and hydrometers
+     * @param duration duration of the traffic
+     * @return planned calls
+     */
+    private List<Call> steadyTraffic(List<Brewer> brewers, Duration duration) {
+        long end = duration.toNanos();
+        long interval = Duration.ofSeconds(intervalSeconds).toNanos();
+        long poll = Duration.ofSeconds(pollSeconds).toNanos();
+
+        List<Call> calls = new ArrayList<>();
+        for (Brewer brewer : brewers) {
+            for (String token : brewer.tokens()) {
+                for (long at = (long) (random.nextDouble() * interval); at < end; at += interval) {
+                    calls.add(new Call(at, INGESTION, () -> postReading(token)));
+                }
+            }
+
+            for (long at = (long) (random.nextDouble() * poll); at < end; at += poll) {
+                calls.add(new Call(at, BEERS, () -> get("/api/v1/beers", brewer.authorization())));
+                if (!brewer.beerIds().isEmpty()) {
+                    UUID beerId = brewer.beerIds().get(random.nextInt(brewer.beerIds().size()));
+                    calls.add(new Call(at, MEASUREMENTS, () -> get("/api/v1/measurements?limit=50&beerId=" + beerId, brewer.authorization())));
+                    calls.add(new Call(at, STATS, () -> get("/api/v1/beers/%s/fermentation-stats".formatted(beerId), brewer.authorization())));
+                }
+            }
+        }
+
+        for (long at = 0; at < end; at += Duration.ofSeconds(tickSeconds).toNanos()) {
+            // ticks wait for the previous one to finish as the scheduled ones do
+            calls.add(new Call(at, TICK, () -> CompletableFuture.supplyAsync(() -> {
+                thermostatService.scheduleThermostats();
+                return true;
+            }, tickExecutor)));
+        }
+
+        return calls;
+    }
+
+    /**
+     * Helper method loading every endpoint alone with request rates doubled from the ramp start
+     * until the latency budget or the error rate is exceeded
+     *
+     * @param brewers brewers with their beers and hydrometers
+     * @return highest request rate per second served within the limits by endpoint, 0 if none was
+     */
+    private Map<String, Integer> findMaxRates(List<Brewer> brewers) throws InterruptedException {
+        List<String> tokens = brewers.stream().flatMap(brewer -> brewer.tokens().stream()).toList();
+        // beer with the brewer authorized to read it
+        List<Map.Entry<UUID, String>> beers = brewers.stream()
+                .flatMap(brewer -> brewer.beerIds().stream().map(id -> Map.entry(id, brewer.authorization())))
+                .toList();
+
+        Map<String, IntFunction<CompletableFuture<Boolean>>> endpoints = new LinkedHashMap<>();
+        endpoints.put(INGESTION, i -> postReading(tokens.get(i % tokens.size())));
+        endpoints.put(BEERS, i -> get("/api/v1/beers", brewers.get(i % brewers.size()).authorization()));
+        endpoints.put(MEASUREMENTS, i -> {
+            Map.Entry<UUID, String> beer = beers.get(i % beers.size());
+            return get("/api/v1/measurements?limit=50&beerId=" + beer.getKey(), beer.getValue());
+        });
+        endpoints.put(STATS, i -> {
+            Map.Entry<UUID, String> beer = beers.get(i % beers.size());
+            return get("/api/v1/beers/%s/fermentation-stats".formatted(beer.getKey()), beer.getValue());
+        });
+
+        Map<String, Integer> maxRates = new LinkedHashMap<>();
+        for (Map.Entry<String, IntFunction<CompletableFuture<Boolean>>> endpoint : endpoints.entrySet()) {
+            int maxRate = 0;
+            for (int rate = rampStart; rate <= rampLimit; rate *= 2) {
+                List<Call> calls = new ArrayList<>();
+                for (int i = 0; i < rate * rampStepSeconds; i++) {
+                    int index = i;
+                    calls.add(new Call(1_000_000_000L * i / rate, endpoint.getKey(), () -> endpoint.getValue().apply(index)));
+                }
+
+                Summary summary = replay(calls).get(endpoint.getKey());
+                logger.info(
+                        "{} at {} per second: error rate {}, p99 {} ms",
+                        endpoint.getKey(),
+                        rate,
+                        summary.errorRate(),
+                        summary.p99Millis()
+                );
+                if (summary.errorRate() > maxErrorRate || summary.p99Millis() > p99BudgetMillis) {
+                    break;
+                }
+                maxRate = rate;
+            }
+            maxRates.put(endpoint.getKey(), maxRate);
+        }
+
+        return maxRates;
+    }
+
+    /**
+     * Helper method starting the calls when they are due, regardless of the calls still in progress
+     *
+     * @param calls planned calls
+     * @return outcomes of the calls by endpoint
+     */
+    private Map<String, Summary> replay(List<Call> calls) throws InterruptedException {
+        List<Call> due = new ArrayList<>(calls);
+        due.sort(Comparator.comparingLong(Call::offsetNanos));
+
+        Map<String, Recorder> recorders = new TreeMap<>();
+        CountDownLatch completed = new CountDownLatch(due.size());
+        long start = System.nanoTime();
+        for (Call call : due) {
+            long dueAt = start + call.offsetNanos();
+            while (System.nanoTime() < dueAt) {
+                LockSupport.parkNanos(dueAt - System.nanoTime());
+            }
+
+            Recorder recorder = recorders.computeIfAbsent(call.endpoint(), endpoint -> new Recorder());
+            call.call().get()
+                    .exceptionally(e -> false)
+                    .thenAccept(success -> {
+                        recorder.record(System.nanoTime() - dueAt, success);
+                        completed.countDown();
+                    });
+        }
+        Assertions.assertTrue(completed.await(COMPLETION_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS));
+
+        Map<String, Summary> summaries = new TreeMap<>();
+        recorders.forEach((endpoint, recorder) -> summaries.put(endpoint, recorder.summarize()));
+
+        return summaries;
+    }
+
+    /**
+     * Helper method posting a reading of a hydrometer around the target temperature of its fermenter
+     *
+     * @param token token of the hydrometer
+     * @return completed with whether the reading was stored
+     */
+    private CompletableFuture<Boolean> postReading(String token) {
+        String reading = String.format(
+                Locale.ROOT,
+                READING,
+                token,
+                18 + ThreadLocalRandom.current().nextDouble() * 4,
+                intervalSeconds
+        );
+
+        return send(
+                HttpRequest.newBuilder(URI.create("http://localhost:%d/api/v1/measurements".formatted(port)))
+                        .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofString(reading)),
+                201
+        );
+    }
+
+    /**
+     * @param path          path and query of the resource
+     * @param authorization Authorization header of the user
+     * @return completed with whether the resource was read
+     */
+    private CompletableFuture<Boolean> get(String path, String authorization) {
+        return send(
+                HttpRequest.newBuilder(URI.create("http://localhost:%d%s".formatted(port, path)))
+                        .header(AUTHORIZATION, authorization)
+                        .GET(),
+                200
+        );
+    }
+
+    private CompletableFuture<Boolean> send(HttpRequest.Builder request, int expectedStatus) {
+        return client.sendAsync(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == expectedStatus);
+    }
+
+    /**
+     * Helper method storing the brewers with their sessions and the fermenters spread among them.
+     * Every fermenter has a fermenting beer, a hydrometer and a thermostat, heating and cooling fermenters
+     * and the control modes alternate and the thermostats of a brewer share a meross account.
+     *
+     * @return stored brewers
+     */
+    private List<Brewer> createBrewers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            User user = createDummyUser();
+            user.setEmail("brewer%d@mail.com".formatted(i));
+            user.setUsername("brewer%d".formatted(i));
+            users.add(user);
+        }
+        users = userRepository.saveAll(users);
+
+        List<UserSession> sessions = new ArrayList<>();
+        for (User user : users) {
+            UserSession session = new UserSession();
+            session.setUser(user);
+            session.setToken(user.getUsername() + "-token");
+            session.setExpiresAt(LocalDateTime.now().plusDays(1));
+            sessions.add(session);
+        }
+        sessionRepository.saveAll(sessions);
+
+        List<Beer> beers = new ArrayList<>();
+        List<Hydrometer> hydrometers = new ArrayList<>();
+        List<Thermostat> thermostats = new ArrayList<>();
+        ThermostatControlModeEnum[] modes = ThermostatControlModeEnum.values();
+        for (int i = 0; i < hydrometerCount; i++) {
+            User owner = users.get(i % users.size());
+            boolean heating = i % 2 == 0;
+
+            Beer beer = new Beer();
+            beer.setName("Beer %d".formatted(i));
+            beer.setCreatedBy(owner);
+            beer.setState(BrewStateEnum.FERMENTING);
+            beer.setFermentationTemperatureThreshold(BigDecimal.valueOf(20));
+            beer.setCreatedAt(LocalDateTime.now());
+            beer.setUpdatedAt(LocalDateTime.now());
+            beers.add(beer);
+
+            Hydrometer hydrometer = new Hydrometer();
+            hydrometer.setName("iSpindel %d".formatted(i));
+            hydrometer.setToken("fermenter-%d".formatted(i));
+            hydrometer.setIsActive(true);
+            hydrometer.setAssignedBeer(beer);
+            hydrometer.setCreatedBy(owner);
+            hydrometer.setCreatedAt(LocalDateTime.now());
+            hydrometer.setUpdatedAt(LocalDateTime.now());
+            hydrometers.add(hydrometer);
+
+            Thermostat thermostat = new Thermostat();
+            thermostat.setName("Thermostat %d".formatted(i));
+            thermostat.setDeviceName("Plug %d".formatted(i));
+            thermostat.setEmail(owner.getEmail());
+            thermostat.setPassword("mypass");
+            thermostat.setIsHeating(heating);
+            thermostat.setIsActive(true);
+            thermostat.setIsPoweredOn(false);
+            thermostat.setState(ThermostatStateEnum.READY);
+            thermostat.setControlMode(modes[(i / 2) % modes.length]);
+            thermostat.setHydrometer(hydrometer);
+            thermostat.setCreatedBy(owner);
+            thermostat.setCreatedAt(LocalDateTime.now());
+            thermostat.setUpdatedAt(LocalDateTime.now());
+            thermostats.add(thermostat);
+        }
+        beerRepository.saveAll(beers);
+        hydrometerRepository.saveAll(hydrometers);
+        thermostatRepository.saveAll(thermostats);
+
+        List<Brewer> brewers = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            List<UUID> beerIds = new ArrayList<>();
+            List<String> tokens = new ArrayList<>();
+            for (int j = i; j < hydrometers.size(); j += users.size()) {
+                beerIds.add(beers.get(j).getId());
+                tokens.add(hydrometers.get(j).getToken());
+            }
+            brewers.add(new Brewer("Bearer " + sessions.get(i).getToken(), beerIds, tokens));
+        }
+
+        return brewers;
+    }
+
+    /**
+     * Helper method logging the outcomes and writing them to the JSON report if its path is set
+     *
+     * @param steady   outcomes of the steady traffic by endpoint
+     * @param maxRates highest sustainable request rates by endpoint
+     */
+    private void report(Map<String, Summary> steady, Map<String, Integer> maxRates) throws IOException {
+        Map<String, Object> endpoints = new TreeMap<>();
+        steady.forEach((endpoint, summary) -> {
+            logger.info(
+                    "{}: {} calls, error rate {}, p50 {} ms, p99 {} ms",
+                    endpoint,
+                    summary.calls(),
+                    summary.errorRate(),
+                    summary.p50Millis(),
+                    summary.p99Millis()
+            );
+
+            Map<String, Object> outcome = new LinkedHashMap<>();
+            outcome.put("steady", summary);
+            outcome.put("maxRatePerSecond", maxRates.get(endpoint));
+            endpoints.put(endpoint, outcome);
+        });
+
+        maxRates.forEach((endpoint, rate) -> logger.info("{}: max sustainable rate {} per second", endpoint, rate));
+
+        if (reportPath.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("hydrometers", hydrometerCount);
+        report.put("users", userCount);
+        report.put("intervalSeconds", intervalSeconds);
+        report.put("durationSeconds", durationSeconds);
+        report.put("p99BudgetMillis", p99BudgetMillis);
+        report.put("maxErrorRate", maxErrorRate);
+        report.put("endpoints", endpoints);
+
+        Path path = Path.of(reportPath);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+        logger.info("Load test report written to {}", path.toAbsolutePath());
+    }
+}
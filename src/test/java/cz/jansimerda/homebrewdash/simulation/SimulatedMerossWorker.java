@@ -0,0 +1,152 @@
+package cz.jansimerda.homebrewdash.simulation;
+
+import cz.jansimerda.homebrewdash.business.meross.MerossWorker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MerossWorker simulating the Meross cloud, devices are switched in memory after a random latency.
+ * Commands are validated the same way as by the internal script and failures are injected as its exit codes:
+ * offline devices answer 106 and any command fails with a random known exit code with the given probability.
+ */
+public class SimulatedMerossWorker implements MerossWorker {
+
+    /**
+     * known failures of the internal script, see meross.py
+     */
+    public static final List<Integer> FAILURE_EXIT_CODES = List.of(100, 101, 102, 103, 104, 105, 106);
+
+    private final Duration minLatency;
+
+    private final Duration maxLatency;
+
+    /**
+     * probability of a command failing with a random known exit code
+     */
+    private final double failureRate;
+
+    /**
+     * source of the latencies and failures, guarded by itself
+     */
+    private final Random random;
+
+    private final Set<String> offlineDevices = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Boolean> poweredOnDevices = new ConcurrentHashMap<>();
+
+    /**
+     * System.nanoTime() of the latest successful command of every device
+     */
+    private final Map<String, Long> switchedAt = new ConcurrentHashMap<>();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public SimulatedMerossWorker(Duration minLatency, Duration maxLatency, double failureRate, long seed) {
+        this.minLatency = minLatency;
+        this.maxLatency = maxLatency;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Result execute(String email, String password, String deviceName, String command) {
+        calls.incrementAndGet();
+
+        long latencyNanos;
+        boolean injectedFailure;
+        int injectedExitCode;
+        synchronized (random) {
+            latencyNanos = minLatency.toNanos()
+                    + (long) (random.nextDouble() * (maxLatency.toNanos() - minLatency.toNanos()));
+            injectedFailure = random.nextDouble() < failureRate;
+            injectedExitCode = FAILURE_EXIT_CODES.get(random.nextInt(FAILURE_EXIT_CODES.size()));
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fail(1, "Interrupted");
+        }
+
+        if (email == null || email.isBlank() || password == null || password.isBlank()) {
+            return fail(100, "Email or password is missing");
+        }
+        if (deviceName == null || deviceName.isBlank()) {
+            return fail(101, "Device name is missing");
+        }
+        if (command == null || command.isBlank()) {
+            return fail(102, "Command is missing");
+        }
+        if (!command.equals("ON") && !command.equals("OFF")) {
+            return fail(103, "Command %s is not valid".formatted(command));
+        }
+        if (offlineDevices.contains(deviceName)) {
+            return fail(106, "Device %s is offline".formatted(deviceName));
+        }
+        if (injectedFailure) {
+            return fail(injectedExitCode, "Injected failure");
+        }
+
+        poweredOnDevices.put(deviceName, command.equals("ON"));
+        switchedAt.put(deviceName, System.nanoTime());
+
+        return new Result(0, "OK");
+    }
+
+    /**
+     * @param deviceName name of the device
+     * @param offline    whether the device is offline from now on
+     */
+    public void setOffline(String deviceName, boolean offline) {
+        if (offline) {
+            offlineDevices.add(deviceName);
+        } else {
+            offlineDevices.remove(deviceName);
+        }
+    }
+
+    /**
+     * @param deviceName name of the device
+     * @return whether the device is powered on, devices never switched are off
+     */
+    public boolean isPoweredOn(String deviceName) {
+        return poweredOnDevices.getOrDefault(deviceName, false);
+    }
+
+    /**
+     * @param deviceName name of the device
+     * @return System.nanoTime() of the latest successful command of the device
+     */
+    public Optional<Long> getSwitchedAt(String deviceName) {
+        return Optional.ofNullable(switchedAt.get(deviceName));
+    }
+
+    /**
+     * @return number of commands received, including the failed ones
+     */
+    public int getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return number of commands failed
+     */
+    public int getFailures() {
+        return failures.get();
+    }
+
+    private Result fail(int exitCode, String output) {
+        failures.incrementAndGet();
+        return new Result(exitCode, output);
+    }
+}
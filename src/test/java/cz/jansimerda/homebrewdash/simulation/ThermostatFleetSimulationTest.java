@@ -0,0 +1,400 @@
+package cz.jansimerda.homebrewdash.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.jansimerda.homebrewdash.business.ThermostatService;
+import cz.jansimerda.homebrewdash.business.meross.MerossWorker;
+import cz.jansimerda.homebrewdash.model.Beer;
+import cz.jansimerda.homebrewdash.model.ControllerState;
+import cz.jansimerda.homebrewdash.model.Hydrometer;
+import cz.jansimerda.homebrewdash.model.Thermostat;
+import cz.jansimerda.homebrewdash.model.enums.BrewStateEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatControlModeEnum;
+import cz.jansimerda.homebrewdash.model.enums.ThermostatStateEnum;
+import cz.jansimerda.homebrewdash.repository.BeerRepository;
+import cz.jansimerda.homebrewdash.repository.HydrometerRepository;
+import cz.jansimerda.homebrewdash.repository.MeasurementRepository;
+import cz.jansimerda.homebrewdash.repository.ThermostatRepository;
+import cz.jansimerda.homebrewdash.rest.controller.AbstractControllerTest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Drives a fleet of virtual fermenters through the real measurement ingestion and thermostat scheduling,
+ * only the Meross cloud is simulated. Every tick stands for five minutes: the clock of the thermostats
+ * is moved forward, every hydrometer posts a measurement, the scheduler runs and the switching triggered
+ * by the measurements is awaited. Decision latency (from posting a measurement until the device is switched),
+ * database statements and Meross calls are reported per tick.
+ * Run by the simulationTest task, thousands of fermenters are simulated by setting
+ * the SIMULATION_FERMENTERS and SIMULATION_TICKS environment variables or the -Psimulation.* properties.
+ */
+@Tag("simulation")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureMockMvc
+class ThermostatFleetSimulationTest extends AbstractControllerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThermostatFleetSimulationTest.class);
+
+    private static final Duration TICK = Duration.ofMinutes(5);
+
+    /**
+     * number of fermenters sharing a single meross account
+     */
+    private static final int FERMENTERS_PER_ACCOUNT = 10;
+
+    /**
+     * every n-th device is offline for the whole simulation
+     */
+    private static final int OFFLINE_DEVICE_EVERY = 50;
+
+    /**
+     * time without any switching after which the switching triggered by the measurements is considered finished
+     */
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(200);
+
+    /**
+     * maximum database statements per fermenter in a tick, i.e. ingesting a measurement and switching a thermostat
+     */
+    private static final long STATEMENTS_PER_FERMENTER = 20;
+
+    @TestConfiguration
+    static class SimulationConfiguration {
+
+        @Bean
+        @Primary
+        SimulatedMerossWorker simulatedMerossWorker() {
+            return new SimulatedMerossWorker(Duration.ofMillis(2), Duration.ofMillis(20), 0.01, 42);
+        }
+    }
+
+    /**
+     * Metrics of a single tick
+     *
+     * @param millis          duration of the tick
+     * @param statements      database statements prepared during the tick
+     * @param merossCalls     commands sent to the meross cloud during the tick
+     * @param latencyNanos    decision latencies of the devices switched during the tick
+     */
+    private record Tick(long millis, long statements, int merossCalls, List<Long> latencyNanos) {
+    }
+
+    @Value("${simulation.fermenters:200}")
+    private int fermenterCount;
+
+    @Value("${simulation.ticks:4}")
+    private int tickCount;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ThermostatService thermostatService;
+
+    @Autowired
+    private SimulatedMerossWorker merossWorker;
+
+    @Autowired
+    private MerossWorker activeWorker;
+
+    @Autowired
+    private ThermostatRepository thermostatRepository;
+
+    @Autowired
+    private HydrometerRepository hydrometerRepository;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private MeasurementRepository measurementRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    @Override
+    protected void tearDown() {
+        thermostatRepository.deleteAllInBatch();
+        measurementRepository.deleteAll();
+        hydrometerRepository.deleteAllInBatch();
+        beerRepository.deleteAllInBatch();
+        super.tearDown();
+    }
+
+    @Test
+    void simulateFleet() throws Exception {
+        Assertions.assertSame(merossWorker, activeWorker);
+        List<VirtualFermenter> fermenters = createFleet();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Tick> ticks = new ArrayList<>();
+        for (int i = 0; i < tickCount; i++) {
+            advanceClock();
+            for (VirtualFermenter fermenter : fermenters) {
+                fermenter.advance((int) TICK.toMinutes(), merossWorker.isPoweredOn(fermenter.getDeviceName()));
+            }
+
+            long statementsBefore = statistics.getPrepareStatementCount();
+            int callsBefore = merossWorker.getCalls();
+            long start = System.nanoTime();
+            Map<VirtualFermenter, Long> postedAt = new HashMap<>();
+            for (VirtualFermenter fermenter : fermenters) {
+                postedAt.put(fermenter, System.nanoTime());
+                postMeasurement(fermenter);
+            }
+            thermostatService.scheduleThermostats();
+            awaitSwitching();
+            long millis = Duration.ofNanos(System.nanoTime() - start - QUIET_PERIOD.toNanos()).toMillis();
+
+            List<Long> latencies = new ArrayList<>();
+            for (VirtualFermenter fermenter : fermenters) {
+                merossWorker.getSwitchedAt(fermenter.getDeviceName())
+                        .filter(at -> at > postedAt.get(fermenter))
+                        .ifPresent(at -> latencies.add(at - postedAt.get(fermenter)));
+            }
+            Tick tick = new Tick(
+                    millis,
+                    statistics.getPrepareStatementCount() - statementsBefore,
+                    merossWorker.getCalls() - callsBefore,
+                    latencies
+            );
+            ticks.add(tick);
+            log(i + 1, tick);
+        }
+
+        assertConsistent(fermenters);
+        for (int i = 0; i < ticks.size(); i++) {
+            Tick tick = ticks.get(i);
+            // every thermostat is switched at most once per tick
+            Assertions.assertTrue(tick.merossCalls() <= fermenters.size(), "Tick %d".formatted(i + 1));
+            // guards the statements per fermenter, e.g. against associations loaded one by one
+            Assertions.assertTrue(
+                    tick.statements() <= STATEMENTS_PER_FERMENTER * fermenters.size(),
+                    "Tick %d: %d statements".formatted(i + 1, tick.statements())
+            );
+        }
+    }
+
+    /**
+     * Helper method asserting the state of every thermostat matches its device and that the thermostats
+     * of the offline devices have never been activated
+     *
+     * @param fermenters simulated fermenters
+     */
+    private void assertConsistent(List<VirtualFermenter> fermenters) {
+        Map<String, Thermostat> thermostats = new HashMap<>();
+        thermostatRepository.findAll().forEach(t -> thermostats.put(t.getDeviceName(), t));
+
+        int errors = 0;
+        for (int i = 0; i < fermenters.size(); i++) {
+            Thermostat thermostat = thermostats.get(fermenters.get(i).getDeviceName());
+            if (thermostat.getState() == ThermostatStateEnum.SERVICE_ERROR) {
+                errors++;
+            }
+            if (i % OFFLINE_DEVICE_EVERY == 0) {
+                Assertions.assertNotEquals(ThermostatStateEnum.ACTIVE, thermostat.getState());
+            }
+            if (thermostat.getState() == ThermostatStateEnum.ACTIVE) {
+                Assertions.assertEquals(
+                        merossWorker.isPoweredOn(thermostat.getDeviceName()),
+                        thermostat.isPoweredOn(),
+                        thermostat.getDeviceName()
+                );
+            }
+        }
+        Assertions.assertTrue(errors > 0);
+        logger.info(
+                "Simulated {} fermenters, {} thermostats in service error, {} of {} meross calls failed",
+                fermenters.size(),
+                errors,
+                merossWorker.getFailures(),
+                merossWorker.getCalls()
+        );
+    }
+
+    /**
+     * Helper method moving the clock of the thermostats one tick forward, i.e. moving their timestamps back,
+     * so the switching delays pass without waiting for them
+     */
+    private void advanceClock() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Thermostat> thermostats = thermostatRepository.findAll();
+            for (Thermostat thermostat : thermostats) {
+                thermostat.getLastSuccessAt().ifPresent(at -> thermostat.setLastSuccessAt(at.minus(TICK)));
+                thermostat.getLastFailAt().ifPresent(at -> thermostat.setLastFailAt(at.minus(TICK)));
+                ControllerState state = thermostat.getControllerState();
+                state.getControlledAt().ifPresent(at -> state.setControlledAt(at.minus(TICK)));
+                state.getCycleStartedAt().ifPresent(at -> state.setCycleStartedAt(at.minus(TICK)));
+            }
+            thermostatRepository.saveAll(thermostats);
+        });
+    }
+
+    /**
+     * Helper method waiting until the switching triggered by the measurements is finished,
+     * i.e. no device has been switched for the quiet period
+     */
+    private void awaitSwitching() throws InterruptedException {
+        int calls = -1;
+        while (calls != merossWorker.getCalls()) {
+            calls = merossWorker.getCalls();
+            Thread.sleep(QUIET_PERIOD.toMillis());
+        }
+    }
+
+    /**
+     * Helper method posting the current temperature of the fermenter through the API as its hydrometer would
+     *
+     * @param fermenter simulated fermenter
+     */
+    private void postMeasurement(VirtualFermenter fermenter) throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("token", fermenter.getToken());
+        data.put("angle", 58.9);
+        data.put("temperature", fermenter.readTemperature());
+        data.put("temp_units", "C");
+        data.put("battery", 3.9);
+        data.put("gravity", 1.045);
+        data.put("interval", 300);
+        data.put("RSSI", -70);
+
+        mockMvc.perform(
+                        MockMvcRequestBuilders
+                                .post("/api/v1/measurements")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(data))
+                )
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    /**
+     * Helper method storing a fermenting beer, a hydrometer and a thermostat of every fermenter.
+     * Heating and cooling fermenters and the control modes alternate, the fermenters start
+     * up to two degrees off their target temperature.
+     *
+     * @return simulated fermenters
+     */
+    private List<VirtualFermenter> createFleet() {
+        Random random = new Random(42);
+        List<Beer> beers = new ArrayList<>();
+        List<Hydrometer> hydrometers = new ArrayList<>();
+        List<Thermostat> thermostats = new ArrayList<>();
+        List<VirtualFermenter> fermenters = new ArrayList<>();
+        ThermostatControlModeEnum[] modes = ThermostatControlModeEnum.values();
+        for (int i = 0; i < fermenterCount; i++) {
+            boolean heating = i % 2 == 0;
+            double target = heating ? 20 : 12;
+            String email = "brewer%d@mail.com".formatted(i / FERMENTERS_PER_ACCOUNT);
+            String deviceName = "Plug %d".formatted(i);
+
+            Beer beer = new Beer();
+            beer.setName("Beer %d".formatted(i));
+            beer.setCreatedBy(getUser());
+            beer.setState(BrewStateEnum.FERMENTING);
+            beer.setFermentationTemperatureThreshold(BigDecimal.valueOf(target));
+            beer.setCreatedAt(LocalDateTime.now());
+            beer.setUpdatedAt(LocalDateTime.now());
+            beers.add(beer);
+
+            Hydrometer hydrometer = new Hydrometer();
+            hydrometer.setName("iSpindel %d".formatted(i));
+            hydrometer.setToken("fermenter-%d".formatted(i));
+            hydrometer.setIsActive(true);
+            hydrometer.setAssignedBeer(beer);
+            hydrometer.setCreatedBy(getUser());
+            hydrometer.setCreatedAt(LocalDateTime.now());
+            hydrometer.setUpdatedAt(LocalDateTime.now());
+            hydrometers.add(hydrometer);
+
+            Thermostat thermostat = new Thermostat();
+            thermostat.setName("Thermostat %d".formatted(i));
+            thermostat.setDeviceName(deviceName);
+            thermostat.setEmail(email);
+            thermostat.setPassword("mypass");
+            thermostat.setIsHeating(heating);
+            thermostat.setIsActive(true);
+            thermostat.setIsPoweredOn(false);
+            thermostat.setState(ThermostatStateEnum.READY);
+            thermostat.setControlMode(modes[(i / 2) % modes.length]);
+            thermostat.setHydrometer(hydrometer);
+            thermostat.setCreatedBy(getUser());
+            thermostat.setCreatedAt(LocalDateTime.now());
+            thermostat.setUpdatedAt(LocalDateTime.now());
+            thermostats.add(thermostat);
+
+            merossWorker.setOffline(deviceName, i % OFFLINE_DEVICE_EVERY == 0);
+            fermenters.add(new VirtualFermenter(
+                    hydrometer.getToken(),
+                    deviceName,
+                    heating,
+                    heating ? 16 : 22,
+                    target + (random.nextDouble() * 4 - 2)
+            ));
+        }
+        beerRepository.saveAll(beers);
+        hydrometerRepository.saveAll(hydrometers);
+        thermostatRepository.saveAll(thermostats);
+
+        return fermenters;
+    }
+
+    private void log(int number, Tick tick) {
+        List<Long> latencies = tick.latencyNanos().stream().sorted().toList();
+        logger.info(
+                "Tick {}: {} ms, {} statements, {} meross calls, {} devices switched, decision latency p50 {} ms, p99 {} ms",
+                number,
+                tick.millis(),
+                tick.statements(),
+                tick.merossCalls(),
+                latencies.size(),
+                percentile(latencies, 0.5) / 1_000_000,
+                percentile(latencies, 0.99) / 1_000_000
+        );
+    }
+
+    /**
+     * @param sorted   sorted values
+     * @param quantile quantile from 0 to 1
+     * @return value at the quantile, 0 if there are no values
+     */
+    private long percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+    }
+}
@@ -0,0 +1,83 @@
+package cz.jansimerda.homebrewdash.simulation;
+
+import cz.jansimerda.homebrewdash.helpers.DecimalHelper;
+
+/**
+ * Fermenter with a hydrometer and a Meross plug of its own. The wort loses heat to the ambient air
+ * proportionally to the temperature difference and the device reaches its full power only gradually.
+ */
+public class VirtualFermenter {
+
+    /**
+     * hours in which the difference of the wort and ambient temperature drops to about a third
+     */
+    private static final double AMBIENT_TIME_CONSTANT_HOURS = 10;
+
+    /**
+     * hours in which the device gets to about two thirds of its power
+     */
+    private static final double DEVICE_TIME_CONSTANT_HOURS = 0.5;
+
+    /**
+     * temperature change per hour by the device running at full power
+     */
+    private static final double DEVICE_POWER = 2;
+
+    private static final int SENSOR_SCALE = 2;
+
+    private final String token;
+
+    private final String deviceName;
+
+    private final boolean heating;
+
+    private final double ambient;
+
+    private double temperature;
+
+    private double devicePower;
+
+    public VirtualFermenter(
+            String token,
+            String deviceName,
+            boolean heating,
+            double ambient,
+            double temperature
+    ) {
+        this.token = token;
+        this.deviceName = deviceName;
+        this.heating = heating;
+        this.ambient = ambient;
+        this.temperature = temperature;
+    }
+
+    /**
+     * Advances the thermal model by given number of minutes
+     *
+     * @param minutes   minutes to be simulated
+     * @param poweredOn whether the device is powered on during them
+     */
+    public void advance(int minutes, boolean poweredOn) {
+        double stepHours = 1 / 60d;
+        double target = poweredOn ? (heating ? DEVICE_POWER : -DEVICE_POWER) : 0;
+        for (int i = 0; i < minutes; i++) {
+            devicePower += (target - devicePower) * stepHours / DEVICE_TIME_CONSTANT_HOURS;
+            temperature += ((ambient - temperature) / AMBIENT_TIME_CONSTANT_HOURS + devicePower) * stepHours;
+        }
+    }
+
+    /**
+     * @return temperature as read by the hydrometer
+     */
+    public double readTemperature() {
+        return DecimalHelper.round(temperature, SENSOR_SCALE);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+}